@@ -3,6 +3,7 @@ plugins {
     alias(libs.plugins.compose.compiler)
     alias(libs.plugins.googleServices)
     alias(libs.plugins.kotlinSerialization)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -36,6 +37,24 @@ android {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+
+    // Benchmark-only code, such as the activity seeding test data, is added to the build types
+    // created by the baseline profile plugin for the :benchmark module, never to debug or release
+    sourceSets.matching { it.name == "benchmarkRelease" || it.name == "nonMinifiedRelease" }.configureEach {
+        kotlin.srcDir("src/benchmark/kotlin")
+        res.srcDir("src/benchmark/res")
+        manifest.srcFile("src/benchmark/AndroidManifest.xml")
+    }
+}
+
+// Compose compiler stability reports and metrics, written to build/compose_compiler
+// when building with -PcomposeCompilerReports=true
+composeCompiler {
+    if (project.findProperty("composeCompilerReports") == "true") {
+        val outputDirectory = layout.buildDirectory.dir("compose_compiler")
+        reportsDestination = outputDirectory
+        metricsDestination = outputDirectory
+    }
 }
 
 dependencies {
@@ -69,6 +88,13 @@ dependencies {
 
     // ViewModel
     implementation(libs.androidx.lifecycle.viewmodel.compose)
+    implementation(libs.androidx.lifecycle.process)
+
+    // Typed user preferences
+    implementation(libs.androidx.datastore)
+
+    // Background storage maintenance
+    implementation(libs.androidx.work.runtime.ktx)
 
     // HTTP client for reverse geocoding API calls
     implementation(libs.ktor.client.cio)
@@ -88,4 +114,20 @@ dependencies {
 
     // Biometric
     implementation(libs.androidx.biometric)
+
+    // Installs the baseline profile generated by the :benchmark module
+    implementation(libs.androidx.profileinstaller)
+    baselineProfile(project(":benchmark"))
+
+    // Unit tests
+    testImplementation(libs.junit)
+    testImplementation(libs.kotlinx.coroutines.test)
+    testImplementation(libs.ktor.client.mock)
+
+    // Instrumented tests
+    androidTestImplementation(libs.androidx.junit)
+    androidTestImplementation(libs.androidx.test.runner)
+    androidTestImplementation(platform(libs.androidx.compose.bom))
+    androidTestImplementation(libs.androidx.compose.ui.test.junit4)
+    debugImplementation(libs.androidx.compose.ui.test.manifest)
 }
\ No newline at end of file
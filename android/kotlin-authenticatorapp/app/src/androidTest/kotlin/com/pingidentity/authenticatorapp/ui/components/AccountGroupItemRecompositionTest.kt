@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.ui.components
+
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.runtime.Composer
+import androidx.compose.runtime.CompositionTracer
+import androidx.compose.runtime.InternalComposeTracingApi
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.compose.ui.test.onNodeWithText
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.pingidentity.authenticatorapp.data.AccountGroup
+import com.pingidentity.mfa.oath.OathAlgorithm
+import com.pingidentity.mfa.oath.OathCodeInfo
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.oath.OathType
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Counts the recompositions of [AccountGroupItem] rows while their TOTP countdowns tick.
+ *
+ * The compositions are counted with a composition tracer, which sees every composable function and
+ * lambda run by the composer, so a state read anywhere in the row is counted, not only in the list item.
+ * The rows are composed as in the accounts screen: the item lambda reads the codes map and passes each
+ * row its own code, and every row shares the same clock.
+ */
+@OptIn(InternalComposeTracingApi::class)
+@RunWith(AndroidJUnit4::class)
+class AccountGroupItemRecompositionTest {
+
+    companion object {
+        private const val ITEM_FUNCTION = "com.pingidentity.authenticatorapp.ui.components.AccountGroupItem ("
+        private const val ITEM_SOURCE_FILE = "(AccountGroupItem.kt:"
+
+        // 10 s into both a 30 s and a 60 s period
+        private const val START_TIME_MILLIS = 1_800_000_010_000L
+        private const val NEXT_30_SECOND_PERIOD_MILLIS = START_TIME_MILLIS + 20_000L
+    }
+
+    @get:Rule
+    val composeTestRule = createComposeRule()
+
+    // Runs of the AccountGroupItem function, and of any function or lambda of its source file
+    private val itemRuns = AtomicInteger()
+    private val itemScopeRuns = AtomicInteger()
+
+    private val tracer = object : CompositionTracer {
+        override fun traceEventStart(key: Int, dirty1: Int, dirty2: Int, info: String) {
+            if (info.startsWith(ITEM_FUNCTION)) itemRuns.incrementAndGet()
+            if (info.contains(ITEM_SOURCE_FILE)) itemScopeRuns.incrementAndGet()
+        }
+
+        override fun traceEventEnd() = Unit
+
+        override fun isTraceInProgress() = true
+    }
+
+    private val credentials = listOf(
+        credential("row-0", periodSeconds = 30),
+        credential("row-1", periodSeconds = 30),
+        credential("row-2", periodSeconds = 60)
+    )
+    private val accountGroups = credentials.map { credential ->
+        AccountGroup(
+            issuer = credential.issuer,
+            accountName = credential.accountName,
+            displayIssuer = credential.issuer,
+            displayAccountName = credential.accountName,
+            oathCredentials = listOf(credential)
+        )
+    }
+
+    private val clock = CountdownClock(START_TIME_MILLIS)
+    private val codes = mutableStateOf(
+        mapOf(
+            "row-0" to code("111111", periodSeconds = 30),
+            "row-1" to code("222222", periodSeconds = 30),
+            "row-2" to code("333333", periodSeconds = 60)
+        )
+    )
+
+    private fun credential(id: String, periodSeconds: Int) = OathCredential(
+        id = id,
+        accountName = "$id@example.com",
+        issuer = "Issuer-$id",
+        oathType = OathType.TOTP,
+        oathAlgorithm = OathAlgorithm.SHA1,
+        digits = 6,
+        period = periodSeconds,
+        secret = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP"
+    )
+
+    private fun code(code: String, periodSeconds: Int) =
+        OathCodeInfo.forTotp(code = code, timeRemaining = periodSeconds, totalPeriod = periodSeconds)
+
+    @Before
+    fun setUp() {
+        Composer.setTracer(tracer)
+        composeTestRule.setContent {
+            MaterialTheme {
+                LazyColumn {
+                    items(accountGroups, key = { it.accountName }) { accountGroup ->
+                        AccountGroupItem(
+                            accountGroup = accountGroup,
+                            code = codes.value[accountGroup.oathCredentials.first().id],
+                            onRefreshCode = {},
+                            onItemClick = {},
+                            countdownClock = clock
+                        )
+                    }
+                }
+            }
+        }
+        composeTestRule.waitForIdle()
+        // Every row was composed, which also checks that the tracer sees the rows
+        assertTrue(itemRuns.get() >= accountGroups.size)
+    }
+
+    @After
+    fun tearDown() {
+        Composer.setTracer(null)
+    }
+
+    private fun setTime(timeMillis: Long) {
+        composeTestRule.runOnUiThread { clock.currentTimeMillis = timeMillis }
+        composeTestRule.waitForIdle()
+    }
+
+    @Test
+    fun tickDoesNotRecomposeAnyRow() {
+        val scopeRunsBefore = itemScopeRuns.get()
+
+        (1..3).forEach { second -> setTime(START_TIME_MILLIS + second * 1_000L) }
+
+        assertEquals(0, itemScopeRuns.get() - scopeRunsBefore)
+    }
+
+    @Test
+    fun periodBoundaryOnlyRecomposesRowsWhoseCodeChanged() {
+        val itemRunsBefore = itemRuns.get()
+
+        // The 30 s codes are renewed, the 60 s code keeps its instance
+        composeTestRule.runOnUiThread {
+            clock.currentTimeMillis = NEXT_30_SECOND_PERIOD_MILLIS
+            codes.value += mapOf(
+                "row-0" to code("444444", periodSeconds = 30),
+                "row-1" to code("555555", periodSeconds = 30)
+            )
+        }
+        composeTestRule.waitForIdle()
+
+        assertEquals(2, itemRuns.get() - itemRunsBefore)
+        composeTestRule.onNodeWithText("444444").assertExists()
+        composeTestRule.onNodeWithText("555555").assertExists()
+        composeTestRule.onNodeWithText("333333").assertExists()
+
+        // The next tick of the new period recomposes nothing
+        val scopeRunsAfterBoundary = itemScopeRuns.get()
+        setTime(NEXT_30_SECOND_PERIOD_MILLIS + 1_000L)
+        assertEquals(0, itemScopeRuns.get() - scopeRunsAfterBoundary)
+    }
+}
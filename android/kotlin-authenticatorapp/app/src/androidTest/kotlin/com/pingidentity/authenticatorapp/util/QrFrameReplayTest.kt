@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.util
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.google.android.gms.tasks.Tasks
+import com.google.mlkit.vision.barcode.BarcodeScanner
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.nio.ByteBuffer
+import kotlin.system.measureTimeMillis
+
+/**
+ * Replays the recorded camera frames of the `qr_frames` test assets through the QR scanning
+ * pipeline: the frame cropper, the scan throttle and the device's barcode scanner.
+ *
+ * Each frame is named after its capture time in milliseconds. The frames are 100 ms apart, and a
+ * registration QR code is in view from 500 to 1,900 ms, then again from 4,500 ms, longer than the
+ * duplicate window after it was last seen. Frames captured while the scanner is busy are dropped,
+ * as the camera would, so the replay times include the scanner latency measured on the device.
+ */
+@RunWith(AndroidJUnit4::class)
+class QrFrameReplayTest {
+
+    companion object {
+        private const val FRAMES_DIRECTORY = "qr_frames"
+        private const val EXPECTED_PAYLOAD =
+            "otpauth://totp/Example:replay.user@example.com?secret=JBSWY3DPEHPK3PXP&issuer=Example"
+        private const val FIRST_APPEARANCE_MS = 500L
+        private const val SECOND_APPEARANCE_MS = 4_500L
+        private const val MAX_TIME_TO_FIRST_DETECT_MS = 1_000L
+    }
+
+    /**
+     * A recorded camera frame, with its luminance plane as the camera would deliver it.
+     */
+    private class RecordedFrame(val timeMillis: Long, val width: Int, val height: Int, val luma: ByteBuffer)
+
+    /**
+     * A payload reported by the pipeline, at the time its scan ended.
+     */
+    private class Detection(val payload: String, val timeMillis: Long)
+
+    private class Replay(val detections: List<Detection>, val decodedFrames: Int)
+
+    private lateinit var frames: List<RecordedFrame>
+    private lateinit var scanner: BarcodeScanner
+
+    @Before
+    fun setUp() {
+        frames = loadFrames()
+        scanner = QrCodeAnalyzer.createScanner()
+    }
+
+    @After
+    fun tearDown() {
+        scanner.close()
+    }
+
+    @Test
+    fun firstDetectionIsWithinBudget() {
+        val replay = replay()
+
+        val first = replay.detections.first()
+        assertEquals(EXPECTED_PAYLOAD, first.payload)
+        val timeToFirstDetect = first.timeMillis - FIRST_APPEARANCE_MS
+        assertTrue(
+            "First detection after $timeToFirstDetect ms",
+            timeToFirstDetect in 0..MAX_TIME_TO_FIRST_DETECT_MS
+        )
+    }
+
+    @Test
+    fun codeInViewIsReportedOncePerAppearance() {
+        val replay = replay()
+
+        // The code is decoded in several frames, but only reported when it comes into view
+        assertTrue("Decoded in ${replay.decodedFrames} frames", replay.decodedFrames > replay.detections.size)
+        assertEquals(2, replay.detections.size)
+        assertTrue(replay.detections.all { it.payload == EXPECTED_PAYLOAD })
+        assertTrue(replay.detections[0].timeMillis < SECOND_APPEARANCE_MS)
+        assertTrue(replay.detections[1].timeMillis >= SECOND_APPEARANCE_MS)
+    }
+
+    private fun replay(): Replay {
+        val throttle = QrScanThrottle()
+        val cropper = QrFrameCropper()
+        // Warm up so the replay does not include loading the scanner model
+        scan(cropper, frames.first())
+
+        val detections = mutableListOf<Detection>()
+        var decodedFrames = 0
+        var busyUntil = 0L
+        for (frame in frames) {
+            if (frame.timeMillis < busyUntil || !throttle.shouldAnalyze(frame.timeMillis)) continue
+
+            val payload: String?
+            val latencyMillis = measureTimeMillis { payload = scan(cropper, frame) }
+            busyUntil = frame.timeMillis + latencyMillis
+            throttle.onFrameAnalyzed(frame.timeMillis, busyUntil)
+            if (payload == null) continue
+
+            decodedFrames++
+            if (throttle.accept(payload, busyUntil)) {
+                detections += Detection(payload, busyUntil)
+            }
+        }
+        return Replay(detections, decodedFrames)
+    }
+
+    private fun scan(cropper: QrFrameCropper, frame: RecordedFrame): String? {
+        val image = cropper.crop(frame.luma, frame.width, 1, frame.width, frame.height, 0)
+        return Tasks.await(scanner.process(image)).firstNotNullOfOrNull { barcode ->
+            barcode.rawValue?.takeIf { QrScanThrottle.isSupportedPayload(it) }
+        }
+    }
+
+    private fun loadFrames(): List<RecordedFrame> {
+        val assets = InstrumentationRegistry.getInstrumentation().context.assets
+        val names = assets.list(FRAMES_DIRECTORY).orEmpty().sorted()
+        check(names.isNotEmpty()) { "No recorded frames in $FRAMES_DIRECTORY" }
+        return names.map { name ->
+            val bitmap = assets.open("$FRAMES_DIRECTORY/$name").use { BitmapFactory.decodeStream(it) }
+            RecordedFrame(name.substringBefore('.').toLong(), bitmap.width, bitmap.height, lumaOf(bitmap))
+        }
+    }
+
+    /**
+     * Returns the luminance plane of a bitmap.
+     */
+    private fun lumaOf(bitmap: Bitmap): ByteBuffer {
+        val pixels = IntArray(bitmap.width * bitmap.height)
+        bitmap.getPixels(pixels, 0, bitmap.width, 0, 0, bitmap.width, bitmap.height)
+        val luma = ByteArray(pixels.size)
+        pixels.forEachIndexed { index, color ->
+            val red = (color shr 16) and 0xFF
+            val green = (color shr 8) and 0xFF
+            val blue = color and 0xFF
+            luma[index] = ((77 * red + 150 * green + 29 * blue) shr 8).toByte()
+        }
+        return ByteBuffer.wrap(luma)
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp
+
+import android.util.Base64
+import com.pingidentity.mfa.oath.OathAlgorithm
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.oath.OathType
+import com.pingidentity.mfa.push.PushCredential
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import java.security.SecureRandom
+import java.util.UUID
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Test data seeded by [TestDataSeedActivity] for the benchmarks.
+ * Only compiled into the build types used by the `:benchmark` module, never into debug or release builds.
+ */
+internal object BenchmarkTestData {
+
+    private const val SEED_SECRET = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP"
+    private const val SEED_SERVER_ENDPOINT = "https://test.example.com/push"
+    private const val CHALLENGE_LENGTH = 32
+
+    /**
+     * Creates OATH credentials for seeding benchmark data. The ids are stable, so seeding again
+     * only adds the credentials that are missing.
+     *
+     * @param count Number of credentials to create
+     */
+    fun createSeedOathCredentials(count: Int): List<OathCredential> {
+        return List(count) { index ->
+            OathCredential(
+                id = "seed-oath-$index",
+                accountName = "seed.user$index@example.com",
+                issuer = "SeedIssuer-$index",
+                oathType = OathType.TOTP,
+                oathAlgorithm = OathAlgorithm.SHA1,
+                digits = 6,
+                period = 30,
+                secret = SEED_SECRET
+            )
+        }
+    }
+
+    /**
+     * Creates Push credentials for seeding benchmark data. The ids are stable, so seeding again
+     * only adds the credentials that are missing.
+     *
+     * @param count Number of credentials to create
+     */
+    fun createSeedPushCredentials(count: Int): List<PushCredential> {
+        return List(count) { index ->
+            PushCredential(
+                id = "seed-push-$index",
+                accountName = "seed.push$index@example.com",
+                issuer = "SeedPushIssuer-$index",
+                userId = "seed-user-$index",
+                sharedSecret = Base64.encodeToString(SEED_SECRET.toByteArray(), Base64.NO_WRAP),
+                serverEndpoint = SEED_SERVER_ENDPOINT
+            )
+        }
+    }
+
+    /**
+     * Creates the data payload of a push authentication request for the given credential, as it
+     * would be delivered by FCM. The message is a JWT signed with the credential shared secret,
+     * so it can be processed by the Push client without any network access.
+     *
+     * @param credential Credential the request is addressed to
+     */
+    fun createSeedPushMessage(credential: PushCredential): Map<String, Any> {
+        val challenge = ByteArray(CHALLENGE_LENGTH).also { SecureRandom().nextBytes(it) }
+        val claims = buildJsonObject {
+            put("u", credential.id)
+            put("c", Base64.encodeToString(challenge, Base64.NO_WRAP))
+            put("l", Base64.encodeToString("amlbcookie=01".toByteArray(), Base64.NO_WRAP))
+            put("t", "120")
+            put("m", "Sign-in request from benchmark")
+            put("k", "default")
+        }
+        val header = encodeJwtPart("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".toByteArray())
+        val payload = encodeJwtPart(claims.toString().toByteArray())
+        val mac = Mac.getInstance("HmacSHA256")
+        mac.init(SecretKeySpec(Base64.decode(credential.sharedSecret, Base64.NO_WRAP), "HmacSHA256"))
+        val signature = encodeJwtPart(mac.doFinal("$header.$payload".toByteArray()))
+        return mapOf(
+            "messageId" to "seed-message-${UUID.randomUUID()}",
+            "message" to "$header.$payload.$signature"
+        )
+    }
+
+    private fun encodeJwtPart(bytes: ByteArray): String =
+        Base64.encodeToString(bytes, Base64.URL_SAFE or Base64.NO_WRAP or Base64.NO_PADDING)
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp
+
+import android.os.Bundle
+import androidx.activity.ComponentActivity
+import androidx.activity.compose.setContent
+import androidx.compose.foundation.layout.Box
+import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Surface
+import androidx.compose.material3.Text
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.lifecycle.lifecycleScope
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.ui.theme.PingIdentityAuthenticatorTheme
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * Seeds the app with test data created by [BenchmarkTestData], for the benchmarks of the
+ * `:benchmark` module. Seeding only adds the credentials that are missing, and works offline.
+ *
+ * The activity is only part of the build types used by the benchmarks. It requires the DUMP
+ * permission, so it can only be started from the shell (`am start`), which is how Macrobenchmark
+ * starts activities.
+ */
+class TestDataSeedActivity : ComponentActivity() {
+
+    private var status by mutableStateOf("")
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+
+        status = getString(R.string.test_data_seeding)
+        setContent {
+            PingIdentityAuthenticatorTheme {
+                Surface(
+                    modifier = Modifier.fillMaxSize(),
+                    color = MaterialTheme.colorScheme.background
+                ) {
+                    Box(contentAlignment = Alignment.Center) {
+                        Text(text = status)
+                    }
+                }
+            }
+        }
+
+        val oathCount = intent.getIntExtra(EXTRA_OATH_COUNT, 0)
+        val pushCount = intent.getIntExtra(EXTRA_PUSH_COUNT, 0)
+        val pendingNotification = intent.getBooleanExtra(EXTRA_PENDING_NOTIFICATION, false)
+
+        lifecycleScope.launch {
+            status = try {
+                withContext(Dispatchers.IO) {
+                    seed(oathCount, pushCount, pendingNotification)
+                }
+                getString(R.string.test_data_ready)
+            } catch (e: Exception) {
+                DiagnosticLogger.e("TestDataSeedActivity: Failed to seed test data", e)
+                getString(R.string.test_data_failed, e.message)
+            }
+        }
+    }
+
+    private suspend fun seed(oathCount: Int, pushCount: Int, pendingNotification: Boolean) {
+        if (oathCount > 0) {
+            val oathClient = AuthenticatorApp.getOathClient(application)
+            val existingIds = oathClient.getCredentials().getOrThrow().map { it.id }.toSet()
+            BenchmarkTestData.createSeedOathCredentials(oathCount)
+                .filter { it.id !in existingIds }
+                .forEach { oathClient.saveCredential(it).getOrThrow() }
+        }
+
+        if (pushCount > 0) {
+            val pushClient = AuthenticatorApp.getPushClient(application)
+            val existingIds = pushClient.getCredentials().getOrThrow().map { it.id }.toSet()
+            val credentials = BenchmarkTestData.createSeedPushCredentials(pushCount)
+            credentials
+                .filter { it.id !in existingIds }
+                .forEach { pushClient.saveCredential(it).getOrThrow() }
+
+            // Keep exactly one request pending for the approval journey
+            if (pendingNotification && pushClient.getPendingNotifications().getOrThrow().isEmpty()) {
+                pushClient.processNotification(BenchmarkTestData.createSeedPushMessage(credentials.first())).getOrThrow()
+            }
+        }
+
+        DiagnosticLogger.i("TestDataSeedActivity: Seeded $oathCount OATH and $pushCount Push credentials")
+    }
+
+    private companion object {
+        const val EXTRA_OATH_COUNT = "OATH_COUNT"
+        const val EXTRA_PUSH_COUNT = "PUSH_COUNT"
+        const val EXTRA_PENDING_NOTIFICATION = "PENDING_NOTIFICATION"
+    }
+}
@@ -8,10 +8,21 @@
 package com.pingidentity.authenticatorapp
 
 import android.app.Application
+import android.content.Context
+import coil.ImageLoader
+import coil.ImageLoaderFactory
 import com.google.firebase.FirebaseApp
 import com.google.firebase.messaging.FirebaseMessaging
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.IncrementalBackupStore
+import com.pingidentity.authenticatorapp.data.StartupTimings
 import com.pingidentity.authenticatorapp.data.UserPreferences
+import com.pingidentity.authenticatorapp.managers.PushManager
+import com.pingidentity.authenticatorapp.service.LocationService
+import com.pingidentity.authenticatorapp.service.PushMessagePipeline
+import com.pingidentity.authenticatorapp.service.StorageMaintenanceWorker
+import com.pingidentity.authenticatorapp.util.AppForegroundTracker
+import com.pingidentity.authenticatorapp.util.AvatarImages
 import com.pingidentity.journey.Journey
 import com.pingidentity.journey.module.Oidc
 import com.pingidentity.logger.Logger
@@ -19,14 +30,19 @@ import com.pingidentity.logger.STANDARD
 import com.pingidentity.mfa.oath.OathClient
 import com.pingidentity.mfa.oath.storage.SQLOathStorage
 import com.pingidentity.mfa.push.PushClient
+import com.pingidentity.mfa.push.PushCredential
 import com.pingidentity.mfa.push.storage.SQLPushStorage
 import com.pingidentity.storage.sqlite.passphrase.KeyStorePassphraseProvider
 import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.joinAll
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.tasks.await
+import java.io.File
 
 /**
  * Main application class for the Authenticator app.
@@ -34,7 +50,7 @@ import kotlinx.coroutines.tasks.await
  * It also allow the clients to be accessed in background services or other components that require MFA functionality.
  */
 @OptIn(ExperimentalCoroutinesApi::class)
-class AuthenticatorApp : Application() {
+class AuthenticatorApp : Application(), ImageLoaderFactory {
     @Volatile
     private lateinit var pushClient: PushClient
 
@@ -59,171 +75,303 @@ class AuthenticatorApp : Application() {
     // Track initialization errors
     private val initializationErrors = mutableListOf<com.pingidentity.authenticatorapp.data.ComponentError>()
 
+    /**
+     * Reverse geocoding service shared by every screen, with its cache persisted in the cache directory.
+     */
+    private val locationService: LocationService by lazy {
+        LocationService(cacheFile = File(cacheDir, "geocoding_cache.json"))
+    }
+
+    // Scope of the work running for the whole life of the process
+    private val applicationScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    /**
+     * Push manager shared by every activity, so its credential changes reach the push message
+     * pipeline even when FCM starts the process without an activity.
+     */
+    private val pushManager: PushManager by lazy {
+        PushManager(
+            diagnosticLogger = DiagnosticLogger,
+            // Excluded from cloud backups, as the key encrypting them stays on the device
+            backupStore = IncrementalBackupStore(
+                directory = File(noBackupFilesDir, "credential_backups/push"),
+                serializer = PushCredential.serializer(),
+                idOf = { it.id }
+            )
+        )
+    }
+
+    /**
+     * Pipeline processing the push messages, shared by every PushNotificationService instance.
+     * Its credential cache is kept up to date with the changes made through the push manager.
+     */
+    private val pushMessagePipeline: PushMessagePipeline by lazy {
+        PushMessagePipeline(this, { getPushClient(this) }).also { pipeline ->
+            applicationScope.launch {
+                pushManager.credentialChanges.collect { change -> pipeline.onCredentialChange(change) }
+            }
+        }
+    }
+
+    /**
+     * User preferences shared by the whole app, loaded in the background on first use.
+     */
+    private val userPreferences: UserPreferences by lazy {
+        UserPreferences(this)
+    }
+
+    /**
+     * Creates the image loader shared by every screen, see [AvatarImages].
+     */
+    override fun newImageLoader(): ImageLoader = AvatarImages.newImageLoader(this)
+
     override fun onCreate() {
         super.onCreate()
         
-        // Initialize diagnostic logging if enabled
-        val userPreferences = UserPreferences(this)
-        val diagnosticLogger = if (userPreferences.isDiagnosticLoggingEnabled()) {
-            DiagnosticLogger
-        } else {
-            Logger.STANDARD
-        }
-        
-        // Set the global logger
-        Logger.logger = diagnosticLogger
-        
-        // Log initial startup
-        if (userPreferences.isDiagnosticLoggingEnabled()) {
-            diagnosticLogger.i("AuthenticatorApp: Diagnostic logging enabled")
-            diagnosticLogger.i("AuthenticatorApp: Starting SDK initialization")
-        }
-        
-        CoroutineScope(Dispatchers.Default).launch {
-            // TODO: Update with your Journey configuration
-            // Initialize Journey SDK
-            try {
-                journey = Journey {
-                    logger = diagnosticLogger
-                    serverUrl = "<YOUR_SERVER_URL>" // e.g. https://openam.example.com/am
-                    realm = "<YOUR_REALM>" // e.g. /alpha
-                    cookie = "<YOUR_COOKIE>" // e.g. iPlanetDirectoryPro
-                    // Oidc as module
-                    module(Oidc) {
-                        clientId = "<YOUR_CLIENT_ID>" // e.g. myclient
-                        discoveryEndpoint = "<YOUR_DISCOVERY_ENDPOINT>" // e.g. https://openam.example.com/am/oauth2/.well-known/openid-configuration?realm=/alpha
-                        // Scopes to request - adjust as needed
-                        scopes = mutableSetOf("openid", "email", "address", "profile", "phone")
-                        redirectUri = "<YOUR_REDIRECT_URI>" // e.g. myapp://callback
+        // Track whether the app is visible, for the push messages received
+        AppForegroundTracker.register()
+
+        // Compact the storages in the background while the device is idle and charging
+        StorageMaintenanceWorker.schedule(this)
+
+        // Bootstrap graph: the preferences are loaded off the main thread first, then Journey,
+        // the OATH chain (storage -> client) and the Push chain (storage -> client -> Firebase token)
+        // do not depend on each other and run in parallel, so OATH codes are not delayed by
+        // Journey, Push or Firebase.
+        applicationScope.launch {
+            val preferences = StartupTimings.measure("preferences") { userPreferences.load() }
+
+            // Initialize diagnostic logging if enabled
+            val diagnosticLogger = if (preferences.diagnosticLogging) {
+                DiagnosticLogger
+            } else {
+                Logger.STANDARD
+            }
+
+            // Set the global logger
+            Logger.logger = diagnosticLogger
+
+            // Keep longer traces on disk for field support, while diagnostic logging is enabled
+            applicationScope.launch(start = CoroutineStart.UNDISPATCHED) {
+                userPreferences.diagnosticLoggingFlow.collect { enabled ->
+                    if (enabled) {
+                        DiagnosticLogger.enableFileSink(File(filesDir, "diagnostic_logs"))
+                    } else {
+                        DiagnosticLogger.disableFileSink()
                     }
                 }
-                journeyDeferred.complete(journey)
-                diagnosticLogger.i("AuthenticatorApp: Journey client initialized")
-            } catch (e: Exception) {
-                diagnosticLogger.e("AuthenticatorApp: Failed to initialize Journey", e)
-                journeyDeferred.completeExceptionally(e)
+            }
+
+            // Log initial startup
+            if (preferences.diagnosticLogging) {
+                diagnosticLogger.i("AuthenticatorApp: Diagnostic logging enabled")
+                diagnosticLogger.i("AuthenticatorApp: Starting SDK initialization")
             }
 
             // Get destructive recovery setting
-            val destructiveRecoveryEnabled = userPreferences.isDestructiveRecoveryEnabled()
+            val destructiveRecoveryEnabled = preferences.destructiveRecovery
             diagnosticLogger.i("AuthenticatorApp: Destructive recovery enabled: $destructiveRecoveryEnabled")
-            
+
             // Get auto-restore from backup setting
-            val autoRestoreEnabled = userPreferences.isAutoRestoreFromBackupEnabled()
+            val autoRestoreEnabled = preferences.autoRestoreFromBackup
             diagnosticLogger.i("AuthenticatorApp: Auto-restore from backup enabled: $autoRestoreEnabled")
 
-            // Create OATH storage instance
-            try {
-                oathStorage = createOathStorage(
-                    context = this@AuthenticatorApp,
-                    autoRestoreFromBackup = autoRestoreEnabled,
-                    allowDestructiveRecovery = destructiveRecoveryEnabled,
-                    logger = diagnosticLogger
-                )
-                oathStorageDeferred.complete(oathStorage)
-                diagnosticLogger.i("AuthenticatorApp: OATH storage created")
-            } catch (e: Exception) {
-                diagnosticLogger.e("AuthenticatorApp: Failed to create OATH storage", e)
-                synchronized(initializationErrors) {
-                    initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("OATH", e))
+            val journeyBranch = launch {
+                StartupTimings.measure("journey") { initializeJourney(diagnosticLogger) }
+            }
+            val oathBranch = launch(Dispatchers.IO) {
+                val storageReady = StartupTimings.measure("oath_storage") {
+                    initializeOathStorage(autoRestoreEnabled, destructiveRecoveryEnabled, diagnosticLogger)
                 }
-                oathStorageDeferred.completeExceptionally(e)
+                StartupTimings.measure("oath_client") { initializeOathClient(storageReady, diagnosticLogger) }
             }
-
-            // Create Push storage instance
-            try {
-                pushStorage = createPushStorage(
-                    context = this@AuthenticatorApp,
-                    autoRestoreFromBackup = autoRestoreEnabled,
-                    allowDestructiveRecovery = destructiveRecoveryEnabled,
-                    logger = diagnosticLogger
-                )
-                pushStorageDeferred.complete(pushStorage)
-                diagnosticLogger.i("AuthenticatorApp: Push storage created")
-            } catch (e: Exception) {
-                diagnosticLogger.e("AuthenticatorApp: Failed to create Push storage", e)
-                synchronized(initializationErrors) {
-                    initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Push", e))
+            val pushBranch = launch(Dispatchers.IO) {
+                val storageReady = StartupTimings.measure("push_storage") {
+                    initializePushStorage(autoRestoreEnabled, destructiveRecoveryEnabled, diagnosticLogger)
+                }
+                val clientReady = StartupTimings.measure("push_client") {
+                    initializePushClient(storageReady, diagnosticLogger)
+                }
+                if (clientReady) {
+                    StartupTimings.measure("firebase_token") { initializeDeviceToken(diagnosticLogger) }
                 }
-                pushStorageDeferred.completeExceptionally(e)
             }
+            joinAll(journeyBranch, oathBranch, pushBranch)
 
-            // Initialize OATH client with storage (only if storage succeeded)
-            val oathError = synchronized(initializationErrors) {
-                initializationErrors.find { it.component == "OATH" }
-            }
-            if (oathError == null) {
-                try {
-                    oathClient = OathClient {
-                        // Use the pre-created storage instance
-                        storage = oathStorage
-                        // Enable credential caching
-                        enableCredentialCache = true
-                        // Set diagnostic logger if enabled, otherwise standard logger
-                        this.logger = diagnosticLogger
-                    }
-                    oathClientDeferred.complete(oathClient)
-                    diagnosticLogger.i("AuthenticatorApp: OATH client initialized")
-                } catch (e: Exception) {
-                    diagnosticLogger.e("AuthenticatorApp: Failed to initialize OATH client", e)
-                    synchronized(initializationErrors) {
-                        initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("OATH", e))
-                    }
-                    oathClientDeferred.completeExceptionally(e)
+            diagnosticLogger.i("AuthenticatorApp: SDK initialization complete")
+            diagnosticLogger.i(StartupTimings.summary())
+        }
+    }
+
+    /**
+     * Initializes the Journey SDK.
+     */
+    private fun initializeJourney(diagnosticLogger: Logger) {
+        // TODO: Update with your Journey configuration
+        try {
+            journey = Journey {
+                logger = diagnosticLogger
+                serverUrl = "<YOUR_SERVER_URL>" // e.g. https://openam.example.com/am
+                realm = "<YOUR_REALM>" // e.g. /alpha
+                cookie = "<YOUR_COOKIE>" // e.g. iPlanetDirectoryPro
+                // Oidc as module
+                module(Oidc) {
+                    clientId = "<YOUR_CLIENT_ID>" // e.g. myclient
+                    discoveryEndpoint = "<YOUR_DISCOVERY_ENDPOINT>" // e.g. https://openam.example.com/am/oauth2/.well-known/openid-configuration?realm=/alpha
+                    // Scopes to request - adjust as needed
+                    scopes = mutableSetOf("openid", "email", "address", "profile", "phone")
+                    redirectUri = "<YOUR_REDIRECT_URI>" // e.g. myapp://callback
                 }
-            } else {
-                oathClientDeferred.completeExceptionally(oathError.exception)
             }
+            journeyDeferred.complete(journey)
+            diagnosticLogger.i("AuthenticatorApp: Journey client initialized")
+        } catch (e: Exception) {
+            diagnosticLogger.e("AuthenticatorApp: Failed to initialize Journey", e)
+            journeyDeferred.completeExceptionally(e)
+        }
+    }
+
+    /**
+     * Creates the OATH storage instance.
+     *
+     * @return true if the storage was created
+     */
+    private fun initializeOathStorage(
+        autoRestoreEnabled: Boolean,
+        destructiveRecoveryEnabled: Boolean,
+        diagnosticLogger: Logger
+    ): Boolean {
+        return try {
+            oathStorage = createOathStorage(
+                context = this,
+                autoRestoreFromBackup = autoRestoreEnabled,
+                allowDestructiveRecovery = destructiveRecoveryEnabled,
+                logger = diagnosticLogger
+            )
+            oathStorageDeferred.complete(oathStorage)
+            diagnosticLogger.i("AuthenticatorApp: OATH storage created")
+            true
+        } catch (e: Exception) {
+            diagnosticLogger.e("AuthenticatorApp: Failed to create OATH storage", e)
+            synchronized(initializationErrors) {
+                initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("OATH", e))
+            }
+            oathStorageDeferred.completeExceptionally(e)
+            oathClientDeferred.completeExceptionally(e)
+            false
+        }
+    }
 
-            // Initialize Push client with storage (only if storage succeeded)
-            val pushError = synchronized(initializationErrors) {
-                initializationErrors.find { it.component == "Push" }
+    /**
+     * Initializes the OATH client with its storage (only if the storage was created).
+     */
+    private fun initializeOathClient(storageReady: Boolean, diagnosticLogger: Logger) {
+        if (!storageReady) return
+        try {
+            oathClient = OathClient {
+                // Use the pre-created storage instance
+                storage = oathStorage
+                // Enable credential caching
+                enableCredentialCache = true
+                // Set diagnostic logger if enabled, otherwise standard logger
+                this.logger = diagnosticLogger
             }
-            if (pushError == null) {
-                try {
-                    pushClient = PushClient {
-                        // Use the pre-created storage instance
-                        storage = pushStorage
-                        // Enable credential caching
-                        enableCredentialCache = true
-                        // Set diagnostic logger if enabled, otherwise standard logger
-                        this.logger = diagnosticLogger
-                    }
-                    pushClientDeferred.complete(pushClient)
-                    diagnosticLogger.i("AuthenticatorApp: Push client initialized")
-                } catch (e: Exception) {
-                    diagnosticLogger.e("AuthenticatorApp: Failed to initialize Push client", e)
-                    synchronized(initializationErrors) {
-                        initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Push", e))
-                    }
-                    pushClientDeferred.completeExceptionally(e)
-                }
-            } else {
-                pushClientDeferred.completeExceptionally(pushError.exception)
+            oathClientDeferred.complete(oathClient)
+            diagnosticLogger.i("AuthenticatorApp: OATH client initialized")
+        } catch (e: Exception) {
+            diagnosticLogger.e("AuthenticatorApp: Failed to initialize OATH client", e)
+            synchronized(initializationErrors) {
+                initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("OATH", e))
             }
+            oathClientDeferred.completeExceptionally(e)
+        }
+    }
 
-            // Obtain the device token from Firebase and set it in the Push client
-            val hasPushError = synchronized(initializationErrors) {
-                initializationErrors.any { it.component == "Push" }
+    /**
+     * Creates the Push storage instance.
+     *
+     * @return true if the storage was created
+     */
+    private fun initializePushStorage(
+        autoRestoreEnabled: Boolean,
+        destructiveRecoveryEnabled: Boolean,
+        diagnosticLogger: Logger
+    ): Boolean {
+        return try {
+            pushStorage = createPushStorage(
+                context = this,
+                autoRestoreFromBackup = autoRestoreEnabled,
+                allowDestructiveRecovery = destructiveRecoveryEnabled,
+                logger = diagnosticLogger
+            )
+            pushStorageDeferred.complete(pushStorage)
+            diagnosticLogger.i("AuthenticatorApp: Push storage created")
+            true
+        } catch (e: Exception) {
+            diagnosticLogger.e("AuthenticatorApp: Failed to create Push storage", e)
+            synchronized(initializationErrors) {
+                initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Push", e))
             }
-            if (!hasPushError) {
-                try {
-                    FirebaseApp.getInstance()
-                    pushClient.setDeviceToken(FirebaseMessaging.getInstance().token.await())
-                    diagnosticLogger.i("AuthenticatorApp: Firebase device token set")
-                } catch (e: IllegalStateException) {
-                    diagnosticLogger.e("Firebase not configured properly", e)
-                    synchronized(initializationErrors) {
-                        initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Firebase", e))
-                    }
-                }
+            pushStorageDeferred.completeExceptionally(e)
+            pushClientDeferred.completeExceptionally(e)
+            false
+        }
+    }
+
+    /**
+     * Initializes the Push client with its storage (only if the storage was created).
+     *
+     * @return true if the client was initialized
+     */
+    private fun initializePushClient(storageReady: Boolean, diagnosticLogger: Logger): Boolean {
+        if (!storageReady) return false
+        return try {
+            pushClient = PushClient {
+                // Use the pre-created storage instance
+                storage = pushStorage
+                // Enable credential caching
+                enableCredentialCache = true
+                // Set diagnostic logger if enabled, otherwise standard logger
+                this.logger = diagnosticLogger
             }
-            
-            diagnosticLogger.i("AuthenticatorApp: SDK initialization complete")
+            pushClientDeferred.complete(pushClient)
+            diagnosticLogger.i("AuthenticatorApp: Push client initialized")
+            true
+        } catch (e: Exception) {
+            diagnosticLogger.e("AuthenticatorApp: Failed to initialize Push client", e)
+            synchronized(initializationErrors) {
+                initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Push", e))
+            }
+            pushClientDeferred.completeExceptionally(e)
+            false
+        }
+    }
+
+    /**
+     * Obtains the device token from Firebase and sets it in the Push client.
+     */
+    private suspend fun initializeDeviceToken(diagnosticLogger: Logger) {
+        try {
+            FirebaseApp.getInstance()
+            pushClient.setDeviceToken(FirebaseMessaging.getInstance().token.await())
+            diagnosticLogger.i("AuthenticatorApp: Firebase device token set")
+        } catch (e: IllegalStateException) {
+            diagnosticLogger.e("Firebase not configured properly", e)
+            synchronized(initializationErrors) {
+                initializationErrors.add(com.pingidentity.authenticatorapp.data.ComponentError("Firebase", e))
+            }
+        } catch (e: Exception) {
+            // Typically no network access, the token is set again when FCM issues a new one
+            diagnosticLogger.e("AuthenticatorApp: Failed to obtain the Firebase device token", e)
         }
     }
 
     companion object {
+        /**
+         * Number of database backups kept for each storage.
+         */
+        const val MAX_BACKUP_COUNT = 5
+
         /**
          * Creates a configured SQLOathStorage instance with standard settings.
          * This ensures consistency between initialization and backup restoration.
@@ -248,7 +396,7 @@ class AuthenticatorApp : Application() {
                 this.autoRestoreFromBackup = autoRestoreFromBackup
                 this.allowDestructiveRecovery = allowDestructiveRecovery
                 this.backupOnError = false
-                this.maxBackupCount = 5
+                this.maxBackupCount = MAX_BACKUP_COUNT
                 this.logger = logger
             }
         }
@@ -277,7 +425,7 @@ class AuthenticatorApp : Application() {
                 this.autoRestoreFromBackup = autoRestoreFromBackup
                 this.allowDestructiveRecovery = allowDestructiveRecovery
                 this.backupOnError = false
-                this.maxBackupCount = 5
+                this.maxBackupCount = MAX_BACKUP_COUNT
                 this.logger = logger
             }
         }
@@ -326,6 +474,50 @@ class AuthenticatorApp : Application() {
             return app.journeyDeferred.await()
         }
 
+        /*
+         * Helper method to access the shared LocationService from any context.
+         * @param context Any context of the application
+         * Throws IllegalStateException if the application is not AuthenticatorApp.
+         */
+        fun getLocationService(context: Context): LocationService {
+            val app = context.applicationContext as? AuthenticatorApp
+                ?: throw IllegalStateException("Context must be AuthenticatorApp")
+            return app.locationService
+        }
+
+        /*
+         * Helper method to access the shared UserPreferences from any context.
+         * @param context Any context of the application
+         * Throws IllegalStateException if the application is not AuthenticatorApp.
+         */
+        fun getUserPreferences(context: Context): UserPreferences {
+            val app = context.applicationContext as? AuthenticatorApp
+                ?: throw IllegalStateException("Context must be AuthenticatorApp")
+            return app.userPreferences
+        }
+
+        /*
+         * Helper method to access the shared PushManager from any context.
+         * @param context Any context of the application
+         * Throws IllegalStateException if the application is not AuthenticatorApp.
+         */
+        fun getPushManager(context: Context): PushManager {
+            val app = context.applicationContext as? AuthenticatorApp
+                ?: throw IllegalStateException("Context must be AuthenticatorApp")
+            return app.pushManager
+        }
+
+        /*
+         * Helper method to access the shared PushMessagePipeline from any context.
+         * @param context Any context of the application
+         * Throws IllegalStateException if the application is not AuthenticatorApp.
+         */
+        fun getPushMessagePipeline(context: Context): PushMessagePipeline {
+            val app = context.applicationContext as? AuthenticatorApp
+                ?: throw IllegalStateException("Context must be AuthenticatorApp")
+            return app.pushMessagePipeline
+        }
+
         /*
          * Helper method to access the initialized SQLOathStorage from application context.
          * This method suspend until the respective component is fully initialized.
@@ -391,8 +583,7 @@ class AuthenticatorApp : Application() {
             }
             
             // Check if destructive recovery is available
-            val userPreferences = com.pingidentity.authenticatorapp.data.UserPreferences(context)
-            val canUseDestructiveRecovery = !userPreferences.isDestructiveRecoveryEnabled()
+            val canUseDestructiveRecovery = !getUserPreferences(context).isDestructiveRecoveryEnabled()
             
             return com.pingidentity.authenticatorapp.data.InitializationError(
                 type = errorType,
@@ -26,19 +26,21 @@ import androidx.compose.ui.Modifier
 import androidx.core.content.ContextCompat
 import androidx.lifecycle.lifecycleScope
 import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
+import com.pingidentity.authenticatorapp.data.CredentialSnapshotStore
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.IncrementalBackupStore
 import com.pingidentity.authenticatorapp.data.LoginViewModel
 import com.pingidentity.authenticatorapp.data.ThemeMode
-import com.pingidentity.authenticatorapp.data.UserPreferences
 import com.pingidentity.authenticatorapp.managers.AccountGroupingManager
 import com.pingidentity.authenticatorapp.managers.JourneyManager
 import com.pingidentity.authenticatorapp.managers.OathManager
-import com.pingidentity.authenticatorapp.managers.PushManager
 import com.pingidentity.authenticatorapp.managers.TestAccountFactory
 import com.pingidentity.authenticatorapp.notification.NotificationHelper
 import com.pingidentity.authenticatorapp.ui.AuthenticatorNavHost
 import com.pingidentity.authenticatorapp.ui.theme.PingIdentityAuthenticatorTheme
+import com.pingidentity.mfa.oath.OathCredential
 import kotlinx.coroutines.launch
+import java.io.File
 
 /**
  * Main activity for the Authenticator app.
@@ -79,7 +81,9 @@ class MainActivity : ComponentActivity() {
         checkNotificationPermission()
 
         setContent {
-            if (areViewModelsInitialized) {
+            // Wait for the preferences, so the saved theme is applied from the first frame
+            val arePreferencesLoaded by AuthenticatorApp.getUserPreferences(application).isLoaded.collectAsState()
+            if (areViewModelsInitialized && arePreferencesLoaded) {
                 val themeMode by authenticatorViewModel.themeMode.collectAsState()
                 PingIdentityAuthenticatorTheme(themeMode = themeMode) {
                     Surface(
@@ -109,107 +113,81 @@ class MainActivity : ComponentActivity() {
 
     /**
      * Sets up the ViewModels with their dependencies.
+     * The ViewModels are created immediately and each manager receives its client as soon as
+     * that client is initialized, so the OATH accounts are shown without waiting for Push or Journey.
      */
     private fun setupViewModels(application: Application) {
-        // Initialize clients and ViewModels asynchronously
-        lifecycleScope.launch {
-            val diagnosticLogger = DiagnosticLogger
-            val userPreferences = UserPreferences(application)
-            val oathManager = OathManager(diagnosticLogger = diagnosticLogger)
-            val pushManager = PushManager(diagnosticLogger = diagnosticLogger)
-            val journeyManager = JourneyManager(diagnosticLogger = diagnosticLogger)
-
-            // Check for initialization errors first
-            val initError = AuthenticatorApp.getInitializationError(application)
-            
-            if (initError != null) {
-                // Create ViewModels even with errors so we can show the error screen
-                authenticatorViewModel = AuthenticatorViewModel(
-                    application = application,
-                    userPreferences = userPreferences,
-                    oathManager = oathManager,
-                    pushManager = pushManager,
-                    accountGroupingManager = AccountGroupingManager(userPreferences, diagnosticLogger),
-                    testAccountFactory = TestAccountFactory()
-                )
-                
-                loginViewModel = LoginViewModel(
-                    application = application,
-                    journeyManager = journeyManager,
-                    oathManager = oathManager,
-                    pushManager = pushManager
-                )
-                
-                // Set the initialization error in the ViewModel
-                authenticatorViewModel.setInitializationError(initError)
-                
-                // Mark ViewModels as initialized
-                areViewModelsInitialized = true
-                return@launch
-            }
+        val diagnosticLogger = DiagnosticLogger
+        val userPreferences = AuthenticatorApp.getUserPreferences(application)
+        // Excluded from cloud backups, as the key encrypting them stays on the device
+        val backupDirectory = File(application.noBackupFilesDir, "credential_backups")
+        val oathManager = OathManager(
+            diagnosticLogger = diagnosticLogger,
+            backupStore = IncrementalBackupStore(
+                directory = File(backupDirectory, "oath"),
+                serializer = OathCredential.serializer(),
+                idOf = { it.id }
+            )
+        )
+        // Shared with the push message pipeline, which observes its credential changes
+        val pushManager = AuthenticatorApp.getPushManager(application)
+        val journeyManager = JourneyManager(diagnosticLogger = diagnosticLogger)
 
-            // Get storage instances (will throw if initialization failed)
-            try {
-                val oathStorage = AuthenticatorApp.getOathStorage(application)
-                val pushStorage = AuthenticatorApp.getPushStorage(application)
+        authenticatorViewModel = AuthenticatorViewModel(
+            application = application,
+            userPreferences = userPreferences,
+            oathManager = oathManager,
+            pushManager = pushManager,
+            accountGroupingManager = AccountGroupingManager(
+                userPreferences,
+                diagnosticLogger,
+                CredentialSnapshotStore(application)
+            ),
+            testAccountFactory = TestAccountFactory()
+        )
 
-                // Initialize the clients in the managers
-                val journeyClient = AuthenticatorApp.getJourney(application)
-                journeyManager.setClient(journeyClient)
-                val oauthClient = AuthenticatorApp.getOathClient(application)
-                oathManager.setClient(oauthClient, oathStorage)
-                val pushClient = AuthenticatorApp.getPushClient(application)
-                pushManager.setClient(pushClient, pushStorage)
+        loginViewModel = LoginViewModel(
+            application = application,
+            journeyManager = journeyManager,
+            oathManager = oathManager,
+            pushManager = pushManager
+        )
 
-                // Create ViewModels with clients already set
-                authenticatorViewModel = AuthenticatorViewModel(
-                    application = application,
-                    userPreferences = userPreferences,
-                    oathManager = oathManager,
-                    pushManager = pushManager,
-                    accountGroupingManager = AccountGroupingManager(userPreferences, diagnosticLogger),
-                    testAccountFactory = TestAccountFactory()
-                )
+        // Mark ViewModels as initialized and trigger UI update
+        areViewModelsInitialized = true
 
-                // Create LoginViewModel
-                loginViewModel = LoginViewModel(
-                    application = application,
-                    journeyManager = journeyManager,
-                    oathManager = oathManager,
-                    pushManager = pushManager
-                )
+        // Attach the clients to the managers as they become available
+        lifecycleScope.launch {
+            attachClient("OATH") {
+                val oathStorage = AuthenticatorApp.getOathStorage(application)
+                oathManager.setClient(AuthenticatorApp.getOathClient(application), oathStorage)
+            }
+        }
+        lifecycleScope.launch {
+            attachClient("Push") {
+                val pushStorage = AuthenticatorApp.getPushStorage(application)
+                pushManager.setClient(AuthenticatorApp.getPushClient(application), pushStorage)
+            }
+        }
+        lifecycleScope.launch {
+            attachClient("Journey") {
+                journeyManager.setClient(AuthenticatorApp.getJourney(application))
+            }
+        }
+    }
 
-                // Mark ViewModels as initialized and trigger UI update
-                areViewModelsInitialized = true
-            } catch (e: Exception) {
-                diagnosticLogger.e("Failed to initialize ViewModels", e)
-                
-                // Check if there are initialization errors to display
-                val errorAfterException = AuthenticatorApp.getInitializationError(application)
-                
-                // Create basic ViewModels to show error
-                authenticatorViewModel = AuthenticatorViewModel(
-                    application = application,
-                    userPreferences = userPreferences,
-                    oathManager = oathManager,
-                    pushManager = pushManager,
-                    accountGroupingManager = AccountGroupingManager(userPreferences, diagnosticLogger),
-                    testAccountFactory = TestAccountFactory()
-                )
-                
-                loginViewModel = LoginViewModel(
-                    application = application,
-                    journeyManager = journeyManager,
-                    oathManager = oathManager,
-                    pushManager = pushManager
-                )
-                
-                // Set the error if we found one
-                if (errorAfterException != null) {
-                    authenticatorViewModel.setInitializationError(errorAfterException)
-                }
-                
-                areViewModelsInitialized = true
+    /**
+     * Runs the given block to attach a client to its manager. If the client failed to initialize,
+     * the initialization error is shown instead.
+     */
+    private suspend fun attachClient(component: String, attach: suspend () -> Unit) {
+        try {
+            attach()
+            DiagnosticLogger.d("MainActivity: $component client attached")
+        } catch (e: Exception) {
+            DiagnosticLogger.e("Failed to initialize $component client", e)
+            AuthenticatorApp.getInitializationError(application)?.let { initError ->
+                authenticatorViewModel.setInitializationError(initError)
             }
         }
     }
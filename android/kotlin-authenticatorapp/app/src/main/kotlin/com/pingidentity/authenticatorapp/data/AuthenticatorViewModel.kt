@@ -25,12 +25,22 @@ import com.pingidentity.mfa.oath.OathCodeInfo
 import com.pingidentity.mfa.oath.OathCredential
 import com.pingidentity.mfa.push.PushCredential
 import com.pingidentity.mfa.push.PushNotification
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 /**
  * Enum representing different types of initialization errors.
@@ -66,6 +76,11 @@ data class InitializationError(
     val timestamp: Long = System.currentTimeMillis()
 )
 
+/**
+ * Time without any reordering after which the account order is saved.
+ */
+private const val ACCOUNT_ORDER_SAVE_DELAY_MILLIS = 500L
+
 /**
  * ViewModel for the Authenticator app.
  * Coordinates between different managers and handles UI-specific logic.
@@ -86,14 +101,108 @@ class AuthenticatorViewModel(
     private val testAccountFactory: TestAccountFactory
 ) : AndroidViewModel(application), ViewModelProvider.Factory {
 
+    // State owned by the ViewModel (messages, errors, refresh flags). Fields mirrored from the
+    // managers are filled in by the uiState pipeline below.
     private val _uiState = MutableStateFlow(AuthenticatorUiState())
     private val diagnosticLogger = DiagnosticLogger
     
+    // Pending save of the account order, replaced by each new order
+    private var saveAccountOrderJob: Job? = null
+
     // Track loading states to batch account group updates
     private var oathCredentialsLoaded = false
     private var pushCredentialsLoaded = false
 
-    val uiState: StateFlow<AuthenticatorUiState> = _uiState.asStateFlow()
+    private val _isInitialLoadFinished = MutableStateFlow(false)
+    /**
+     * Whether the first load of the OATH credentials finished, successfully or not.
+     */
+    val isInitialLoadFinished: StateFlow<Boolean> = _isInitialLoadFinished.asStateFlow()
+
+    /**
+     * Records how many UI state updates were merged by the uiState pipeline.
+     */
+    val uiStateEmissions = EmissionCounter()
+
+    /**
+     * Measures the time from a notification response to the UI showing it.
+     */
+    val responseLatency = ResponseLatencyTracker(diagnosticLogger)
+
+    private val credentialState = combine(
+        oathManager.oathCredentials,
+        pushManager.pushCredentials,
+        accountGroupingManager.accountGroups,
+        oathManager.lastAddedOathCredential,
+        pushManager.lastAddedPushCredential
+    ) { oathCredentials, pushCredentials, accountGroups, lastAddedOath, lastAddedPush ->
+        CredentialState(oathCredentials, pushCredentials, accountGroups, lastAddedOath, lastAddedPush)
+    }
+
+    private val notificationState = combine(
+        pushManager.pushNotifications,
+        pushManager.pendingNotifications,
+        pushManager.pushNotificationItems,
+        pushManager.pendingNotificationItems
+    ) { notifications, pending, items, pendingItems ->
+        NotificationState(notifications, pending, items, pendingItems)
+    }
+
+    private val loadingState = combine(
+        oathManager.isLoadingOathCredentials,
+        pushManager.isLoadingPushCredentials,
+        pushManager.isLoadingNotifications
+    ) { oath, push, notifications ->
+        LoadingState(oath, push, notifications)
+    }
+
+    /**
+     * UI state combining the ViewModel state with the manager states.
+     * Updates arriving within the same frame are coalesced into a single emission,
+     * so a credential reload results in one recomposition.
+     */
+    val uiState: StateFlow<AuthenticatorUiState> = combine(
+        _uiState,
+        credentialState,
+        notificationState,
+        loadingState
+    ) { local, credentials, notifications, loading ->
+        local.copy(
+            oathCredentials = credentials.oathCredentials,
+            pushCredentials = credentials.pushCredentials,
+            accountGroups = credentials.accountGroups,
+            lastAddedOathCredential = credentials.lastAddedOathCredential,
+            lastAddedPushCredential = credentials.lastAddedPushCredential,
+            pushNotifications = notifications.pushNotifications,
+            pendingNotifications = notifications.pendingNotifications,
+            pushNotificationItems = notifications.pushNotificationItems,
+            pendingNotificationItems = notifications.pendingNotificationItems,
+            isLoadingOathCredentials = loading.isLoadingOathCredentials,
+            isLoadingPushCredentials = loading.isLoadingPushCredentials,
+            isLoadingNotifications = loading.isLoadingNotifications
+        )
+    }
+        .coalescePerFrame(uiStateEmissions)
+        .onEach { responseLatency.onStateEmitted(it) }
+        .stateIn(viewModelScope, SharingStarted.Eagerly, AuthenticatorUiState())
+
+    /**
+     * Current OTP codes keyed by credential ID.
+     * Codes are refreshed at each period boundary only while the UI observes this flow.
+     */
+    val otpCodes: StateFlow<Map<String, OathCodeInfo>> = oathManager.scheduledCodes
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), oathManager.generatedCodes.value)
+
+    /**
+     * Current account search query.
+     */
+    val accountSearchQuery: StateFlow<String> = accountGroupingManager.searchQuery
+
+    /**
+     * Account groups matching the account search query, all of them when the query is blank.
+     */
+    val visibleAccountGroups: StateFlow<List<AccountGroup>> = accountGroupingManager.visibleAccountGroups
+        .stateIn(viewModelScope, SharingStarted.Eagerly, accountGroupingManager.accountGroups.value)
 
     // Expose all settings preferences as StateFlows
     val copyOtp: StateFlow<Boolean>
@@ -130,136 +239,57 @@ class AuthenticatorViewModel(
     }
 
     /**
-     * Sets up the state flows to observe manager states and update UI state accordingly.
+     * Keeps the account groups in sync with the credentials, the combine accounts setting and the saved account order.
+     * UI state fields mirrored from the managers are handled by the uiState pipeline.
      */
     private fun setupStateFlows() {
-        // Observe credential changes and update account groups
         viewModelScope.launch {
             combine(
                 oathManager.oathCredentials,
-                pushManager.pushCredentials
-            ) { oathCreds, pushCreds ->
-                Pair(oathCreds, pushCreds)
-            }.collect { (oathCreds, pushCreds) ->
-                accountGroupingManager.updateAccountGroups(oathCreds, pushCreds)
-                // Update UI state when credentials change
-                updateUiStateFromManagers()
-            }
-        }
-        
-        // Observe combine accounts setting changes and update account groups
-        viewModelScope.launch {
-            userPreferences.combineAccountsFlow.collect { _ ->
-                // Force re-grouping when combine accounts setting changes
-                val currentState = _uiState.value
+                pushManager.pushCredentials,
+                oathManager.isCredentialsLoaded,
+                pushManager.isCredentialsLoaded,
+                userPreferences.preferences
+                    .map { it.combineAccounts to it.accountOrder }
+                    .distinctUntilChanged()
+            ) { oathCreds, pushCreds, oathLoaded, pushLoaded, _ ->
+                AccountGroupInput(oathCreds, pushCreds, oathLoaded, pushLoaded)
+            }.collect { input ->
                 accountGroupingManager.updateAccountGroups(
-                    currentState.oathCredentials, 
-                    currentState.pushCredentials
+                    input.oathCredentials,
+                    input.pushCredentials,
+                    input.oathLoaded,
+                    input.pushLoaded
                 )
-                updateUiStateFromManagers()
-            }
-        }
-        
-        // Observe account groups from AccountGroupingManager
-        viewModelScope.launch {
-            accountGroupingManager.accountGroups.collect { accountGroups ->
-                _uiState.update { it.copy(accountGroups = accountGroups) }
             }
         }
-        
-        // Observe individual state changes
-        viewModelScope.launch {
-            oathManager.generatedCodes.collect { codes ->
-                _uiState.update { it.copy(generatedCodes = codes) }
-            }
-        }
-        
-        viewModelScope.launch {
-            oathManager.lastAddedOathCredential.collect { credential ->
-                _uiState.update { it.copy(lastAddedOathCredential = credential) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.lastAddedPushCredential.collect { credential ->
-                _uiState.update { it.copy(lastAddedPushCredential = credential) }
-            }
-        }
-        
-        viewModelScope.launch {
-            oathManager.isLoadingOathCredentials.collect { loading ->
-                _uiState.update { it.copy(isLoadingOathCredentials = loading) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.isLoadingPushCredentials.collect { loading ->
-                _uiState.update { it.copy(isLoadingPushCredentials = loading) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.isLoadingNotifications.collect { loading ->
-                _uiState.update { it.copy(isLoadingNotifications = loading) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.pushNotifications.collect { notifications ->
-                _uiState.update { it.copy(pushNotifications = notifications) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.pendingNotifications.collect { notifications ->
-                _uiState.update { it.copy(pendingNotifications = notifications) }
-            }
-        }
-        
-        viewModelScope.launch {
-            pushManager.pushNotificationItems.collect { items ->
-                _uiState.update { it.copy(pushNotificationItems = items) }
-            }
-        }
-        
+
+        // Render the accounts from the snapshot of the last launch until the storage is opened
         viewModelScope.launch {
-            pushManager.pendingNotificationItems.collect { items ->
-                _uiState.update { it.copy(pendingNotificationItems = items) }
-            }
-        }
-    }
-    
-    /**
-     * Updates the UI state from all manager states.
-     */
-    private fun updateUiStateFromManagers() {
-        _uiState.update { currentState ->
-            currentState.copy(
-                oathCredentials = oathManager.oathCredentials.value,
-                pushCredentials = pushManager.pushCredentials.value
-            )
+            accountGroupingManager.loadSnapshot()
         }
     }
 
     /**
      * Loads initial data from all managers.
+     * Each manager loads as soon as its client is attached, so OATH accounts are shown
+     * without waiting for the Push client, and Push sections fill in once it is ready.
      */
     private fun loadInitialData() {
+        // Set initial loading state
+        _uiState.update { it.copy(isInitialLoading = true) }
+
         viewModelScope.launch {
-            try {
-                // Set initial loading state
-                _uiState.update { it.copy(isInitialLoading = true) }
-                
-                // Load all credentials and notifications
-                loadOathCredentials()
-                loadPushCredentials()
-                loadPushNotifications()
-                
-                // Clear initial loading state once everything is loaded
-                _uiState.update { it.copy(isInitialLoading = false) }
-            } catch (e: Exception) {
-                _uiState.update { it.copy(error = e.message ?: "Failed to initialize", isInitialLoading = false) }
-            }
+            oathManager.awaitClient()
+            loadOathCredentials()
+            // The accounts screen can render as soon as the OATH credentials are requested
+            _uiState.update { it.copy(isInitialLoading = false) }
+        }
+
+        viewModelScope.launch {
+            pushManager.awaitClient()
+            loadPushCredentials()
+            loadPushNotifications()
         }
     }
 
@@ -274,6 +304,7 @@ class AuthenticatorViewModel(
             }.onFailure { e ->
                 _uiState.update { it.copy(error = e.message ?: "Failed to load OATH credentials") }
             }
+            _isInitialLoadFinished.value = true
         }
     }
     
@@ -305,14 +336,23 @@ class AuthenticatorViewModel(
     }
 
 
+    /**
+     * Filters the accounts shown by display issuer and display account name.
+     */
+    fun setAccountSearchQuery(query: String) {
+        accountGroupingManager.setSearchQuery(query)
+    }
+
     /**
      * Update the account groups order immediately in the UI state.
-     * This provides immediate feedback while the order is being persisted.
+     * The order is persisted once it has not changed for [ACCOUNT_ORDER_SAVE_DELAY_MILLIS],
+     * so a burst of moves results in a single write.
      */
     fun updateAccountGroupOrder(newAccountGroups: List<AccountGroup>) {
         accountGroupingManager.updateAccountGroupOrder(newAccountGroups)
-        // Also save to preferences asynchronously
-        viewModelScope.launch {
+        saveAccountOrderJob?.cancel()
+        saveAccountOrderJob = viewModelScope.launch {
+            delay(ACCOUNT_ORDER_SAVE_DELAY_MILLIS)
             accountGroupingManager.saveAccountOrder(newAccountGroups)
         }
     }
@@ -427,7 +467,12 @@ class AuthenticatorViewModel(
         viewModelScope.launch {
             try {
                 diagnosticLogger.d("Refreshing all notifications")
-                pushManager.loadAllPushNotifications().onFailure { e ->
+                pushManager.loadAllPushNotifications().onSuccess {
+                    // Keep the stored history bounded
+                    pushManager.compactNotificationHistory().onFailure { e ->
+                        diagnosticLogger.w("Failed to compact notification history", e)
+                    }
+                }.onFailure { e ->
                     _uiState.update { it.copy(error = e.message ?: "Failed to refresh notifications") }
                 }
             } catch (e: Exception) {
@@ -438,6 +483,19 @@ class AuthenticatorViewModel(
         }
     }
 
+    /**
+     * Whether more pages of the notification history can be loaded.
+     */
+    val hasMoreNotificationHistory: StateFlow<Boolean>
+        get() = pushManager.hasMoreNotificationHistory
+
+    /**
+     * Loads the next page of the notification history.
+     */
+    fun loadMoreNotificationHistory() {
+        pushManager.loadNextHistoryPage()
+    }
+
     /**
      * Gets the current device token used for push notifications.
      */
@@ -551,22 +609,28 @@ class AuthenticatorViewModel(
     }
 
     /**
-     * Updates an OATH credential in the SDK.
+     * Updates an OATH credential in the SDK, from its stored content.
+     *
+     * @param credentialId ID of the credential
+     * @param update Returns the updated credential from the stored one
      */
-    fun updateOathCredential(credential: OathCredential) {
+    fun updateOathCredential(credentialId: String, update: (OathCredential) -> OathCredential) {
         viewModelScope.launch {
-            oathManager.updateCredential(credential).onFailure { e ->
+            oathManager.updateCredential(credentialId, update).onFailure { e ->
                 _uiState.update { it.copy(error = e.message ?: "Failed to update OATH credential") }
             }
         }
     }
 
     /**
-     * Updates a Push credential in the SDK.
+     * Updates a Push credential in the SDK, from its stored content.
+     *
+     * @param credentialId ID of the credential
+     * @param update Returns the updated credential from the stored one
      */
-    fun updatePushCredential(credential: PushCredential) {
+    fun updatePushCredential(credentialId: String, update: (PushCredential) -> PushCredential) {
         viewModelScope.launch {
-            pushManager.updateCredential(credential).onFailure { e ->
+            pushManager.updateCredential(credentialId, update).onFailure { e ->
                 _uiState.update { it.copy(error = e.message ?: "Failed to update Push credential") }
             }
         }
@@ -574,6 +638,9 @@ class AuthenticatorViewModel(
 
     /**
      * Locks an account by applying the specified policy to all credentials in the account group.
+     * The OATH and Push credentials are saved as two separate batches, each rolled back on failure.
+     * The two batches are not atomic together: if the Push batch fails, the OATH credentials stay
+     * locked and the error is reported.
      * 
      * @param accountGroup The account group to lock
      * @param policyName The name of the locking policy to apply
@@ -581,23 +648,15 @@ class AuthenticatorViewModel(
     fun lockAccountGroup(accountGroup: AccountGroup, policyName: String) {
         viewModelScope.launch {
             try {
-                // Lock all OATH credentials in the group
-                accountGroup.oathCredentials.forEach { credential ->
-                    val lockedCredential = credential.copy()
-                    lockedCredential.lockCredential(policyName)
-                    oathManager.updateCredential(lockedCredential).onFailure { e ->
-                        throw e
-                    }
-                }
-                
-                // Lock all Push credentials in the group
-                accountGroup.pushCredentials.forEach { credential ->
-                    val lockedCredential = credential.copy()
-                    lockedCredential.lockCredential(policyName)
-                    pushManager.updateCredential(lockedCredential).onFailure { e ->
-                        throw e
-                    }
-                }
+                // Lock all credentials of each type in a single batch, from their stored content
+                check(!accountGroup.isReadOnly) { "Account credentials are not loaded yet" }
+                oathManager.updateCredentials(accountGroup.oathCredentials.map { it.id }) { stored ->
+                    stored.copy().apply { lockCredential(policyName) }
+                }.getOrThrow()
+
+                pushManager.updateCredentials(accountGroup.pushCredentials.map { it.id }) { stored ->
+                    stored.copy().apply { lockCredential(policyName) }
+                }.getOrThrow()
                 
                 _uiState.update { 
                     it.copy(message = getApplication<Application>().getString(R.string.test_screen_account_locked_success))
@@ -612,29 +671,22 @@ class AuthenticatorViewModel(
 
     /**
      * Unlocks an account by removing the lock from all credentials in the account group.
+     * As for [lockAccountGroup], the OATH and Push credentials are saved as two separate batches.
      * 
      * @param accountGroup The account group to unlock
      */
     fun unlockAccountGroup(accountGroup: AccountGroup) {
         viewModelScope.launch {
             try {
-                // Unlock all OATH credentials in the group
-                accountGroup.oathCredentials.forEach { credential ->
-                    val unlockedCredential = credential.copy()
-                    unlockedCredential.unlockCredential()
-                    oathManager.updateCredential(unlockedCredential).onFailure { e ->
-                        throw e
-                    }
-                }
-                
-                // Unlock all Push credentials in the group
-                accountGroup.pushCredentials.forEach { credential ->
-                    val unlockedCredential = credential.copy()
-                    unlockedCredential.unlockCredential()
-                    pushManager.updateCredential(unlockedCredential).onFailure { e ->
-                        throw e
-                    }
-                }
+                // Unlock all credentials of each type in a single batch, from their stored content
+                check(!accountGroup.isReadOnly) { "Account credentials are not loaded yet" }
+                oathManager.updateCredentials(accountGroup.oathCredentials.map { it.id }) { stored ->
+                    stored.copy().apply { unlockCredential() }
+                }.getOrThrow()
+
+                pushManager.updateCredentials(accountGroup.pushCredentials.map { it.id }) { stored ->
+                    stored.copy().apply { unlockCredential() }
+                }.getOrThrow()
                 
                 // Generate codes immediately for unlocked OATH credentials
                 accountGroup.oathCredentials.forEach { credential ->
@@ -674,12 +726,15 @@ class AuthenticatorViewModel(
      * Approves a push notification.
      */
     fun approveNotification(notificationId: String) {
+        responseLatency.onResponse(notificationId)
         viewModelScope.launch {
             pushManager.approveNotification(notificationId).onSuccess { success ->
                 if (!success) {
+                    responseLatency.cancel(notificationId)
                     _uiState.update { it.copy(error = "Failed to approve notification") }
                 }
             }.onFailure { e ->
+                responseLatency.cancel(notificationId)
                 _uiState.update { it.copy(error = e.message ?: "Failed to approve notification") }
             }
         }
@@ -689,12 +744,15 @@ class AuthenticatorViewModel(
      * Approves a push notification with a challenge response.
      */
     fun approveChallengeNotification(notificationId: String, challengeResponse: String) {
+        responseLatency.onResponse(notificationId)
         viewModelScope.launch {
             pushManager.approveChallengeNotification(notificationId, challengeResponse).onSuccess { success ->
                 if (!success) {
+                    responseLatency.cancel(notificationId)
                     _uiState.update { it.copy(error = "Failed to approve challenge notification") }
                 }
             }.onFailure { e ->
+                responseLatency.cancel(notificationId)
                 _uiState.update { it.copy(error = e.message ?: "Failed to approve challenge notification") }
             }
         }
@@ -704,12 +762,15 @@ class AuthenticatorViewModel(
      * Denies a push notification.
      */
     fun denyNotification(notificationId: String) {
+        responseLatency.onResponse(notificationId)
         viewModelScope.launch {
             pushManager.denyNotification(notificationId).onSuccess { success ->
                 if (!success) {
+                    responseLatency.cancel(notificationId)
                     _uiState.update { it.copy(error = "Failed to deny notification") }
                 }
             }.onFailure { e ->
+                responseLatency.cancel(notificationId)
                 _uiState.update { it.copy(error = e.message ?: "Failed to deny notification") }
             }
         }
@@ -842,6 +903,23 @@ class AuthenticatorViewModel(
         }
     }
 
+    /**
+     * Reports how many UI state updates were coalesced since the ViewModel was created.
+     */
+    fun reportUiStateEmissions() {
+        val summary = uiStateEmissions.summary()
+        diagnosticLogger.i(summary)
+        _uiState.update { it.copy(message = summary) }
+    }
+
+    /**
+     * Reports the latency of the last push responses sent from the notification shade.
+     */
+    fun reportPushResponseTimings() {
+        val summary = PushResponseTimings.summary()
+        diagnosticLogger.i(summary)
+        _uiState.update { it.copy(message = summary) }
+    }
 
     /**
      * Called when the ViewModel is cleared.
@@ -851,9 +929,9 @@ class AuthenticatorViewModel(
         
         viewModelScope.launch {
             try {
-                // Close managers to release resources
+                // Close managers to release resources. The push manager is shared by the application
+                // and outlives the ViewModel.
                 oathManager.close()
-                pushManager.close()
             } catch (e: Exception) {
                 // Log any errors during cleanup
                 diagnosticLogger.e("Error closing managers", e)
@@ -1016,47 +1094,28 @@ class AuthenticatorViewModel(
     }
     
     /**
-     * Creates manual backups for both OATH and PUSH databases.
+     * Creates manual backups for both OATH and PUSH credentials, in parallel.
      */
     fun createManualBackups() {
         viewModelScope.launch {
             try {
-                var oathBackupCount = 0
-                var pushBackupCount = 0
-                
-                // Get current backup counts
-                val oathInfo = oathManager.getDatabaseInfo()
-                val pushInfo = pushManager.getDatabaseInfo()
-                
-                val beforeOathCount = oathInfo.backupCount
-                val beforePushCount = pushInfo.backupCount
-                
-                // Create OATH backup
-                try {
-                    oathManager.createManualBackup()
-                    val afterOathInfo = oathManager.getDatabaseInfo()
-                    oathBackupCount = afterOathInfo.backupCount - beforeOathCount
-                } catch (e: Exception) {
-                    diagnosticLogger.w("Failed to create OATH backup: ${e.message}")
-                }
-                
-                // Create PUSH backup
-                try {
-                    pushManager.createManualBackup()
-                    val afterPushInfo = pushManager.getDatabaseInfo()
-                    pushBackupCount = afterPushInfo.backupCount - beforePushCount
-                } catch (e: Exception) {
-                    diagnosticLogger.w("Failed to create PUSH backup: ${e.message}")
-                }
-                
+                val oathBackup = async { runCatching { oathManager.createManualBackup() } }
+                val pushBackup = async { runCatching { pushManager.createManualBackup() } }
+                val oathResult = oathBackup.await()
+                    .onFailure { e -> diagnosticLogger.w("Failed to create OATH backup: ${e.message}") }
+                    .getOrNull()
+                val pushResult = pushBackup.await()
+                    .onFailure { e -> diagnosticLogger.w("Failed to create PUSH backup: ${e.message}") }
+                    .getOrNull()
+
+                val details = listOfNotNull(
+                    oathResult?.let { "OATH: ${describeBackup(it)}" },
+                    pushResult?.let { "PUSH: ${describeBackup(it)}" }
+                )
                 val message = buildString {
                     append("Manual backup created successfully!")
-                    if (oathBackupCount > 0 || pushBackupCount > 0) {
-                        append(" (")
-                        if (oathBackupCount > 0) append("OATH: +$oathBackupCount")
-                        if (oathBackupCount > 0 && pushBackupCount > 0) append(", ")
-                        if (pushBackupCount > 0) append("PUSH: +$pushBackupCount")
-                        append(")")
+                    if (details.isNotEmpty()) {
+                        append(details.joinToString(", ", prefix = " (", postfix = ")"))
                     }
                 }
                 
@@ -1066,6 +1125,12 @@ class AuthenticatorViewModel(
             }
         }
     }
+
+    private fun describeBackup(result: BackupResult): String = when {
+        result.file == null -> "no changes"
+        result.isFullSnapshot -> "full, ${result.recordCount} credential(s)"
+        else -> "+${result.recordCount} change(s)"
+    }
     
     /**
      * Gets database information for display.
@@ -1075,6 +1140,7 @@ class AuthenticatorViewModel(
             try {
                 val oathInfo = oathManager.getDatabaseInfo()
                 val pushInfo = pushManager.getDatabaseInfo()
+                val maintenanceReports = MaintenanceReportStore(getApplication())
                 
                 val info = DatabaseInfo(
                     oathDbPath = oathInfo.path,
@@ -1082,7 +1148,9 @@ class AuthenticatorViewModel(
                     oathBackupCount = oathInfo.backupCount,
                     pushDbPath = pushInfo.path,
                     pushDbSize = pushInfo.size,
-                    pushBackupCount = pushInfo.backupCount
+                    pushBackupCount = pushInfo.backupCount,
+                    oathMaintenance = maintenanceReports.getReport(MaintenanceReportStore.OATH_DATABASE),
+                    pushMaintenance = maintenanceReports.getReport(MaintenanceReportStore.PUSH_DATABASE)
                 )
                 callback(info)
             } catch (e: Exception) {
@@ -1095,7 +1163,7 @@ class AuthenticatorViewModel(
      * Sets the initialization error state.
      */
     fun setInitializationError(error: InitializationError) {
-        _uiState.update { it.copy(initializationError = error) }
+        _uiState.update { it.copy(initializationError = error, isInitialLoading = false) }
     }
     
     /**
@@ -1191,7 +1259,6 @@ data class AuthenticatorUiState(
     val oathCredentials: List<OathCredential> = emptyList(),
     val pushCredentials: List<PushCredential> = emptyList(),
     val accountGroups: List<AccountGroup> = emptyList(),
-    val generatedCodes: Map<String, OathCodeInfo> = emptyMap(),
     val pushNotifications: List<PushNotification> = emptyList(),
     val pendingNotifications: List<PushNotification> = emptyList(),
     val pushNotificationItems: List<PushNotificationItem> = emptyList(),
@@ -1208,3 +1275,43 @@ data class AuthenticatorUiState(
     val isLoadingPushCredentials: Boolean = false,
     val isLoadingNotifications: Boolean = false
 )
+
+/**
+ * Credential related manager state, combined before being merged into [AuthenticatorUiState].
+ */
+private data class CredentialState(
+    val oathCredentials: List<OathCredential>,
+    val pushCredentials: List<PushCredential>,
+    val accountGroups: List<AccountGroup>,
+    val lastAddedOathCredential: OathCredential?,
+    val lastAddedPushCredential: PushCredential?
+)
+
+/**
+ * Notification related manager state, combined before being merged into [AuthenticatorUiState].
+ */
+private data class NotificationState(
+    val pushNotifications: List<PushNotification>,
+    val pendingNotifications: List<PushNotification>,
+    val pushNotificationItems: List<PushNotificationItem>,
+    val pendingNotificationItems: List<PushNotificationItem>
+)
+
+/**
+ * Loading flags reported by the managers.
+ */
+private data class LoadingState(
+    val isLoadingOathCredentials: Boolean,
+    val isLoadingPushCredentials: Boolean,
+    val isLoadingNotifications: Boolean
+)
+
+/**
+ * Credentials grouped into accounts, and whether each type was loaded from storage yet.
+ */
+private data class AccountGroupInput(
+    val oathCredentials: List<OathCredential>,
+    val pushCredentials: List<PushCredential>,
+    val oathLoaded: Boolean,
+    val pushLoaded: Boolean
+)
@@ -7,6 +7,8 @@
 
 package com.pingidentity.authenticatorapp.data
 
+import kotlinx.serialization.Serializable
+
 /**
  * Represents information about a backup file.
  */
@@ -25,5 +27,31 @@ data class DatabaseInfo(
     val oathBackupCount: Int,
     val pushDbPath: String,
     val pushDbSize: Long,
-    val pushBackupCount: Int
+    val pushBackupCount: Int,
+    val oathMaintenance: StorageMaintenanceReport? = null,
+    val pushMaintenance: StorageMaintenanceReport? = null
+)
+
+/**
+ * Metrics of the last background maintenance of a database.
+ *
+ * @param timestamp Time the maintenance finished, in milliseconds since the epoch
+ * @param sizeBeforeBytes Size of the database files before the maintenance
+ * @param sizeAfterBytes Size of the database files after the maintenance
+ * @param queryLatencyBeforeMillis Median latency of the reference query before the maintenance
+ * @param queryLatencyAfterMillis Median latency of the reference query after the maintenance
+ * @param prunedNotifications Number of notification rows removed
+ * @param deletedBackups Number of backup files removed by the rotation
+ * @param compacted Whether the database was vacuumed, analyzed and checkpointed
+ */
+@Serializable
+data class StorageMaintenanceReport(
+    val timestamp: Long,
+    val sizeBeforeBytes: Long,
+    val sizeAfterBytes: Long,
+    val queryLatencyBeforeMillis: Double,
+    val queryLatencyAfterMillis: Double,
+    val prunedNotifications: Int,
+    val deletedBackups: Int,
+    val compacted: Boolean
 )
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.content.Context
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.push.PushCredential
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import kotlinx.serialization.SerialName
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.Json
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import javax.crypto.Cipher
+import javax.crypto.spec.GCMParameterSpec
+
+/**
+ * Display-only copy of an OATH credential. Holds no secret.
+ */
+@Serializable
+data class OathSnapshotEntry(
+    @SerialName("i") val id: String,
+    @SerialName("s") val issuer: String,
+    @SerialName("a") val accountName: String,
+    @SerialName("ds") val displayIssuer: String,
+    @SerialName("da") val displayAccountName: String,
+    @SerialName("t") val type: String,
+    @SerialName("p") val period: Int,
+    @SerialName("d") val digits: Int,
+    @SerialName("u") val imageUrl: String? = null
+)
+
+/**
+ * Display-only copy of a Push credential. Holds no secret.
+ */
+@Serializable
+data class PushSnapshotEntry(
+    @SerialName("i") val id: String,
+    @SerialName("s") val issuer: String,
+    @SerialName("a") val accountName: String,
+    @SerialName("ds") val displayIssuer: String,
+    @SerialName("da") val displayAccountName: String,
+    @SerialName("u") val imageUrl: String? = null
+)
+
+/**
+ * Display-only snapshot of the stored credentials, used to render the accounts list at launch
+ * before the encrypted credential storage is opened. No credential object is ever built from it.
+ */
+@Serializable
+data class CredentialSnapshot(
+    @SerialName("o") val oathEntries: List<OathSnapshotEntry> = emptyList(),
+    @SerialName("p") val pushEntries: List<PushSnapshotEntry> = emptyList()
+) {
+    val isEmpty: Boolean
+        get() = oathEntries.isEmpty() && pushEntries.isEmpty()
+
+    companion object {
+        /**
+         * Creates the snapshot of the given credentials, keeping only what is displayed.
+         */
+        fun of(oathCredentials: List<OathCredential>, pushCredentials: List<PushCredential>) = CredentialSnapshot(
+            oathEntries = oathCredentials.map { credential ->
+                OathSnapshotEntry(
+                    id = credential.id,
+                    issuer = credential.issuer,
+                    accountName = credential.accountName,
+                    displayIssuer = credential.displayIssuer,
+                    displayAccountName = credential.displayAccountName,
+                    type = credential.oathType.name,
+                    period = credential.period,
+                    digits = credential.digits,
+                    imageUrl = credential.imageURL
+                )
+            },
+            pushEntries = pushCredentials.map { credential ->
+                PushSnapshotEntry(
+                    id = credential.id,
+                    issuer = credential.issuer,
+                    accountName = credential.accountName,
+                    displayIssuer = credential.displayIssuer,
+                    displayAccountName = credential.displayAccountName,
+                    imageUrl = credential.imageURL
+                )
+            }
+        )
+    }
+}
+
+/**
+ * Stores the [CredentialSnapshot] encrypted with an AES-GCM key held in the Android Keystore.
+ * The file is excluded from backups, as the key cannot be restored on another device.
+ *
+ * Writes are asynchronous and merged: only the latest snapshot is written, after [WRITE_DELAY_MS].
+ *
+ * @param file File holding the encrypted snapshot
+ * @param diagnosticLogger Logger for errors
+ */
+class CredentialSnapshotStore(
+    private val file: File,
+    private val diagnosticLogger: DiagnosticLogger = DiagnosticLogger
+) {
+
+    constructor(context: Context) : this(File(context.noBackupFilesDir, FILE_NAME))
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val pendingSnapshot = MutableStateFlow<CredentialSnapshot?>(null)
+
+    // Last snapshot read or written, used to skip writes that would not change anything
+    @Volatile
+    private var lastSnapshot: CredentialSnapshot? = null
+
+    init {
+        scope.launch {
+            pendingSnapshot.filterNotNull().collectLatest { snapshot ->
+                delay(WRITE_DELAY_MS)
+                write(snapshot)
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot, or returns null if there is none or it cannot be decrypted.
+     */
+    suspend fun load(): CredentialSnapshot? = withContext(Dispatchers.IO) {
+        if (!file.exists()) return@withContext null
+        try {
+            val snapshot = DataInputStream(file.inputStream().buffered()).use { input ->
+                require(input.readByte() == FORMAT_VERSION) { "Unsupported snapshot format" }
+                val iv = ByteArray(input.readUnsignedByte()).also { input.readFully(it) }
+                val cipherText = input.readBytes()
+                val cipher = Cipher.getInstance(KeystoreKeys.TRANSFORMATION)
+                cipher.init(
+                    Cipher.DECRYPT_MODE,
+                    KeystoreKeys.aesKey(KEY_ALIAS),
+                    GCMParameterSpec(KeystoreKeys.TAG_LENGTH_BITS, iv)
+                )
+                snapshotJson.decodeFromString<CredentialSnapshot>(cipher.doFinal(cipherText).decodeToString())
+            }
+            lastSnapshot = snapshot
+            snapshot
+        } catch (e: Exception) {
+            diagnosticLogger.w("CredentialSnapshotStore: Discarding unreadable credential snapshot", e)
+            file.delete()
+            null
+        }
+    }
+
+    /**
+     * Schedules the snapshot of the given credentials to be written.
+     */
+    fun save(oathCredentials: List<OathCredential>, pushCredentials: List<PushCredential>) {
+        pendingSnapshot.value = CredentialSnapshot.of(oathCredentials, pushCredentials)
+    }
+
+    private fun write(snapshot: CredentialSnapshot) {
+        if (snapshot == lastSnapshot) return
+        try {
+            val cipher = Cipher.getInstance(KeystoreKeys.TRANSFORMATION)
+            cipher.init(Cipher.ENCRYPT_MODE, KeystoreKeys.aesKey(KEY_ALIAS))
+            val cipherText = cipher.doFinal(snapshotJson.encodeToString(snapshot).encodeToByteArray())
+            val tempFile = File(file.path + ".tmp")
+            DataOutputStream(tempFile.outputStream().buffered()).use { output ->
+                output.writeByte(FORMAT_VERSION.toInt())
+                output.writeByte(cipher.iv.size)
+                output.write(cipher.iv)
+                output.write(cipherText)
+            }
+            tempFile.renameTo(file)
+            lastSnapshot = snapshot
+        } catch (e: Exception) {
+            diagnosticLogger.w("CredentialSnapshotStore: Failed to write credential snapshot", e)
+        }
+    }
+
+    private companion object {
+        const val FILE_NAME = "credential_snapshot.bin"
+        const val KEY_ALIAS = "credential_snapshot_key"
+        const val FORMAT_VERSION: Byte = 1
+        const val WRITE_DELAY_MS = 500L
+
+        val snapshotJson = Json { ignoreUnknownKeys = true }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.util.Log
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.BufferedWriter
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStream
+
+/**
+ * Persistent sink for diagnostic logs, written as an append-only set of rolling files.
+ *
+ * A single writer coroutine drains the queued entries and writes them in batches, flushing once
+ * per batch. When the current file reaches [maxFileBytes] it is rolled over, and only the
+ * [maxFiles] most recent files are kept. The writer runs in the scope given to [start] until
+ * [close] is called or the scope is cancelled.
+ *
+ * @param directory Directory holding the log files
+ * @param maxFileBytes Size at which the current file is rolled over
+ * @param maxFiles Maximum number of files kept, including the current one
+ */
+class DiagnosticLogFileSink(
+    private val directory: File,
+    private val maxFileBytes: Long = 512 * 1024L,
+    private val maxFiles: Int = 4
+) {
+
+    private sealed interface Command {
+        data class Write(val entry: LogEntry) : Command
+        data class Flush(val done: CompletableDeferred<Unit>) : Command
+        data object Clear : Command
+    }
+
+    // Oldest entries are dropped if the writer falls behind, so logging never blocks
+    private val commands = Channel<Command>(capacity = 4096, onBufferOverflow = BufferOverflow.DROP_OLDEST)
+
+    private var writer: BufferedWriter? = null
+    private var currentFileSize = 0L
+    private var writerJob: Job? = null
+
+    /**
+     * Starts the writer coroutine in the given scope.
+     *
+     * @return The job of the writer coroutine
+     */
+    fun start(scope: CoroutineScope): Job = scope.launch {
+        try {
+            for (command in commands) {
+                try {
+                    handle(command)
+                    // Drain whatever is already queued before flushing the batch
+                    var next = commands.tryReceive().getOrNull()
+                    var batchSize = 1
+                    while (next != null && batchSize < MAX_BATCH_SIZE) {
+                        handle(next)
+                        batchSize++
+                        next = commands.tryReceive().getOrNull()
+                    }
+                    next?.let { handle(it) }
+                    writer?.flush()
+                } catch (e: Exception) {
+                    // Never route these errors through the diagnostic logger, it would loop back here
+                    Log.w(TAG, "Failed to write diagnostic logs", e)
+                    closeWriter()
+                }
+            }
+        } finally {
+            closeWriter()
+        }
+    }.also { writerJob = it }
+
+    /**
+     * Stops accepting entries, waits until the queued ones are handled, then closes the current file.
+     */
+    suspend fun close() {
+        commands.close()
+        writerJob?.join()
+    }
+
+    /**
+     * Queues an entry to be written. Never blocks.
+     */
+    fun offer(entry: LogEntry) {
+        commands.trySend(Command.Write(entry))
+    }
+
+    /**
+     * Waits until every entry queued so far has been written to disk.
+     * Gives up after [FLUSH_TIMEOUT_MS], as the request can be dropped if the queue overflows,
+     * and returns immediately once the sink is closed.
+     */
+    suspend fun flush() {
+        val done = CompletableDeferred<Unit>()
+        if (commands.trySend(Command.Flush(done)).isFailure) return
+        withTimeoutOrNull(FLUSH_TIMEOUT_MS) { done.await() }
+    }
+
+    /**
+     * Deletes every log file. Entries queued before this call are discarded with them.
+     */
+    fun clear() {
+        commands.trySend(Command.Clear)
+    }
+
+    /**
+     * Returns the log files, oldest first.
+     */
+    fun logFiles(): List<File> =
+        (maxFiles - 1 downTo 0).map { fileAt(it) }.filter { it.exists() }
+
+    /**
+     * Streams the content of every log file, oldest first, to the given output.
+     * Call [flush] first to include the entries that are still queued.
+     */
+    fun copyTo(output: OutputStream) {
+        logFiles().forEach { file ->
+            file.inputStream().use { input -> input.copyTo(output) }
+        }
+    }
+
+    private fun handle(command: Command) {
+        when (command) {
+            is Command.Write -> write(command.entry)
+            is Command.Flush -> {
+                writer?.flush()
+                command.done.complete(Unit)
+            }
+            is Command.Clear -> {
+                closeWriter()
+                (0 until maxFiles).forEach { fileAt(it).delete() }
+            }
+        }
+    }
+
+    private fun write(entry: LogEntry) {
+        if (currentFileSize >= maxFileBytes) {
+            rollOver()
+        }
+        val out = writer ?: openWriter()
+        val text = buildString { entry.formatTo(this) }
+        out.write(text)
+        // Close enough for rollover purposes, log text is mostly ASCII
+        currentFileSize += text.length
+    }
+
+    private fun openWriter(): BufferedWriter {
+        directory.mkdirs()
+        val file = fileAt(0)
+        currentFileSize = file.length()
+        return FileOutputStream(file, true).bufferedWriter().also { writer = it }
+    }
+
+    private fun rollOver() {
+        closeWriter()
+        fileAt(maxFiles - 1).delete()
+        for (index in maxFiles - 2 downTo 0) {
+            val file = fileAt(index)
+            if (file.exists()) {
+                file.renameTo(fileAt(index + 1))
+            }
+        }
+        currentFileSize = 0L
+    }
+
+    private fun closeWriter() {
+        try {
+            writer?.close()
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to close diagnostic log file", e)
+        }
+        writer = null
+    }
+
+    // Index 0 is the file currently written, higher indexes are older
+    private fun fileAt(index: Int): File =
+        File(directory, if (index == 0) "$FILE_PREFIX.log" else "$FILE_PREFIX.$index.log")
+
+    private companion object {
+        const val TAG = "DiagnosticLogFileSink"
+        const val FILE_PREFIX = "diagnostic"
+        const val MAX_BATCH_SIZE = 256
+        const val FLUSH_TIMEOUT_MS = 2_000L
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,115 +7,256 @@
 
 package com.pingidentity.authenticatorapp.data
 
-import android.annotation.SuppressLint
 import com.pingidentity.logger.Logger
 import com.pingidentity.logger.Standard
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import java.text.SimpleDateFormat
-import java.util.Date
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.plus
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.OutputStream
+import java.time.Instant
+import java.time.ZoneId
+import java.time.format.DateTimeFormatter
 import java.util.Locale
-import java.util.UUID.randomUUID
-import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
 
 /**
  * Data class representing a log entry.
+ * The timestamp and the exception are only formatted when they are displayed or exported.
+ *
+ * @param id Sequence number of the entry, unique for the lifetime of the process
+ * @param timeMillis Time the entry was logged, in milliseconds since the epoch
  */
 data class LogEntry(
-    val id: String = randomUUID().toString(),
-    val timestamp: String,
+    val id: Long,
+    val timeMillis: Long,
     val level: String,
     val message: String,
-    val throwable: String? = null
-)
+    val error: Throwable? = null
+) {
+    /**
+     * Formatted timestamp of the entry.
+     */
+    val timestamp: String
+        get() = DiagnosticLogger.formatTimestamp(timeMillis)
+
+    /**
+     * Formatted exception of the entry, if any, with its secrets masked.
+     */
+    val throwable: String?
+        get() = error?.let {
+            LogRedaction.redact("${it.javaClass.simpleName}: ${it.message}\n${it.stackTraceToString()}")
+        }
+
+    /**
+     * Appends the entry in the export format.
+     */
+    fun formatTo(out: Appendable) {
+        out.append('[').append(timestamp).append("] ").append(level).append(": ").append(message).append('\n')
+        throwable?.let { out.append("Exception: ").append(it).append('\n') }
+        out.append('\n')
+    }
+}
 
 /**
  * Diagnostic logger that captures logs in memory for debugging purposes.
  * This logger wraps the standard logger and also stores logs for later viewing.
+ *
+ * Entries are written to a fixed-capacity ring buffer without locking, so logging costs the same
+ * regardless of how many entries are kept. The [logs] snapshot is only rebuilt while it is observed,
+ * at most once every [SNAPSHOT_INTERVAL_MS].
+ *
+ * Messages are masked with [LogRedaction] before they are logged, kept or written to the log files,
+ * as they include the logs of the SDKs.
  */
 object DiagnosticLogger : Logger {
     private val standardLogger = Standard()
-    private val logEntries = ConcurrentLinkedQueue<LogEntry>()
 
-    @SuppressLint("ConstantLocale")
-    private val dateFormat = SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.getDefault())
-    
     private const val MAX_LOG_ENTRIES = 1000
+    private const val SNAPSHOT_INTERVAL_MS = 250L
+    private const val EXPORT_FILE_NAME = "diagnostic-logs.txt"
+
+    private val timestampFormatter = DateTimeFormatter
+        .ofPattern("yyyy-MM-dd HH:mm:ss.SSS", Locale.getDefault())
+        .withZone(ZoneId.systemDefault())
+
+    // Ring buffer slots, the entry with sequence number n is stored at index n % MAX_LOG_ENTRIES
+    private val slots = AtomicReferenceArray<LogEntry?>(MAX_LOG_ENTRIES)
+    private val nextSequence = AtomicLong()
+    // Entries with a lower sequence number were cleared
+    private val firstVisibleSequence = AtomicLong()
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private val snapshotScheduled = AtomicBoolean(false)
+
+    @Volatile
+    private var fileSink: DiagnosticLogFileSink? = null
 
     private val _logs = MutableStateFlow<List<LogEntry>>(emptyList())
     val logs: StateFlow<List<LogEntry>> = _logs.asStateFlow()
-    
-    private fun addLogEntry(level: String, message: String, throwable: Throwable? = null) {
-        val timestamp = dateFormat.format(Date())
-        val throwableString = throwable?.let { 
-            "${it.javaClass.simpleName}: ${it.message}\n${it.stackTraceToString()}"
+
+    init {
+        // Publish an up to date snapshot whenever the logs start being observed
+        scope.launch {
+            _logs.subscriptionCount
+                .map { it > 0 }
+                .distinctUntilChanged()
+                .filter { it }
+                .collect { _logs.value = snapshot() }
         }
-        
+    }
+
+    private fun addLogEntry(level: String, message: String, throwable: Throwable? = null) {
+        val sequence = nextSequence.getAndIncrement()
         val logEntry = LogEntry(
-            timestamp = timestamp,
+            id = sequence,
+            timeMillis = System.currentTimeMillis(),
             level = level,
             message = message,
-            throwable = throwableString
+            error = throwable
         )
-        
-        logEntries.add(logEntry)
-        
-        // Keep only the last MAX_LOG_ENTRIES entries
-        while (logEntries.size > MAX_LOG_ENTRIES) {
-            logEntries.poll()
+        slots.set((sequence % MAX_LOG_ENTRIES).toInt(), logEntry)
+        fileSink?.offer(logEntry)
+        requestSnapshot()
+    }
+
+    /**
+     * Persists the logs to rolling files in the given directory, in addition to the in-memory buffer.
+     * Exports then include every entry still in the files, not just the last [MAX_LOG_ENTRIES].
+     * Does nothing if the logs are already persisted.
+     */
+    @Synchronized
+    fun enableFileSink(directory: File) {
+        if (fileSink != null) return
+        fileSink = DiagnosticLogFileSink(directory).also { it.start(scope + Dispatchers.IO) }
+    }
+
+    /**
+     * Stops persisting the logs and deletes the log files. The in-memory buffer is kept.
+     */
+    @Synchronized
+    fun disableFileSink() {
+        val sink = fileSink ?: return
+        fileSink = null
+        sink.clear()
+        scope.launch { sink.close() }
+    }
+
+    /**
+     * Schedules a snapshot of the logs if they are being observed and none is pending.
+     */
+    private fun requestSnapshot() {
+        if (_logs.subscriptionCount.value == 0) return
+        if (!snapshotScheduled.compareAndSet(false, true)) return
+        scope.launch {
+            delay(SNAPSHOT_INTERVAL_MS)
+            snapshotScheduled.set(false)
+            _logs.value = snapshot()
         }
-        
-        // Update the StateFlow
-        _logs.value = logEntries.toList()
     }
-    
+
+    /**
+     * Returns the entries currently held in the ring buffer, oldest first.
+     * Slots being overwritten while reading are skipped.
+     */
+    fun snapshot(): List<LogEntry> {
+        val end = nextSequence.get()
+        val start = maxOf(end - MAX_LOG_ENTRIES, firstVisibleSequence.get())
+        if (end <= start) return emptyList()
+        val entries = ArrayList<LogEntry>((end - start).toInt())
+        for (sequence in start until end) {
+            val entry = slots.get((sequence % MAX_LOG_ENTRIES).toInt())
+            if (entry != null && entry.id == sequence) {
+                entries.add(entry)
+            }
+        }
+        return entries
+    }
+
+    /**
+     * Formats a log timestamp for display and export.
+     */
+    fun formatTimestamp(timeMillis: Long): String =
+        timestampFormatter.format(Instant.ofEpochMilli(timeMillis))
+
     override fun d(message: String) {
-        standardLogger.d(message)
-        addLogEntry("DEBUG", message)
+        val redacted = LogRedaction.redact(message)
+        standardLogger.d(redacted)
+        addLogEntry("DEBUG", redacted)
     }
-    
+
     override fun i(message: String) {
-        standardLogger.i(message)
-        addLogEntry("INFO", message)
+        val redacted = LogRedaction.redact(message)
+        standardLogger.i(redacted)
+        addLogEntry("INFO", redacted)
     }
-    
+
     override fun w(message: String, throwable: Throwable?) {
-        standardLogger.w(message, throwable)
-        addLogEntry("WARN", message, throwable)
+        val redacted = LogRedaction.redact(message)
+        standardLogger.w(redacted, throwable)
+        addLogEntry("WARN", redacted, throwable)
     }
-    
+
     override fun e(message: String, throwable: Throwable?) {
-        standardLogger.e(message, throwable)
-        addLogEntry("ERROR", message, throwable)
+        val redacted = LogRedaction.redact(message)
+        standardLogger.e(redacted, throwable)
+        addLogEntry("ERROR", redacted, throwable)
     }
-    
+
     /**
      * Clear all captured log entries.
      */
     fun clearLogs() {
-        logEntries.clear()
+        firstVisibleSequence.set(nextSequence.get())
+        fileSink?.clear()
         _logs.value = emptyList()
     }
-    
+
     /**
-     * Export all logs as a formatted string.
+     * Streams all logs to the given output, from the log files if they are enabled or from
+     * the in-memory buffer otherwise. The export is never held in memory as a whole.
      */
-    fun exportLogs(): String {
-        val sb = StringBuilder()
-        sb.appendLine("=== Diagnostic Logs Export ===")
-        sb.appendLine("Exported at: ${dateFormat.format(Date())}")
-        sb.appendLine("Total entries: ${logEntries.size}")
-        sb.appendLine()
-        
-        logEntries.forEach { entry ->
-            sb.appendLine("[${entry.timestamp}] ${entry.level}: ${entry.message}")
-            entry.throwable?.let { throwable ->
-                sb.appendLine("Exception: $throwable")
-            }
-            sb.appendLine()
+    suspend fun exportLogs(output: OutputStream) = withContext(Dispatchers.IO) {
+        val sink = fileSink
+        sink?.flush()
+        val writer = output.bufferedWriter()
+        writer.appendLine("=== Diagnostic Logs Export ===")
+        writer.appendLine("Exported at: ${formatTimestamp(System.currentTimeMillis())}")
+        if (sink != null) {
+            writer.appendLine("Source: ${sink.logFiles().size} log file(s)")
+            writer.appendLine()
+            writer.flush()
+            sink.copyTo(output)
+        } else {
+            val entries = snapshot()
+            writer.appendLine("Total entries: ${entries.size}")
+            writer.appendLine()
+            entries.forEach { entry -> entry.formatTo(writer) }
         }
-        
-        return sb.toString()
+        writer.flush()
+    }
+
+    /**
+     * Exports all logs to a file in the given directory, replacing any previous export.
+     *
+     * @return The exported file
+     */
+    suspend fun exportLogsToFile(directory: File): File = withContext(Dispatchers.IO) {
+        directory.mkdirs()
+        val file = File(directory, EXPORT_FILE_NAME)
+        file.outputStream().use { exportLogs(it) }
+        file
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import javax.crypto.AEADBadTagException
+import javax.crypto.Cipher
+import javax.crypto.SecretKey
+import javax.crypto.spec.GCMParameterSpec
+
+/**
+ * Output stream encrypting the data written to it in chunks of at most [chunkSize] bytes,
+ * so data of any size is encrypted without being held in memory.
+ *
+ * Each chunk is encrypted with AES-GCM under its own IV and written as
+ * `[last chunk flag][cipher text length][IV length][IV][cipher text]`. The chunk index and the flag
+ * are authenticated, so reordered, dropped or truncated chunks are detected when reading
+ * with [EncryptedChunkInputStream]. Closing the stream writes the last chunk.
+ *
+ * @param output Stream receiving the encrypted chunks
+ * @param key AES key used for encryption
+ * @param chunkSize Maximum size of the plain text of a chunk
+ */
+class EncryptedChunkOutputStream(
+    output: OutputStream,
+    private val key: SecretKey,
+    chunkSize: Int = DEFAULT_CHUNK_SIZE
+) : OutputStream() {
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 64 * 1024
+
+        /**
+         * Additional authenticated data of a chunk.
+         */
+        internal fun associatedData(index: Long, isLast: Boolean): ByteArray =
+            ByteBuffer.allocate(Long.SIZE_BYTES + 1).putLong(index).put((if (isLast) 1 else 0).toByte()).array()
+    }
+
+    private val output = DataOutputStream(output)
+    private val buffer = ByteArray(chunkSize)
+    private var position = 0
+    private var chunkIndex = 0L
+    private var isClosed = false
+
+    override fun write(b: Int) {
+        if (position == buffer.size) writeChunk(isLast = false)
+        buffer[position++] = b.toByte()
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        var offset = off
+        var remaining = len
+        while (remaining > 0) {
+            if (position == buffer.size) writeChunk(isLast = false)
+            val count = minOf(remaining, buffer.size - position)
+            System.arraycopy(b, offset, buffer, position, count)
+            position += count
+            offset += count
+            remaining -= count
+        }
+    }
+
+    override fun close() {
+        if (isClosed) return
+        isClosed = true
+        output.use { writeChunk(isLast = true) }
+    }
+
+    private fun writeChunk(isLast: Boolean) {
+        val cipher = Cipher.getInstance(KeystoreKeys.TRANSFORMATION)
+        cipher.init(Cipher.ENCRYPT_MODE, key)
+        cipher.updateAAD(associatedData(chunkIndex++, isLast))
+        val cipherText = cipher.doFinal(buffer, 0, position)
+        output.writeBoolean(isLast)
+        output.writeInt(cipherText.size)
+        output.writeByte(cipher.iv.size)
+        output.write(cipher.iv)
+        output.write(cipherText)
+        position = 0
+    }
+}
+
+/**
+ * Input stream decrypting the chunks written by [EncryptedChunkOutputStream], one chunk at a time.
+ *
+ * @param input Stream of encrypted chunks
+ * @param key AES key used for encryption
+ * @throws IOException while reading if the chunks were altered, reordered or truncated
+ */
+class EncryptedChunkInputStream(
+    input: InputStream,
+    private val key: SecretKey
+) : InputStream() {
+
+    private val input = DataInputStream(input)
+    private var chunk = ByteArray(0)
+    private var position = 0
+    private var chunkIndex = 0L
+    private var isLastRead = false
+
+    override fun read(): Int {
+        if (!ensureData()) return -1
+        return chunk[position++].toInt() and 0xFF
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) return 0
+        if (!ensureData()) return -1
+        val count = minOf(len, chunk.size - position)
+        System.arraycopy(chunk, position, b, off, count)
+        position += count
+        return count
+    }
+
+    override fun close() {
+        input.close()
+    }
+
+    /**
+     * Decrypts the next chunk if the current one was fully read.
+     * Returns false at the end of the data.
+     */
+    private fun ensureData(): Boolean {
+        while (position == chunk.size) {
+            if (isLastRead) return false
+            readChunk()
+        }
+        return true
+    }
+
+    private fun readChunk() {
+        val isLast = try {
+            input.readBoolean()
+        } catch (e: EOFException) {
+            throw IOException("Encrypted stream is truncated", e)
+        }
+        val cipherText = ByteArray(input.readInt())
+        val iv = ByteArray(input.readUnsignedByte()).also { input.readFully(it) }
+        input.readFully(cipherText)
+
+        chunk = try {
+            val cipher = Cipher.getInstance(KeystoreKeys.TRANSFORMATION)
+            cipher.init(Cipher.DECRYPT_MODE, key, GCMParameterSpec(KeystoreKeys.TAG_LENGTH_BITS, iv))
+            cipher.updateAAD(EncryptedChunkOutputStream.associatedData(chunkIndex, isLast))
+            cipher.doFinal(cipherText)
+        } catch (e: AEADBadTagException) {
+            throw IOException("Encrypted chunk $chunkIndex failed authentication", e)
+        }
+        isLastRead = isLast
+        chunkIndex++
+        position = 0
+    }
+}
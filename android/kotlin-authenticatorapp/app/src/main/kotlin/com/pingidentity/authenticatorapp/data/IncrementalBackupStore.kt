@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.SerialName
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonElement
+import java.io.File
+import java.io.IOException
+import java.io.Writer
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.Locale
+
+/**
+ * Result of a backup.
+ *
+ * @param file File written, or null if nothing changed since the previous backup
+ * @param isFullSnapshot Whether the file holds every record, rather than the changes since the previous backup
+ * @param recordCount Number of records written
+ */
+data class BackupResult(
+    val file: File?,
+    val isFullSnapshot: Boolean,
+    val recordCount: Int
+)
+
+/**
+ * A record of a backup file: the new value of a row, or its deletion.
+ */
+@Serializable
+private data class BackupRecord(
+    @SerialName("i") val id: String,
+    @SerialName("v") val value: JsonElement? = null
+)
+
+/**
+ * State of the last backup, used to find the rows changed since.
+ */
+@Serializable
+private data class BackupManifest(
+    @SerialName("s") val sequence: Long,
+    @SerialName("d") val deltasSinceFullSnapshot: Int,
+    @SerialName("h") val hashes: Map<String, String>
+)
+
+/**
+ * Incremental, encrypted backups of a list of rows, such as the credentials of a storage.
+ *
+ * A backup only holds the rows added, changed or deleted since the previous backup, found by comparing
+ * the hash of each row with the ones recorded in a manifest. Every [fullSnapshotInterval] backups,
+ * a full snapshot holding every row starts a new chain, and the previous chain is deleted.
+ * Restoring replays the last full snapshot followed by the deltas written after it.
+ *
+ * Files are streamed one record per line through an [EncryptedChunkOutputStream], never built in memory.
+ *
+ * @param directory Directory holding the backup files
+ * @param serializer Serializer of the rows
+ * @param idOf Selector returning the unique id of a row
+ * @param keyAlias Alias of the Android Keystore key encrypting the files
+ * @param fullSnapshotInterval Number of deltas written before the next full snapshot
+ * @param diagnosticLogger Logger for diagnostics
+ */
+class IncrementalBackupStore<T>(
+    private val directory: File,
+    private val serializer: KSerializer<T>,
+    private val idOf: (T) -> String,
+    private val keyAlias: String = DEFAULT_KEY_ALIAS,
+    private val fullSnapshotInterval: Int = DEFAULT_FULL_SNAPSHOT_INTERVAL,
+    private val diagnosticLogger: DiagnosticLogger = DiagnosticLogger
+) {
+
+    companion object {
+        const val DEFAULT_KEY_ALIAS = "credential_backup_key"
+        const val DEFAULT_FULL_SNAPSHOT_INTERVAL = 10
+
+        private const val MANIFEST_FILE_NAME = "manifest.bin"
+        private val backupFileName = Regex("""backup_(\d+)_(full|delta)\.bak""")
+
+        private val backupJson = Json { ignoreUnknownKeys = true }
+    }
+
+    private val mutex = Mutex()
+
+    /**
+     * Backs up the given rows, writing either the changes since the previous backup or a full snapshot.
+     * Nothing is written if no row changed.
+     *
+     * @param rows Current content of the storage
+     * @param forceFullSnapshot Whether to write a full snapshot even if a delta would do
+     */
+    suspend fun backup(rows: List<T>, forceFullSnapshot: Boolean = false): BackupResult = withContext(Dispatchers.IO) {
+        mutex.withLock {
+            val manifest = readManifest()
+            val values = LinkedHashMap<String, JsonElement>(rows.size)
+            rows.forEach { row -> values[idOf(row)] = backupJson.encodeToJsonElement(serializer, row) }
+            val hashes = values.mapValues { (_, value) -> hash(value) }
+
+            val isFullSnapshot = forceFullSnapshot ||
+                manifest == null ||
+                manifest.deltasSinceFullSnapshot >= fullSnapshotInterval ||
+                backupFiles().none { it.isFullSnapshot }
+            // Manifest the delta is computed against, null for a full snapshot
+            val previous = manifest?.takeUnless { isFullSnapshot }
+            val records = if (previous == null) {
+                values.map { (id, value) -> BackupRecord(id, value) }
+            } else {
+                val changed = values.filter { (id, _) -> previous.hashes[id] != hashes[id] }
+                    .map { (id, value) -> BackupRecord(id, value) }
+                val deleted = previous.hashes.keys.filterNot { it in values }
+                    .map { id -> BackupRecord(id) }
+                changed + deleted
+            }
+            if (previous != null && records.isEmpty()) {
+                return@withLock BackupResult(file = null, isFullSnapshot = false, recordCount = 0)
+            }
+
+            val sequence = (manifest?.sequence ?: 0) + 1
+            val file = File(directory, fileName(sequence, isFullSnapshot))
+            writeEncrypted(file) { writer ->
+                records.forEach { record ->
+                    writer.append(backupJson.encodeToString(BackupRecord.serializer(), record)).append('\n')
+                }
+            }
+            writeManifest(
+                BackupManifest(
+                    sequence = sequence,
+                    deltasSinceFullSnapshot = previous?.let { it.deltasSinceFullSnapshot + 1 } ?: 0,
+                    hashes = hashes
+                )
+            )
+            if (isFullSnapshot) {
+                // The new chain no longer depends on the previous ones
+                backupFiles().filter { it.sequence < sequence }.forEach { it.file.delete() }
+            }
+            BackupResult(file, isFullSnapshot, records.size)
+        }
+    }
+
+    /**
+     * Rebuilds the rows from the last full snapshot and the deltas written after it.
+     * Replay stops at the first unreadable delta, restoring the state of the backup before it.
+     *
+     * @return The restored rows, or null if there is no readable full snapshot
+     */
+    suspend fun restore(): List<T>? = withContext(Dispatchers.IO) {
+        mutex.withLock {
+            val files = backupFiles()
+            val fullSnapshotIndex = files.indexOfLast { it.isFullSnapshot }
+            if (fullSnapshotIndex < 0) return@withLock null
+
+            val rows = LinkedHashMap<String, T>()
+            for (backupFile in files.drop(fullSnapshotIndex)) {
+                // Read the whole file before applying it, so an unreadable file is not partially applied
+                val records = try {
+                    readEncrypted(backupFile.file) { lines ->
+                        lines.map { line -> backupJson.decodeFromString(BackupRecord.serializer(), line) }.toList()
+                    }
+                } catch (e: Exception) {
+                    diagnosticLogger.w("IncrementalBackupStore: Unreadable backup ${backupFile.file.name}", e)
+                    if (backupFile.isFullSnapshot) return@withLock null
+                    break
+                }
+                records.forEach { record ->
+                    if (record.value == null) {
+                        rows.remove(record.id)
+                    } else {
+                        rows[record.id] = backupJson.decodeFromJsonElement(serializer, record.value)
+                    }
+                }
+            }
+            rows.values.toList()
+        }
+    }
+
+    /**
+     * Returns the time the newest backup of the current chain was written, or null if there is none.
+     */
+    fun latestBackupTime(): Long? = backupFiles().lastOrNull()?.file?.lastModified()
+
+    /**
+     * Returns the backup files of the current chain, oldest first.
+     */
+    fun listFiles(): List<File> = backupFiles().map { it.file }
+
+    /**
+     * Deletes every backup file.
+     *
+     * @return The number of backup files deleted
+     */
+    suspend fun clear(): Int = withContext(Dispatchers.IO) {
+        mutex.withLock {
+            File(directory, MANIFEST_FILE_NAME).delete()
+            backupFiles().count { it.file.delete() }
+        }
+    }
+
+    private class BackupFile(val file: File, val sequence: Long, val isFullSnapshot: Boolean)
+
+    private fun backupFiles(): List<BackupFile> {
+        val files = directory.listFiles() ?: return emptyList()
+        return files.mapNotNull { file ->
+            val match = backupFileName.matchEntire(file.name) ?: return@mapNotNull null
+            BackupFile(file, match.groupValues[1].toLong(), match.groupValues[2] == "full")
+        }.sortedBy { it.sequence }
+    }
+
+    private fun fileName(sequence: Long, isFullSnapshot: Boolean): String =
+        String.format(Locale.US, "backup_%06d_%s.bak", sequence, if (isFullSnapshot) "full" else "delta")
+
+    private fun hash(value: JsonElement): String {
+        val digest = MessageDigest.getInstance("SHA-256").digest(value.toString().encodeToByteArray())
+        return Base64.getEncoder().encodeToString(digest)
+    }
+
+    private fun readManifest(): BackupManifest? {
+        val file = File(directory, MANIFEST_FILE_NAME)
+        if (!file.exists()) return null
+        return try {
+            readEncrypted(file) { lines -> backupJson.decodeFromString(BackupManifest.serializer(), lines.first()) }
+        } catch (e: Exception) {
+            // Without a manifest, the next backup is a full snapshot
+            diagnosticLogger.w("IncrementalBackupStore: Ignoring unreadable backup manifest", e)
+            null
+        }
+    }
+
+    private fun writeManifest(manifest: BackupManifest) {
+        writeEncrypted(File(directory, MANIFEST_FILE_NAME)) { writer ->
+            writer.append(backupJson.encodeToString(BackupManifest.serializer(), manifest))
+        }
+    }
+
+    /**
+     * Writes a file through an encrypting stream, replacing it only once fully written.
+     */
+    private fun writeEncrypted(file: File, write: (Writer) -> Unit) {
+        directory.mkdirs()
+        val tempFile = File(file.path + ".tmp")
+        EncryptedChunkOutputStream(tempFile.outputStream().buffered(), KeystoreKeys.aesKey(keyAlias))
+            .bufferedWriter()
+            .use { writer -> write(writer) }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete()
+            throw IOException("Failed to write ${file.name}")
+        }
+    }
+
+    private fun <R> readEncrypted(file: File, read: (Sequence<String>) -> R): R =
+        EncryptedChunkInputStream(file.inputStream().buffered(), KeystoreKeys.aesKey(keyAlias))
+            .bufferedReader()
+            .use { reader -> read(reader.lineSequence()) }
+}
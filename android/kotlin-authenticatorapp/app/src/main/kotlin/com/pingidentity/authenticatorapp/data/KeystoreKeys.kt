@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.security.keystore.KeyGenParameterSpec
+import android.security.keystore.KeyProperties
+import java.security.KeyStore
+import javax.crypto.KeyGenerator
+import javax.crypto.SecretKey
+
+/**
+ * AES keys held in the Android Keystore, used to encrypt the files written by the app.
+ */
+internal object KeystoreKeys {
+
+    private const val ANDROID_KEYSTORE = "AndroidKeyStore"
+    private const val KEY_SIZE_BITS = 256
+
+    /**
+     * AES-GCM transformation to use with the keys.
+     */
+    const val TRANSFORMATION = "AES/GCM/NoPadding"
+
+    /**
+     * Length of the AES-GCM authentication tag.
+     */
+    const val TAG_LENGTH_BITS = 128
+
+    /**
+     * Returns the AES-GCM key with the given alias, creating it if needed.
+     */
+    @Synchronized
+    fun aesKey(alias: String): SecretKey {
+        val keyStore = KeyStore.getInstance(ANDROID_KEYSTORE).apply { load(null) }
+        (keyStore.getKey(alias, null) as? SecretKey)?.let { return it }
+
+        val keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEYSTORE)
+        keyGenerator.init(
+            KeyGenParameterSpec.Builder(alias, KeyProperties.PURPOSE_ENCRYPT or KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(KEY_SIZE_BITS)
+                .build()
+        )
+        return keyGenerator.generateKey()
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+/**
+ * Masks the secrets that can appear in diagnostic log messages before they are kept or written.
+ *
+ * Log messages come from the app and from the SDKs, so the secrets are recognized by their shape:
+ * - secret fields and parameters, as printed by credentials and registration URIs (`secret=…`, `sharedSecret=…`)
+ * - JSON Web Tokens, which carry the push notification payloads
+ * - Firebase device tokens
+ */
+internal object LogRedaction {
+
+    const val MASK = "***"
+
+    // The value ends at a separator of the formats it appears in: toString, URI query, JSON or logcat text
+    private val secretValue = Regex("""(?i)(shared_?secret|secret)("?\s*[=:]\s*"?)([^\s,)&"}\]]+)""")
+    private val jwt = Regex("""\beyJ[A-Za-z0-9_-]*\.[A-Za-z0-9_-]+\.[A-Za-z0-9_-]*""")
+    private val deviceToken = Regex("""\b[A-Za-z0-9_-]{11,}:APA91[A-Za-z0-9_-]{20,}""")
+
+    /**
+     * Returns the message with its secrets masked.
+     */
+    fun redact(message: String): String {
+        var redacted = message
+        if (redacted.contains("ecret", ignoreCase = true)) {
+            redacted = secretValue.replace(redacted) { match ->
+                "${match.groupValues[1]}${match.groupValues[2]}$MASK"
+            }
+        }
+        if (redacted.contains("eyJ")) {
+            redacted = jwt.replace(redacted, MASK)
+        }
+        if (redacted.contains(":APA91")) {
+            redacted = deviceToken.replace(redacted, MASK)
+        }
+        return redacted
+    }
+}
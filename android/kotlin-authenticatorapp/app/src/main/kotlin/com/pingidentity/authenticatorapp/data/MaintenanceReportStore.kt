@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.content.Context
+import android.content.SharedPreferences
+import androidx.core.content.edit
+import kotlinx.serialization.json.Json
+
+/**
+ * Keeps the report of the last background maintenance of each database, using SharedPreferences.
+ */
+class MaintenanceReportStore(context: Context) {
+
+    companion object {
+        const val OATH_DATABASE = "oath"
+        const val PUSH_DATABASE = "push"
+
+        private const val PREFS_NAME = "storage_maintenance"
+        private val reportJson = Json { ignoreUnknownKeys = true }
+    }
+
+    private val prefs: SharedPreferences = context.getSharedPreferences(
+        PREFS_NAME, Context.MODE_PRIVATE
+    )
+
+    /**
+     * Returns the last report of the given database, or null if it was never maintained.
+     *
+     * @param database [OATH_DATABASE] or [PUSH_DATABASE]
+     */
+    fun getReport(database: String): StorageMaintenanceReport? {
+        val value = prefs.getString(database, null) ?: return null
+        return try {
+            reportJson.decodeFromString(StorageMaintenanceReport.serializer(), value)
+        } catch (e: Exception) {
+            DiagnosticLogger.w("MaintenanceReportStore: Ignoring unreadable report of $database", e)
+            null
+        }
+    }
+
+    /**
+     * Saves the last report of the given database.
+     *
+     * @param database [OATH_DATABASE] or [PUSH_DATABASE]
+     */
+    fun saveReport(database: String, report: StorageMaintenanceReport) {
+        prefs.edit {
+            putString(database, reportJson.encodeToString(StorageMaintenanceReport.serializer(), report))
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import com.pingidentity.authenticatorapp.util.getTimeAgoString
+import com.pingidentity.mfa.push.PushCredential
+import com.pingidentity.mfa.push.PushNotification
+
+/**
+ * Notification UI items built by [NotificationProjector].
+ *
+ * @param allItems Items for all the notifications
+ * @param pendingItems Items for the pending notifications
+ * @param rebuiltCount Number of items that had to be rebuilt in this update
+ */
+data class NotificationProjection(
+    val allItems: List<PushNotificationItem>,
+    val pendingItems: List<PushNotificationItem>,
+    val rebuiltCount: Int
+)
+
+/**
+ * Builds [PushNotificationItem]s from push notifications, reusing the work done in previous updates.
+ *
+ * Credentials are looked up through an index keyed by credential ID, the parsed context of each
+ * notification is memoized by notification ID, and an item is only rebuilt when its notification
+ * or credential changed. Only the relative time is refreshed for the other items.
+ */
+class NotificationProjector {
+
+    private class MemoizedContext(val contextInfo: String?, val context: NotificationContext)
+
+    private val credentialIndex = HashMap<String, PushCredential>()
+    private var indexedCredentials: List<PushCredential>? = null
+    private val contextCache = HashMap<String, MemoizedContext>()
+    private val itemCache = HashMap<String, PushNotificationItem>()
+
+    /**
+     * Projects the given notifications into UI items.
+     * Cached entries of notifications that are no longer present are dropped.
+     *
+     * @param allNotifications All the notifications
+     * @param pendingNotifications The pending notifications
+     * @param pushCredentials The credentials the notifications belong to
+     */
+    @Synchronized
+    fun update(
+        allNotifications: List<PushNotification>,
+        pendingNotifications: List<PushNotification>,
+        pushCredentials: List<PushCredential>
+    ): NotificationProjection {
+        indexCredentials(pushCredentials)
+
+        val seenIds = HashSet<String>((allNotifications.size + pendingNotifications.size) * 2)
+        var rebuiltCount = 0
+        val project: (PushNotification) -> PushNotificationItem = { notification ->
+            seenIds.add(notification.id)
+            val cached = itemCache[notification.id]
+            val credential = credentialIndex[notification.credentialId]
+            if (cached != null && cached.notification == notification && cached.credential === credential) {
+                refreshTimeAgo(cached)
+            } else {
+                rebuiltCount++
+                buildPushNotificationItem(notification, credential, contextOf(notification)).also {
+                    itemCache[notification.id] = it
+                }
+            }
+        }
+        val allItems = allNotifications.map(project)
+        val pendingItems = pendingNotifications.map(project)
+
+        if (itemCache.size > seenIds.size) {
+            itemCache.keys.retainAll(seenIds)
+            contextCache.keys.retainAll(seenIds)
+        }
+        return NotificationProjection(allItems, pendingItems, rebuiltCount)
+    }
+
+    /**
+     * Clears every cached entry.
+     */
+    @Synchronized
+    fun clear() {
+        credentialIndex.clear()
+        indexedCredentials = null
+        contextCache.clear()
+        itemCache.clear()
+    }
+
+    private fun indexCredentials(pushCredentials: List<PushCredential>) {
+        if (indexedCredentials === pushCredentials) return
+        credentialIndex.clear()
+        pushCredentials.forEach { credentialIndex[it.id] = it }
+        indexedCredentials = pushCredentials
+    }
+
+    private fun contextOf(notification: PushNotification): NotificationContext {
+        val memoized = contextCache[notification.id]
+        if (memoized != null && memoized.contextInfo == notification.contextInfo) {
+            return memoized.context
+        }
+        val context = parseNotificationContext(notification.contextInfo)
+        contextCache[notification.id] = MemoizedContext(notification.contextInfo, context)
+        return context
+    }
+
+    private fun refreshTimeAgo(item: PushNotificationItem): PushNotificationItem {
+        val timeAgo = getTimeAgoString(item.notification.createdAt)
+        if (timeAgo == item.timeAgo) return item
+        return item.copy(timeAgo = timeAgo).also { itemCache[item.notification.id] = it }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import com.pingidentity.logger.Logger
+import java.util.concurrent.ConcurrentLinkedDeque
+
+/**
+ * Records the time from a tap on the approve or deny action of a push notification to the
+ * acknowledgement of the response by the server.
+ */
+object PushResponseTimings {
+
+    private const val MAX_RESPONSES = 20
+
+    /**
+     * How a response reached the server.
+     */
+    enum class Path {
+        /** Sent right away by the notification action receiver. */
+        FAST,
+
+        /** Sent by the retry queue, after the fast path failed. */
+        QUEUED
+    }
+
+    /**
+     * An acknowledged response.
+     *
+     * @param notificationId ID of the notification
+     * @param approved Whether the notification was approved or denied
+     * @param path How the response reached the server
+     * @param attempts Number of attempts, including the fast path
+     * @param latencyMillis Time from the tap to the acknowledgement, in milliseconds
+     */
+    data class Response(
+        val notificationId: String,
+        val approved: Boolean,
+        val path: Path,
+        val attempts: Int,
+        val latencyMillis: Long
+    )
+
+    private val responses = ConcurrentLinkedDeque<Response>()
+
+    /**
+     * Records an acknowledged response.
+     *
+     * @param tappedAtMillis Wall clock time of the tap, kept by the retry queue across process restarts
+     */
+    fun record(notificationId: String, approved: Boolean, path: Path, attempts: Int, tappedAtMillis: Long) {
+        val response = Response(
+            notificationId = notificationId,
+            approved = approved,
+            path = path,
+            attempts = attempts,
+            latencyMillis = System.currentTimeMillis() - tappedAtMillis
+        )
+        responses.addFirst(response)
+        while (responses.size > MAX_RESPONSES) responses.pollLast()
+        Logger.logger.i(
+            "Push response to ${response.notificationId} acknowledged after ${response.latencyMillis} ms " +
+                "(${response.path.name.lowercase()} path, attempt ${response.attempts})"
+        )
+    }
+
+    /**
+     * Returns the last acknowledged responses, newest first.
+     */
+    fun responses(): List<Response> = responses.toList()
+
+    /**
+     * Formats the acknowledged responses for the diagnostic logs, see the test screen.
+     */
+    fun summary(): String {
+        val responses = responses()
+        if (responses.isEmpty()) return "Push response timings: no response acknowledged yet"
+        return responses.joinToString(", ", prefix = "Push response timings: ") { response ->
+            "${response.path.name.lowercase()} ${response.latencyMillis} ms (${response.attempts} attempts)"
+        }
+    }
+}
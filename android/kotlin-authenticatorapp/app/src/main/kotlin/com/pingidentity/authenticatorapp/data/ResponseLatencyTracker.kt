@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.os.SystemClock
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Measures the time between the user responding to a push notification and the UI state showing
+ * the notification as no longer pending.
+ *
+ * @param diagnosticLogger Logger receiving each measurement
+ */
+class ResponseLatencyTracker(
+    private val diagnosticLogger: DiagnosticLogger
+) {
+    private val startTimes = ConcurrentHashMap<String, Long>()
+
+    // Ids of the last pending list checked, rebuilt only when the list changes
+    private var checkedPendingItems: List<PushNotificationItem>? = null
+    private var pendingIds: Set<String> = emptySet()
+
+    /**
+     * Latency of the last response that became visible, in milliseconds, or null if none yet.
+     */
+    @Volatile
+    var lastLatencyMillis: Long? = null
+        private set
+
+    /**
+     * Records the moment the user responded to a notification.
+     */
+    fun onResponse(notificationId: String) {
+        startTimes[notificationId] = SystemClock.elapsedRealtime()
+    }
+
+    /**
+     * Stops tracking a notification, e.g. when its response failed.
+     */
+    fun cancel(notificationId: String) {
+        startTimes.remove(notificationId)
+    }
+
+    /**
+     * Checks a UI state about to be shown and records the latency of every tracked notification
+     * that is no longer pending in it. Called by a single collector of the UI state.
+     */
+    fun onStateEmitted(state: AuthenticatorUiState) {
+        if (startTimes.isEmpty()) return
+        val pendingItems = state.pendingNotificationItems
+        if (pendingItems !== checkedPendingItems) {
+            checkedPendingItems = pendingItems
+            pendingIds = pendingItems.mapTo(HashSet(pendingItems.size * 2)) { it.notification.id }
+        }
+        val now = SystemClock.elapsedRealtime()
+        val iterator = startTimes.entries.iterator()
+        while (iterator.hasNext()) {
+            val (notificationId, startTime) = iterator.next()
+            if (notificationId in pendingIds) continue
+            iterator.remove()
+            val latency = now - startTime
+            lastLatencyMillis = latency
+            diagnosticLogger.i("Notification $notificationId response visible after $latency ms")
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import android.os.Process
+import android.os.SystemClock
+import com.pingidentity.logger.Logger
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Records how long each startup phase takes, relative to the start of the process.
+ * Used to track the cold start time until the first OTP is visible.
+ */
+object StartupTimings {
+
+    /**
+     * Milestone recorded when the first OTP code is shown on screen.
+     */
+    const val FIRST_OTP_VISIBLE = "first_otp_visible"
+
+    /**
+     * A measured phase or milestone.
+     *
+     * @param name Name of the phase
+     * @param startMillis Start of the phase, in milliseconds since the process started
+     * @param durationMillis Duration of the phase, 0 for milestones
+     */
+    data class Phase(
+        val name: String,
+        val startMillis: Long,
+        val durationMillis: Long
+    )
+
+    private val processStart = Process.getStartElapsedRealtime()
+    private val phases = ConcurrentHashMap<String, Phase>()
+
+    /**
+     * Runs [block] and records its duration as the phase [name].
+     */
+    inline fun <T> measure(name: String, block: () -> T): T {
+        val start = SystemClock.elapsedRealtime()
+        try {
+            return block()
+        } finally {
+            record(name, start, SystemClock.elapsedRealtime())
+        }
+    }
+
+    /**
+     * Records a phase that ran between two [SystemClock.elapsedRealtime] values.
+     */
+    fun record(name: String, startElapsed: Long, endElapsed: Long) {
+        phases[name] = Phase(name, startElapsed - processStart, endElapsed - startElapsed)
+    }
+
+    /**
+     * Records a milestone the first time it is reached. Later calls are ignored.
+     */
+    fun mark(name: String) {
+        val now = SystemClock.elapsedRealtime()
+        if (phases.putIfAbsent(name, Phase(name, now - processStart, 0)) == null) {
+            Logger.logger.i("Startup: $name reached after ${now - processStart} ms")
+        }
+    }
+
+    /**
+     * Returns the recorded phases, in the order they started.
+     */
+    fun phases(): List<Phase> = phases.values.sortedBy { it.startMillis }
+
+    /**
+     * Formats the recorded phases for the diagnostic logs.
+     */
+    fun summary(): String = phases().joinToString(", ", prefix = "Startup timings: ") { phase ->
+        "${phase.name} +${phase.startMillis} ms (${phase.durationMillis} ms)"
+    }
+}
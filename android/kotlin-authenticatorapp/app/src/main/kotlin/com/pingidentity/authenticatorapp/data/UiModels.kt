@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -35,6 +35,9 @@ enum class NotificationStatus {
 /**
  * Data class to represent a group of credentials (OATH or Push) with the same issuer/account.
  * This is used to display a unified account view regardless of authentication method.
+ *
+ * Until the credentials are loaded from storage, a group holds the display-only entries of the
+ * credential snapshot instead, and is read-only.
  */
 data class AccountGroup(
     val issuer: String,
@@ -42,8 +45,41 @@ data class AccountGroup(
     val displayIssuer: String,
     val displayAccountName: String,
     val oathCredentials: List<OathCredential> = emptyList(),
-    val pushCredentials: List<PushCredential> = emptyList()
+    val pushCredentials: List<PushCredential> = emptyList(),
+    val oathSnapshotEntries: List<OathSnapshotEntry> = emptyList(),
+    val pushSnapshotEntries: List<PushSnapshotEntry> = emptyList()
 ) {
+    /**
+     * Whether some credentials of this group are only known from the snapshot.
+     * The group cannot be edited, locked or deleted until they are loaded from storage.
+     */
+    val isReadOnly: Boolean
+        get() = oathSnapshotEntries.isNotEmpty() || pushSnapshotEntries.isNotEmpty()
+
+    /**
+     * Whether the group has OATH credentials, loaded or from the snapshot.
+     */
+    val hasOathCredentials: Boolean
+        get() = oathCredentials.isNotEmpty() || oathSnapshotEntries.isNotEmpty()
+
+    /**
+     * Whether the group has Push credentials, loaded or from the snapshot.
+     */
+    val hasPushCredentials: Boolean
+        get() = pushCredentials.isNotEmpty() || pushSnapshotEntries.isNotEmpty()
+
+    /**
+     * IDs of the OATH credentials of the group, loaded or from the snapshot.
+     */
+    val oathCredentialIds: List<String>
+        get() = oathCredentials.map { it.id } + oathSnapshotEntries.map { it.id }
+
+    /**
+     * IDs of the Push credentials of the group, loaded or from the snapshot.
+     */
+    val pushCredentialIds: List<String>
+        get() = pushCredentials.map { it.id } + pushSnapshotEntries.map { it.id }
+
     /**
      * Check if this account group has any locked credentials.
      */
@@ -56,6 +92,15 @@ data class AccountGroup(
     val lockingPolicy: String?
         get() = oathCredentials.firstOrNull { it.isLocked }?.lockingPolicy 
             ?: pushCredentials.firstOrNull { it.isLocked }?.lockingPolicy
+
+    /**
+     * Get the logo URL of the account, from the first OATH credential if available, otherwise the first Push one.
+     */
+    val imageUrl: String?
+        get() = oathCredentials.firstOrNull()?.imageURL
+            ?: oathSnapshotEntries.firstOrNull()?.imageUrl
+            ?: pushCredentials.firstOrNull()?.imageURL
+            ?: pushSnapshotEntries.firstOrNull()?.imageUrl
 }
 
 /**
@@ -91,12 +136,38 @@ private data class ContextWrapper(
 )
 
 /**
- * Extension function to convert a list of push notifications into UI items with additional info.
+ * Context details parsed from the contextInfo JSON of a push notification.
  */
-fun List<PushNotification>.toUiItems(pushCredentials: List<PushCredential>): List<PushNotificationItem> {
-    return map {
-        // Find the credential associated with this notification
-        createPushNotificationItem(pushCredentials, it)
+internal data class NotificationContext(
+    val latitude: Double? = null,
+    val longitude: Double? = null,
+    val deviceInfo: DeviceInfo? = null
+) {
+    val hasLocationInfo: Boolean
+        get() = latitude != null && longitude != null
+
+    companion object {
+        val EMPTY = NotificationContext()
+    }
+}
+
+/**
+ * Parses the contextInfo JSON of a push notification.
+ * Returns [NotificationContext.EMPTY] if there is no context or it is not valid JSON.
+ */
+internal fun parseNotificationContext(contextInfo: String?): NotificationContext {
+    if (contextInfo == null) return NotificationContext.EMPTY
+    val unescapedContextInfo = contextInfo.replace("\\\"","\"")
+    return try {
+        val parsedContext = jsonParser.decodeFromString<ContextWrapper>(unescapedContextInfo)
+        NotificationContext(
+            latitude = parsedContext.location?.latitude,
+            longitude = parsedContext.location?.longitude,
+            deviceInfo = parsedContext.userAgent?.let { parseUserAgent(it) }
+        )
+    } catch (_: Exception) {
+        // Ignore errors from decodeFromString if content is not valid JSON
+        NotificationContext.EMPTY
     }
 }
 
@@ -109,45 +180,22 @@ fun createPushNotificationItem(
     notification: PushNotification
 ): PushNotificationItem {
     val credential = pushCredentials.find { it.id == notification.credentialId }
+    return buildPushNotificationItem(notification, credential, parseNotificationContext(notification.contextInfo))
+}
 
-    // Calculate time ago string
-    val timeAgo = getTimeAgoString(notification.createdAt)
-
+/**
+ * Builds a PushNotificationItem from a notification, its credential and its already parsed context.
+ */
+internal fun buildPushNotificationItem(
+    notification: PushNotification,
+    credential: PushCredential?,
+    context: NotificationContext,
+    timeAgo: String = getTimeAgoString(notification.createdAt)
+): PushNotificationItem {
     // Determine notification characteristics based on push type
-    val pushTypeStr = notification.pushType.toString()
-    val requiresChallenge = pushTypeStr.lowercase().contains("challenge")
-    val requiresBiometric = pushTypeStr.lowercase().contains("biometric")
-
-    // Check if location info is available
-    var hasLocationInfo = false
-    var latitude: Double? = null
-    var longitude: Double? = null
-    var deviceInfo: DeviceInfo? = null
-
-    notification.contextInfo?.let { contextInfoString ->
-        val unescapedContextInfo = contextInfoString.replace("\\\"","\"")
-        try {
-            val parsedContext = jsonParser.decodeFromString<ContextWrapper>(unescapedContextInfo)
-            parsedContext.location?.let {
-                latitude = it.latitude
-                longitude = it.longitude
-                hasLocationInfo = true
-            }
-            parsedContext.userAgent?.let { userAgent ->
-                deviceInfo = parseUserAgent(userAgent)
-            }
-        } catch (_: Exception) {
-            // Ignore errors from decodeFromString if content is not valid JSON
-        }
-    }
-
-    // Determine notification status
-    val status = when {
-        notification.approved -> NotificationStatus.APPROVED
-        (notification.expired && notification.pending) -> NotificationStatus.EXPIRED
-        notification.pending -> NotificationStatus.PENDING
-        else -> NotificationStatus.DENIED
-    }
+    val pushTypeStr = notification.pushType.toString().lowercase()
+    val requiresChallenge = pushTypeStr.contains("challenge")
+    val requiresBiometric = pushTypeStr.contains("biometric")
 
     return PushNotificationItem(
         notification = notification,
@@ -155,107 +203,23 @@ fun createPushNotificationItem(
         timeAgo = timeAgo,
         requiresChallenge = requiresChallenge,
         requiresBiometric = requiresBiometric,
-        hasLocationInfo = hasLocationInfo,
-        latitude = latitude,
-        longitude = longitude,
-        status = status,
-        deviceInfo = deviceInfo
+        hasLocationInfo = context.hasLocationInfo,
+        latitude = context.latitude,
+        longitude = context.longitude,
+        status = notificationStatusOf(notification),
+        deviceInfo = context.deviceInfo
     )
 }
 
 /**
- * Function to group credentials by issuer and account name.
- * 
- * @param oathCredentials List of OATH credentials to group
- * @param pushCredentials List of Push credentials to group
- * @param shouldCombine Whether to combine credentials with the same issuer and account name
+ * Determines the status shown for a notification. An expired notification that was never
+ * answered is not pending anymore.
  */
-fun groupCredentialsByAccount(
-    oathCredentials: List<OathCredential>,
-    pushCredentials: List<PushCredential>,
-    shouldCombine: Boolean = true
-): List<AccountGroup> {
-    val accountGroups = mutableMapOf<Pair<String, String>, AccountGroup>()
-    
-    // If we're not combining accounts, create separate account groups
-    if (!shouldCombine) {
-        val separateGroups = mutableMapOf<String, AccountGroup>()
-        
-        // Create individual OATH account groups with unique identifiers
-        oathCredentials.forEach { credential ->
-            val groupKey = "${credential.issuer}-${credential.accountName}-oath-${credential.id}"
-            separateGroups[groupKey] = AccountGroup(
-                issuer = credential.issuer,
-                accountName = credential.accountName,
-                displayIssuer = credential.displayIssuer,
-                displayAccountName = credential.displayAccountName,
-                oathCredentials = listOf(credential),
-                pushCredentials = emptyList()
-            )
-        }
-        
-        // Create individual Push account groups with unique identifiers
-        pushCredentials.forEach { credential ->
-            val groupKey = "${credential.issuer}-${credential.accountName}-push-${credential.id}"
-            separateGroups[groupKey] = AccountGroup(
-                issuer = credential.issuer,
-                accountName = credential.accountName,
-                displayIssuer = credential.displayIssuer,
-                displayAccountName = credential.displayAccountName,
-                oathCredentials = emptyList(),
-                pushCredentials = listOf(credential)
-            )
-        }
-        
-        return separateGroups.values.toList()
-    }
-    
-    // Otherwise, combine accounts with the same issuer and account name
-    // Add OATH credentials to groups
-    for (credential in oathCredentials) {
-        val key = Pair(credential.issuer, credential.accountName)
-        val existingGroup = accountGroups[key] ?: AccountGroup(
-            issuer = credential.issuer,
-            accountName = credential.accountName,
-            displayIssuer = credential.displayIssuer,
-            displayAccountName = credential.displayAccountName,
-            oathCredentials = emptyList(),
-            pushCredentials = emptyList()
-        )
-        // Update display names if the new credential has them
-        val updatedDisplayIssuer = credential.displayIssuer
-        val updatedDisplayAccountName = credential.displayAccountName
-        
-        accountGroups[key] = existingGroup.copy(
-            displayIssuer = updatedDisplayIssuer,
-            displayAccountName = updatedDisplayAccountName,
-            oathCredentials = existingGroup.oathCredentials + credential
-        )
-    }
-    
-    // Add Push credentials to groups
-    for (credential in pushCredentials) {
-        val key = Pair(credential.issuer, credential.accountName)
-        val existingGroup = accountGroups[key] ?: AccountGroup(
-            issuer = credential.issuer,
-            accountName = credential.accountName,
-            displayIssuer = credential.displayIssuer,
-            displayAccountName = credential.displayAccountName,
-            oathCredentials = emptyList(),
-            pushCredentials = emptyList()
-        )
-        // Update display names if the new credential has them
-        val updatedDisplayIssuer = credential.displayIssuer
-        val updatedDisplayAccountName = credential.displayAccountName
-        
-        accountGroups[key] = existingGroup.copy(
-            displayIssuer = updatedDisplayIssuer,
-            displayAccountName = updatedDisplayAccountName,
-            pushCredentials = existingGroup.pushCredentials + credential
-        )
-    }
-    
-    return accountGroups.values.toList()
+fun notificationStatusOf(notification: PushNotification): NotificationStatus = when {
+    notification.approved -> NotificationStatus.APPROVED
+    (notification.expired && notification.pending) -> NotificationStatus.EXPIRED
+    notification.pending -> NotificationStatus.PENDING
+    else -> NotificationStatus.DENIED
 }
 
 /**
@@ -297,17 +261,19 @@ private fun getOs(userAgent: String): String {
     }
 }
 
+// Compiled once, as user agents are parsed for every notification
+private val browserVersionRegexes = mapOf(
+    "Chrome" to Regex("Chrome/(\\S+)"),
+    "Firefox" to Regex("Firefox/(\\S+)"),
+    "Safari" to Regex("Version/(\\S+)"),
+    "Edge" to Regex("Edge/(\\S+)"),
+    "Internet Explorer" to Regex("MSIE (\\S+);|rv:(\\S+)")
+)
+
 private fun getBrowserVersion(userAgent: String, browser: String): String? {
     return try {
-        val regex = when (browser) {
-            "Chrome" -> "Chrome/(\\S+)"
-            "Firefox" -> "Firefox/(\\S+)"
-            "Safari" -> "Version/(\\S+)"
-            "Edge" -> "Edge/(\\S+)"
-            "Internet Explorer" -> "MSIE (\\S+);|rv:(\\S+)"
-            else -> return null
-        }
-        val matchResult = Regex(regex).find(userAgent)
+        val regex = browserVersionRegexes[browser] ?: return null
+        val matchResult = regex.find(userAgent)
         matchResult?.groups?.get(1)?.value
     } catch (_: Exception) {
         null
@@ -344,6 +310,7 @@ data class NominatimResponse(
 /**
  * Data class with simplified address data for UI display
  */
+@Serializable
 data class LocationAddress(
     val city: String,
     val state: String,
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.transform
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Duration of a frame at 60 Hz, used as the minimum interval between two UI state emissions.
+ */
+internal const val FRAME_INTERVAL_MS = 16L
+
+/**
+ * Counts the values received and emitted by a coalesced flow.
+ */
+class EmissionCounter {
+    private val received = AtomicLong()
+    private val emitted = AtomicLong()
+
+    /**
+     * Number of upstream values received.
+     */
+    val receivedCount: Long
+        get() = received.get()
+
+    /**
+     * Number of values emitted downstream.
+     */
+    val emittedCount: Long
+        get() = emitted.get()
+
+    /**
+     * Number of upstream values that were merged into a later emission.
+     */
+    val coalescedCount: Long
+        get() = (receivedCount - emittedCount).coerceAtLeast(0)
+
+    internal fun onReceived() {
+        received.incrementAndGet()
+    }
+
+    internal fun onEmitted() {
+        emitted.incrementAndGet()
+    }
+
+    /**
+     * Formats the counters for display in the test screen and diagnostic logs.
+     */
+    fun summary(): String =
+        "UI state emissions: $emittedCount emitted, $coalescedCount coalesced ($receivedCount received)"
+}
+
+/**
+ * Emits the latest value at most once per [frameMillis].
+ * The first value is emitted immediately, and values arriving while a frame is in progress are
+ * conflated so only the most recent one is emitted when the frame ends.
+ *
+ * @param counter Counter recording how many values were coalesced
+ * @param frameMillis Minimum interval between two emissions
+ */
+internal fun <T> Flow<T>.coalescePerFrame(
+    counter: EmissionCounter,
+    frameMillis: Long = FRAME_INTERVAL_MS
+): Flow<T> = onEach { counter.onReceived() }
+    .conflate()
+    .transform { value ->
+        counter.onEmitted()
+        emit(value)
+        delay(frameMillis)
+    }
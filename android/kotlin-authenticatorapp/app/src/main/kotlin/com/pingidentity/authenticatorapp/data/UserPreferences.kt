@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -8,16 +8,34 @@
 package com.pingidentity.authenticatorapp.data
 
 import android.content.Context
-import android.content.SharedPreferences
-import androidx.core.content.edit
+import androidx.datastore.core.CorruptionException
+import androidx.datastore.core.DataStore
+import androidx.datastore.core.Serializer
+import androidx.datastore.core.handlers.ReplaceFileCorruptionHandler
+import androidx.datastore.dataStore
+import androidx.datastore.migrations.SharedPreferencesMigration
+import androidx.datastore.migrations.SharedPreferencesView
+import com.pingidentity.logger.Logger
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.json.Json
+import java.io.InputStream
+import java.io.OutputStream
 
 /**
  * Theme modes for the app
  */
+@Serializable
 enum class ThemeMode {
     LIGHT,
     DARK,
@@ -25,228 +43,273 @@ enum class ThemeMode {
 }
 
 /**
- * Manages user preferences for the Authenticator app using SharedPreferences.
+ * Immutable snapshot of all the user preferences.
+ *
+ * @property accountOrder Saved account order, as account keys (issuer-accountName)
+ */
+@Serializable
+data class PreferencesSnapshot(
+    val copyOtp: Boolean = false,
+    val tapToReveal: Boolean = false,
+    val combineAccounts: Boolean = false,
+    val diagnosticLogging: Boolean = false,
+    val testMode: Boolean = false,
+    val themeMode: ThemeMode = ThemeMode.SYSTEM,
+    val accountOrder: List<String> = emptyList(),
+    val destructiveRecovery: Boolean = false,
+    // Defaults to true for backward compatibility with SDK behavior
+    val autoRestoreFromBackup: Boolean = true
+)
+
+/**
+ * Manages user preferences for the Authenticator app using a typed DataStore.
+ *
+ * The preferences are loaded once off the main thread and cached as an immutable
+ * [PreferencesSnapshot], so every getter is an in-memory lookup. The getters return the defaults
+ * until the preferences are loaded, use [load] to wait for them.
+ * Preferences saved by earlier versions of the app in SharedPreferences are migrated on the first load.
+ *
+ * Only one instance must be created per process, see [com.pingidentity.authenticatorapp.AuthenticatorApp.getUserPreferences].
+ * If the preferences cannot be read, the defaults are used and the preferences still count as loaded,
+ * so the app never waits for them forever.
+ *
+ * @param dataStore DataStore the preferences are read from and written to
+ * @param scope Scope the preferences are loaded in
+ * @param logger Logger of the errors reading the preferences
  */
-class UserPreferences(context: Context) {
-    
-    private val prefs: SharedPreferences = context.getSharedPreferences(
-        PREFS_NAME, Context.MODE_PRIVATE
-    )
-    
+class UserPreferences internal constructor(
+    private val dataStore: DataStore<PreferencesSnapshot>,
+    scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+    private val logger: Logger = DiagnosticLogger
+) {
+
+    constructor(context: Context) : this(context.applicationContext.preferencesDataStore)
+
+    private val _preferences = MutableStateFlow(PreferencesSnapshot())
+    val preferences: StateFlow<PreferencesSnapshot> = _preferences.asStateFlow()
+
+    private val _isLoaded = MutableStateFlow(false)
+    val isLoaded: StateFlow<Boolean> = _isLoaded.asStateFlow()
+
     // StateFlows for all settings
-    private val _copyOtpFlow = MutableStateFlow(isCopyOtpEnabled())
+    private val _copyOtpFlow = MutableStateFlow(_preferences.value.copyOtp)
     val copyOtpFlow: StateFlow<Boolean> = _copyOtpFlow
-    
-    private val _tapToRevealFlow = MutableStateFlow(isTapToRevealEnabled())
+
+    private val _tapToRevealFlow = MutableStateFlow(_preferences.value.tapToReveal)
     val tapToRevealFlow: StateFlow<Boolean> = _tapToRevealFlow
-    
-    private val _combineAccountsFlow = MutableStateFlow(isCombineAccountsEnabled())
+
+    private val _combineAccountsFlow = MutableStateFlow(_preferences.value.combineAccounts)
     val combineAccountsFlow: StateFlow<Boolean> = _combineAccountsFlow
-    
-    private val _diagnosticLoggingFlow = MutableStateFlow(isDiagnosticLoggingEnabled())
+
+    private val _diagnosticLoggingFlow = MutableStateFlow(_preferences.value.diagnosticLogging)
     val diagnosticLoggingFlow: StateFlow<Boolean> = _diagnosticLoggingFlow
-    
-    private val _testModeFlow = MutableStateFlow(isTestModeEnabled())
+
+    private val _testModeFlow = MutableStateFlow(_preferences.value.testMode)
     val testModeFlow: StateFlow<Boolean> = _testModeFlow
-    
-    private val _themeModeFlow = MutableStateFlow(getThemeMode())
+
+    private val _themeModeFlow = MutableStateFlow(_preferences.value.themeMode)
     val themeModeFlow: StateFlow<ThemeMode> = _themeModeFlow
-    
-    private val _destructiveRecoveryFlow = MutableStateFlow(isDestructiveRecoveryEnabled())
+
+    private val _destructiveRecoveryFlow = MutableStateFlow(_preferences.value.destructiveRecovery)
     val destructiveRecoveryFlow: StateFlow<Boolean> = _destructiveRecoveryFlow
-    
-    private val _autoRestoreFromBackupFlow = MutableStateFlow(isAutoRestoreFromBackupEnabled())
+
+    private val _autoRestoreFromBackupFlow = MutableStateFlow(_preferences.value.autoRestoreFromBackup)
     val autoRestoreFromBackupFlow: StateFlow<Boolean> = _autoRestoreFromBackupFlow
 
+    init {
+        scope.launch {
+            dataStore.data
+                .catch { e ->
+                    if (e is CancellationException) throw e
+                    // Keep the app usable with the defaults, or the last preferences read, if they cannot be read
+                    logger.e("UserPreferences: Cannot read the preferences", e)
+                    emit(_preferences.value)
+                }
+                .collect { preferences ->
+                    publish(preferences)
+                    _isLoaded.value = true
+                }
+        }
+    }
+
+    /**
+     * Waits until the preferences are loaded from disk.
+     *
+     * @return The loaded preferences
+     */
+    suspend fun load(): PreferencesSnapshot {
+        isLoaded.first { it }
+        return _preferences.value
+    }
+
     /**
      * Check if copy OTP on tap is enabled.
      * Defaults to false if not set.
      */
-    fun isCopyOtpEnabled(): Boolean {
-        return prefs.getBoolean(KEY_COPY_OTP, false)
-    }
-    
+    fun isCopyOtpEnabled(): Boolean = _preferences.value.copyOtp
+
     /**
      * Set whether copy OTP on tap is enabled.
      */
     suspend fun setCopyOtp(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_COPY_OTP, enabled)
-            }
-            _copyOtpFlow.value = enabled
-        }
+        update { it.copy(copyOtp = enabled) }
     }
-    
+
     /**
      * Check if tap to reveal is enabled.
      * Defaults to false if not set.
      */
-    fun isTapToRevealEnabled(): Boolean {
-        return prefs.getBoolean(KEY_TAP_TO_REVEAL, false)
-    }
-    
+    fun isTapToRevealEnabled(): Boolean = _preferences.value.tapToReveal
+
     /**
      * Set whether tap to reveal is enabled.
      */
     suspend fun setTapToReveal(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_TAP_TO_REVEAL, enabled)
-            }
-            _tapToRevealFlow.value = enabled
-        }
+        update { it.copy(tapToReveal = enabled) }
     }
-    
+
     /**
      * Check if accounts should be combined.
      * Defaults to false if not set.
      */
-    fun isCombineAccountsEnabled(): Boolean {
-        return prefs.getBoolean(KEY_COMBINE_ACCOUNTS, false)
-    }
-    
+    fun isCombineAccountsEnabled(): Boolean = _preferences.value.combineAccounts
+
     /**
      * Set whether accounts should be combined.
      */
     suspend fun setCombineAccounts(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_COMBINE_ACCOUNTS, enabled)
-            }
-            _combineAccountsFlow.value = enabled
-        }
+        update { it.copy(combineAccounts = enabled) }
     }
-    
+
     /**
      * Check if diagnostic logging is enabled.
      * Defaults to false if not set.
      */
-    fun isDiagnosticLoggingEnabled(): Boolean {
-        return prefs.getBoolean(KEY_DIAGNOSTIC_LOGGING, false)
-    }
-    
+    fun isDiagnosticLoggingEnabled(): Boolean = _preferences.value.diagnosticLogging
+
     /**
      * Set whether diagnostic logging is enabled.
      */
     suspend fun setDiagnosticLogging(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_DIAGNOSTIC_LOGGING, enabled)
-            }
-            _diagnosticLoggingFlow.value = enabled
-        }
+        update { it.copy(diagnosticLogging = enabled) }
     }
-    
+
     /**
      * Check if test mode is enabled.
      * Defaults to false if not set.
      */
-    fun isTestModeEnabled(): Boolean {
-        return prefs.getBoolean(KEY_TEST_MODE, false)
-    }
-    
+    fun isTestModeEnabled(): Boolean = _preferences.value.testMode
+
     /**
      * Set whether test mode is enabled.
      */
     suspend fun setTestMode(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_TEST_MODE, enabled)
-            }
-            _testModeFlow.value = enabled
-        }
+        update { it.copy(testMode = enabled) }
     }
-    
+
     /**
      * Get the current theme mode.
      * Defaults to SYSTEM if not set.
      */
-    fun getThemeMode(): ThemeMode {
-        val themeName = prefs.getString(KEY_THEME_MODE, ThemeMode.SYSTEM.name) ?: ThemeMode.SYSTEM.name
-        return try {
-            ThemeMode.valueOf(themeName)
-        } catch (e: IllegalArgumentException) {
-            ThemeMode.SYSTEM
-        }
-    }
-    
+    fun getThemeMode(): ThemeMode = _preferences.value.themeMode
+
     /**
      * Set the theme mode.
      */
     suspend fun setThemeMode(themeMode: ThemeMode) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putString(KEY_THEME_MODE, themeMode.name)
-            }
-            _themeModeFlow.value = themeMode
-        }
+        update { it.copy(themeMode = themeMode) }
     }
-    
+
     /**
      * Get the saved account order as a list of account keys (issuer-accountName).
+     * The same list instance is returned until the order changes.
      */
-    fun getAccountOrder(): List<String> {
-        val orderString = prefs.getString(KEY_ACCOUNT_ORDER, "") ?: ""
-        return if (orderString.isEmpty()) {
-            emptyList()
-        } else {
-            orderString.split(ACCOUNT_ORDER_SEPARATOR)
-        }
-    }
-    
+    fun getAccountOrder(): List<String> = _preferences.value.accountOrder
+
     /**
      * Save the account order as a list of account keys (issuer-accountName).
      */
     suspend fun setAccountOrder(accountOrder: List<String>) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putString(KEY_ACCOUNT_ORDER, accountOrder.joinToString(ACCOUNT_ORDER_SEPARATOR))
-            }
-        }
+        update { it.copy(accountOrder = accountOrder.toList()) }
     }
-    
+
     /**
      * Check if destructive recovery is enabled.
      * Defaults to false for safety.
      */
-    fun isDestructiveRecoveryEnabled(): Boolean {
-        return prefs.getBoolean(KEY_DESTRUCTIVE_RECOVERY, false)
-    }
-    
+    fun isDestructiveRecoveryEnabled(): Boolean = _preferences.value.destructiveRecovery
+
     /**
      * Set whether destructive recovery is enabled.
      */
     suspend fun setDestructiveRecovery(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_DESTRUCTIVE_RECOVERY, enabled)
-            }
-            _destructiveRecoveryFlow.value = enabled
-        }
+        update { it.copy(destructiveRecovery = enabled) }
     }
-    
+
     /**
      * Check if auto-restore from backup is enabled.
      * Defaults to true for backward compatibility with SDK behavior.
      */
-    fun isAutoRestoreFromBackupEnabled(): Boolean {
-        return prefs.getBoolean(KEY_AUTO_RESTORE_FROM_BACKUP, true)
-    }
-    
+    fun isAutoRestoreFromBackupEnabled(): Boolean = _preferences.value.autoRestoreFromBackup
+
     /**
      * Set whether auto-restore from backup is enabled.
      */
     suspend fun setAutoRestoreFromBackup(enabled: Boolean) {
-        withContext(Dispatchers.IO) {
-            prefs.edit {
-                putBoolean(KEY_AUTO_RESTORE_FROM_BACKUP, enabled)
+        update { it.copy(autoRestoreFromBackup = enabled) }
+    }
+
+    /**
+     * Writes a new snapshot and caches it, so it is read back by the next call of a getter.
+     */
+    private suspend fun update(transform: (PreferencesSnapshot) -> PreferencesSnapshot) {
+        publish(dataStore.updateData { transform(it) })
+    }
+
+    // Every setting flow is updated along with the snapshot, so they never disagree
+    @Synchronized
+    private fun publish(preferences: PreferencesSnapshot) {
+        _preferences.value = preferences
+        _copyOtpFlow.value = preferences.copyOtp
+        _tapToRevealFlow.value = preferences.tapToReveal
+        _combineAccountsFlow.value = preferences.combineAccounts
+        _diagnosticLoggingFlow.value = preferences.diagnosticLogging
+        _testModeFlow.value = preferences.testMode
+        _themeModeFlow.value = preferences.themeMode
+        _destructiveRecoveryFlow.value = preferences.destructiveRecovery
+        _autoRestoreFromBackupFlow.value = preferences.autoRestoreFromBackup
+    }
+
+    /**
+     * Reads and writes the snapshot as JSON.
+     */
+    private object PreferencesSnapshotSerializer : Serializer<PreferencesSnapshot> {
+
+        private val json = Json {
+            ignoreUnknownKeys = true
+            // Falls back to the default of a preference whose value is unknown, like a removed theme mode
+            coerceInputValues = true
+        }
+
+        override val defaultValue: PreferencesSnapshot = PreferencesSnapshot()
+
+        override suspend fun readFrom(input: InputStream): PreferencesSnapshot {
+            return try {
+                json.decodeFromString(PreferencesSnapshot.serializer(), input.readBytes().decodeToString())
+            } catch (e: SerializationException) {
+                throw CorruptionException("Cannot read the user preferences", e)
             }
-            _autoRestoreFromBackupFlow.value = enabled
+        }
+
+        override suspend fun writeTo(t: PreferencesSnapshot, output: OutputStream) {
+            output.write(json.encodeToString(PreferencesSnapshot.serializer(), t).encodeToByteArray())
         }
     }
-    
+
     companion object {
+        private const val DATA_STORE_FILE_NAME = "user_preferences.json"
+
+        // SharedPreferences used by earlier versions of the app, migrated on the first load
         private const val PREFS_NAME = "authenticator_preferences"
         private const val KEY_COPY_OTP = "copy_otp"
         private const val KEY_TAP_TO_REVEAL = "tap_to_reveal"
@@ -258,5 +321,36 @@ class UserPreferences(context: Context) {
         private const val KEY_DESTRUCTIVE_RECOVERY = "destructive_recovery"
         private const val KEY_AUTO_RESTORE_FROM_BACKUP = "auto_restore_from_backup"
         private const val ACCOUNT_ORDER_SEPARATOR = "|||"
+
+        // A single DataStore per file is allowed in the process, the delegate makes sure of it
+        private val Context.preferencesDataStore: DataStore<PreferencesSnapshot> by dataStore(
+            fileName = DATA_STORE_FILE_NAME,
+            serializer = PreferencesSnapshotSerializer,
+            corruptionHandler = ReplaceFileCorruptionHandler { PreferencesSnapshot() },
+            produceMigrations = { context ->
+                listOf(SharedPreferencesMigration(context, PREFS_NAME) { prefs, _ -> migrate(prefs) })
+            }
+        )
+
+        private fun migrate(prefs: SharedPreferencesView): PreferencesSnapshot {
+            val defaults = PreferencesSnapshot()
+            val themeName = prefs.getString(KEY_THEME_MODE, defaults.themeMode.name)
+            val accountOrder = prefs.getString(KEY_ACCOUNT_ORDER, "").orEmpty()
+            return PreferencesSnapshot(
+                copyOtp = prefs.getBoolean(KEY_COPY_OTP, defaults.copyOtp),
+                tapToReveal = prefs.getBoolean(KEY_TAP_TO_REVEAL, defaults.tapToReveal),
+                combineAccounts = prefs.getBoolean(KEY_COMBINE_ACCOUNTS, defaults.combineAccounts),
+                diagnosticLogging = prefs.getBoolean(KEY_DIAGNOSTIC_LOGGING, defaults.diagnosticLogging),
+                testMode = prefs.getBoolean(KEY_TEST_MODE, defaults.testMode),
+                themeMode = ThemeMode.entries.firstOrNull { it.name == themeName } ?: defaults.themeMode,
+                accountOrder = if (accountOrder.isEmpty()) {
+                    emptyList()
+                } else {
+                    accountOrder.split(ACCOUNT_ORDER_SEPARATOR)
+                },
+                destructiveRecovery = prefs.getBoolean(KEY_DESTRUCTIVE_RECOVERY, defaults.destructiveRecovery),
+                autoRestoreFromBackup = prefs.getBoolean(KEY_AUTO_RESTORE_FROM_BACKUP, defaults.autoRestoreFromBackup)
+            )
+        }
     }
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.authenticatorapp.data.AccountGroup
+import com.pingidentity.authenticatorapp.data.OathSnapshotEntry
+import com.pingidentity.authenticatorapp.data.PushSnapshotEntry
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.push.PushCredential
+
+/**
+ * Key of an account: the credentials with the same issuer and account name belong to the same account.
+ */
+internal data class AccountKey(val issuer: String, val accountName: String) {
+    // Key format used by the saved account order
+    val orderKey: String = "$issuer-$accountName"
+}
+
+/**
+ * Incremental grouping engine for account groups.
+ *
+ * Keeps a persistent index of credentials keyed by (issuer, accountName), so that a change to
+ * a single credential only rebuilds the group it belongs to. Groups are ordered in a single pass
+ * using a precomputed position map built from the saved account order.
+ *
+ * Entries of the credential snapshot are indexed the same way, and are replaced by the
+ * credentials with the same ID once those are loaded from storage.
+ */
+internal class AccountGroupingEngine {
+
+    /**
+     * All credentials of one account, with the groups built from them cached until they change.
+     */
+    private class Bucket(val key: AccountKey) {
+        val oathCredentials = LinkedHashMap<String, OathCredential>()
+        val pushCredentials = LinkedHashMap<String, PushCredential>()
+        val oathSnapshotEntries = LinkedHashMap<String, OathSnapshotEntry>()
+        val pushSnapshotEntries = LinkedHashMap<String, PushSnapshotEntry>()
+        var combinedGroup: AccountGroup? = null
+        var separateGroups: List<AccountGroup>? = null
+
+        val isEmpty: Boolean
+            get() = oathCredentials.isEmpty() && pushCredentials.isEmpty() &&
+                oathSnapshotEntries.isEmpty() && pushSnapshotEntries.isEmpty()
+
+        fun invalidate() {
+            combinedGroup = null
+            separateGroups = null
+        }
+    }
+
+    private val buckets = LinkedHashMap<AccountKey, Bucket>()
+    private val oathById = HashMap<String, OathCredential>()
+    private val pushById = HashMap<String, PushCredential>()
+    private val oathSnapshotById = HashMap<String, OathSnapshotEntry>()
+    private val pushSnapshotById = HashMap<String, PushSnapshotEntry>()
+    private var orderPositions: Map<String, Int> = emptyMap()
+
+    /**
+     * Whether the engine currently holds any credentials.
+     */
+    val isEmpty: Boolean
+        get() = buckets.isEmpty()
+
+    /**
+     * Replaces the saved account order used to sort the groups.
+     *
+     * @param accountOrder Account keys (issuer-accountName) in display order
+     */
+    fun setAccountOrder(accountOrder: List<String>) {
+        val positions = HashMap<String, Int>(accountOrder.size * 2)
+        accountOrder.forEachIndexed { index, key -> positions.putIfAbsent(key, index) }
+        orderPositions = positions
+    }
+
+    /**
+     * Reconciles the index with the given credential lists.
+     * Only credentials whose instance changed since the last call are re-indexed.
+     *
+     * @param oathSnapshotEntries Snapshot entries shown until the OATH credentials are loaded
+     * @param pushSnapshotEntries Snapshot entries shown until the Push credentials are loaded
+     * @param changedKeys Receives the keys of the accounts whose groups have to be rebuilt, if set
+     * @return The number of accounts whose groups have to be rebuilt
+     */
+    fun update(
+        oathCredentials: List<OathCredential>,
+        pushCredentials: List<PushCredential>,
+        oathSnapshotEntries: List<OathSnapshotEntry> = emptyList(),
+        pushSnapshotEntries: List<PushSnapshotEntry> = emptyList(),
+        changedKeys: MutableSet<AccountKey>? = null
+    ): Int {
+        val dirty = HashSet<Bucket>()
+        reconcile(oathCredentials, oathById, dirty, { it.id }, { keyOf(it) }) { bucket -> bucket.oathCredentials }
+        reconcile(pushCredentials, pushById, dirty, { it.id }, { keyOf(it) }) { bucket -> bucket.pushCredentials }
+        reconcile(oathSnapshotEntries, oathSnapshotById, dirty, { it.id }, { keyOf(it) }) { bucket ->
+            bucket.oathSnapshotEntries
+        }
+        reconcile(pushSnapshotEntries, pushSnapshotById, dirty, { it.id }, { keyOf(it) }) { bucket ->
+            bucket.pushSnapshotEntries
+        }
+
+        dirty.forEach { bucket ->
+            bucket.invalidate()
+            if (bucket.isEmpty) buckets.remove(bucket.key)
+            changedKeys?.add(bucket.key)
+        }
+        return dirty.size
+    }
+
+    /**
+     * Returns the groups of an account, as [build] returns them, or an empty list if it has no credential.
+     *
+     * @param shouldCombine Whether credentials of the same account are shown as a single group
+     */
+    fun groupsOf(key: AccountKey, shouldCombine: Boolean): List<AccountGroup> {
+        val bucket = buckets[key] ?: return emptyList()
+        return if (shouldCombine) listOf(combinedGroupOf(bucket)) else separateGroupsOf(bucket)
+    }
+
+    /**
+     * Builds the ordered list of account groups.
+     * Accounts in the saved order come first, followed by new accounts in the order they were added.
+     *
+     * When the groups are not combined, the cards of an account are kept next to each other, OATH
+     * cards first and then Push cards, whether or not an order was saved. This is the order the
+     * saved account order always produced, so dragging an account moves all of its cards together;
+     * an account without a saved position no longer has its OATH and Push cards split between the
+     * start and the end of the list.
+     *
+     * @param shouldCombine Whether credentials of the same account are shown as a single group
+     */
+    fun build(shouldCombine: Boolean): List<AccountGroup> {
+        val slots = arrayOfNulls<Bucket>(orderPositions.size)
+        val unordered = ArrayList<Bucket>()
+        buckets.values.forEach { bucket ->
+            val position = orderPositions[bucket.key.orderKey]
+            if (position != null && slots[position] == null) {
+                slots[position] = bucket
+            } else {
+                unordered.add(bucket)
+            }
+        }
+
+        val result = ArrayList<AccountGroup>(buckets.size)
+        val append: (Bucket) -> Unit = { bucket ->
+            if (shouldCombine) {
+                result.add(combinedGroupOf(bucket))
+            } else {
+                result.addAll(separateGroupsOf(bucket))
+            }
+        }
+        slots.forEach { bucket -> bucket?.let(append) }
+        unordered.forEach(append)
+        return result
+    }
+
+    /**
+     * Clears the whole index.
+     */
+    fun clear() {
+        buckets.clear()
+        oathById.clear()
+        pushById.clear()
+        oathSnapshotById.clear()
+        pushSnapshotById.clear()
+    }
+
+    private fun <T : Any> reconcile(
+        credentials: List<T>,
+        index: HashMap<String, T>,
+        dirty: MutableSet<Bucket>,
+        idOf: (T) -> String,
+        keyOf: (T) -> AccountKey,
+        credentialsOf: (Bucket) -> LinkedHashMap<String, T>
+    ) {
+        val seenIds = HashSet<String>(credentials.size * 2)
+        credentials.forEach { credential ->
+            val id = idOf(credential)
+            seenIds.add(id)
+            val previous = index[id]
+            if (previous === credential) return@forEach
+
+            if (previous != null) {
+                val previousKey = keyOf(previous)
+                if (previousKey != keyOf(credential)) {
+                    buckets[previousKey]?.let { bucket ->
+                        credentialsOf(bucket).remove(id)
+                        dirty.add(bucket)
+                    }
+                }
+            }
+            val key = keyOf(credential)
+            val bucket = buckets.getOrPut(key) { Bucket(key) }
+            credentialsOf(bucket)[id] = credential
+            index[id] = credential
+            dirty.add(bucket)
+        }
+
+        if (seenIds.size == index.size) return
+        val iterator = index.entries.iterator()
+        while (iterator.hasNext()) {
+            val (id, credential) = iterator.next()
+            if (id in seenIds) continue
+            iterator.remove()
+            buckets[keyOf(credential)]?.let { bucket ->
+                credentialsOf(bucket).remove(id)
+                dirty.add(bucket)
+            }
+        }
+    }
+
+    private fun keyOf(credential: OathCredential) = AccountKey(credential.issuer, credential.accountName)
+
+    private fun keyOf(credential: PushCredential) = AccountKey(credential.issuer, credential.accountName)
+
+    private fun keyOf(entry: OathSnapshotEntry) = AccountKey(entry.issuer, entry.accountName)
+
+    private fun keyOf(entry: PushSnapshotEntry) = AccountKey(entry.issuer, entry.accountName)
+
+    /**
+     * Returns the single group for an account, using the display names of the last credential
+     * added, with Push credentials taking precedence over OATH ones.
+     */
+    private fun combinedGroupOf(bucket: Bucket): AccountGroup {
+        bucket.combinedGroup?.let { return it }
+        val oathCredentials = bucket.oathCredentials.values.toList()
+        val pushCredentials = bucket.pushCredentials.values.toList()
+        val oathSnapshotEntries = bucket.oathSnapshotEntries.values.toList()
+        val pushSnapshotEntries = bucket.pushSnapshotEntries.values.toList()
+        val lastPush = pushCredentials.lastOrNull()
+        val lastOath = oathCredentials.lastOrNull()
+        val lastPushEntry = pushSnapshotEntries.lastOrNull()
+        val lastOathEntry = oathSnapshotEntries.lastOrNull()
+        val group = AccountGroup(
+            issuer = bucket.key.issuer,
+            accountName = bucket.key.accountName,
+            displayIssuer = lastPush?.displayIssuer
+                ?: lastPushEntry?.displayIssuer
+                ?: lastOath?.displayIssuer
+                ?: lastOathEntry?.displayIssuer
+                ?: bucket.key.issuer,
+            displayAccountName = lastPush?.displayAccountName
+                ?: lastPushEntry?.displayAccountName
+                ?: lastOath?.displayAccountName
+                ?: lastOathEntry?.displayAccountName
+                ?: bucket.key.accountName,
+            oathCredentials = oathCredentials,
+            pushCredentials = pushCredentials,
+            oathSnapshotEntries = oathSnapshotEntries,
+            pushSnapshotEntries = pushSnapshotEntries
+        )
+        bucket.combinedGroup = group
+        return group
+    }
+
+    /**
+     * Returns one group per credential for an account, OATH cards first and then Push cards.
+     */
+    private fun separateGroupsOf(bucket: Bucket): List<AccountGroup> {
+        bucket.separateGroups?.let { return it }
+        val groups = ArrayList<AccountGroup>(
+            bucket.oathCredentials.size + bucket.pushCredentials.size +
+                bucket.oathSnapshotEntries.size + bucket.pushSnapshotEntries.size
+        )
+        bucket.oathCredentials.values.forEach { credential ->
+            groups.add(
+                AccountGroup(
+                    issuer = credential.issuer,
+                    accountName = credential.accountName,
+                    displayIssuer = credential.displayIssuer,
+                    displayAccountName = credential.displayAccountName,
+                    oathCredentials = listOf(credential)
+                )
+            )
+        }
+        bucket.oathSnapshotEntries.values.forEach { entry ->
+            groups.add(
+                AccountGroup(
+                    issuer = entry.issuer,
+                    accountName = entry.accountName,
+                    displayIssuer = entry.displayIssuer,
+                    displayAccountName = entry.displayAccountName,
+                    oathSnapshotEntries = listOf(entry)
+                )
+            )
+        }
+        bucket.pushCredentials.values.forEach { credential ->
+            groups.add(
+                AccountGroup(
+                    issuer = credential.issuer,
+                    accountName = credential.accountName,
+                    displayIssuer = credential.displayIssuer,
+                    displayAccountName = credential.displayAccountName,
+                    pushCredentials = listOf(credential)
+                )
+            )
+        }
+        bucket.pushSnapshotEntries.values.forEach { entry ->
+            groups.add(
+                AccountGroup(
+                    issuer = entry.issuer,
+                    accountName = entry.accountName,
+                    displayIssuer = entry.displayIssuer,
+                    displayAccountName = entry.displayAccountName,
+                    pushSnapshotEntries = listOf(entry)
+                )
+            )
+        }
+        bucket.separateGroups = groups
+        return groups
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -8,12 +8,23 @@
 package com.pingidentity.authenticatorapp.managers
 
 import com.pingidentity.authenticatorapp.data.AccountGroup
+import com.pingidentity.authenticatorapp.data.CredentialSnapshotStore
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.OathSnapshotEntry
+import com.pingidentity.authenticatorapp.data.PushSnapshotEntry
 import com.pingidentity.authenticatorapp.data.UserPreferences
-import com.pingidentity.authenticatorapp.data.groupCredentialsByAccount
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.mapLatest
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import com.pingidentity.mfa.oath.OathCredential
 import com.pingidentity.mfa.push.PushCredential
 
@@ -21,171 +32,216 @@ import com.pingidentity.mfa.push.PushCredential
  * Manager class for handling account grouping logic and account ordering.
  * Encapsulates the business logic for combining and organizing account groups.
  *
+ * At launch, the accounts are rendered from the display-only [CredentialSnapshotStore] snapshot
+ * until the credentials are loaded from storage. The groups built from it are read-only.
+ *
+ * [visibleAccountGroups] emits the groups matching the current search query. The groups are indexed
+ * by [AccountSearchIndex] as the credentials change, only the accounts that changed being re-indexed,
+ * and filtered in the background, never on the thread setting the query. The index is only used
+ * from a single background dispatcher, so it needs no lock.
+ *
  * @param userPreferences UserPreferences dependency for settings management
  * @param diagnosticLogger DiagnosticLogger for logging
+ * @param snapshotStore Store of the credential snapshot, or null to disable it
  */
 class AccountGroupingManager(
     private val userPreferences: UserPreferences,
-    private val diagnosticLogger: DiagnosticLogger
+    private val diagnosticLogger: DiagnosticLogger,
+    private val snapshotStore: CredentialSnapshotStore? = null
 ) {
     
     private val _accountGroups = MutableStateFlow<List<AccountGroup>>(emptyList())
     val accountGroups: StateFlow<List<AccountGroup>> = _accountGroups.asStateFlow()
 
+    private val _searchQuery = MutableStateFlow("")
+    val searchQuery: StateFlow<String> = _searchQuery.asStateFlow()
+
+    // Updated and searched in the order of the tasks dispatched to indexDispatcher, one at a time
+    private val searchIndex = AccountSearchIndex()
+    private val indexDispatcher = Dispatchers.Default.limitedParallelism(1)
+    private val indexScope = CoroutineScope(SupervisorJob() + indexDispatcher)
+
+    // Whether the indexed groups are combined, null until the index is first filled
+    private var indexedCombined: Boolean? = null
+
+    /**
+     * Account groups matching the search query, all of them when the query is blank.
+     * A filtering pass still running when the query or the groups change is dropped.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val visibleAccountGroups: Flow<List<AccountGroup>> = combine(_accountGroups, _searchQuery, ::Pair)
+        .mapLatest { (accountGroups, query) ->
+            if (query.isBlank()) {
+                accountGroups
+            } else {
+                // Runs after the index updates of the groups being filtered
+                withContext(indexDispatcher) {
+                    searchIndex.filter(accountGroups, query)
+                }
+            }
+        }
+
+    // Incremental index of credentials by account, ordered by the saved account order
+    private val groupingEngine = AccountGroupingEngine()
+
+    // Saved account order last applied to the grouping engine
+    private var appliedAccountOrder: List<String>? = null
+
+    // Latest credentials and whether each type was loaded from storage yet
+    private var oathCredentials: List<OathCredential> = emptyList()
+    private var pushCredentials: List<PushCredential> = emptyList()
+    private var isOathLoaded = false
+    private var isPushLoaded = false
+
+    // Display-only entries of the snapshot, shown until the type is loaded from storage
+    private var oathSnapshotEntries: List<OathSnapshotEntry> = emptyList()
+    private var pushSnapshotEntries: List<PushSnapshotEntry> = emptyList()
+
+    /**
+     * Shows the accounts from the credential snapshot, for the credential types not loaded yet.
+     */
+    suspend fun loadSnapshot() {
+        // Render the snapshot in the saved account order
+        userPreferences.load()
+        val snapshot = snapshotStore?.load() ?: return
+        if (snapshot.isEmpty) return
+        synchronized(this) {
+            if (isOathLoaded && isPushLoaded) return
+            if (!isOathLoaded) oathSnapshotEntries = snapshot.oathEntries
+            if (!isPushLoaded) pushSnapshotEntries = snapshot.pushEntries
+            diagnosticLogger.d("Showing ${snapshot.oathEntries.size} OATH and ${snapshot.pushEntries.size} Push credentials from the snapshot")
+            regroup()
+        }
+    }
+
     /**
      * Updates the account groups based on current credentials and user preferences.
+     * Only the accounts whose credentials changed since the last update are regrouped.
+     * The lists are reconciled by credential instance, one identity check per unchanged credential,
+     * rather than from the managers' credential changes, as the full lists are saved to the snapshot.
+     *
+     * @param oathLoaded Whether the OATH credentials were loaded from storage, otherwise the snapshot is shown
+     * @param pushLoaded Whether the Push credentials were loaded from storage, otherwise the snapshot is shown
      */
+    @Synchronized
     fun updateAccountGroups(
         oathCredentials: List<OathCredential>,
-        pushCredentials: List<PushCredential>
+        pushCredentials: List<PushCredential>,
+        oathLoaded: Boolean = true,
+        pushLoaded: Boolean = true
     ) {
+        this.oathCredentials = oathCredentials
+        this.pushCredentials = pushCredentials
+        isOathLoaded = oathLoaded
+        isPushLoaded = pushLoaded
+        if (oathLoaded) oathSnapshotEntries = emptyList()
+        if (pushLoaded) pushSnapshotEntries = emptyList()
+
+        regroup()
+
+        // Only a complete view of the storage replaces the snapshot
+        if (oathLoaded && pushLoaded) {
+            snapshotStore?.save(oathCredentials, pushCredentials)
+        }
+    }
+
+    // Must be called with the lock held
+    private fun regroup() {
         val shouldCombine = userPreferences.isCombineAccountsEnabled()
-        diagnosticLogger.d("updateAccountGroups: shouldCombine=$shouldCombine")
+        applyAccountOrder(userPreferences.getAccountOrder())
         
         // Skip update if we have no data to avoid unnecessary recomposition
-        if (oathCredentials.isEmpty() && pushCredentials.isEmpty()) {
+        if (oathCredentials.isEmpty() && pushCredentials.isEmpty() &&
+            oathSnapshotEntries.isEmpty() && pushSnapshotEntries.isEmpty() && groupingEngine.isEmpty
+        ) {
             diagnosticLogger.d("Skipping account group update - no credentials loaded yet")
             return
         }
 
-        val newAccountGroups = groupCredentialsByAccount(
-            oathCredentials, pushCredentials, shouldCombine
+        val changedKeys = HashSet<AccountKey>()
+        val changedAccounts = groupingEngine.update(
+            oathCredentials,
+            pushCredentials,
+            oathSnapshotEntries,
+            pushSnapshotEntries,
+            changedKeys
         )
+        val orderedAccountGroups = groupingEngine.build(shouldCombine)
+        updateSearchIndex(orderedAccountGroups, changedKeys, shouldCombine)
         
-        // Apply saved account order
-        val orderedAccountGroups = applyAccountOrder(newAccountGroups)
-        
-        // Debug logging to help identify duplicate group issues
         diagnosticLogger.d("updateAccountGroups: shouldCombine=$shouldCombine, " +
                 "oathCredentials=${oathCredentials.size}, " +
                 "pushCredentials=${pushCredentials.size}, " +
+                "snapshotEntries=${oathSnapshotEntries.size + pushSnapshotEntries.size}, " +
+                "changedAccounts=$changedAccounts, " +
                 "resultingGroups=${orderedAccountGroups.size}")
-        
-        // Validate that we don't have duplicate account groups with the same issuer+account name
-        val groupKeys = orderedAccountGroups.map { "${it.issuer}-${it.accountName}" }
-        val duplicateKeys = groupKeys.groupBy { it }.filter { it.value.size > 1 }.keys
-        if (duplicateKeys.isNotEmpty()) {
-            diagnosticLogger.w("Warning: Found duplicate account groups with keys: $duplicateKeys")
-            // This is expected when shouldCombine is false and there are multiple credentials
-            // for the same account, but worth logging for debugging
-        }
 
         _accountGroups.value = orderedAccountGroups
     }
 
+    // Must be called with the lock held, before the groups are published. Only the accounts that
+    // changed are re-indexed, unless combining the accounts was switched and every group was rebuilt.
+    private fun updateSearchIndex(
+        accountGroups: List<AccountGroup>,
+        changedKeys: Set<AccountKey>,
+        shouldCombine: Boolean
+    ) {
+        if (shouldCombine != indexedCombined) {
+            indexedCombined = shouldCombine
+            indexScope.launch { searchIndex.update(accountGroups) }
+        } else if (changedKeys.isNotEmpty()) {
+            val changedGroups = changedKeys.associateWith { key -> groupingEngine.groupsOf(key, shouldCombine) }
+            indexScope.launch {
+                changedGroups.forEach { (key, groups) -> searchIndex.apply(key, groups) }
+            }
+        }
+    }
+
+    // Must be called with the lock held. The saved order is the same list until it changes,
+    // so the engine is only reordered when the preferences are loaded or the order is saved.
+    private fun applyAccountOrder(accountOrder: List<String>) {
+        if (accountOrder === appliedAccountOrder) return
+        appliedAccountOrder = accountOrder
+        groupingEngine.setAccountOrder(accountOrder)
+    }
+
+    /**
+     * Filters the visible account groups by display issuer and display account name.
+     * Every word of the query has to match, ignoring case and accents.
+     * Only the query is set here, [visibleAccountGroups] is filtered in the background.
+     *
+     * @param query Search query, a blank query shows every account group
+     */
+    fun setSearchQuery(query: String) {
+        _searchQuery.value = query
+    }
+
     /**
      * Updates the account group order immediately.
      * This provides immediate feedback while the order is being persisted.
      */
+    @Synchronized
     fun updateAccountGroupOrder(newAccountGroups: List<AccountGroup>) {
         diagnosticLogger.d("Update AccountGroupOrder")
+        // Keep the new order if the accounts are regrouped before it is saved
+        groupingEngine.setAccountOrder(orderKeysOf(newAccountGroups))
         _accountGroups.value = newAccountGroups
     }
 
     /**
      * Save the current account order to preferences.
+     * Nothing is written if the order is the saved one.
      */
     suspend fun saveAccountOrder(accountGroups: List<AccountGroup>) {
-        val orderKeys = accountGroups.map { "${it.issuer}-${it.accountName}" }
+        val orderKeys = orderKeysOf(accountGroups)
+        if (orderKeys == userPreferences.getAccountOrder()) return
         userPreferences.setAccountOrder(orderKeys)
-    }
-
-    /**
-     * Apply saved account order to the list of account groups.
-     */
-    private fun applyAccountOrder(accountGroups: List<AccountGroup>): List<AccountGroup> {
-        val savedOrder = userPreferences.getAccountOrder()
-        if (savedOrder.isEmpty()) {
-            return accountGroups
-        }
-
-        // Check if we have separate groups (when combine accounts is disabled)
-        val hasSeparateGroups = accountGroups.any { group ->
-            accountGroups.count { it.issuer == group.issuer && it.accountName == group.accountName } > 1
-        }
-
-        return if (hasSeparateGroups) {
-            applySeparateGroupOrdering(accountGroups, savedOrder)
-        } else {
-            applyCombinedGroupOrdering(accountGroups, savedOrder)
-        }
-    }
-
-    /**
-     * Apply ordering for separate account groups (when combine accounts is disabled).
-     * Groups OATH and Push cards from the same account together and maintains saved order.
-     */
-    private fun applySeparateGroupOrdering(
-        accountGroups: List<AccountGroup>,
-        savedOrder: List<String>
-    ): List<AccountGroup> {
-        // Group the separate cards by account (issuer + accountName)
-        val groupsByAccount = accountGroups.groupBy { "${it.issuer}-${it.accountName}" }
-
-        val orderedList = mutableListOf<AccountGroup>()
-        val processedAccounts = mutableSetOf<String>()
-
-        // Process accounts in saved order
-        savedOrder.forEach { accountKey ->
-            groupsByAccount[accountKey]?.let { accountCards ->
-                // Sort cards within account: OATH first, then Push
-                val sortedCards = accountCards.sortedWith { a, b ->
-                    when {
-                        a.oathCredentials.isNotEmpty() && b.pushCredentials.isNotEmpty() -> -1 // OATH first
-                        a.pushCredentials.isNotEmpty() && b.oathCredentials.isNotEmpty() -> 1   // Push second
-                        else -> 0 // Same type, maintain existing order
-                    }
-                }
-                orderedList.addAll(sortedCards)
-                processedAccounts.add(accountKey)
-            }
+        synchronized(this) {
+            applyAccountOrder(userPreferences.getAccountOrder())
         }
-
-        // Add any new accounts not in saved order
-        groupsByAccount.entries.forEach { (accountKey, accountCards) ->
-            if (!processedAccounts.contains(accountKey)) {
-                val sortedCards = accountCards.sortedWith { a, b ->
-                    when {
-                        a.oathCredentials.isNotEmpty() && b.pushCredentials.isNotEmpty() -> -1
-                        a.pushCredentials.isNotEmpty() && b.oathCredentials.isNotEmpty() -> 1
-                        else -> 0
-                    }
-                }
-                orderedList.addAll(sortedCards)
-            }
-        }
-
-        return orderedList
     }
 
-    /**
-     * Apply ordering for combined account groups (when combine accounts is enabled).
-     */
-    private fun applyCombinedGroupOrdering(
-        accountGroups: List<AccountGroup>,
-        savedOrder: List<String>
-    ): List<AccountGroup> {
-        // Create a map for quick lookup (only for combined accounts)
-        val accountMap = accountGroups.associateBy { "${it.issuer}-${it.accountName}" }
-        val orderedList = mutableListOf<AccountGroup>()
-        val addedKeys = mutableSetOf<String>()
-
-        // Add accounts in saved order
-        savedOrder.forEach { key ->
-            accountMap[key]?.let { accountGroup ->
-                orderedList.add(accountGroup)
-                addedKeys.add(key)
-            }
-        }
-
-        // Add any new accounts that weren't in the saved order
-        accountGroups.forEach { accountGroup ->
-            val key = "${accountGroup.issuer}-${accountGroup.accountName}"
-            if (!addedKeys.contains(key)) {
-                orderedList.add(accountGroup)
-            }
-        }
-
-        return orderedList
+    private fun orderKeysOf(accountGroups: List<AccountGroup>): List<String> {
+        return accountGroups.map { "${it.issuer}-${it.accountName}" }
     }
-}
\ No newline at end of file
+}
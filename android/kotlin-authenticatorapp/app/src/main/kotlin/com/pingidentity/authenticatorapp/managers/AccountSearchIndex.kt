@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.authenticatorapp.data.AccountGroup
+import java.text.Normalizer
+import java.util.Locale
+
+/**
+ * In-memory search index over the display issuer and display account name of the account groups.
+ *
+ * Text is folded to lower case without accents and split into words. Each word is indexed by its
+ * one and two character prefixes and by its trigrams, so a query word of one or two characters
+ * matches the start of a word, and a longer query word matches anywhere inside a word. Every
+ * word of a query has to match for an account to be found.
+ *
+ * Accounts are keyed by issuer and account name, so the credentials shown as separate groups of
+ * the same account share an entry. [update] only re-indexes the accounts whose groups changed,
+ * and [apply] re-indexes a single account.
+ *
+ * The index is not thread safe, it has to be used from one thread or dispatcher at a time.
+ */
+internal class AccountSearchIndex {
+
+    companion object {
+        private const val GRAM_LENGTH = 3
+        private val combiningMarks = Regex("\\p{Mn}+")
+        private val separators = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Returns the key of the account of a group.
+         */
+        fun keyOf(group: AccountGroup): AccountKey = AccountKey(group.issuer, group.accountName)
+
+        /**
+         * Folds the text to lower case without accents and splits it into words.
+         */
+        fun wordsOf(text: String): List<String> {
+            val folded = combiningMarks.replace(Normalizer.normalize(text, Normalizer.Form.NFD), "")
+                .lowercase(Locale.ROOT)
+            return folded.split(separators).filter { it.isNotEmpty() }
+        }
+    }
+
+    /**
+     * Indexed account: the groups it was indexed from and its distinct words.
+     */
+    private class Entry(val groups: List<AccountGroup>, val words: Set<String>)
+
+    private val entries = HashMap<AccountKey, Entry>()
+    private val postings = HashMap<String, MutableSet<AccountKey>>()
+
+    /**
+     * Number of indexed accounts.
+     */
+    val size: Int
+        get() = entries.size
+
+    /**
+     * Reconciles the index with the given account groups.
+     * Accounts whose groups are the same instances as at the previous update are skipped.
+     *
+     * @return The number of accounts re-indexed or removed
+     */
+    fun update(accountGroups: List<AccountGroup>): Int {
+        val groupsByKey = LinkedHashMap<AccountKey, MutableList<AccountGroup>>(accountGroups.size * 2)
+        accountGroups.forEach { group -> groupsByKey.getOrPut(keyOf(group)) { ArrayList(1) }.add(group) }
+
+        var changed = 0
+        groupsByKey.forEach { (key, groups) ->
+            val previous = entries[key]
+            if (previous != null && sameInstances(previous.groups, groups)) return@forEach
+            previous?.let { remove(key, it) }
+            add(key, groups)
+            changed++
+        }
+        if (entries.size > groupsByKey.size) {
+            val removedKeys = entries.keys.filterNot { it in groupsByKey }
+            removedKeys.forEach { key -> entries[key]?.let { remove(key, it) } }
+            changed += removedKeys.size
+        }
+        return changed
+    }
+
+    /**
+     * Re-indexes a single account with its current groups, or removes it if it has none.
+     */
+    fun apply(key: AccountKey, groups: List<AccountGroup>) {
+        entries[key]?.let { previous ->
+            if (sameInstances(previous.groups, groups)) return
+            remove(key, previous)
+        }
+        if (groups.isNotEmpty()) add(key, groups)
+    }
+
+    /**
+     * Returns the keys of the accounts matching every word of the query,
+     * or null if the query has no word and nothing should be filtered.
+     */
+    fun search(query: String): Set<AccountKey>? {
+        val queryWords = wordsOf(query).distinct()
+        if (queryWords.isEmpty()) return null
+
+        var result: Set<AccountKey>? = null
+        // Longer words have the most selective postings
+        for (word in queryWords.sortedByDescending { it.length }) {
+            val matches = matchesOf(word, candidates = result)
+            if (matches.isEmpty()) return emptySet()
+            result = matches
+        }
+        return result
+    }
+
+    /**
+     * Returns the account groups matching the query, in the given order.
+     */
+    fun filter(accountGroups: List<AccountGroup>, query: String): List<AccountGroup> {
+        val keys = search(query) ?: return accountGroups
+        if (keys.isEmpty()) return emptyList()
+        return accountGroups.filter { keyOf(it) in keys }
+    }
+
+    /**
+     * Clears the whole index.
+     */
+    fun clear() {
+        entries.clear()
+        postings.clear()
+    }
+
+    private fun matchesOf(word: String, candidates: Set<AccountKey>?): Set<AccountKey> {
+        if (word.length < GRAM_LENGTH) {
+            val keys = postings[word] ?: return emptySet()
+            return if (candidates == null) keys.toHashSet() else candidates.filterTo(HashSet()) { it in keys }
+        }
+
+        val gramPostings = gramsOf(word).map { gram -> postings[gram] ?: return emptySet() }
+            .sortedBy { it.size }
+        val smallest = candidates?.takeIf { it.size < gramPostings.first().size } ?: gramPostings.first()
+        return smallest.filterTo(HashSet()) { key ->
+            gramPostings.all { key in it } &&
+                // Trigrams may be found in different words of the account
+                entries[key]?.words?.any { it.contains(word) } == true
+        }
+    }
+
+    private fun add(key: AccountKey, groups: List<AccountGroup>) {
+        val words = HashSet<String>()
+        groups.forEach { group ->
+            words.addAll(wordsOf(group.displayIssuer))
+            words.addAll(wordsOf(group.displayAccountName))
+        }
+        entries[key] = Entry(groups, words)
+        termsOf(words).forEach { term -> postings.getOrPut(term) { HashSet() }.add(key) }
+    }
+
+    private fun remove(key: AccountKey, entry: Entry) {
+        entries.remove(key)
+        termsOf(entry.words).forEach { term ->
+            val keys = postings[term] ?: return@forEach
+            keys.remove(key)
+            if (keys.isEmpty()) postings.remove(term)
+        }
+    }
+
+    /**
+     * Returns the prefixes and trigrams indexed for the given words.
+     */
+    private fun termsOf(words: Set<String>): Set<String> {
+        val terms = HashSet<String>()
+        words.forEach { word ->
+            terms.add(word.substring(0, 1))
+            if (word.length >= 2) terms.add(word.substring(0, 2))
+            terms.addAll(gramsOf(word))
+        }
+        return terms
+    }
+
+    private fun gramsOf(word: String): List<String> =
+        if (word.length < GRAM_LENGTH) emptyList() else word.windowed(GRAM_LENGTH)
+
+    private fun sameInstances(previous: List<AccountGroup>, current: List<AccountGroup>): Boolean =
+        previous.size == current.size && previous.indices.all { previous[it] === current[it] }
+}
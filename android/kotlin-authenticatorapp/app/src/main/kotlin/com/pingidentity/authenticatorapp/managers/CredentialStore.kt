@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import kotlinx.coroutines.CancellationException
+
+/**
+ * Describes a single change applied to an in-memory credential list.
+ * Emitted by the managers so observers can react to the delta instead of the full list.
+ */
+sealed interface CredentialChange<out T> {
+    /**
+     * The whole list was replaced, e.g. after a full reload from storage.
+     */
+    data class Reloaded<T>(val credentials: List<T>) : CredentialChange<T>
+
+    /**
+     * A credential was inserted or replaced.
+     *
+     * @param isNew Whether the credential was not present before this change
+     */
+    data class Upserted<T>(val credential: T, val isNew: Boolean) : CredentialChange<T>
+
+    /**
+     * Several credentials were inserted or replaced at once, e.g. by a bulk lock.
+     */
+    data class UpsertedAll<T>(val credentials: List<T>) : CredentialChange<T>
+
+    /**
+     * A credential was removed.
+     */
+    data class Removed<T>(val credential: T) : CredentialChange<T>
+}
+
+/**
+ * A batch save failed, and some of the credentials saved before the failure could not be restored.
+ * Storage holds part of the batch, so the in-memory copy has to be reloaded from storage.
+ *
+ * @param notRestoredIds Ids of the credentials left with their content from the failed batch
+ * @param cause Failure of the batch
+ */
+class BatchRollbackException(
+    val notRestoredIds: List<String>,
+    cause: Throwable
+) : Exception("Failed to restore ${notRestoredIds.size} credential(s) after a failed update: ${cause.message}", cause)
+
+/**
+ * In-memory copy of the credentials held in storage, keyed by credential id.
+ * Lets the managers apply single-credential mutations without re-reading every row.
+ *
+ * @param idOf Selector returning the unique id of a credential
+ */
+internal class CredentialStore<T>(
+    private val idOf: (T) -> String
+) {
+
+    private val credentials = LinkedHashMap<String, T>()
+
+    /**
+     * Whether the store has been populated by a full load at least once.
+     * Incremental mutations are only safe after that.
+     */
+    @Volatile
+    var isLoaded: Boolean = false
+        private set
+
+    /**
+     * Replaces the whole content of the store.
+     */
+    @Synchronized
+    fun replaceAll(items: List<T>): CredentialChange<T> {
+        credentials.clear()
+        items.forEach { credentials[idOf(it)] = it }
+        isLoaded = true
+        return CredentialChange.Reloaded(items)
+    }
+
+    /**
+     * Inserts or replaces a credential, keeping the position of an existing entry.
+     */
+    @Synchronized
+    fun upsert(item: T): CredentialChange<T> {
+        val previous = credentials.put(idOf(item), item)
+        return CredentialChange.Upserted(item, isNew = previous == null)
+    }
+
+    /**
+     * Inserts or replaces several credentials as a single change.
+     */
+    @Synchronized
+    fun upsertAll(items: List<T>): CredentialChange<T> {
+        items.forEach { credentials[idOf(it)] = it }
+        return CredentialChange.UpsertedAll(items)
+    }
+
+    /**
+     * Removes a credential by id.
+     * Returns null if the credential is unknown, meaning the store is out of sync with storage.
+     */
+    @Synchronized
+    fun remove(id: String): CredentialChange<T>? {
+        val removed = credentials.remove(id) ?: return null
+        return CredentialChange.Removed(removed)
+    }
+
+    /**
+     * Saves several credentials to storage with [save], in order, without modifying the store.
+     * If a save fails, the credentials already saved are saved again with their content from
+     * this store, in reverse order, to compensate the partial batch.
+     *
+     * @return The saved credentials, or the first failure. If a compensating save fails too, the
+     * failure is a [BatchRollbackException], as storage then holds part of the batch.
+     */
+    suspend fun saveAll(items: List<T>, save: suspend (T) -> Result<T>): Result<List<T>> {
+        val saved = ArrayList<T>(items.size)
+        for (item in items) {
+            val savedItem = saveCatching(item, save).getOrElse { e ->
+                val notRestoredIds = rollback(saved, save)
+                return Result.failure(
+                    if (notRestoredIds.isEmpty()) e else BatchRollbackException(notRestoredIds, e)
+                )
+            }
+            saved.add(savedItem)
+        }
+        return Result.success(saved)
+    }
+
+    /**
+     * Saves the given credentials again with their content from this store.
+     *
+     * @return The ids of the credentials that could not be restored
+     */
+    private suspend fun rollback(saved: List<T>, save: suspend (T) -> Result<T>): List<String> {
+        return saved.asReversed().mapNotNull { savedItem ->
+            val id = idOf(savedItem)
+            val previous = get(id) ?: return@mapNotNull id
+            if (saveCatching(previous, save).isSuccess) null else id
+        }
+    }
+
+    private suspend fun saveCatching(item: T, save: suspend (T) -> Result<T>): Result<T> {
+        return try {
+            save(item)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Returns the credential with the given id, if present.
+     */
+    @Synchronized
+    operator fun get(id: String): T? = credentials[id]
+
+    /**
+     * Returns the current content of the store as an immutable snapshot.
+     */
+    @Synchronized
+    fun snapshot(): List<T> = credentials.values.toList()
+}
@@ -9,12 +9,23 @@ package com.pingidentity.authenticatorapp.managers
 
 import com.pingidentity.authenticatorapp.AuthenticatorApp
 import com.pingidentity.authenticatorapp.data.BackupFileInfo
+import com.pingidentity.authenticatorapp.data.BackupResult
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.IncrementalBackupStore
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import com.pingidentity.mfa.commons.exception.CredentialLockedException
 import com.pingidentity.mfa.oath.OathCodeInfo
 import com.pingidentity.mfa.oath.OathCredential
 import com.pingidentity.mfa.oath.OathClient
@@ -28,25 +39,54 @@ import java.io.File
  * @param oathClient The OATH MFA client instance
  * @param oathStorage The OATH storage instance (optional, for backup operations)
  * @param diagnosticLogger DiagnosticLogger for logging
+ * @param backupStore Incremental backups of the credentials (optional, for manual backups)
  */
 class OathManager(
     private var oathClient: OathClient? = null,
     private var oathStorage: SQLOathStorage? = null,
-    private val diagnosticLogger: DiagnosticLogger
+    private val diagnosticLogger: DiagnosticLogger,
+    private val backupStore: IncrementalBackupStore<OathCredential>? = null
 ) {
     
     private val _oathCredentials = MutableStateFlow<List<OathCredential>>(emptyList())
     val oathCredentials: StateFlow<List<OathCredential>> = _oathCredentials.asStateFlow()
+
+    // In-memory copy of the stored credentials, keyed by id, used for incremental updates
+    private val credentialStore = CredentialStore<OathCredential> { it.id }
+
+    private val _credentialChanges = MutableSharedFlow<CredentialChange<OathCredential>>(extraBufferCapacity = 64)
+    val credentialChanges: SharedFlow<CredentialChange<OathCredential>> = _credentialChanges.asSharedFlow()
     
     private val _isLoadingOathCredentials = MutableStateFlow(false)
     val isLoadingOathCredentials: StateFlow<Boolean> = _isLoadingOathCredentials.asStateFlow()
     
     private val _generatedCodes = MutableStateFlow<Map<String, OathCodeInfo>>(emptyMap())
     val generatedCodes: StateFlow<Map<String, OathCodeInfo>> = _generatedCodes.asStateFlow()
+
+    /**
+     * Codes kept up to date by an [OtpCodeScheduler] while this flow is collected.
+     * The scheduler stops when the last collector goes away.
+     */
+    val scheduledCodes: Flow<Map<String, OathCodeInfo>> = channelFlow {
+        launch { OtpCodeScheduler(this@OathManager).run() }
+        generatedCodes.collect { send(it) }
+    }
     
     private val _lastAddedOathCredential = MutableStateFlow<OathCredential?>(null)
     val lastAddedOathCredential: StateFlow<OathCredential?> = _lastAddedOathCredential.asStateFlow()
 
+    private val _isCredentialsLoaded = MutableStateFlow(false)
+    /**
+     * Whether the OATH credentials were loaded from storage at least once.
+     */
+    val isCredentialsLoaded: StateFlow<Boolean> = _isCredentialsLoaded.asStateFlow()
+
+    private val _isClientReady = MutableStateFlow(oathClient != null)
+    /**
+     * Whether the OATH client has been set. Until then every operation fails with "not initialized".
+     */
+    val isClientReady: StateFlow<Boolean> = _isClientReady.asStateFlow()
+
     /**
      * Sets the OATH client instance and optionally the storage instance.
      * 
@@ -56,6 +96,14 @@ class OathManager(
     fun setClient(client: OathClient, storage: SQLOathStorage? = null) {
         this.oathClient = client
         this.oathStorage = storage
+        _isClientReady.value = true
+    }
+
+    /**
+     * Suspends until the OATH client has been set.
+     */
+    suspend fun awaitClient() {
+        isClientReady.first { it }
     }
 
     /**
@@ -71,7 +119,8 @@ class OathManager(
             }
             
             result.onSuccess { credentials ->
-                _oathCredentials.value = credentials
+                publishChange(credentialStore.replaceAll(credentials))
+                _isCredentialsLoaded.value = true
             }
             
             _isLoadingOathCredentials.value = false
@@ -95,8 +144,8 @@ class OathManager(
             
             result.onSuccess { credential ->
                 _lastAddedOathCredential.value = credential
-                // Reload credentials to refresh the list
-                loadCredentials()
+                // Apply the new credential to the in-memory list
+                applyUpsert(credential)
             }
             
             result
@@ -118,8 +167,8 @@ class OathManager(
             
             result.onSuccess { removed ->
                 if (removed) {
-                    // Reload credentials to refresh the list
-                    loadCredentials()
+                    // Drop the credential from the in-memory list
+                    applyRemoval(credentialId)
                 }
             }
             
@@ -136,13 +185,13 @@ class OathManager(
         val client = oathClient ?: return Result.failure(Exception("OATH client not initialized"))
         return try {
             val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Updating OATH credential: $credential")
+                diagnosticLogger.d("Updating OATH credential: ${credential.id}")
                 client.saveCredential(credential)
             }
             
-            result.onSuccess {
-                // Reload credentials to refresh the list
-                loadCredentials()
+            result.onSuccess { savedCredential ->
+                // Apply the saved credential to the in-memory list
+                applyUpsert(savedCredential)
             }
             
             result
@@ -151,6 +200,113 @@ class OathManager(
         }
     }
 
+    /**
+     * Updates a stored OATH credential in the SDK. The update is applied to the credential as
+     * loaded from storage, and fails if it is not loaded, so only a stored credential is ever saved.
+     *
+     * @param credentialId ID of the credential
+     * @param update Returns the updated credential from the stored one
+     */
+    suspend fun updateCredential(credentialId: String, update: (OathCredential) -> OathCredential): Result<OathCredential> {
+        val stored = storedCredentials(listOf(credentialId)).getOrElse { return Result.failure(it) }
+        return updateCredential(update(stored.single()))
+    }
+
+    /**
+     * Updates several stored OATH credentials in the SDK at once, e.g. to lock every credential of an account.
+     * The update is applied to the credentials as loaded from storage, and nothing is saved if one of
+     * them is not loaded. The list is published once, as a single change. If a save fails, the
+     * credentials already saved are restored and the in-memory list is left unchanged. If they cannot
+     * all be restored, the failure is a [BatchRollbackException] and the list is reloaded from storage.
+     *
+     * @param credentialIds IDs of the credentials
+     * @param update Returns the updated credential from the stored one
+     */
+    suspend fun updateCredentials(credentialIds: List<String>, update: (OathCredential) -> OathCredential): Result<List<OathCredential>> {
+        if (credentialIds.isEmpty()) return Result.success(emptyList())
+        val credentials = storedCredentials(credentialIds).getOrElse { return Result.failure(it) }.map(update)
+        if (credentials.isEmpty()) return Result.success(emptyList())
+        val client = oathClient ?: return Result.failure(Exception("OATH client not initialized"))
+        return try {
+            val result = withContext(Dispatchers.IO) {
+                diagnosticLogger.d("Updating ${credentials.size} OATH credentials")
+                credentialStore.saveAll(credentials) { credential -> client.saveCredential(credential) }
+            }
+
+            result.onSuccess { savedCredentials ->
+                // Apply all saved credentials to the in-memory list as one change
+                applyUpsertAll(savedCredentials)
+            }.onFailure { e ->
+                if (e is BatchRollbackException) {
+                    diagnosticLogger.e("OATH update partially rolled back, reloading credentials", e)
+                    loadCredentials()
+                }
+            }
+
+            result
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    /**
+     * Returns the stored credentials with the given IDs, or fails if one of them is not loaded from storage.
+     */
+    private fun storedCredentials(credentialIds: List<String>): Result<List<OathCredential>> {
+        if (!credentialStore.isLoaded) return Result.failure(Exception("OATH credentials not loaded"))
+        return Result.success(
+            credentialIds.map { id ->
+                credentialStore[id] ?: return Result.failure(Exception("OATH credential $id not found"))
+            }
+        )
+    }
+
+    /**
+     * Applies an inserted or updated credential to the in-memory list without re-reading storage.
+     * Falls back to a full reload if the list was never loaded.
+     */
+    private suspend fun applyUpsert(credential: OathCredential) {
+        if (!credentialStore.isLoaded) {
+            loadCredentials()
+            return
+        }
+        publishChange(credentialStore.upsert(credential))
+    }
+
+    /**
+     * Applies several updated credentials to the in-memory list, publishing a single change.
+     * Falls back to a full reload if the list was never loaded.
+     */
+    private suspend fun applyUpsertAll(credentials: List<OathCredential>) {
+        if (!credentialStore.isLoaded) {
+            loadCredentials()
+            return
+        }
+        publishChange(credentialStore.upsertAll(credentials))
+    }
+
+    /**
+     * Removes a credential from the in-memory list without re-reading storage.
+     * Falls back to a full reload if the credential is unknown, as the list is then out of sync.
+     */
+    private suspend fun applyRemoval(credentialId: String) {
+        val change = if (credentialStore.isLoaded) credentialStore.remove(credentialId) else null
+        if (change == null) {
+            diagnosticLogger.w("OATH credential $credentialId not found in memory, reloading credentials")
+            loadCredentials()
+            return
+        }
+        publishChange(change)
+    }
+
+    /**
+     * Publishes the current in-memory list and the change that produced it.
+     */
+    private fun publishChange(change: CredentialChange<OathCredential>) {
+        _oathCredentials.value = credentialStore.snapshot()
+        _credentialChanges.tryEmit(change)
+    }
+
     /**
      * Generates a code for a credential.
      */
@@ -162,9 +318,7 @@ class OathManager(
             }
             
             result.onSuccess { codeInfo ->
-                val updatedCodes = _generatedCodes.value.toMutableMap()
-                updatedCodes[credentialId] = codeInfo
-                _generatedCodes.value = updatedCodes
+                _generatedCodes.update { it + (credentialId to codeInfo) }
             }
             
             result
@@ -173,6 +327,43 @@ class OathManager(
         }
     }
 
+    /**
+     * Generates codes for several credentials in a single batch and publishes them in one update.
+     * Locked credentials are skipped, and failures are logged without interrupting the batch.
+     *
+     * @return The codes generated in this batch, keyed by credential ID
+     */
+    suspend fun generateCodes(credentials: List<OathCredential>): Map<String, OathCodeInfo> {
+        val client = oathClient ?: return emptyMap()
+        if (credentials.isEmpty()) return emptyMap()
+        val batch = withContext(Dispatchers.IO) {
+            buildMap {
+                credentials.forEach { credential ->
+                    if (credential.isLocked) return@forEach
+                    try {
+                        client.generateCodeWithValidity(credential.id)
+                            .onSuccess { codeInfo -> put(credential.id, codeInfo) }
+                            .onFailure { e -> logCodeFailure(credential.id, e) }
+                    } catch (e: Exception) {
+                        logCodeFailure(credential.id, e)
+                    }
+                }
+            }
+        }
+        if (batch.isNotEmpty()) {
+            _generatedCodes.update { it + batch }
+        }
+        return batch
+    }
+
+    private fun logCodeFailure(credentialId: String, throwable: Throwable) {
+        if (throwable is CredentialLockedException) {
+            diagnosticLogger.d("Credential $credentialId is locked, cannot generate code")
+        } else {
+            diagnosticLogger.w("Failed to generate code for credential $credentialId", throwable)
+        }
+    }
+
     /**
      * Clears the last added OATH credential.
      */
@@ -205,10 +396,18 @@ class OathManager(
     suspend fun getBackupFiles(): List<BackupFileInfo> {
         return withContext(Dispatchers.IO) {
             try {
+                val incrementalBackups = backupStore?.listFiles().orEmpty().map { file ->
+                    BackupFileInfo(
+                        name = file.name,
+                        sizeBytes = file.length(),
+                        timestamp = file.lastModified()
+                    )
+                }
+
                 val storage = oathStorage
                 if (storage == null) {
                     diagnosticLogger.w("OATH storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext emptyList()
+                    return@withContext incrementalBackups
                 }
                 
                 val backupFiles = storage.listBackupFiles()
@@ -219,7 +418,7 @@ class OathManager(
                         sizeBytes = file.length(),
                         timestamp = parseBackupTimestamp(file.name)
                     )
-                }
+                } + incrementalBackups
             } catch (e: Exception) {
                 diagnosticLogger.e("Error getting OATH backup files", e)
                 emptyList()
@@ -266,11 +465,26 @@ class OathManager(
                         logger = diagnosticLogger
                     )
                 }
-                
+
+                // Restore from the newest of the incremental backups, replayed through the client when
+                // it is available, and the database file backed up by the storage. The other one is
+                // only used if the newest cannot be restored.
+                val client = oathClient
+                val incrementalBackupTime = if (client != null) backupStore?.latestBackupTime() else null
+                val databaseBackupTime = storage.listBackupFiles().maxOfOrNull { parseBackupTimestamp(it.name) }
+                val preferIncremental = incrementalBackupTime != null &&
+                    (databaseBackupTime == null || incrementalBackupTime >= databaseBackupTime)
+
+                if (preferIncremental && client != null && restoreIncrementalBackup(client)) {
+                    return@withContext true
+                }
+
                 val success = storage.attemptBackupRestoration()
                 
                 if (success) {
                     diagnosticLogger.i("Successfully restored OATH database from backup")
+                } else if (!preferIncremental && client != null && restoreIncrementalBackup(client)) {
+                    return@withContext true
                 } else {
                     diagnosticLogger.w("Failed to restore OATH database from backup or no backups available")
                 }
@@ -282,6 +496,31 @@ class OathManager(
             }
         }
     }
+
+    /**
+     * Replays the incremental backups through the client.
+     *
+     * @return Whether the credentials were restored, false if there is no readable backup
+     */
+    private suspend fun restoreIncrementalBackup(client: OathClient): Boolean {
+        val restoredCredentials = backupStore?.restore() ?: return false
+        replaceCredentials(client, restoredCredentials)
+        diagnosticLogger.i("Restored ${restoredCredentials.size} OATH credentials from incremental backups")
+        return true
+    }
+
+    /**
+     * Replaces the stored credentials with the restored ones.
+     * Every restored credential is saved before any other credential is deleted, so a failed save
+     * leaves the stored credentials in place rather than a partially wiped storage.
+     */
+    private suspend fun replaceCredentials(client: OathClient, credentials: List<OathCredential>) {
+        credentials.forEach { credential -> client.saveCredential(credential).getOrThrow() }
+        val restoredIds = credentials.mapTo(HashSet()) { it.id }
+        client.getCredentials().getOrThrow()
+            .filterNot { it.id in restoredIds }
+            .forEach { credential -> client.deleteCredential(credential.id).getOrThrow() }
+    }
     
     /**
      * Corrupts the OATH database for testing error handling.
@@ -331,24 +570,31 @@ class OathManager(
     }
     
     /**
-     * Creates a manual backup of the OATH database.
-     * Requires storage instance to be set via setClient() or constructor.
+     * Creates a manual backup of the OATH credentials.
+     * Only the credentials changed since the previous backup are written, with a periodic full snapshot.
+     * Requires the client and a backup store to be set.
+     *
+     * @return The result of the backup, or null if backups are not available
      */
-    suspend fun createManualBackup() {
-        return withContext(Dispatchers.IO) {
-            try {
-                val storage = oathStorage
-                if (storage == null) {
-                    diagnosticLogger.w("OATH storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext
-                }
-                
-                storage.createDatabaseBackup()
-                diagnosticLogger.i("Manual OATH backup created successfully")
-            } catch (e: Exception) {
-                diagnosticLogger.e("Error creating manual OATH backup", e)
-                throw e
+    suspend fun createManualBackup(): BackupResult? {
+        val client = oathClient
+        val store = backupStore
+        if (client == null || store == null) {
+            diagnosticLogger.w("OATH client or backup store not available, cannot create a backup.")
+            return null
+        }
+        return try {
+            val credentials = withContext(Dispatchers.IO) { client.getCredentials() }.getOrThrow()
+            val result = store.backup(credentials)
+            when {
+                result.file == null -> diagnosticLogger.i("Manual OATH backup skipped, no credential changed")
+                result.isFullSnapshot -> diagnosticLogger.i("Manual OATH backup created: full snapshot of ${result.recordCount} credential(s)")
+                else -> diagnosticLogger.i("Manual OATH backup created: ${result.recordCount} changed credential(s)")
             }
+            result
+        } catch (e: Exception) {
+            diagnosticLogger.e("Error creating manual OATH backup", e)
+            throw e
         }
     }
     
@@ -406,16 +652,18 @@ class OathManager(
     suspend fun clearBackups(): Int {
         return withContext(Dispatchers.IO) {
             try {
+                val incrementalCount = backupStore?.clear() ?: 0
+
                 val storage = oathStorage
                 if (storage == null) {
                     diagnosticLogger.w("OATH storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext 0
+                    return@withContext incrementalCount
                 }
                 
                 val backups = getBackupFiles()
                 if (backups.isEmpty()) {
                     diagnosticLogger.i("No OATH backup files to clear")
-                    return@withContext 0
+                    return@withContext incrementalCount
                 }
                 
                 val contextField = storage.javaClass.superclass?.getDeclaredField("context")
@@ -439,11 +687,11 @@ class OathManager(
                     }
                     
                     diagnosticLogger.i("Cleared $deletedCount OATH backup files")
-                    return@withContext deletedCount
+                    return@withContext deletedCount + incrementalCount
                 }
                 
                 diagnosticLogger.w("Unable to access storage context for clearing backups")
-                0
+                incrementalCount
             } catch (e: Exception) {
                 diagnosticLogger.e("Error clearing OATH backups", e)
                 0
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.oath.OathType
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.collectLatest
+
+/**
+ * Central scheduler for OTP code generation.
+ *
+ * Groups TOTP credentials by period and wakes up once per period boundary, generating all the
+ * codes that expired at that boundary in a single batch. HOTP codes are only generated when missing,
+ * as generating them advances the counter.
+ *
+ * @param oathManager Manager used to read the credentials and generate the codes
+ * @param clock Source of the current time in milliseconds
+ */
+class OtpCodeScheduler(
+    private val oathManager: OathManager,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    // TOTP time window of the last code generated for each credential
+    private val generatedWindows = HashMap<String, Long>()
+
+    /**
+     * Runs the scheduler until the calling coroutine is cancelled.
+     * The schedule is rebuilt every time the list of credentials changes.
+     */
+    suspend fun run() {
+        oathManager.oathCredentials.collectLatest { credentials ->
+            generatedWindows.keys.retainAll(credentials.mapTo(HashSet()) { it.id })
+
+            // Generate codes that are missing or belong to an expired window
+            generateBatch(credentials.filter { isDue(it, clock()) })
+
+            val totpByPeriod = credentials
+                .filter { it.oathType == OathType.TOTP && it.period > 0 && !it.isLocked }
+                .groupBy { it.period * 1000L }
+            if (totpByPeriod.isEmpty()) return@collectLatest
+
+            while (true) {
+                val now = clock()
+                val nextBoundary = totpByPeriod.keys.minOf { periodMillis ->
+                    (now / periodMillis + 1) * periodMillis
+                }
+                // Wait on the wall clock, as the delay may return slightly before the boundary
+                var remaining = nextBoundary - now
+                while (remaining > 0) {
+                    delay(remaining)
+                    remaining = nextBoundary - clock()
+                }
+
+                // Every period whose boundary was reached is due in this tick
+                val due = totpByPeriod
+                    .filterKeys { periodMillis -> nextBoundary % periodMillis == 0L }
+                    .values
+                    .flatten()
+                generateBatch(due)
+            }
+        }
+    }
+
+    private fun isDue(credential: OathCredential, now: Long): Boolean {
+        if (credential.isLocked) return false
+        val hasCode = oathManager.generatedCodes.value.containsKey(credential.id)
+        return if (credential.oathType == OathType.TOTP) {
+            !hasCode || generatedWindows[credential.id] != windowOf(credential, now)
+        } else {
+            !hasCode
+        }
+    }
+
+    private suspend fun generateBatch(credentials: List<OathCredential>) {
+        if (credentials.isEmpty()) return
+        val now = clock()
+        val generated = oathManager.generateCodes(credentials)
+        credentials.forEach { credential ->
+            if (credential.oathType == OathType.TOTP && generated.containsKey(credential.id)) {
+                generatedWindows[credential.id] = windowOf(credential, now)
+            }
+        }
+    }
+
+    private fun windowOf(credential: OathCredential, now: Long): Long {
+        val periodMillis = credential.period * 1000L
+        return if (periodMillis > 0) now / periodMillis else 0L
+    }
+}
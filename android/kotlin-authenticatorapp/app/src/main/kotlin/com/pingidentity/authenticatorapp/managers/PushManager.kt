@@ -11,13 +11,26 @@ import android.util.Log
 import com.google.firebase.messaging.FirebaseMessaging
 import com.pingidentity.authenticatorapp.AuthenticatorApp
 import com.pingidentity.authenticatorapp.data.BackupFileInfo
+import com.pingidentity.authenticatorapp.data.BackupResult
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.IncrementalBackupStore
+import com.pingidentity.authenticatorapp.data.NotificationProjector
+import com.pingidentity.authenticatorapp.data.NotificationStatus
 import com.pingidentity.authenticatorapp.data.PushNotificationItem
-import com.pingidentity.authenticatorapp.data.toUiItems
+import com.pingidentity.authenticatorapp.data.createPushNotificationItem
+import com.pingidentity.authenticatorapp.data.notificationStatusOf
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.suspendCancellableCoroutine
 import kotlinx.coroutines.withContext
 import kotlin.coroutines.resume
@@ -35,15 +48,23 @@ import java.io.File
  * @param pushClient The Push MFA client instance
  * @param pushStorage The Push storage instance (optional, for backup operations)
  * @param diagnosticLogger DiagnosticLogger for logging
+ * @param backupStore Incremental backups of the credentials (optional, for manual backups)
  */
 class PushManager(
     private var pushClient: PushClient? = null,
     private var pushStorage: SQLPushStorage? = null,
-    private val diagnosticLogger: DiagnosticLogger
+    private val diagnosticLogger: DiagnosticLogger,
+    private val backupStore: IncrementalBackupStore<PushCredential>? = null
 ) {
     
     private val _pushCredentials = MutableStateFlow<List<PushCredential>>(emptyList())
     val pushCredentials: StateFlow<List<PushCredential>> = _pushCredentials.asStateFlow()
+
+    // In-memory copy of the stored credentials, keyed by id, used for incremental updates
+    private val credentialStore = CredentialStore<PushCredential> { it.id }
+
+    private val _credentialChanges = MutableSharedFlow<CredentialChange<PushCredential>>(extraBufferCapacity = 64)
+    val credentialChanges: SharedFlow<CredentialChange<PushCredential>> = _credentialChanges.asSharedFlow()
     
     private val _isLoadingPushCredentials = MutableStateFlow(false)
     val isLoadingPushCredentials: StateFlow<Boolean> = _isLoadingPushCredentials.asStateFlow()
@@ -62,10 +83,54 @@ class PushManager(
     
     private val _pendingNotificationItems = MutableStateFlow<List<PushNotificationItem>>(emptyList())
     val pendingNotificationItems: StateFlow<List<PushNotificationItem>> = _pendingNotificationItems.asStateFlow()
+
+    // Reuses parsed notification context and unchanged items across updates
+    private val notificationProjector = NotificationProjector()
+
+    // Scope for work that outlives a single call, such as reconciling with storage
+    private val backgroundScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    // Full notification history, pending first and then newest first. Only a window of it is published.
+    @Volatile
+    private var notificationHistory: List<PushNotification> = emptyList()
+
+    @Volatile
+    private var historyPageCount = 1
+
+    // Size the history has to exceed before the SDK cleanup runs again
+    @Volatile
+    private var compactionThreshold = MAX_STORED_NOTIFICATIONS
+
+    /**
+     * A response applied in memory, and when its request completed.
+     */
+    private class LocalResponse(val responded: PushNotification, var completedAt: Long = Long.MAX_VALUE)
+
+    // Local responses a reload may not reflect yet, by notification id. Guarded by this manager.
+    private val localResponses = HashMap<String, LocalResponse>()
+    // Incremented when a response completes, a reload started at n reflects the responses completed at n or before
+    private var responseSequence = 0L
+    // Start of each reload in progress
+    private val reloadsInProgress = mutableListOf<Long>()
+
+    private val _hasMoreNotificationHistory = MutableStateFlow(false)
+    val hasMoreNotificationHistory: StateFlow<Boolean> = _hasMoreNotificationHistory.asStateFlow()
     
     private val _lastAddedPushCredential = MutableStateFlow<PushCredential?>(null)
     val lastAddedPushCredential: StateFlow<PushCredential?> = _lastAddedPushCredential.asStateFlow()
 
+    private val _isCredentialsLoaded = MutableStateFlow(false)
+    /**
+     * Whether the Push credentials were loaded from storage at least once.
+     */
+    val isCredentialsLoaded: StateFlow<Boolean> = _isCredentialsLoaded.asStateFlow()
+
+    private val _isClientReady = MutableStateFlow(pushClient != null)
+    /**
+     * Whether the Push client has been set. Until then every operation fails with "not initialized".
+     */
+    val isClientReady: StateFlow<Boolean> = _isClientReady.asStateFlow()
+
     /**
      * Sets the Push client instance and optionally the storage instance.
      * 
@@ -75,6 +140,14 @@ class PushManager(
     fun setClient(client: PushClient, storage: SQLPushStorage? = null) {
         this.pushClient = client
         this.pushStorage = storage
+        _isClientReady.value = true
+    }
+
+    /**
+     * Suspends until the Push client has been set.
+     */
+    suspend fun awaitClient() {
+        isClientReady.first { it }
     }
 
     /**
@@ -90,9 +163,8 @@ class PushManager(
             }
             
             result.onSuccess { credentials ->
-                _pushCredentials.value = credentials
-                // Update notification items when credentials change
-                updateNotificationItems()
+                publishChange(credentialStore.replaceAll(credentials))
+                _isCredentialsLoaded.value = true
             }
             
             _isLoadingPushCredentials.value = false
@@ -116,8 +188,8 @@ class PushManager(
             
             result.onSuccess { credential ->
                 _lastAddedPushCredential.value = credential
-                // Reload credentials to refresh the list
-                loadCredentials()
+                // Apply the new credential to the in-memory list
+                applyUpsert(credential)
             }
             
             result
@@ -139,8 +211,8 @@ class PushManager(
             
             result.onSuccess { removed ->
                 if (removed) {
-                    // Reload credentials to refresh the list
-                    loadCredentials()
+                    // Drop the credential from the in-memory list
+                    applyRemoval(credentialId)
                 }
             }
             
@@ -157,13 +229,13 @@ class PushManager(
         val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
         return try {
             val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Updating Push credential: $credential")
+                diagnosticLogger.d("Updating Push credential: ${credential.id}")
                 client.saveCredential(credential)
             }
             
-            result.onSuccess {
-                // Reload credentials to refresh the list
-                loadCredentials()
+            result.onSuccess { savedCredential ->
+                // Apply the saved credential to the in-memory list
+                applyUpsert(savedCredential)
             }
             
             result
@@ -173,103 +245,302 @@ class PushManager(
     }
 
     /**
-     * Loads pending push notifications from the SDK.
+     * Updates a stored Push credential in the SDK. The update is applied to the credential as
+     * loaded from storage, and fails if it is not loaded, so only a stored credential is ever saved.
+     *
+     * @param credentialId ID of the credential
+     * @param update Returns the updated credential from the stored one
      */
-    suspend fun loadPushNotifications(): Result<List<PushNotification>> {
+    suspend fun updateCredential(credentialId: String, update: (PushCredential) -> PushCredential): Result<PushCredential> {
+        val stored = storedCredentials(listOf(credentialId)).getOrElse { return Result.failure(it) }
+        return updateCredential(update(stored.single()))
+    }
+
+    /**
+     * Updates several stored Push credentials in the SDK at once, e.g. to lock every credential of an account.
+     * The update is applied to the credentials as loaded from storage, and nothing is saved if one of
+     * them is not loaded. The list is published once, as a single change. If a save fails, the
+     * credentials already saved are restored and the in-memory list is left unchanged. If they cannot
+     * all be restored, the failure is a [BatchRollbackException] and the list is reloaded from storage.
+     *
+     * @param credentialIds IDs of the credentials
+     * @param update Returns the updated credential from the stored one
+     */
+    suspend fun updateCredentials(credentialIds: List<String>, update: (PushCredential) -> PushCredential): Result<List<PushCredential>> {
+        if (credentialIds.isEmpty()) return Result.success(emptyList())
+        val credentials = storedCredentials(credentialIds).getOrElse { return Result.failure(it) }.map(update)
+        if (credentials.isEmpty()) return Result.success(emptyList())
         val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
-        _isLoadingNotifications.value = true
         return try {
             val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Loading push notifications from PushClient")
-                client.getPendingNotifications()
+                diagnosticLogger.d("Updating ${credentials.size} Push credentials")
+                credentialStore.saveAll(credentials) { credential -> client.saveCredential(credential) }
             }
-            
-            result.onSuccess { notifications ->
-                _pendingNotifications.value = notifications
-                updateNotificationItems()
+
+            result.onSuccess { savedCredentials ->
+                // Apply all saved credentials to the in-memory list as one change
+                applyUpsertAll(savedCredentials)
+            }.onFailure { e ->
+                if (e is BatchRollbackException) {
+                    diagnosticLogger.e("Push update partially rolled back, reloading credentials", e)
+                    loadCredentials()
+                }
             }
-            
-            _isLoadingNotifications.value = false
+
             result
         } catch (e: Exception) {
-            _isLoadingNotifications.value = false
             Result.failure(e)
         }
     }
 
     /**
-     * Loads all push notifications (not just pending ones).
+     * Returns the stored credentials with the given IDs, or fails if one of them is not loaded from storage.
+     */
+    private fun storedCredentials(credentialIds: List<String>): Result<List<PushCredential>> {
+        if (!credentialStore.isLoaded) return Result.failure(Exception("Push credentials not loaded"))
+        return Result.success(
+            credentialIds.map { id ->
+                credentialStore[id] ?: return Result.failure(Exception("Push credential $id not found"))
+            }
+        )
+    }
+
+    /**
+     * Applies an inserted or updated credential to the in-memory list without re-reading storage.
+     * Falls back to a full reload if the list was never loaded.
+     */
+    private suspend fun applyUpsert(credential: PushCredential) {
+        if (!credentialStore.isLoaded) {
+            loadCredentials()
+            return
+        }
+        publishChange(credentialStore.upsert(credential))
+    }
+
+    /**
+     * Applies several updated credentials to the in-memory list, publishing a single change.
+     * Falls back to a full reload if the list was never loaded.
+     */
+    private suspend fun applyUpsertAll(credentials: List<PushCredential>) {
+        if (!credentialStore.isLoaded) {
+            loadCredentials()
+            return
+        }
+        publishChange(credentialStore.upsertAll(credentials))
+    }
+
+    /**
+     * Removes a credential from the in-memory list without re-reading storage.
+     * Falls back to a full reload if the credential is unknown, as the list is then out of sync.
+     */
+    private suspend fun applyRemoval(credentialId: String) {
+        val change = if (credentialStore.isLoaded) credentialStore.remove(credentialId) else null
+        if (change == null) {
+            diagnosticLogger.w("Push credential $credentialId not found in memory, reloading credentials")
+            loadCredentials()
+            return
+        }
+        publishChange(change)
+    }
+
+    /**
+     * Publishes the current in-memory list and the change that produced it.
+     * Notification items are refreshed as they reference the credentials.
      */
-    suspend fun loadAllPushNotifications(): Result<List<PushNotification>> {
+    private fun publishChange(change: CredentialChange<PushCredential>) {
+        _pushCredentials.value = credentialStore.snapshot()
+        _credentialChanges.tryEmit(change)
+        updateNotificationItems()
+    }
+
+    /**
+     * Loads pending push notifications from the SDK.
+     */
+    suspend fun loadPushNotifications(): Result<List<PushNotification>> {
         val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
         _isLoadingNotifications.value = true
-        return try {
-            val result = withContext(Dispatchers.IO) {
-                client.getAllNotifications()
-            }
-            
-            result.onSuccess { allNotifications ->
-                val pendingNotifications = allNotifications.filter { it.pending }
-                _pushNotifications.value = allNotifications
-                _pendingNotifications.value = pendingNotifications
-                updateNotificationItems()
+        val readStartedAt = beginReload()
+        val result = try {
+            withContext(Dispatchers.IO) {
+                diagnosticLogger.d("Loading push notifications from PushClient")
+                client.getPendingNotifications()
             }
-            
-            _isLoadingNotifications.value = false
-            result
         } catch (e: Exception) {
-            _isLoadingNotifications.value = false
             Result.failure(e)
         }
+
+        endReload(readStartedAt) {
+            result.onSuccess { notifications ->
+                _pendingNotifications.value = notifications.filterNot { isRespondedSince(it.id, readStartedAt) }
+                updateNotificationItems()
+            }
+        }
+
+        _isLoadingNotifications.value = false
+        return result
     }
 
     /**
-     * Approves a push notification.
+     * Loads all push notifications (not just pending ones).
+     * The history is published in pages of [HISTORY_PAGE_SIZE], starting again from the first page.
+     * Use [loadNextHistoryPage] to extend it.
+     * The SDK only reads the whole history, so this is only called for an explicit refresh; responses
+     * update their notification in place.
+     *
+     * @param resetPaging Whether to go back to the first page, or keep the pages already loaded
      */
-    suspend fun approveNotification(notificationId: String): Result<Boolean> {
+    suspend fun loadAllPushNotifications(resetPaging: Boolean = true): Result<List<PushNotification>> {
         val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
-        return try {
-            val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Approving push notification: $notificationId")
-                client.approveNotification(notificationId)
-            }
-            
-            result.onSuccess { success ->
-                if (success) {
-                    // Reload notifications after approving
-                    loadPushNotifications()
-                    loadAllPushNotifications()
+        _isLoadingNotifications.value = true
+        val readStartedAt = beginReload()
+        val result = try {
+            withContext(Dispatchers.IO) {
+                client.getAllNotifications().map { allNotifications ->
+                    // Sort once off the main thread, so the screen only has to render the window
+                    allNotifications.sortedWith(NOTIFICATION_ORDER)
                 }
             }
-            
-            result
         } catch (e: Exception) {
             Result.failure(e)
         }
+
+        endReload(readStartedAt) {
+            result.onSuccess { sortedNotifications ->
+                // A response sent while storage was read must not show as pending again
+                val history = withLocalResponses(sortedNotifications, readStartedAt)
+                notificationHistory = history
+                if (resetPaging) {
+                    historyPageCount = 1
+                }
+                _pendingNotifications.value = history.filter { it.pending }
+                publishHistoryWindow()
+            }
+        }
+
+        _isLoadingNotifications.value = false
+        return result
     }
 
     /**
-     * Approves a push notification with a challenge response.
+     * Registers a reload of the notifications about to read storage.
+     *
+     * @return When the reload started, to pass to [endReload]
      */
-    suspend fun approveChallengeNotification(notificationId: String, challengeResponse: String): Result<Boolean> {
-        val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
-        return try {
-            val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Approving challenge push notification: $notificationId")
-                client.approveChallengeNotification(notificationId, challengeResponse)
+    @Synchronized
+    private fun beginReload(): Long {
+        val readStartedAt = responseSequence
+        reloadsInProgress.add(readStartedAt)
+        return readStartedAt
+    }
+
+    /**
+     * Publishes the result of a reload, under the same lock as the local responses, and forgets the
+     * local responses every reload in progress reflects.
+     */
+    @Synchronized
+    private fun endReload(readStartedAt: Long, publish: () -> Unit) {
+        reloadsInProgress.remove(readStartedAt)
+        publish()
+        pruneLocalResponses()
+    }
+
+    /**
+     * Forgets the local responses that storage reflects for every reload in progress.
+     */
+    private fun pruneLocalResponses() {
+        val oldestRead = reloadsInProgress.minOrNull() ?: responseSequence
+        localResponses.values.removeAll { it.completedAt <= oldestRead }
+    }
+
+    /**
+     * Whether a response to the notification was applied locally, and may be missing from storage
+     * read at [readStartedAt].
+     */
+    private fun isRespondedSince(notificationId: String, readStartedAt: Long): Boolean =
+        localResponses[notificationId]?.let { it.completedAt > readStartedAt } ?: false
+
+    /**
+     * Re-applies the local responses that notifications read from storage at [readStartedAt] may miss.
+     */
+    private fun withLocalResponses(notifications: List<PushNotification>, readStartedAt: Long): List<PushNotification> {
+        if (localResponses.isEmpty()) return notifications
+        var changed = false
+        val merged = notifications.map { notification ->
+            if (notification.pending && isRespondedSince(notification.id, readStartedAt)) {
+                changed = true
+                localResponses.getValue(notification.id).responded
+            } else {
+                notification
             }
-            
-            result.onSuccess { success ->
-                if (success) {
-                    // Reload notifications after approving
-                    loadPushNotifications()
-                    loadAllPushNotifications()
-                }
+        }
+        return if (changed) merged.sortedWith(NOTIFICATION_ORDER) else notifications
+    }
+
+    /**
+     * Publishes the next page of the notification history, if any.
+     *
+     * @return true if more notifications were published
+     */
+    fun loadNextHistoryPage(): Boolean {
+        if (!_hasMoreNotificationHistory.value) return false
+        historyPageCount++
+        publishHistoryWindow()
+        return true
+    }
+
+    /**
+     * Publishes the loaded pages of the notification history and refreshes their UI items.
+     */
+    private fun publishHistoryWindow() {
+        val history = notificationHistory
+        val windowSize = historyPageCount * HISTORY_PAGE_SIZE
+        _pushNotifications.value = if (history.size > windowSize) history.subList(0, windowSize).toList() else history
+        _hasMoreNotificationHistory.value = history.size > windowSize
+        updateNotificationItems()
+    }
+
+    /**
+     * Runs the SDK notification cleanup when the stored history grows beyond
+     * [MAX_STORED_NOTIFICATIONS], then reloads the first page of the history.
+     * The SDK decides which notifications are removed, so the history can stay above the limit.
+     * In that case the cleanup only runs again once [HISTORY_PAGE_SIZE] more notifications are stored.
+     *
+     * @return The number of notifications removed
+     */
+    suspend fun compactNotificationHistory(): Result<Int> {
+        val storedCount = notificationHistory.size
+        if (storedCount <= compactionThreshold) return Result.success(0)
+        diagnosticLogger.d("Compacting notification history: $storedCount stored notifications")
+        return cleanupNotifications().onSuccess { removed ->
+            if (removed > 0) {
+                loadAllPushNotifications()
             }
-            
-            result
-        } catch (e: Exception) {
-            Result.failure(e)
+            val remainingCount = storedCount - removed
+            compactionThreshold = if (remainingCount > MAX_STORED_NOTIFICATIONS) {
+                remainingCount + HISTORY_PAGE_SIZE
+            } else {
+                MAX_STORED_NOTIFICATIONS
+            }
+        }
+    }
+
+    /**
+     * Approves a push notification.
+     */
+    suspend fun approveNotification(notificationId: String): Result<Boolean> {
+        return respondToNotification(notificationId, approved = true) { client ->
+            diagnosticLogger.d("Approving push notification: $notificationId")
+            client.approveNotification(notificationId)
+        }
+    }
+
+    /**
+     * Approves a push notification with a challenge response.
+     */
+    suspend fun approveChallengeNotification(notificationId: String, challengeResponse: String): Result<Boolean> {
+        return respondToNotification(notificationId, approved = true) { client ->
+            diagnosticLogger.d("Approving challenge push notification: $notificationId")
+            client.approveChallengeNotification(notificationId, challengeResponse)
         }
     }
 
@@ -277,25 +548,109 @@ class PushManager(
      * Denies a push notification.
      */
     suspend fun denyNotification(notificationId: String): Result<Boolean> {
+        return respondToNotification(notificationId, approved = false) { client ->
+            diagnosticLogger.d("Denying push notification: $notificationId")
+            client.denyNotification(notificationId)
+        }
+    }
+
+    /**
+     * Sends a response to a push notification.
+     * The notification is marked as approved or denied in memory before the request is sent, so the
+     * UI updates immediately. The change is reverted if the request fails, and otherwise reconciled
+     * in the background with the notification as stored, without reloading the history. Reloads
+     * that read storage before the request completed keep the change applied.
+     */
+    private suspend fun respondToNotification(
+        notificationId: String,
+        approved: Boolean,
+        send: suspend (PushClient) -> Result<Boolean>
+    ): Result<Boolean> {
         val client = pushClient ?: return Result.failure(Exception("Push client not initialized"))
-        return try {
-            val result = withContext(Dispatchers.IO) {
-                diagnosticLogger.d("Denying push notification: $notificationId")
-                client.denyNotification(notificationId)
-            }
-            
-            result.onSuccess { success ->
-                if (success) {
-                    // Reload notifications after denying
-                    loadPushNotifications()
-                    loadAllPushNotifications()
-                }
-            }
-            
-            result
+        val original = applyLocalResponse(notificationId, approved)
+        val result = try {
+            withContext(Dispatchers.IO) { send(client) }
         } catch (e: Exception) {
             Result.failure(e)
         }
+
+        if (result.getOrDefault(false)) {
+            completeLocalResponse(notificationId)
+            backgroundScope.launch {
+                reconcileNotification(client, notificationId)
+            }
+        } else {
+            original?.let { restoreNotification(it) }
+        }
+        return result
+    }
+
+    /**
+     * Marks a notification as approved or denied in memory and publishes the change.
+     *
+     * @return The notification before the change, or null if it is not loaded
+     */
+    @Synchronized
+    private fun applyLocalResponse(notificationId: String, approved: Boolean): PushNotification? {
+        val original = notificationHistory.find { it.id == notificationId }
+            ?: _pendingNotifications.value.find { it.id == notificationId }
+            ?: return null
+        val responded = original.copy(approved = approved, pending = false)
+        // Re-applied by the reloads that read storage before the response completes
+        localResponses[notificationId] = LocalResponse(responded)
+        notificationHistory = notificationHistory.map { if (it.id == notificationId) responded else it }
+        _pendingNotifications.value = _pendingNotifications.value.filterNot { it.id == notificationId }
+        publishHistoryWindow()
+        return original
+    }
+
+    /**
+     * Records that the response to a notification was sent. Reloads started from now on reflect it.
+     */
+    @Synchronized
+    private fun completeLocalResponse(notificationId: String) {
+        localResponses[notificationId]?.completedAt = ++responseSequence
+        pruneLocalResponses()
+    }
+
+    /**
+     * Replaces a responded notification with its stored version, in place.
+     */
+    private suspend fun reconcileNotification(client: PushClient, notificationId: String) {
+        val stored = try {
+            client.getNotification(notificationId).getOrThrow()
+        } catch (e: Exception) {
+            diagnosticLogger.w("Failed to reload notification $notificationId after its response", e)
+            null
+        }
+        if (stored != null && !stored.pending) {
+            replaceNotification(stored)
+        }
+    }
+
+    @Synchronized
+    private fun replaceNotification(notification: PushNotification) {
+        if (notificationHistory.none { it.id == notification.id }) return
+        notificationHistory = notificationHistory.map { if (it.id == notification.id) notification else it }
+        publishHistoryWindow()
+    }
+
+    /**
+     * Restores a notification whose response failed.
+     * It goes back to its place among the pending notifications, by [NOTIFICATION_ORDER].
+     */
+    @Synchronized
+    private fun restoreNotification(original: PushNotification) {
+        localResponses.remove(original.id)
+        notificationHistory = notificationHistory.map { if (it.id == original.id) original else it }
+        val pending = _pendingNotifications.value
+        if (original.pending && pending.none { it.id == original.id }) {
+            val index = pending.indexOfFirst { NOTIFICATION_ORDER.compare(it, original) > 0 }
+            _pendingNotifications.value = pending.toMutableList().apply {
+                add(if (index < 0) size else index, original)
+            }
+        }
+        publishHistoryWindow()
     }
 
     /**
@@ -398,7 +753,12 @@ class PushManager(
      * Gets a specific push notification item by its ID.
      */
     fun getNotificationItemById(notificationId: String): PushNotificationItem? {
-        return _pushNotificationItems.value.find { it.notification.id == notificationId }
+        _pendingNotificationItems.value.find { it.notification.id == notificationId }?.let { return it }
+        _pushNotificationItems.value.find { it.notification.id == notificationId }?.let { return it }
+        // The notification may be in a page of the history that was not published yet
+        return notificationHistory.find { it.id == notificationId }?.let { notification ->
+            createPushNotificationItem(_pushCredentials.value, notification)
+        }
     }
 
     /**
@@ -412,14 +772,20 @@ class PushManager(
      * Updates the notification items in the state based on current push notifications.
      */
     private fun updateNotificationItems() {
-        val pendingItems = _pendingNotifications.value.toUiItems(_pushCredentials.value)
-        val allItems = _pushNotifications.value.toUiItems(_pushCredentials.value)
+        val projection = notificationProjector.update(
+            _pushNotifications.value,
+            _pendingNotifications.value,
+            _pushCredentials.value
+        )
 
-        _pushNotificationItems.value = allItems
-        _pendingNotificationItems.value = pendingItems
+        _pushNotificationItems.value = projection.allItems
+        _pendingNotificationItems.value = projection.pendingItems
 
         // Log the number of pending notifications
-        Log.d("PushManager", "Pending notifications: ${pendingItems.size}")
+        Log.d(
+            "PushManager",
+            "Pending notifications: ${projection.pendingItems.size}, rebuilt items: ${projection.rebuiltCount}"
+        )
     }
 
     /**
@@ -448,6 +814,7 @@ class PushManager(
      * Closes the Push client and releases resources.
      */
     suspend fun close() {
+        backgroundScope.cancel()
         try {
             pushClient?.close()
         } catch (e: Exception) {
@@ -469,10 +836,18 @@ class PushManager(
     suspend fun getBackupFiles(): List<BackupFileInfo> {
         return withContext(Dispatchers.IO) {
             try {
+                val incrementalBackups = backupStore?.listFiles().orEmpty().map { file ->
+                    BackupFileInfo(
+                        name = file.name,
+                        sizeBytes = file.length(),
+                        timestamp = file.lastModified()
+                    )
+                }
+
                 val storage = pushStorage
                 if (storage == null) {
                     diagnosticLogger.w("Push storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext emptyList()
+                    return@withContext incrementalBackups
                 }
                 
                 val backupFiles = storage.listBackupFiles()
@@ -483,7 +858,7 @@ class PushManager(
                         sizeBytes = file.length(),
                         timestamp = parseBackupTimestamp(file.name)
                     )
-                }
+                } + incrementalBackups
             } catch (e: Exception) {
                 diagnosticLogger.e("Error getting Push backup files", e)
                 emptyList()
@@ -530,11 +905,26 @@ class PushManager(
                         logger = diagnosticLogger
                     )
                 }
-                
+
+                // Restore from the newest of the incremental backups, replayed through the client when
+                // it is available, and the database file backed up by the storage. The other one is
+                // only used if the newest cannot be restored.
+                val client = pushClient
+                val incrementalBackupTime = if (client != null) backupStore?.latestBackupTime() else null
+                val databaseBackupTime = storage.listBackupFiles().maxOfOrNull { parseBackupTimestamp(it.name) }
+                val preferIncremental = incrementalBackupTime != null &&
+                    (databaseBackupTime == null || incrementalBackupTime >= databaseBackupTime)
+
+                if (preferIncremental && client != null && restoreIncrementalBackup(client)) {
+                    return@withContext true
+                }
+
                 val success = storage.attemptBackupRestoration()
                 
                 if (success) {
                     diagnosticLogger.i("Successfully restored Push database from backup")
+                } else if (!preferIncremental && client != null && restoreIncrementalBackup(client)) {
+                    return@withContext true
                 } else {
                     diagnosticLogger.w("Failed to restore Push database from backup or no backups available")
                 }
@@ -546,26 +936,58 @@ class PushManager(
             }
         }
     }
+
+    /**
+     * Replays the incremental backups through the client.
+     *
+     * @return Whether the credentials were restored, false if there is no readable backup
+     */
+    private suspend fun restoreIncrementalBackup(client: PushClient): Boolean {
+        val restoredCredentials = backupStore?.restore() ?: return false
+        replaceCredentials(client, restoredCredentials)
+        diagnosticLogger.i("Restored ${restoredCredentials.size} Push credentials from incremental backups")
+        return true
+    }
+
+    /**
+     * Replaces the stored credentials with the restored ones.
+     * Every restored credential is saved before any other credential is deleted, so a failed save
+     * leaves the stored credentials in place rather than a partially wiped storage.
+     */
+    private suspend fun replaceCredentials(client: PushClient, credentials: List<PushCredential>) {
+        credentials.forEach { credential -> client.saveCredential(credential).getOrThrow() }
+        val restoredIds = credentials.mapTo(HashSet()) { it.id }
+        client.getCredentials().getOrThrow()
+            .filterNot { it.id in restoredIds }
+            .forEach { credential -> client.deleteCredential(credential.id).getOrThrow() }
+    }
     
     /**
-     * Creates a manual backup of the PUSH database.
-     * Requires storage instance to be set via setClient() or constructor.
+     * Creates a manual backup of the Push credentials.
+     * Only the credentials changed since the previous backup are written, with a periodic full snapshot.
+     * Requires the client and a backup store to be set.
+     *
+     * @return The result of the backup, or null if backups are not available
      */
-    suspend fun createManualBackup() {
-        return withContext(Dispatchers.IO) {
-            try {
-                val storage = pushStorage
-                if (storage == null) {
-                    diagnosticLogger.w("Push storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext
-                }
-                
-                storage.createDatabaseBackup()
-                diagnosticLogger.i("Manual Push backup created successfully")
-            } catch (e: Exception) {
-                diagnosticLogger.e("Error creating manual Push backup", e)
-                throw e
+    suspend fun createManualBackup(): BackupResult? {
+        val client = pushClient
+        val store = backupStore
+        if (client == null || store == null) {
+            diagnosticLogger.w("Push client or backup store not available, cannot create a backup.")
+            return null
+        }
+        return try {
+            val credentials = withContext(Dispatchers.IO) { client.getCredentials() }.getOrThrow()
+            val result = store.backup(credentials)
+            when {
+                result.file == null -> diagnosticLogger.i("Manual Push backup skipped, no credential changed")
+                result.isFullSnapshot -> diagnosticLogger.i("Manual Push backup created: full snapshot of ${result.recordCount} credential(s)")
+                else -> diagnosticLogger.i("Manual Push backup created: ${result.recordCount} changed credential(s)")
             }
+            result
+        } catch (e: Exception) {
+            diagnosticLogger.e("Error creating manual Push backup", e)
+            throw e
         }
     }
     
@@ -670,16 +1092,18 @@ class PushManager(
     suspend fun clearBackups(): Int {
         return withContext(Dispatchers.IO) {
             try {
+                val incrementalCount = backupStore?.clear() ?: 0
+
                 val storage = pushStorage
                 if (storage == null) {
                     diagnosticLogger.w("Push storage not available. Pass storage to setClient() to enable backup operations.")
-                    return@withContext 0
+                    return@withContext incrementalCount
                 }
                 
                 val backups = getBackupFiles()
                 if (backups.isEmpty()) {
                     diagnosticLogger.i("No Push backup files to clear")
-                    return@withContext 0
+                    return@withContext incrementalCount
                 }
                 
                 val contextField = storage.javaClass.superclass?.getDeclaredField("context")
@@ -703,11 +1127,11 @@ class PushManager(
                     }
                     
                     diagnosticLogger.i("Cleared $deletedCount Push backup files")
-                    return@withContext deletedCount
+                    return@withContext deletedCount + incrementalCount
                 }
                 
                 diagnosticLogger.w("Unable to access storage context for clearing backups")
-                0
+                incrementalCount
             } catch (e: Exception) {
                 diagnosticLogger.e("Error clearing Push backups", e)
                 0
@@ -759,4 +1183,24 @@ class PushManager(
             }
         }
     }
-}
\ No newline at end of file
+
+    companion object {
+        /**
+         * Order of the notification history: pending first, then newest first.
+         * Expired notifications are sorted with the history, as the screen shows them.
+         */
+        private val NOTIFICATION_ORDER = compareBy<PushNotification> {
+            notificationStatusOf(it) != NotificationStatus.PENDING
+        }.thenByDescending { it.createdAt.time }
+
+        /**
+         * Number of notifications published per page of the notification history.
+         */
+        const val HISTORY_PAGE_SIZE = 50
+
+        /**
+         * Number of stored notifications above which the SDK notification cleanup is run.
+         */
+        const val MAX_STORED_NOTIFICATIONS = 500
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import android.content.Context
+import android.os.SystemClock
+import com.pingidentity.authenticatorapp.AuthenticatorApp
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.StorageMaintenanceReport
+import com.pingidentity.logger.Logger
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.io.Closeable
+import java.io.File
+import java.util.Locale
+
+/**
+ * Compacts an SQL storage of the SDK: prunes the rows that are no longer needed, vacuums and
+ * analyzes the database, checkpoints its write-ahead log and deletes the oldest backup files.
+ * The size of the database files and the latency of a reference query are measured before
+ * and after, so the cost of the storage growth is visible.
+ *
+ * The SDK does not expose its database, so the open connection and the database file are
+ * reached by reflection, as done by the managers for the backup operations. The connection is
+ * read from the storage field named [DATABASE_FIELD] and only used while holding the storage
+ * lock, the [LOCK_FIELD] mutex, so no SDK operation runs during the compaction. The compaction
+ * is skipped if either field cannot be found.
+ *
+ * The Android clock and database paths are passed in, so the maintenance also runs in JVM unit tests.
+ *
+ * @param maxBackupCount Number of backup files kept, the oldest ones are deleted
+ * @param diagnosticLogger Logger for diagnostics
+ * @param elapsedNanos Monotonic clock the query latency is measured with, in nanoseconds
+ * @param databasePath Returns the file of a database from the storage context and the database name
+ */
+class StorageMaintenance(
+    private val maxBackupCount: Int = AuthenticatorApp.MAX_BACKUP_COUNT,
+    private val diagnosticLogger: Logger = DiagnosticLogger,
+    private val elapsedNanos: () -> Long = SystemClock::elapsedRealtimeNanos,
+    private val databasePath: (context: Any, databaseName: String) -> File? = { context, databaseName ->
+        (context as? Context)?.getDatabasePath(databaseName)
+    }
+) {
+
+    companion object {
+        /**
+         * Number of runs of the reference query, the median latency is reported.
+         */
+        private const val QUERY_SAMPLES = 5
+
+        /**
+         * Field of the SDK storage holding its database connection, possibly through a lazy delegate.
+         */
+        const val DATABASE_FIELD = "database"
+
+        /**
+         * Field of the SDK storage holding the mutex its operations run under.
+         */
+        const val LOCK_FIELD = "mutex"
+
+        private const val DATABASE_TYPE_SUFFIX = "SQLiteDatabase"
+        private const val BACKUP_NAME_MARKER = "_backup_"
+
+        private val databaseFileSuffixes = listOf("", "-wal", "-shm", "-journal")
+
+        /**
+         * Returns the time a backup was created, read from its name, or null if it does not follow
+         * the backup naming of the SDK: {databaseName}_backup_{timestamp}.db
+         */
+        internal fun backupTimestampOf(file: File): Long? =
+            file.name.substringAfter(BACKUP_NAME_MARKER, "").substringBefore(".db").toLongOrNull()
+
+        /**
+         * Returns the backups to delete so only the [keepCount] most recent ones remain, going by
+         * the time in their names. Files that do not follow the backup naming are never deleted.
+         */
+        internal fun backupsToDelete(backups: List<File>, keepCount: Int): List<File> =
+            backups
+                .mapNotNull { file -> backupTimestampOf(file)?.let { file to it } }
+                .sortedByDescending { (_, timestamp) -> timestamp }
+                .drop(keepCount)
+                .map { (file, _) -> file }
+    }
+
+    /**
+     * Runs the maintenance of a storage.
+     *
+     * @param name Name of the storage, for the logs
+     * @param storage SQLOathStorage or SQLPushStorage to maintain
+     * @param defaultDatabaseName Database name used if it cannot be read from the storage
+     * @param backupFiles Returns the backup files of the storage
+     * @param query Reference query whose latency is measured
+     * @param prune Removes the rows that are no longer needed, returning their number
+     */
+    suspend fun run(
+        name: String,
+        storage: Any,
+        defaultDatabaseName: String,
+        backupFiles: suspend () -> List<File>,
+        query: suspend () -> Unit,
+        prune: suspend () -> Int = { 0 }
+    ): StorageMaintenanceReport = withContext(Dispatchers.IO) {
+        val databaseFile = databaseFile(storage, defaultDatabaseName)
+        val sizeBefore = databaseFile?.let(::databaseSize) ?: 0L
+        val latencyBefore = measureQuery(query)
+
+        val pruned = try {
+            prune()
+        } catch (e: Exception) {
+            diagnosticLogger.w("StorageMaintenance: Failed to prune the $name storage", e)
+            0
+        }
+        val compacted = compact(name, storage)
+        val deletedBackups = rotateBackups(name, backupFiles)
+
+        val report = StorageMaintenanceReport(
+            timestamp = System.currentTimeMillis(),
+            sizeBeforeBytes = sizeBefore,
+            sizeAfterBytes = databaseFile?.let(::databaseSize) ?: 0L,
+            queryLatencyBeforeMillis = latencyBefore,
+            queryLatencyAfterMillis = measureQuery(query),
+            prunedNotifications = pruned,
+            deletedBackups = deletedBackups,
+            compacted = compacted
+        )
+        diagnosticLogger.i(
+            "StorageMaintenance: $name storage ${report.sizeBeforeBytes} -> ${report.sizeAfterBytes} bytes, " +
+                "query ${formatMillis(report.queryLatencyBeforeMillis)} -> ${formatMillis(report.queryLatencyAfterMillis)} ms, " +
+                "$pruned row(s) pruned, $deletedBackups backup(s) deleted"
+        )
+        report
+    }
+
+    /**
+     * Vacuums and analyzes the database, then truncates its write-ahead log, holding the storage lock.
+     * VACUUM cannot run inside a transaction, so each statement runs on its own.
+     *
+     * @return Whether every statement ran
+     */
+    internal suspend fun compact(name: String, storage: Any): Boolean {
+        val lock = storageLock(storage)
+        if (lock == null) {
+            diagnosticLogger.w("StorageMaintenance: The $name storage lock is not accessible, skipping compaction")
+            return false
+        }
+        return lock.withLock {
+            val database = openDatabase(storage)
+            if (database == null) {
+                diagnosticLogger.w("StorageMaintenance: The $name database is not open, skipping compaction")
+                return@withLock false
+            }
+            try {
+                database.exec("VACUUM")
+                database.exec("ANALYZE")
+                // Returns a row, so it runs as a query
+                database.query("PRAGMA wal_checkpoint(TRUNCATE)")
+                true
+            } catch (e: Exception) {
+                diagnosticLogger.w("StorageMaintenance: Failed to compact the $name database", e)
+                false
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest backup files beyond [maxBackupCount], going by the time in their names,
+     * as copying or restoring a backup changes its modification time.
+     *
+     * @return The number of backup files deleted
+     */
+    private suspend fun rotateBackups(name: String, backupFiles: suspend () -> List<File>): Int {
+        return try {
+            backupsToDelete(backupFiles(), maxBackupCount)
+                .count { file ->
+                    file.delete().also { deleted ->
+                        if (deleted) diagnosticLogger.d("StorageMaintenance: Deleted $name backup ${file.name}")
+                    }
+                }
+        } catch (e: Exception) {
+            diagnosticLogger.w("StorageMaintenance: Failed to rotate the $name backups", e)
+            0
+        }
+    }
+
+    /**
+     * Returns the median latency of the reference query in milliseconds, or -1 if it failed.
+     */
+    private suspend fun measureQuery(query: suspend () -> Unit): Double {
+        val samples = try {
+            List(QUERY_SAMPLES) {
+                val start = elapsedNanos()
+                query()
+                (elapsedNanos() - start) / 1_000_000.0
+            }
+        } catch (e: Exception) {
+            diagnosticLogger.w("StorageMaintenance: Reference query failed", e)
+            return -1.0
+        }
+        return samples.sorted()[samples.size / 2]
+    }
+
+    private fun formatMillis(millis: Double): String = String.format(Locale.US, "%.2f", millis)
+
+    /**
+     * Returns the total size of the database file and of its journal files.
+     */
+    private fun databaseSize(databaseFile: File): Long =
+        databaseFileSuffixes.sumOf { suffix -> File(databaseFile.path + suffix).takeIf { it.exists() }?.length() ?: 0L }
+
+    private fun databaseFile(storage: Any, defaultDatabaseName: String): File? {
+        return try {
+            val contextField = storage.javaClass.superclass?.getDeclaredField("context")
+            contextField?.isAccessible = true
+            val context = contextField?.get(storage) ?: return null
+
+            val databaseNameField = storage.javaClass.superclass?.getDeclaredField("databaseName")
+            databaseNameField?.isAccessible = true
+            val databaseName = databaseNameField?.get(storage) as? String ?: defaultDatabaseName
+            databasePath(context, databaseName)
+        } catch (e: Exception) {
+            diagnosticLogger.w("StorageMaintenance: Unable to access the storage database file", e)
+            null
+        }
+    }
+
+    /**
+     * Returns the mutex guarding the operations of the storage, or null if it cannot be found.
+     */
+    private fun storageLock(storage: Any): Mutex? = fieldValue(storage, LOCK_FIELD) as? Mutex
+
+    /**
+     * Returns the open database connection of the storage, or null if it is not open or cannot be found.
+     * A connection held by a lazy delegate is only used once initialized, it is never opened here.
+     */
+    private fun openDatabase(storage: Any): DatabaseHandle? {
+        val value = fieldValue(storage, DATABASE_FIELD)
+            ?: (fieldValue(storage, "$DATABASE_FIELD\$delegate") as? Lazy<*>)?.takeIf { it.isInitialized() }?.value
+            ?: return null
+        if (!value.javaClass.isDatabaseType()) {
+            diagnosticLogger.w("StorageMaintenance: Unexpected database type ${value.javaClass.name}")
+            return null
+        }
+        return DatabaseHandle.of(value)?.takeIf { it.isOpen() }
+    }
+
+    private fun Class<*>.isDatabaseType(): Boolean {
+        var type: Class<*>? = this
+        while (type != null) {
+            if (type.simpleName.endsWith(DATABASE_TYPE_SUFFIX)) return true
+            type = type.superclass
+        }
+        return false
+    }
+
+    /**
+     * Returns the value of the named field, declared by the storage class or one of its superclasses.
+     */
+    private fun fieldValue(storage: Any, fieldName: String): Any? {
+        var type: Class<*>? = storage.javaClass
+        while (type != null && type != Any::class.java) {
+            val field = type.declaredFields.firstOrNull { it.name == fieldName }
+            if (field != null) {
+                return try {
+                    field.isAccessible = true
+                    field.get(storage)
+                } catch (e: Exception) {
+                    diagnosticLogger.w("StorageMaintenance: Unable to read the storage field $fieldName", e)
+                    null
+                }
+            }
+            type = type.superclass
+        }
+        return null
+    }
+
+    /**
+     * Database connection of the SDK, called by reflection as its type is internal to the SDK.
+     */
+    private class DatabaseHandle(
+        private val database: Any,
+        private val execSql: java.lang.reflect.Method,
+        private val rawQuery: java.lang.reflect.Method
+    ) {
+        companion object {
+            fun of(value: Any): DatabaseHandle? {
+                return try {
+                    DatabaseHandle(
+                        value,
+                        value.javaClass.getMethod("execSQL", String::class.java),
+                        value.javaClass.getMethod("rawQuery", String::class.java, Array<String>::class.java)
+                    )
+                } catch (_: NoSuchMethodException) {
+                    null
+                }
+            }
+        }
+
+        fun isOpen(): Boolean = try {
+            database.javaClass.getMethod("isOpen").invoke(database) as? Boolean ?: true
+        } catch (_: NoSuchMethodException) {
+            true
+        }
+
+        fun exec(sql: String) {
+            execSql.invoke(database, sql)
+        }
+
+        fun query(sql: String) {
+            (rawQuery.invoke(database, sql, null) as? Closeable)?.use { cursor ->
+                // Step the cursor so the statement runs
+                cursor.javaClass.getMethod("moveToFirst").invoke(cursor)
+            }
+        }
+    }
+}
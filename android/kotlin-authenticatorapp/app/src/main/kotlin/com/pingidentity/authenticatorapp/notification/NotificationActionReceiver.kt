@@ -12,18 +12,22 @@ import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
 import androidx.core.app.NotificationManagerCompat
-import com.pingidentity.authenticatorapp.AuthenticatorApp
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
-import com.pingidentity.mfa.commons.exception.CredentialNotFoundException
-import com.pingidentity.mfa.push.exception.NotificationExpiredException
-import com.pingidentity.mfa.push.exception.NotificationNotFoundException
+import com.pingidentity.authenticatorapp.data.PushResponseTimings
+import com.pingidentity.authenticatorapp.service.PushResponder
+import com.pingidentity.authenticatorapp.service.PushResponseWorker
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
 
 /**
  * BroadcastReceiver to handle notification actions.
+ *
+ * Approve and deny responses are sent right away while the broadcast is kept alive with
+ * [goAsync]. A response that cannot be sent before [FAST_PATH_TIMEOUT_MILLIS], e.g. while the
+ * device is offline, is handed over to the [PushResponseWorker] retry queue.
  */
 class NotificationActionReceiver : BroadcastReceiver() {
     
@@ -35,23 +39,27 @@ class NotificationActionReceiver : BroadcastReceiver() {
         const val ACTION_DENY = "com.pingidentity.authenticatorapp.ACTION_DENY"
         const val ACTION_BIOMETRIC = "com.pingidentity.authenticatorapp.ACTION_BIOMETRIC"
         const val EXTRA_NOTIFICATION_ID = "notification_id"
+
+        // Stays below the 10 seconds a receiver may run, including a cold start of the Push client
+        private const val FAST_PATH_TIMEOUT_MILLIS = 8_000L
     }
     
     override fun onReceive(context: Context, intent: Intent) {
+        val tappedAtMillis = System.currentTimeMillis()
         val notificationId = intent.getStringExtra(EXTRA_NOTIFICATION_ID) ?: return
         val notificationHashCode = notificationId.hashCode()
         
         // Cancel the notification immediately to provide feedback that the action was received
-        NotificationManagerCompat.from(context).cancel(notificationHashCode)
+        NotificationManagerCompat.from(context).cancel(NotificationHelper.PUSH_REQUEST_NOTIFICATION_TAG, notificationHashCode)
         
         when (intent.action) {
             ACTION_APPROVE -> {
                 diagnosticLogger.d("Approve action received for notification: $notificationId")
-                approveNotification(context, notificationId)
+                respondToNotification(context, notificationId, approved = true, tappedAtMillis)
             }
             ACTION_DENY -> {
                 diagnosticLogger.d("Deny action received for notification: $notificationId")
-                denyNotification(context, notificationId)
+                respondToNotification(context, notificationId, approved = false, tappedAtMillis)
             }
             ACTION_BIOMETRIC -> {
                 diagnosticLogger.d("Biometric action received for notification: $notificationId")
@@ -61,49 +69,35 @@ class NotificationActionReceiver : BroadcastReceiver() {
     }
     
     /**
-     * Approves the notification with the given ID.
+     * Approves or denies the notification with the given ID, keeping the process alive until the
+     * response is acknowledged or queued for a retry.
      */
-    private fun approveNotification(context: Context, notificationId: String) {
+    private fun respondToNotification(
+        context: Context,
+        notificationId: String,
+        approved: Boolean,
+        tappedAtMillis: Long
+    ) {
+        val pendingResult = goAsync()
+        val application = context.applicationContext as Application
         scope.launch {
             try {
-                val applicationContext = context.applicationContext
-                val pushClient = AuthenticatorApp.getPushClient(applicationContext as Application)
-                pushClient.approveNotification(notificationId)
-            } catch (e: NotificationExpiredException) {
-                diagnosticLogger.w("Notification expired: ${e.message}", e)
-                // Notification has expired - user may see it was removed or marked expired in the app
-            } catch (e: NotificationNotFoundException) {
-                diagnosticLogger.w("Notification not found: ${e.message}", e)
-                // Notification was not found - may have been deleted
-            } catch (e: CredentialNotFoundException) {
-                diagnosticLogger.w("Credential not found: ${e.message}", e)
-                // Credential was not found - user needs to re-register
-            } catch (e: Exception) {
-                diagnosticLogger.e("Error approving notification: ${e.message}", e)
-            }
-        }
-    }
-    
-    /**
-     * Denies the notification with the given ID.
-     */
-    private fun denyNotification(context: Context, notificationId: String) {
-        scope.launch {
-            try {
-                val applicationContext = context.applicationContext
-                val pushClient = AuthenticatorApp.getPushClient(applicationContext as Application)
-                pushClient.denyNotification(notificationId)
-            } catch (e: NotificationExpiredException) {
-                diagnosticLogger.w("Notification expired: ${e.message}", e)
-                // Notification has expired - user may see it was removed or marked expired in the app
-            } catch (e: NotificationNotFoundException) {
-                diagnosticLogger.w("Notification not found: ${e.message}", e)
-                // Notification was not found - may have been deleted
-            } catch (e: CredentialNotFoundException) {
-                diagnosticLogger.w("Credential not found: ${e.message}", e)
-                // Credential was not found - user needs to re-register
-            } catch (e: Exception) {
-                diagnosticLogger.e("Error denying notification: ${e.message}", e)
+                val outcome = withTimeoutOrNull(FAST_PATH_TIMEOUT_MILLIS) {
+                    PushResponder.respond(application, notificationId, approved)
+                } ?: PushResponder.Outcome.RETRY
+
+                when (outcome) {
+                    PushResponder.Outcome.ACKNOWLEDGED -> PushResponseTimings.record(
+                        notificationId, approved, PushResponseTimings.Path.FAST, 1, tappedAtMillis
+                    )
+                    PushResponder.Outcome.REJECTED -> Unit
+                    PushResponder.Outcome.RETRY -> {
+                        diagnosticLogger.i("Queueing the response to notification $notificationId for a retry")
+                        PushResponseWorker.enqueue(application, notificationId, approved, tappedAtMillis)
+                    }
+                }
+            } finally {
+                pendingResult.finish()
             }
         }
     }
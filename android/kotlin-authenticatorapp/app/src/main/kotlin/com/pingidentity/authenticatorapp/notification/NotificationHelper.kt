@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,6 +7,7 @@
 
 package com.pingidentity.authenticatorapp.notification
 
+import android.app.Notification
 import android.app.NotificationChannel
 import android.app.NotificationManager
 import android.app.PendingIntent
@@ -31,6 +32,15 @@ class NotificationHelper(private val context: Context) {
     companion object {
         const val CHANNEL_ID = "com.pingidentity.authenticatorapp.PUSH_NOTIFICATIONS"
         const val NOTIFICATION_GROUP = "com.pingidentity.authenticatorapp.PUSH_NOTIFICATION_GROUP"
+        const val PUSH_RESPONSE_CHANNEL_ID = "com.pingidentity.authenticatorapp.PUSH_RESPONSES"
+        // Posted untagged, as the foreground notification of a worker cannot have a tag
+        const val PUSH_RESPONSE_NOTIFICATION_ID = -1
+        // Requests are posted under the hash of their id, tagged so it never matches the fixed ids
+        const val PUSH_REQUEST_NOTIFICATION_TAG = "push_request"
+        // Tagged, so the summary is never replaced by a request whose id hashes to the same value
+        private const val SUMMARY_NOTIFICATION_TAG = "push_summary"
+        private const val SUMMARY_NOTIFICATION_ID = 0
+        private const val MAX_SUMMARY_LINES = 5
     }
 
     /**
@@ -52,6 +62,34 @@ class NotificationHelper(private val context: Context) {
         val notificationManager =
             context.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
         notificationManager.createNotificationChannel(channel)
+        createPushResponseChannel()
+    }
+
+    /**
+     * Builds the silent notification shown while a push response queued from the notification
+     * shade is sent, see [com.pingidentity.authenticatorapp.service.PushResponseWorker].
+     */
+    fun buildPushResponseNotification(): Notification {
+        // The worker may run before the app was ever opened
+        createPushResponseChannel()
+        return NotificationCompat.Builder(context, PUSH_RESPONSE_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle(context.getString(R.string.push_response_notification_title))
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setSilent(true)
+            .setOngoing(true)
+            .build()
+    }
+
+    private fun createPushResponseChannel() {
+        val channel = NotificationChannel(
+            PUSH_RESPONSE_CHANNEL_ID,
+            context.getString(R.string.push_response_channel_name),
+            NotificationManager.IMPORTANCE_LOW
+        )
+        val notificationManager =
+            context.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
+        notificationManager.createNotificationChannel(channel)
     }
 
     /**
@@ -60,12 +98,14 @@ class NotificationHelper(private val context: Context) {
      * @param notification The push notification to display
      * @param issuer The issuer of the authentication request (if available)
      * @param accountName The account name for the authentication request (if available)
+     * @param alertThroughSummary Whether only the group summary alerts, when several requests are shown at once
      */
     @RequiresPermission(android.Manifest.permission.POST_NOTIFICATIONS)
     fun showPushAuthenticationNotification(
         notification: PushNotification,
         issuer: String?,
-        accountName: String?
+        accountName: String?,
+        alertThroughSummary: Boolean = false
     ) {
         val notificationId = notification.id.hashCode()
 
@@ -100,6 +140,10 @@ class NotificationHelper(private val context: Context) {
             .setContentIntent(pendingIntent)
             .setGroup(NOTIFICATION_GROUP)
 
+        if (alertThroughSummary) {
+            builder.setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+        }
+
         // Add appropriate actions based on push type
         when (notification.pushType) {
             PushType.DEFAULT -> {
@@ -123,14 +167,57 @@ class NotificationHelper(private val context: Context) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
                 // Check for notification permission on Android 13+
                 if (NotificationManagerCompat.from(context).areNotificationsEnabled()) {
-                    notify(notificationId, builder.build())
+                    notify(PUSH_REQUEST_NOTIFICATION_TAG, notificationId, builder.build())
                 }
             } else {
-                notify(notificationId, builder.build())
+                notify(PUSH_REQUEST_NOTIFICATION_TAG, notificationId, builder.build())
             }
         }
     }
 
+    /**
+     * Posts a summary of the push authentication notifications currently shown, or removes it
+     * when fewer than two are shown. The summary groups the requests.
+     *
+     * @param alert Whether the summary alerts, for requests shown with alertThroughSummary
+     */
+    @RequiresPermission(android.Manifest.permission.POST_NOTIFICATIONS)
+    fun updatePushNotificationSummary(alert: Boolean) {
+        val notificationManager =
+            context.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
+        val activeNotifications = notificationManager.activeNotifications.filter { statusBarNotification ->
+            statusBarNotification.notification.group == NOTIFICATION_GROUP &&
+                statusBarNotification.tag != SUMMARY_NOTIFICATION_TAG
+        }
+
+        if (activeNotifications.size < 2) {
+            notificationManager.cancel(SUMMARY_NOTIFICATION_TAG, SUMMARY_NOTIFICATION_ID)
+            return
+        }
+
+        val title = context.getString(R.string.system_notification_summary_title, activeNotifications.size)
+        val style = NotificationCompat.InboxStyle().setBigContentTitle(title)
+        activeNotifications.take(MAX_SUMMARY_LINES).forEach { statusBarNotification ->
+            statusBarNotification.notification.extras.getCharSequence(Notification.EXTRA_TITLE)?.let { style.addLine(it) }
+        }
+
+        val builder = NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle(title)
+            .setContentText(context.getString(R.string.system_notification_content))
+            .setStyle(style)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_CALL)
+            .setGroup(NOTIFICATION_GROUP)
+            .setGroupSummary(true)
+            .setSilent(!alert)
+            .setAutoCancel(true)
+
+        if (NotificationManagerCompat.from(context).areNotificationsEnabled()) {
+            NotificationManagerCompat.from(context).notify(SUMMARY_NOTIFICATION_TAG, SUMMARY_NOTIFICATION_ID, builder.build())
+        }
+    }
+
     /**
      * Adds approve and deny actions to a notification for DEFAULT push type.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,6 +7,7 @@
 
 package com.pingidentity.authenticatorapp.service
 
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
 import com.pingidentity.authenticatorapp.data.LocationAddress
 import com.pingidentity.authenticatorapp.data.NominatimResponse
 import io.ktor.client.HttpClient
@@ -18,73 +19,194 @@ import io.ktor.client.request.get
 import io.ktor.client.request.header
 import io.ktor.client.request.parameter
 import io.ktor.serialization.kotlinx.json.json
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.serialization.json.Json
+import java.io.File
+import java.util.Locale
 
 /**
- * Service for performing reverse geocoding using OpenStreetMap's Nominatim API
+ * Service for performing reverse geocoding using OpenStreetMap's Nominatim API.
+ *
+ * A single instance is shared by the app (see [com.pingidentity.authenticatorapp.AuthenticatorApp.getLocationService]).
+ * Results are kept in an LRU cache keyed by coordinates rounded to [COORDINATE_PRECISION] decimals
+ * and persisted to [cacheFile], so repeated and offline lookups of a known area need no request.
+ * The persisted cache is read on [ioDispatcher] as soon as the service is created.
+ * Identical lookups in flight share one request, and requests are spaced by at least
+ * [MIN_REQUEST_INTERVAL_MS] as required by the Nominatim usage policy.
+ *
+ * @param cacheFile File the cache is persisted to, or null to keep it in memory only
+ * @param baseUrl Base URL of the Nominatim API, e.g. a local mock server in tests
+ * @param httpClient Client used for the requests
+ * @param clock Source of the current time in milliseconds
+ * @param ioDispatcher Dispatcher of the requests and of the cache file reads and writes
  */
-class LocationService {
-    
+class LocationService(
+    private val cacheFile: File? = null,
+    private val baseUrl: String = NOMINATIM_BASE_URL,
+    private val httpClient: HttpClient = createHttpClient(),
+    private val clock: () -> Long = System::currentTimeMillis,
+    ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+
     companion object {
         private const val NOMINATIM_BASE_URL = "https://nominatim.openstreetmap.org"
-        private const val TIMEOUT_SECONDS = 10_000L
-        
+        private const val TIMEOUT_MILLIS = 10_000L
+
         // Nominatim usage policy requires setting a User-Agent
         private const val USER_AGENT = "PingAuthenticatorSampleApp/1.0"
-    }
-    
-    private val httpClient = HttpClient(CIO) {
-        install(ContentNegotiation) {
-            json(Json {
-                ignoreUnknownKeys = true
-                coerceInputValues = true
-            })
-        }
-        // Configure timeout
-        install(HttpTimeout) {
-            connectTimeoutMillis = TIMEOUT_SECONDS / 1000
-            requestTimeoutMillis = TIMEOUT_SECONDS / 1000
+
+        // Nominatim usage policy allows an absolute maximum of one request per second
+        const val MIN_REQUEST_INTERVAL_MS = 1_000L
+
+        // Two decimals is about 1 km, finer than the city level (zoom 10) that is requested
+        const val COORDINATE_PRECISION = 2
+
+        private const val MAX_CACHE_ENTRIES = 256
+
+        private val cacheJson = Json { ignoreUnknownKeys = true }
+
+        /**
+         * Creates the HTTP client used for the Nominatim requests.
+         */
+        fun createHttpClient(): HttpClient = HttpClient(CIO) {
+            install(ContentNegotiation) {
+                json(Json {
+                    ignoreUnknownKeys = true
+                    coerceInputValues = true
+                })
+            }
+            // Configure timeout
+            install(HttpTimeout) {
+                connectTimeoutMillis = TIMEOUT_MILLIS
+                requestTimeoutMillis = TIMEOUT_MILLIS
+            }
         }
     }
-    
+
+    private val scope = CoroutineScope(SupervisorJob() + ioDispatcher)
+
+    // Guards the cache and the in-flight lookups
+    private val stateMutex = Mutex()
+    private val cache = object : LinkedHashMap<String, LocationAddress>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, LocationAddress>?): Boolean =
+            size > MAX_CACHE_ENTRIES
+    }
+    private val inFlight = HashMap<String, Deferred<LocationAddress?>>()
+
+    // Reads the persisted cache off the caller's thread, lookups wait for it
+    private val cacheLoad = scope.launch {
+        stateMutex.withLock { loadCache() }
+    }
+
+    // Serializes the requests to enforce the rate limit
+    private val rateLimitMutex = Mutex()
+    private var lastRequestAt = 0L
+
     /**
      * Performs reverse geocoding to convert latitude/longitude to a human-readable address
-     * 
+     *
      * @param latitude The latitude coordinate
      * @param longitude The longitude coordinate
      * @return LocationAddress with city, state, and country, or null if unable to resolve
      */
     suspend fun reverseGeocode(latitude: Double, longitude: Double): LocationAddress? {
-        return withContext(Dispatchers.IO) {
-            try {
-                val response = httpClient.get("$NOMINATIM_BASE_URL/reverse") {
-                    parameter("lat", latitude)
-                    parameter("lon", longitude)
-                    parameter("format", "json")
-                    parameter("addressdetails", "1")
-                    parameter("zoom", "10")
-                    
-                    // Required by Nominatim usage policy
-                    header("User-Agent", USER_AGENT)
-                }
-                
-                val nominatimResponse = response.body<NominatimResponse>()
-                LocationAddress.fromNominatim(nominatimResponse)
-                
-            } catch (e: Exception) {
-                // Log error but don't crash - return null to show coordinates as fallback
-                println("LocationService: Failed to reverse geocode lat=$latitude, lon=$longitude: ${e.message}")
-                null
+        val key = cacheKey(latitude, longitude)
+        cacheLoad.join()
+        val lookup = stateMutex.withLock {
+            cache[key]?.let { return it }
+            inFlight.getOrPut(key) {
+                scope.async { fetchAndCache(key, latitude, longitude) }
             }
         }
+        return lookup.await()
     }
-    
+
     /**
      * Clean up resources when done
      */
     fun close() {
+        scope.cancel()
         httpClient.close()
     }
-}
\ No newline at end of file
+
+    private suspend fun fetchAndCache(key: String, latitude: Double, longitude: Double): LocationAddress? {
+        val address = try {
+            fetch(latitude, longitude)
+        } catch (e: Exception) {
+            // Log error but don't crash - return null to show coordinates as fallback
+            DiagnosticLogger.w("LocationService: Failed to reverse geocode lat=$latitude, lon=$longitude", e)
+            null
+        }
+        stateMutex.withLock {
+            inFlight.remove(key)
+            if (address != null) {
+                cache[key] = address
+                persistCache()
+            }
+        }
+        return address
+    }
+
+    private suspend fun fetch(latitude: Double, longitude: Double): LocationAddress? {
+        rateLimitMutex.withLock {
+            val wait = lastRequestAt + MIN_REQUEST_INTERVAL_MS - clock()
+            if (wait > 0) {
+                delay(wait)
+            }
+            lastRequestAt = clock()
+        }
+
+        val response = httpClient.get("$baseUrl/reverse") {
+            parameter("lat", latitude)
+            parameter("lon", longitude)
+            parameter("format", "json")
+            parameter("addressdetails", "1")
+            parameter("zoom", "10")
+
+            // Required by Nominatim usage policy
+            header("User-Agent", USER_AGENT)
+        }
+
+        val nominatimResponse = response.body<NominatimResponse>()
+        return LocationAddress.fromNominatim(nominatimResponse)
+    }
+
+    private fun cacheKey(latitude: Double, longitude: Double): String =
+        String.format(Locale.US, "%.${COORDINATE_PRECISION}f,%.${COORDINATE_PRECISION}f", latitude, longitude)
+
+    // Must be called with stateMutex held
+    private fun loadCache() {
+        val file = cacheFile ?: return
+        if (!file.exists()) return
+        try {
+            val entries = cacheJson.decodeFromString<Map<String, LocationAddress>>(file.readText())
+            cache.putAll(entries)
+        } catch (e: Exception) {
+            DiagnosticLogger.w("LocationService: Ignoring unreadable geocoding cache", e)
+            file.delete()
+        }
+    }
+
+    // Must be called with stateMutex held
+    private fun persistCache() {
+        val file = cacheFile ?: return
+        try {
+            file.parentFile?.mkdirs()
+            val tempFile = File(file.path + ".tmp")
+            tempFile.writeText(cacheJson.encodeToString(HashMap(cache)))
+            tempFile.renameTo(file)
+        } catch (e: Exception) {
+            DiagnosticLogger.w("LocationService: Failed to persist geocoding cache", e)
+        }
+    }
+}
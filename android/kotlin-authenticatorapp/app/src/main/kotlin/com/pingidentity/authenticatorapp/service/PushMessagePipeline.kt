@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.service
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.content.Intent
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.managers.CredentialChange
+import com.pingidentity.authenticatorapp.notification.NotificationActionReceiver
+import com.pingidentity.authenticatorapp.notification.NotificationHelper
+import com.pingidentity.authenticatorapp.notification.PushNotificationActivity
+import com.pingidentity.authenticatorapp.util.AppForegroundTracker
+import com.pingidentity.mfa.push.PushClient
+import com.pingidentity.mfa.push.PushCredential
+import com.pingidentity.mfa.push.PushNotification
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Processes the push messages received from FCM, shared by every [PushNotificationService] instance.
+ *
+ * Messages go through a bounded queue drained by a single consumer:
+ * - messages already queued or processed (same message id) are dropped when submitted; the id of a
+ *   message dropped from the full queue or failing to process is forgotten, so a redelivery is processed
+ * - the messages queued while one is processed are handled as one batch
+ * - credentials are looked up in a cache kept up to date by [onCredentialChange]
+ * - a batch failing as a whole is logged and skipped; the Push client is requested again for the
+ *   next batch if it was not available
+ * - in the foreground, only the latest request of a batch is opened full screen; in the background,
+ *   the requests of a batch alert once, through a grouped summary
+ *
+ * @param context Application context
+ * @param pushClientProvider Suspends until the Push client is initialized
+ * @param notificationHelper Helper displaying the system notifications
+ * @param diagnosticLogger Logger for diagnostics
+ */
+class PushMessagePipeline(
+    private val context: Context,
+    private val pushClientProvider: suspend () -> PushClient,
+    private val notificationHelper: NotificationHelper = NotificationHelper(context),
+    private val diagnosticLogger: DiagnosticLogger = DiagnosticLogger
+) {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    // Oldest messages are dropped during a storm, retried requests arrive again anyway
+    private val messages = Channel<QueuedMessage>(
+        capacity = MAX_QUEUED_MESSAGES,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST,
+        onUndeliveredElement = { message -> forget(message.messageId) }
+    )
+
+    /**
+     * A submitted message and the id it is deduplicated by, if any.
+     */
+    private class QueuedMessage(val data: Map<String, String>, val messageId: String?)
+
+    // Ids of the messages queued or processed recently, oldest first
+    private val recentMessageIds = object : LinkedHashMap<String, Unit>(16, 0.75f, false) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Unit>?): Boolean =
+            size > MAX_RECENT_MESSAGE_IDS
+    }
+
+    private val credentialsById = ConcurrentHashMap<String, PushCredential>()
+
+    init {
+        scope.launch { consume() }
+    }
+
+    /**
+     * Queues a message for processing. Never blocks.
+     *
+     * @param data Data payload of the message
+     * @param fcmMessageId Id assigned by FCM, used when the payload has no message id
+     * @return false if the message was already submitted
+     */
+    fun submit(data: Map<String, String>, fcmMessageId: String?): Boolean {
+        val messageId = data[MESSAGE_ID_KEY] ?: fcmMessageId
+        if (messageId != null) {
+            val isNew = synchronized(recentMessageIds) {
+                recentMessageIds.put(messageId, Unit) == null
+            }
+            if (!isNew) {
+                diagnosticLogger.d("PushMessagePipeline: Dropping duplicate message $messageId")
+                return false
+            }
+        }
+        messages.trySend(QueuedMessage(data, messageId))
+        return true
+    }
+
+    /**
+     * Forgets the id of a message that was not processed, so its redelivery is not taken for a duplicate.
+     */
+    private fun forget(messageId: String?) {
+        if (messageId == null) return
+        synchronized(recentMessageIds) {
+            recentMessageIds.remove(messageId)
+        }
+    }
+
+    /**
+     * Applies a credential change made in the app to the credential cache.
+     */
+    fun onCredentialChange(change: CredentialChange<PushCredential>) {
+        when (change) {
+            is CredentialChange.Reloaded -> {
+                credentialsById.clear()
+                change.credentials.forEach { credentialsById[it.id] = it }
+            }
+            is CredentialChange.Upserted -> credentialsById[change.credential.id] = change.credential
+            is CredentialChange.UpsertedAll -> change.credentials.forEach { credentialsById[it.id] = it }
+            is CredentialChange.Removed -> credentialsById.remove(change.credential.id)
+        }
+    }
+
+    private suspend fun consume() {
+        var client: PushClient? = null
+        val batch = ArrayList<QueuedMessage>()
+        for (message in messages) {
+            // Handle everything already queued as one batch
+            batch.add(message)
+            while (batch.size < MAX_BATCH_SIZE) {
+                batch.add(messages.tryReceive().getOrNull() ?: break)
+            }
+
+            // A failing batch must not stop the consumer, later messages are still processed
+            try {
+                val pushClient = client ?: pushClientProvider().also { client = it }
+                val notifications = batch.mapNotNull { message ->
+                    process(pushClient, message.data) ?: run {
+                        forget(message.messageId)
+                        null
+                    }
+                }
+                if (notifications.isNotEmpty()) {
+                    dispatch(pushClient, notifications)
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                diagnosticLogger.e("PushMessagePipeline: Error handling a batch of ${batch.size} message(s)", e)
+                // Retried with the next batch if the client was not available
+                if (client == null) batch.forEach { forget(it.messageId) }
+            } finally {
+                batch.clear()
+            }
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private suspend fun process(client: PushClient, data: Map<String, String>): PushNotification? {
+        return try {
+            client.processNotification(data as Map<String, Any>).getOrNull()
+        } catch (e: Exception) {
+            diagnosticLogger.e("Error processing notification: ${e.message}")
+            null
+        }
+    }
+
+    private suspend fun dispatch(client: PushClient, notifications: List<PushNotification>) {
+        diagnosticLogger.d("PushMessagePipeline: Dispatching ${notifications.size} notification(s)")
+        if (AppForegroundTracker.isInForeground) {
+            // The other requests stay pending in the app
+            showFullScreenNotification(notifications.last())
+        } else {
+            displaySystemNotifications(client, notifications)
+        }
+    }
+
+    /**
+     * Displays the system notifications of a batch. A batch of several requests alerts once,
+     * through the group summary.
+     */
+    @SuppressLint("MissingPermission") // NotificationHelper checks whether notifications are enabled
+    private suspend fun displaySystemNotifications(client: PushClient, notifications: List<PushNotification>) {
+        val isBatch = notifications.size > 1
+        notifications.forEach { notification ->
+            try {
+                val credential = credentialFor(client, notification.credentialId)
+                notificationHelper.showPushAuthenticationNotification(
+                    notification = notification,
+                    issuer = credential?.issuer,
+                    accountName = credential?.accountName,
+                    alertThroughSummary = isBatch
+                )
+            } catch (e: Exception) {
+                diagnosticLogger.e("Error displaying notification: ${e.message}")
+            }
+        }
+        try {
+            notificationHelper.updatePushNotificationSummary(alert = isBatch)
+        } catch (e: Exception) {
+            diagnosticLogger.e("Error updating the notification summary: ${e.message}")
+        }
+    }
+
+    /**
+     * Shows a full-screen notification when the app is in the foreground.
+     * This launches the PushNotificationActivity directly.
+     */
+    private suspend fun showFullScreenNotification(notification: PushNotification) = withContext(Dispatchers.Main) {
+        try {
+            diagnosticLogger.d("Showing full screen notification: ${notification.id}")
+
+            val intent = Intent(context, PushNotificationActivity::class.java).apply {
+                flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_SINGLE_TOP
+                putExtra(NotificationActionReceiver.EXTRA_NOTIFICATION_ID, notification.id)
+            }
+            context.startActivity(intent)
+        } catch (e: Exception) {
+            diagnosticLogger.e("Error showing full-screen notification: ${e.message}")
+        }
+    }
+
+    /**
+     * Returns the credential with the given id, reloading the cache once if it is unknown.
+     */
+    private suspend fun credentialFor(client: PushClient, credentialId: String): PushCredential? {
+        credentialsById[credentialId]?.let { return it }
+        // Not loaded yet, or added while the app was not observing the credentials
+        diagnosticLogger.d("PushMessagePipeline: Credential $credentialId not cached, reloading")
+        client.getCredentials().onSuccess { credentials ->
+            onCredentialChange(CredentialChange.Reloaded(credentials))
+        }
+        return credentialsById[credentialId]
+    }
+
+    private companion object {
+        const val MESSAGE_ID_KEY = "messageId"
+        const val MAX_QUEUED_MESSAGES = 64
+        const val MAX_BATCH_SIZE = 16
+        const val MAX_RECENT_MESSAGE_IDS = 256
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.service
+
+import android.app.Application
+import com.pingidentity.authenticatorapp.AuthenticatorApp
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.mfa.commons.exception.CredentialNotFoundException
+import com.pingidentity.mfa.push.exception.NotificationExpiredException
+import com.pingidentity.mfa.push.exception.NotificationNotFoundException
+import kotlinx.coroutines.CancellationException
+
+/**
+ * Sends the approve or deny response to a push notification from the notification shade, without
+ * opening the app. Shared by the fast path of the notification action receiver and the retry queue.
+ *
+ * Only the Push client is awaited, which the app bootstrap creates right after the Push storage,
+ * independently of Journey, OATH and the Firebase token.
+ */
+object PushResponder {
+
+    /**
+     * Outcome of a response.
+     */
+    enum class Outcome {
+        /** The server acknowledged the response. */
+        ACKNOWLEDGED,
+
+        /** The response can never succeed, e.g. the notification expired. */
+        REJECTED,
+
+        /** The response failed but may succeed later, e.g. the device is offline. */
+        RETRY
+    }
+
+    /**
+     * Sends the response to a push notification.
+     *
+     * @param application The application
+     * @param notificationId ID of the notification
+     * @param approved Whether the notification is approved or denied
+     */
+    suspend fun respond(application: Application, notificationId: String, approved: Boolean): Outcome {
+        val action = if (approved) "approving" else "denying"
+        val result = try {
+            val pushClient = AuthenticatorApp.getPushClient(application)
+            if (approved) {
+                pushClient.approveNotification(notificationId)
+            } else {
+                pushClient.denyNotification(notificationId)
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+
+        return result.fold(
+            onSuccess = { acknowledged ->
+                if (acknowledged) {
+                    Outcome.ACKNOWLEDGED
+                } else {
+                    DiagnosticLogger.w("Response $action notification $notificationId was not acknowledged")
+                    Outcome.RETRY
+                }
+            },
+            onFailure = { e ->
+                when (e) {
+                    is NotificationExpiredException -> {
+                        // Notification has expired - user may see it was removed or marked expired in the app
+                        DiagnosticLogger.w("Notification expired: ${e.message}", e)
+                        Outcome.REJECTED
+                    }
+                    is NotificationNotFoundException -> {
+                        // Notification was not found - may have been deleted
+                        DiagnosticLogger.w("Notification not found: ${e.message}", e)
+                        Outcome.REJECTED
+                    }
+                    is CredentialNotFoundException -> {
+                        // Credential was not found - user needs to re-register
+                        DiagnosticLogger.w("Credential not found: ${e.message}", e)
+                        Outcome.REJECTED
+                    }
+                    else -> {
+                        DiagnosticLogger.e("Error $action notification: ${e.message}", e)
+                        Outcome.RETRY
+                    }
+                }
+            }
+        )
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.service
+
+import android.app.Application
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.ForegroundInfo
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.OutOfQuotaPolicy
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.PushResponseTimings
+import com.pingidentity.authenticatorapp.notification.NotificationHelper
+import java.util.concurrent.TimeUnit
+
+/**
+ * Retry queue of the push notification responses that could not be sent from the notification
+ * shade, e.g. while the device was offline. Each response is an expedited unique work, run once a
+ * network is available and retried with an exponential backoff, even if the process is restarted.
+ */
+class PushResponseWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val WORK_NAME_PREFIX = "push_response_"
+        private const val KEY_NOTIFICATION_ID = "notification_id"
+        private const val KEY_APPROVED = "approved"
+        private const val KEY_TAPPED_AT = "tapped_at"
+        private const val INITIAL_BACKOFF_SECONDS = 10L
+
+        // Attempts of the queue, the fast path of the receiver being the first attempt
+        private const val MAX_ATTEMPTS = 5
+
+        /**
+         * Queues the response to a push notification. A response already queued for the
+         * notification is kept.
+         *
+         * @param context Any context of the application
+         * @param notificationId ID of the notification
+         * @param approved Whether the notification is approved or denied
+         * @param tappedAtMillis Wall clock time of the tap on the notification action
+         */
+        fun enqueue(context: Context, notificationId: String, approved: Boolean, tappedAtMillis: Long) {
+            val constraints = Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build()
+            val request = OneTimeWorkRequestBuilder<PushResponseWorker>()
+                .setInputData(
+                    workDataOf(
+                        KEY_NOTIFICATION_ID to notificationId,
+                        KEY_APPROVED to approved,
+                        KEY_TAPPED_AT to tappedAtMillis
+                    )
+                )
+                .setConstraints(constraints)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME_PREFIX + notificationId, ExistingWorkPolicy.KEEP, request)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        val notificationId = inputData.getString(KEY_NOTIFICATION_ID) ?: return Result.failure()
+        val approved = inputData.getBoolean(KEY_APPROVED, false)
+        val tappedAtMillis = inputData.getLong(KEY_TAPPED_AT, System.currentTimeMillis())
+        val attempt = runAttemptCount + 2
+
+        return when (PushResponder.respond(applicationContext as Application, notificationId, approved)) {
+            PushResponder.Outcome.ACKNOWLEDGED -> {
+                PushResponseTimings.record(
+                    notificationId, approved, PushResponseTimings.Path.QUEUED, attempt, tappedAtMillis
+                )
+                Result.success()
+            }
+            PushResponder.Outcome.REJECTED -> Result.failure()
+            PushResponder.Outcome.RETRY -> if (attempt < MAX_ATTEMPTS) {
+                Result.retry()
+            } else {
+                DiagnosticLogger.e("PushResponseWorker: Giving up the response to $notificationId after $attempt attempts")
+                Result.failure()
+            }
+        }
+    }
+
+    /**
+     * Shown while the response is sent before Android 12, where expedited work runs in a foreground service.
+     */
+    override suspend fun getForegroundInfo(): ForegroundInfo {
+        val notificationHelper = NotificationHelper(applicationContext)
+        return ForegroundInfo(
+            NotificationHelper.PUSH_RESPONSE_NOTIFICATION_ID,
+            notificationHelper.buildPushResponseNotification()
+        )
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.service
+
+import android.app.Application
+import android.content.Context
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.pingidentity.authenticatorapp.AuthenticatorApp
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import com.pingidentity.authenticatorapp.data.MaintenanceReportStore
+import com.pingidentity.authenticatorapp.data.StorageMaintenanceReport
+import com.pingidentity.authenticatorapp.managers.StorageMaintenance
+import kotlinx.coroutines.CancellationException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Periodic background job compacting the OATH and Push storages, see [StorageMaintenance].
+ * Only runs while the device is idle and charging, so VACUUM never competes with the user.
+ * The report of each storage is saved in the [MaintenanceReportStore].
+ */
+class StorageMaintenanceWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val WORK_NAME = "storage_maintenance"
+        private const val REPEAT_INTERVAL_HOURS = 24L
+
+        /**
+         * Schedules the maintenance, keeping the existing schedule if there is one.
+         */
+        fun schedule(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build()
+            val request = PeriodicWorkRequestBuilder<StorageMaintenanceWorker>(REPEAT_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        val application = applicationContext as Application
+        val maintenance = StorageMaintenance()
+        val reportStore = MaintenanceReportStore(application)
+
+        maintain(MaintenanceReportStore.OATH_DATABASE, reportStore) {
+            val storage = AuthenticatorApp.getOathStorage(application)
+            val client = AuthenticatorApp.getOathClient(application)
+            maintenance.run(
+                name = "OATH",
+                storage = storage,
+                defaultDatabaseName = "pingidentity_oath.db",
+                backupFiles = { storage.listBackupFiles() },
+                query = { client.getCredentials().getOrThrow() }
+            )
+        }
+        maintain(MaintenanceReportStore.PUSH_DATABASE, reportStore) {
+            val storage = AuthenticatorApp.getPushStorage(application)
+            val client = AuthenticatorApp.getPushClient(application)
+            maintenance.run(
+                name = "Push",
+                storage = storage,
+                defaultDatabaseName = "pingidentity_push.db",
+                backupFiles = { storage.listBackupFiles() },
+                query = { client.getAllNotifications().getOrThrow() },
+                prune = { client.cleanupNotifications().getOrThrow() }
+            )
+        }
+        // A storage that failed is maintained again on the next run
+        return Result.success()
+    }
+
+    private suspend fun maintain(
+        database: String,
+        reportStore: MaintenanceReportStore,
+        run: suspend () -> StorageMaintenanceReport
+    ) {
+        try {
+            reportStore.saveReport(database, run())
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            DiagnosticLogger.e("StorageMaintenanceWorker: Failed to maintain the $database storage", e)
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -52,9 +52,11 @@ import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
 import com.pingidentity.authenticatorapp.ui.components.AccountAvatar
 import com.pingidentity.authenticatorapp.ui.components.BackNavigationTopAppBar
 import com.pingidentity.authenticatorapp.ui.components.CircularProgressTimer
+import com.pingidentity.authenticatorapp.ui.components.CountdownClock
 import com.pingidentity.authenticatorapp.ui.components.DetailRow
 import com.pingidentity.authenticatorapp.ui.components.ErrorAlertDialog
 import com.pingidentity.authenticatorapp.ui.components.InfoCard
+import com.pingidentity.authenticatorapp.ui.components.rememberCountdownClock
 import com.pingidentity.mfa.oath.OathCodeInfo
 import com.pingidentity.mfa.oath.OathCredential
 import com.pingidentity.mfa.oath.OathType
@@ -73,6 +75,7 @@ fun AccountDetailScreen(
     onDismiss: () -> Unit
 ) {
     val uiState by viewModel.uiState.collectAsState()
+    val otpCodes by viewModel.otpCodes.collectAsState()
     rememberCoroutineScope()
     
     // Find all credentials matching the issuer and account name
@@ -85,36 +88,15 @@ fun AccountDetailScreen(
     
     // Get codes for all OATH credentials
     val oathCodesMap = oathCredentials.associateWith { credential ->
-        uiState.generatedCodes[credential.id]
+        otpCodes[credential.id]
     }
     
     // Clipboard manager to copy codes
     val clipboardManager = LocalClipboardManager.current
     var showCopyConfirmation by remember { mutableStateOf(false) }
     
-    // Auto-refresh for TOTP codes for all OATH credentials
-    LaunchedEffect(oathCredentials) {
-        if (oathCredentials.isNotEmpty()) {
-            while (true) {
-                oathCredentials.forEach { credential ->
-                    if (credential.oathType == OathType.TOTP) {
-                        viewModel.generateCode(credential.id)
-                    }
-                }
-                delay(1000)
-            }
-        }
-    }
-    
-    // Generate initial codes for HOTP credentials
-    LaunchedEffect(oathCredentials) {
-        oathCredentials.forEach { credential ->
-            if (credential.oathType == OathType.HOTP && oathCodesMap[credential] == null) {
-                viewModel.generateCode(credential.id)
-            }
-        }
-    }
-    
+    // Countdown drawn on every frame, codes themselves are refreshed by the scheduler
+    val countdownClock = rememberCountdownClock(tickMillis = 0L)
     
     // Copy toast timeout
     LaunchedEffect(showCopyConfirmation) {
@@ -198,6 +180,7 @@ fun AccountDetailScreen(
                         OathCredentialsSection(
                             oathCredentials = oathCredentials,
                             oathCodesMap = oathCodesMap,
+                            countdownClock = countdownClock,
                             onGenerateCode = { credentialId -> viewModel.generateCode(credentialId) },
                             onCopyCode = { code ->
                                 clipboardManager.setText(AnnotatedString(code))
@@ -245,7 +228,8 @@ fun OathCredentialsSection(
     oathCredentials: List<OathCredential>,
     oathCodesMap: Map<OathCredential, OathCodeInfo?>,
     onGenerateCode: (String) -> Unit,
-    onCopyCode: (String) -> Unit
+    onCopyCode: (String) -> Unit,
+    countdownClock: CountdownClock
 ) {
     val context = LocalContext.current
     InfoCard(
@@ -261,13 +245,6 @@ fun OathCredentialsSection(
                 // Display code if available
                 val codeInfo = oathCodesMap[credential]
                 codeInfo?.let { info ->
-                    // Calculate progress for TOTP
-                    val progress = if (credential.oathType == OathType.TOTP) {
-                        info.progress.toFloat()
-                    } else {
-                        0f
-                    }
-                    
                     // Code with countdown timer
                     Box(
                         modifier = Modifier
@@ -279,7 +256,7 @@ fun OathCredentialsSection(
                         // Circular progress indicator for TOTP
                         if (credential.oathType == OathType.TOTP) {
                             CircularProgressTimer(
-                                progress = progress,
+                                progress = { countdownClock.remainingFraction(credential.period) },
                                 modifier = Modifier.matchParentSize()
                             )
                         }
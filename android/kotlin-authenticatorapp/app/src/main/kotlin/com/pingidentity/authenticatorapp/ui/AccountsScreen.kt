@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,6 +7,7 @@
 
 package com.pingidentity.authenticatorapp.ui
 
+import androidx.activity.compose.ReportDrawnWhen
 import androidx.compose.animation.AnimatedVisibility
 import androidx.compose.animation.core.Spring
 import androidx.compose.animation.core.VisibilityThreshold
@@ -26,6 +27,7 @@ import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Add
@@ -56,7 +58,6 @@ import androidx.compose.runtime.Composable
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
-import androidx.compose.runtime.mutableLongStateOf
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
 import androidx.compose.runtime.rememberCoroutineScope
@@ -70,18 +71,18 @@ import androidx.compose.ui.unit.IntOffset
 import androidx.compose.ui.unit.dp
 import com.pingidentity.authenticatorapp.R
 import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
+import com.pingidentity.authenticatorapp.data.StartupTimings
+import com.pingidentity.authenticatorapp.ui.components.AccountGroupAvatarSize
 import com.pingidentity.authenticatorapp.ui.components.AccountGroupItem
+import com.pingidentity.authenticatorapp.ui.components.AccountSearchBar
 import com.pingidentity.authenticatorapp.ui.components.EmptyStateMessage
 import com.pingidentity.authenticatorapp.ui.components.ErrorAlertDialog
 import com.pingidentity.authenticatorapp.ui.components.LoadingIndicator
-import com.pingidentity.mfa.oath.OathType
-import kotlinx.coroutines.delay
-import kotlinx.coroutines.isActive
+import com.pingidentity.authenticatorapp.ui.components.PrefetchAvatarImages
+import com.pingidentity.authenticatorapp.ui.components.rememberCountdownClock
 import kotlinx.coroutines.launch
 import java.net.URLEncoder
 
-private const val TOTP_REFRESH_INTERVAL_MS = 30_000L
-
 /**
  * Screen for displaying a list of accounts and push notifications.
  */
@@ -106,86 +107,29 @@ fun AccountsScreen(
     // Collect settings state
     val copyOtpEnabled by viewModel.copyOtp.collectAsState()
     val tapToRevealEnabled by viewModel.tapToReveal.collectAsState()
-    
-    // State for triggering progress bar updates
-    var currentTimeMillis by remember { mutableLongStateOf(System.currentTimeMillis()) }
-
-    // Initial generation of codes (HOTP always, TOTP when missing)
-    LaunchedEffect(uiState.oathCredentials) {
-        uiState.oathCredentials.forEach { credential ->
-            when (credential.oathType) {
-                OathType.HOTP -> {
-                    // Always generate HOTP codes when credentials change
-                    viewModel.generateCode(credential.id)
-                }
-                OathType.TOTP -> {
-                    // Generate TOTP codes if not locked and no code exists yet
-                    if (!credential.isLocked && uiState.generatedCodes[credential.id] == null) {
-                        viewModel.generateCode(credential.id)
-                    }
-                }
-            }
-        }
-    }
 
-    // Auto-refresh TOTP codes with intelligent delay
-    LaunchedEffect(uiState.oathCredentials) {
-        while (isActive) {
-            // Get the current list of TOTP credentials
-            val totpCredentials = uiState.oathCredentials.filter { it.oathType == OathType.TOTP }
+    // Account groups matching the search query, filtered through the in-memory search index
+    val searchQuery by viewModel.accountSearchQuery.collectAsState()
+    val visibleAccountGroups by viewModel.visibleAccountGroups.collectAsState()
 
-            // If no TOTP credentials, just delay for a default longer period and check again.
-            if (totpCredentials.isEmpty()) {
-                delay(TOTP_REFRESH_INTERVAL_MS)
-                continue
-            }
+    // Codes are kept up to date by the scheduler while this screen observes them
+    val otpCodes by viewModel.otpCodes.collectAsState()
 
-            val currentTimeSeconds = System.currentTimeMillis() / 1000L
-
-            // Calculate the minimum time remaining before any TOTP code expires.
-            // This is period - (currentTimeSeconds % period) for each credential.
-            val minRemainingTimeMillis = totpCredentials.mapNotNull { credential ->
-                val periodSeconds = credential.period.toLong()
-                // Ensure period is valid for TOTP (e.g., greater than 0)
-                if (periodSeconds <= 0) {
-                    return@mapNotNull null
-                }
-
-                // Calculate time elapsed in the current code's validity window
-                val timeIntoCurrentPeriodSlot = currentTimeSeconds % periodSeconds
-                // Calculate time remaining until this specific code expires
-                val remainingTimeInSlotSeconds = periodSeconds - timeIntoCurrentPeriodSlot
-
-                remainingTimeInSlotSeconds * 1000L // Convert to milliseconds
-            }.minOrNull() // Find the smallest remaining time among all credentials
-
-            // Determine the actual delay duration.
-            // Use a fallback if calculation yields null (e.g., no valid periods found),
-            // and ensure a minimum delay to prevent extremely rapid loops.
-            val delayDuration = maxOf(1000L, minRemainingTimeMillis ?: TOTP_REFRESH_INTERVAL_MS)
-
-            delay(delayDuration) // Wait until the soonest OTP is expected to change
-
-            // After the delay, at least one code has likely expired or is just about to.
-            // It's time to regenerate/refresh codes for all active TOTP credentials.
-            // Re-filter the credentials from uiState in case the list changed during the delay.
-            // (Though if uiState.oathCredentials itself changes, LaunchedEffect will restart).
-            val credentialsToRefresh = uiState.oathCredentials.filter { it.oathType == OathType.TOTP }
-            credentialsToRefresh.forEach { credential ->
-                // Check isActive again in case the coroutine was cancelled during the delay or processing
-                if (!isActive) return@forEach
-                viewModel.generateCode(credential.id)
-            }
+    // Record the cold start milestone once the first codes are shown
+    LaunchedEffect(otpCodes.isNotEmpty()) {
+        if (otpCodes.isNotEmpty()) {
+            StartupTimings.mark(StartupTimings.FIRST_OTP_VISIBLE)
         }
     }
-
-    // Update progress bars every second for smooth countdown without regenerating codes
-    LaunchedEffect(Unit) {
-        while (isActive) {
-            delay(1000)
-            currentTimeMillis = System.currentTimeMillis() // Trigger recomposition
-        }
+    // Report the activity as fully drawn for startup metrics (time to full display), once the
+    // credentials are loaded and the codes of the unlocked OATH credentials, if any, are shown
+    val isInitialLoadFinished by viewModel.isInitialLoadFinished.collectAsState()
+    ReportDrawnWhen {
+        isInitialLoadFinished && (otpCodes.isNotEmpty() || uiState.oathCredentials.all { it.isLocked })
     }
+    
+    // Clock shared by the TOTP countdowns, only read while drawing so the rows are not recomposed
+    val countdownClock = rememberCountdownClock()
 
     // Show fab menu state
     var showFabMenu by remember { mutableStateOf(false) }
@@ -439,7 +383,8 @@ fun AccountsScreen(
             }
             
             when {
-                uiState.isInitialLoading -> {
+                // Accounts from the credential snapshot are shown while the storage opens
+                uiState.isInitialLoading && uiState.accountGroups.isEmpty() -> {
                     LoadingIndicator(
                         message = stringResource(id = R.string.loading_credentials)
                     )
@@ -450,54 +395,77 @@ fun AccountsScreen(
                         subtitle = stringResource(id = R.string.accounts_empty_state_subtitle)
                     )
                 }
-                else -> {
-                    // List of account groups
-                LazyColumn(
-                    modifier = Modifier.fillMaxSize(),
-                    contentPadding = PaddingValues(16.dp),
-                    verticalArrangement = Arrangement.spacedBy(8.dp)
-                ) {
-                    items(
-                        items = uiState.accountGroups,
-                        key = { accountGroup ->
-                            // Create a unique key using issuer, account name, and all credential IDs
-                            val oathIds = accountGroup.oathCredentials.map { it.id }.sorted().joinToString(",")
-                            val pushIds = accountGroup.pushCredentials.map { it.id }.sorted().joinToString(",")
-                            "${accountGroup.issuer}-${accountGroup.accountName}-oath:$oathIds-push:$pushIds"
-                        }
-                    ) { accountGroup ->
-                        AccountGroupItem(
-                            accountGroup = accountGroup,
-                            codes = uiState.generatedCodes,
-                            onRefreshCode = { credentialId ->
-                                coroutineScope.launch {
-                                    viewModel.generateCode(credentialId)
+                else -> Column(modifier = Modifier.fillMaxSize()) {
+                    AccountSearchBar(
+                        query = searchQuery,
+                        onQueryChange = viewModel::setAccountSearchQuery,
+                        modifier = Modifier
+                            .fillMaxWidth()
+                            .padding(start = 16.dp, top = 8.dp, end = 16.dp)
+                    )
+
+                    if (visibleAccountGroups.isEmpty()) {
+                        EmptyStateMessage(
+                            title = stringResource(id = R.string.accounts_search_no_results, searchQuery)
+                        )
+                    } else {
+                        // Decode the logos of the next rows before they scroll into view
+                        val listState = rememberLazyListState()
+                        PrefetchAvatarImages(
+                            listState = listState,
+                            imageUrls = remember(visibleAccountGroups) { visibleAccountGroups.map { it.imageUrl } },
+                            size = AccountGroupAvatarSize
+                        )
+
+                        // List of account groups matching the search query
+                        LazyColumn(
+                            state = listState,
+                            modifier = Modifier.fillMaxSize(),
+                            contentPadding = PaddingValues(16.dp),
+                            verticalArrangement = Arrangement.spacedBy(8.dp)
+                        ) {
+                            items(
+                                items = visibleAccountGroups,
+                                key = { accountGroup ->
+                                    // Create a unique key using issuer, account name, and all credential IDs
+                                    val oathIds = accountGroup.oathCredentialIds.sorted().joinToString(",")
+                                    val pushIds = accountGroup.pushCredentialIds.sorted().joinToString(",")
+                                    "${accountGroup.issuer}-${accountGroup.accountName}-oath:$oathIds-push:$pushIds"
                                 }
-                            },
-                            onItemClick = { 
-                                // Pass the account group issuer and account name for navigation
-                                // This allows the detail screen to display all credentials for this account
-                                val encodedIssuer = URLEncoder.encode(accountGroup.issuer, "UTF-8")
-                                val encodedAccountName = URLEncoder.encode(accountGroup.accountName, "UTF-8")
-                                onAccountClick("$encodedIssuer/$encodedAccountName")
-                            },
-                            onCopyToClipboard = { text, label ->
-                                viewModel.copyToClipboard(context, text, label)
-                            },
-                            copyOtpEnabled = copyOtpEnabled,
-                            tapToRevealEnabled = tapToRevealEnabled,
-                            currentTimeMillis = currentTimeMillis,
-                            modifier = Modifier.animateItem(
-                                fadeInSpec = null, fadeOutSpec = null, placementSpec = spring(
-                                    stiffness = Spring.StiffnessMediumLow,
-                                    visibilityThreshold = IntOffset.VisibilityThreshold
+                            ) { accountGroup ->
+                                AccountGroupItem(
+                                    accountGroup = accountGroup,
+                                    code = accountGroup.oathCredentials.firstOrNull()?.let { otpCodes[it.id] },
+                                    onRefreshCode = { credentialId ->
+                                        coroutineScope.launch {
+                                            viewModel.generateCode(credentialId)
+                                        }
+                                    },
+                                    onItemClick = { 
+                                        // Pass the account group issuer and account name for navigation
+                                        // This allows the detail screen to display all credentials for this account
+                                        val encodedIssuer = URLEncoder.encode(accountGroup.issuer, "UTF-8")
+                                        val encodedAccountName = URLEncoder.encode(accountGroup.accountName, "UTF-8")
+                                        onAccountClick("$encodedIssuer/$encodedAccountName")
+                                    },
+                                    onCopyToClipboard = { text, label ->
+                                        viewModel.copyToClipboard(context, text, label)
+                                    },
+                                    copyOtpEnabled = copyOtpEnabled,
+                                    tapToRevealEnabled = tapToRevealEnabled,
+                                    countdownClock = countdownClock,
+                                    modifier = Modifier.animateItem(
+                                        fadeInSpec = null, fadeOutSpec = null, placementSpec = spring(
+                                            stiffness = Spring.StiffnessMediumLow,
+                                            visibilityThreshold = IntOffset.VisibilityThreshold
+                                        )
+                                    )
                                 )
-                            )
-                        )
+                            }
+                        }
                     }
                 }
             }
-            }
             
             // Error handling
             if (uiState.error != null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -32,12 +32,16 @@ import androidx.compose.material3.Icon
 import androidx.compose.material3.IconButton
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Scaffold
+import androidx.compose.material3.SnackbarHost
+import androidx.compose.material3.SnackbarHostState
 import androidx.compose.material3.Text
 import androidx.compose.material3.TopAppBar
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberCoroutineScope
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.Color
@@ -47,8 +51,14 @@ import com.pingidentity.authenticatorapp.R
 import androidx.compose.ui.text.font.FontFamily
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
+import androidx.core.content.FileProvider
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
 import com.pingidentity.authenticatorapp.data.LogEntry
+import kotlinx.coroutines.launch
+import java.io.File
+
+// Cache subdirectory holding the exported logs, shared through the FileProvider
+private const val DIAGNOSTIC_LOGS_EXPORT_DIRECTORY = "diagnostic_logs"
 
 /**
  * Screen displaying diagnostic logs with options to share or clear them.
@@ -64,6 +74,8 @@ fun DiagnosticLogsScreen(
     val diagnosticLogger = DiagnosticLogger
     val logs by diagnosticLogger.logs.collectAsState()
     val listState = rememberLazyListState()
+    val coroutineScope = rememberCoroutineScope()
+    val snackbarHostState = remember { SnackbarHostState() }
 
     // Auto-scroll to bottom when new logs are added
     LaunchedEffect(logs.size) {
@@ -95,20 +107,41 @@ fun DiagnosticLogsScreen(
                     // Share logs button
                     IconButton(
                         onClick = {
-                            val subject = context.getString(R.string.diagnostic_logs_share_subject)
-                            val shareText = diagnosticLogger.exportLogs()
-                            val shareIntent = Intent().apply {
-                                action = Intent.ACTION_SEND
-                                type = "text/plain"
-                                putExtra(Intent.EXTRA_TEXT, shareText)
-                                putExtra(Intent.EXTRA_SUBJECT, subject)
+                            coroutineScope.launch {
+                                try {
+                                    val subject = context.getString(R.string.diagnostic_logs_share_subject)
+                                    // Stream the logs to a file shared through the FileProvider
+                                    val exportFile = diagnosticLogger.exportLogsToFile(
+                                        File(context.cacheDir, DIAGNOSTIC_LOGS_EXPORT_DIRECTORY)
+                                    )
+                                    val exportUri = FileProvider.getUriForFile(
+                                        context,
+                                        "${context.packageName}.fileprovider",
+                                        exportFile
+                                    )
+                                    val shareIntent = Intent().apply {
+                                        action = Intent.ACTION_SEND
+                                        type = "text/plain"
+                                        putExtra(Intent.EXTRA_STREAM, exportUri)
+                                        putExtra(Intent.EXTRA_SUBJECT, subject)
+                                        addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                                    }
+                                    context.startActivity(
+                                        Intent.createChooser(
+                                            shareIntent,
+                                            context.getString(R.string.content_description_share_logs)
+                                        )
+                                    )
+                                } catch (e: Exception) {
+                                    diagnosticLogger.e("DiagnosticLogsScreen: Failed to export logs", e)
+                                    snackbarHostState.showSnackbar(
+                                        context.getString(
+                                            R.string.diagnostic_logs_export_failed,
+                                            e.message ?: e.javaClass.simpleName
+                                        )
+                                    )
+                                }
                             }
-                            context.startActivity(
-                                Intent.createChooser(
-                                    shareIntent,
-                                    context.getString(R.string.content_description_share_logs)
-                                )
-                            )
                         }
                     ) {
                         Icon(
@@ -130,6 +163,9 @@ fun DiagnosticLogsScreen(
                     }
                 }
             )
+        },
+        snackbarHost = {
+            SnackbarHost(hostState = snackbarHostState)
         }
     ) { paddingValues ->
         Box(
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -18,6 +18,7 @@ import androidx.compose.foundation.layout.height
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.itemsIndexed
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.automirrored.filled.ArrowBack
 import androidx.compose.material3.AlertDialog
@@ -32,6 +33,7 @@ import androidx.compose.material3.Text
 import androidx.compose.material3.TextButton
 import androidx.compose.material3.TopAppBar
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
@@ -47,6 +49,9 @@ import com.pingidentity.authenticatorapp.data.AccountGroup
 import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
 import com.pingidentity.authenticatorapp.ui.components.EditAccountDialog
 import com.pingidentity.authenticatorapp.ui.components.EditableAccountItem
+import com.pingidentity.authenticatorapp.ui.components.rememberReorderableListState
+import com.pingidentity.authenticatorapp.ui.components.reorderDragHandle
+import com.pingidentity.authenticatorapp.ui.components.reorderableItem
 import kotlinx.coroutines.launch
 
 /**
@@ -61,8 +66,9 @@ enum class DeleteType {
 
 /**
  * Composable that displays a screen for editing accounts.
- * Users can reorder accounts via move up/down buttons,
+ * Users can reorder accounts by dragging them or via move up/down buttons,
  * edit display names, and delete accounts with confirmation.
+ * While an account is dragged, the order is only changed in memory, and it is saved once the drag ends.
  *
  * @param viewModel The AuthenticatorViewModel providing the UI state and actions.
  * @param onDismiss Callback invoked when the user navigates back from this screen.
@@ -78,6 +84,32 @@ fun EditAccountsScreen(
     
     // State for reordering
     val hapticFeedback = LocalHapticFeedback.current
+    val listState = rememberLazyListState()
+    // Order of the accounts while they are dragged, until the saved order is published
+    var draggedAccountGroups by remember { mutableStateOf<List<AccountGroup>?>(null) }
+    val accountGroups = draggedAccountGroups ?: uiState.accountGroups
+    val reorderableListState = rememberReorderableListState(
+        listState = listState,
+        onMove = { from, to ->
+            val currentOrder = draggedAccountGroups ?: uiState.accountGroups
+            draggedAccountGroups = currentOrder.toMutableList().apply { add(to, removeAt(from)) }
+        },
+        onDragEnd = {
+            val newOrder = draggedAccountGroups
+            if (newOrder != null && newOrder != uiState.accountGroups) {
+                viewModel.updateAccountGroupOrder(newOrder)
+            } else {
+                draggedAccountGroups = null
+            }
+        }
+    )
+
+    // Show the published order once the dragged order reached the UI state
+    LaunchedEffect(uiState.accountGroups) {
+        if (reorderableListState.draggedItemKey == null) {
+            draggedAccountGroups = null
+        }
+    }
     
     // State for deletion
     var accountToDelete by remember { mutableStateOf<AccountGroup?>(null) }
@@ -103,7 +135,7 @@ fun EditAccountsScreen(
                 .fillMaxSize()
                 .padding(paddingValues)
         ) {
-            if (uiState.accountGroups.isEmpty()) {
+            if (accountGroups.isEmpty()) {
                 // No accounts message
                 Column(
                     modifier = Modifier
@@ -129,24 +161,21 @@ fun EditAccountsScreen(
             } else {
                 // Account list with reordering capability
                 LazyColumn(
+                    state = listState,
                     modifier = Modifier.fillMaxSize(),
                     contentPadding = PaddingValues(16.dp),
                     verticalArrangement = Arrangement.spacedBy(8.dp)
                 ) {
                     itemsIndexed(
-                        items = uiState.accountGroups,
-                        key = { _, accountGroup ->
-                            // Create a unique key using issuer, account name, and all credential IDs
-                            val oathIds = accountGroup.oathCredentials.map { it.id }.sorted().joinToString(",")
-                            val pushIds = accountGroup.pushCredentials.map { it.id }.sorted().joinToString(",")
-                            "${accountGroup.issuer}-${accountGroup.accountName}-oath:$oathIds-push:$pushIds"
-                        }
+                        items = accountGroups,
+                        key = { _, accountGroup -> editableItemKey(accountGroup) }
                     ) { index, accountGroup ->
+                        val key = editableItemKey(accountGroup)
                         EditableAccountItem(
                             accountGroup = accountGroup,
                             onDeleteClick = { 
-                                // Only allow deletion if account is not locked
-                                if (!accountGroup.isLocked) {
+                                // Only allow deletion if account is not locked and its credentials are loaded
+                                if (!accountGroup.isLocked && !accountGroup.isReadOnly) {
                                     accountToDelete = accountGroup
                                     // Determine what types of credentials this account has
                                     val hasOath = accountGroup.oathCredentials.isNotEmpty()
@@ -161,13 +190,13 @@ fun EditAccountsScreen(
                                 }
                             },
                             onEditClick = { 
-                                // Only allow editing if account is not locked
-                                if (!accountGroup.isLocked) {
+                                // Only allow editing if account is not locked and its credentials are loaded
+                                if (!accountGroup.isLocked && !accountGroup.isReadOnly) {
                                     accountToEdit = accountGroup
                                 }
                             },
                             onMoveUp = {
-                                val newList = uiState.accountGroups.toMutableList()
+                                val newList = accountGroups.toMutableList()
                                 val currentIndex = newList.indexOf(accountGroup)
                                 if (currentIndex > 0) {
                                     val item = newList.removeAt(currentIndex)
@@ -178,7 +207,7 @@ fun EditAccountsScreen(
                                 }
                             },
                             onMoveDown = {
-                                val newList = uiState.accountGroups.toMutableList()
+                                val newList = accountGroups.toMutableList()
                                 val currentIndex = newList.indexOf(accountGroup)
                                 if (currentIndex < newList.size - 1) {
                                     val item = newList.removeAt(currentIndex)
@@ -189,7 +218,12 @@ fun EditAccountsScreen(
                                 }
                             },
                             canMoveUp = index > 0,
-                            canMoveDown = index < uiState.accountGroups.size - 1
+                            canMoveDown = index < accountGroups.size - 1,
+                            isDragged = key == reorderableListState.draggedItemKey,
+                            modifier = Modifier.reorderableItem(reorderableListState, key),
+                            dragHandleModifier = Modifier.reorderDragHandle(reorderableListState, key) {
+                                hapticFeedback.performHapticFeedback(HapticFeedbackType.LongPress)
+                            }
                         )
                     }
                 }
@@ -343,22 +377,24 @@ fun EditAccountsScreen(
                     onDismiss = { accountToEdit = null },
                     onConfirm = { newDisplayIssuer, newDisplayAccountName ->
                         coroutineScope.launch {
-                            // Update OATH credentials
+                            // Update OATH credentials, from their stored content
                             account.oathCredentials.forEach { credential ->
-                                val updatedCredential = credential.copy(
-                                    displayIssuer = newDisplayIssuer,
-                                    displayAccountName = newDisplayAccountName
-                                )
-                                viewModel.updateOathCredential(updatedCredential)
+                                viewModel.updateOathCredential(credential.id) { stored ->
+                                    stored.copy(
+                                        displayIssuer = newDisplayIssuer,
+                                        displayAccountName = newDisplayAccountName
+                                    )
+                                }
                             }
                             
-                            // Update Push credentials
+                            // Update Push credentials, from their stored content
                             account.pushCredentials.forEach { credential ->
-                                val updatedCredential = credential.copy(
-                                    displayIssuer = newDisplayIssuer,
-                                    displayAccountName = newDisplayAccountName
-                                )
-                                viewModel.updatePushCredential(updatedCredential)
+                                viewModel.updatePushCredential(credential.id) { stored ->
+                                    stored.copy(
+                                        displayIssuer = newDisplayIssuer,
+                                        displayAccountName = newDisplayAccountName
+                                    )
+                                }
                             }
                             
                             accountToEdit = null
@@ -368,4 +404,13 @@ fun EditAccountsScreen(
             }
         }
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Creates a unique key for an account using issuer, account name, and all credential IDs.
+ */
+private fun editableItemKey(accountGroup: AccountGroup): String {
+    val oathIds = accountGroup.oathCredentialIds.sorted().joinToString(",")
+    val pushIds = accountGroup.pushCredentialIds.sorted().joinToString(",")
+    return "${accountGroup.issuer}-${accountGroup.accountName}-oath:$oathIds-push:$pushIds"
+}
@@ -57,7 +57,6 @@ import androidx.compose.material3.Scaffold
 import androidx.compose.material3.Text
 import androidx.compose.material3.TopAppBar
 import androidx.compose.runtime.Composable
-import androidx.compose.runtime.DisposableEffect
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
@@ -74,11 +73,11 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.compose.ui.viewinterop.AndroidView
+import com.pingidentity.authenticatorapp.AuthenticatorApp
 import com.pingidentity.authenticatorapp.R
 import com.pingidentity.authenticatorapp.data.LocationAddress
 import com.pingidentity.authenticatorapp.data.NotificationStatus
 import com.pingidentity.authenticatorapp.data.PushNotificationItem
-import com.pingidentity.authenticatorapp.service.LocationService
 import com.pingidentity.authenticatorapp.ui.components.AccountAvatar
 import com.pingidentity.authenticatorapp.ui.components.StatusIndicator
 import com.pingidentity.mfa.commons.policy.BiometricAvailablePolicy
@@ -110,15 +109,8 @@ fun NotificationResponseScreen(
     var isLoadingAddress by remember { mutableStateOf(false) }
     var addressError by remember { mutableStateOf<String?>(null) }
 
-    // Location service
-    val locationService = remember { LocationService() }
-
-    // Clean up LocationService when the composable is disposed
-    DisposableEffect(Unit) {
-        onDispose {
-            locationService.close()
-        }
-    }
+    // Location service shared by the app, with cached results
+    val locationService = remember { AuthenticatorApp.getLocationService(context) }
 
     // Load address when screen opens if location is available
     LaunchedEffect(notificationItem.latitude, notificationItem.longitude) {
@@ -11,6 +11,7 @@ import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.material3.ExperimentalMaterial3Api
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Scaffold
@@ -20,6 +21,7 @@ import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.snapshotFlow
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.font.FontWeight
@@ -27,11 +29,15 @@ import androidx.compose.ui.unit.dp
 import com.pingidentity.authenticatorapp.R
 import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
 import com.pingidentity.authenticatorapp.data.NotificationStatus
-import com.pingidentity.authenticatorapp.data.PushNotificationItem
 import com.pingidentity.authenticatorapp.ui.components.BackNavigationTopAppBar
 import com.pingidentity.authenticatorapp.ui.components.EmptyStateMessage
 import com.pingidentity.authenticatorapp.ui.components.NotificationCard
 import com.pingidentity.authenticatorapp.ui.components.NotificationHistoryCard
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
+
+// Number of remaining items at which the next page of the history is loaded
+private const val LOAD_MORE_THRESHOLD = 10
 
 /**
  * Screen that displays a list of push notifications, grouped by pending requests and history.
@@ -71,25 +77,28 @@ fun PushNotificationsScreen(
                 modifier = Modifier.padding(paddingValues)
             )
         } else {
-            // Sort notifications with pending first, then by date
-            val sortedItems = remember(uiState.pushNotificationItems) {
-                uiState.pushNotificationItems.sortedWith(
-                    compareBy<PushNotificationItem> {
-                        // Sort pending notifications first
-                        if (it.status == NotificationStatus.PENDING) 0 else 1
-                    }.thenByDescending {
-                        // Then sort by creation date (newest first)
-                        it.notification.createdAt.time
-                    }
-                )
+            // Notifications are already sorted with pending first, then by date
+            val (pendingItems, historyItems) = remember(uiState.pushNotificationItems) {
+                uiState.pushNotificationItems.partition { it.status == NotificationStatus.PENDING }
             }
 
-            // Group notifications by status
-            val (pendingItems, historyItems) = remember(sortedItems) {
-                sortedItems.partition { it.status == NotificationStatus.PENDING }
+            // Load the next page of the history when the end of the list gets close
+            val listState = rememberLazyListState()
+            val hasMoreHistory by viewModel.hasMoreNotificationHistory.collectAsState()
+            LaunchedEffect(listState, hasMoreHistory) {
+                if (!hasMoreHistory) return@LaunchedEffect
+                snapshotFlow {
+                    val layoutInfo = listState.layoutInfo
+                    val lastVisibleIndex = layoutInfo.visibleItemsInfo.lastOrNull()?.index ?: 0
+                    lastVisibleIndex >= layoutInfo.totalItemsCount - LOAD_MORE_THRESHOLD
+                }
+                    .distinctUntilChanged()
+                    .filter { it }
+                    .collect { viewModel.loadMoreNotificationHistory() }
             }
 
             LazyColumn(
+                state = listState,
                 modifier = Modifier
                     .fillMaxSize()
                     .padding(paddingValues)
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -9,20 +9,27 @@ package com.pingidentity.authenticatorapp.ui
 
 import android.Manifest
 import android.content.pm.PackageManager
+import android.util.Size
 import androidx.activity.compose.rememberLauncherForActivityResult
 import androidx.activity.result.contract.ActivityResultContracts
 import androidx.camera.core.CameraSelector
 import androidx.camera.core.ImageAnalysis
 import androidx.camera.core.Preview
+import androidx.camera.core.resolutionselector.ResolutionSelector
+import androidx.camera.core.resolutionselector.ResolutionStrategy
 import androidx.camera.lifecycle.ProcessCameraProvider
 import androidx.camera.view.PreviewView
+import androidx.compose.foundation.border
 import androidx.compose.foundation.layout.Arrangement
 import androidx.compose.foundation.layout.Box
 import androidx.compose.foundation.layout.Column
 import androidx.compose.foundation.layout.Spacer
+import androidx.compose.foundation.layout.aspectRatio
 import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.foundation.layout.fillMaxWidth
 import androidx.compose.foundation.layout.height
 import androidx.compose.foundation.layout.padding
+import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material3.AlertDialog
 import androidx.compose.material3.Button
 import androidx.compose.material3.ExperimentalMaterial3Api
@@ -52,6 +59,7 @@ import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
 import com.pingidentity.authenticatorapp.data.DiagnosticLogger
 import com.pingidentity.authenticatorapp.ui.components.BackNavigationTopAppBar
 import com.pingidentity.authenticatorapp.util.QrCodeAnalyzer
+import com.pingidentity.authenticatorapp.util.QrFrameCropper
 import com.pingidentity.mfa.commons.UriScheme
 import java.util.concurrent.Executors
 
@@ -96,6 +104,38 @@ fun QrScannerScreen(
     // Create an executor for background operations
     val cameraExecutor = remember { Executors.newSingleThreadExecutor() }
 
+    // Scans the camera frames for registration QR codes
+    val qrCodeAnalyzer = remember {
+        QrCodeAnalyzer { qrCodeResult ->
+            // Process the QR code result (otpauth URI, pushauth URI, or mfauth URI)
+            when {
+                qrCodeResult.startsWith(UriScheme.OTPAUTH.value) -> {
+                    diagnosticLogger.d("QrScannerScreen: Detected OATH QR code")
+                    viewModel.addOathCredentialFromUri(qrCodeResult)
+                    onScanComplete()
+                }
+
+                qrCodeResult.startsWith(UriScheme.PUSHAUTH.value) -> {
+                    diagnosticLogger.d("QrScannerScreen: Detected Push QR code")
+                    viewModel.addPushCredentialFromUri(qrCodeResult)
+                    onScanComplete()
+                }
+
+                qrCodeResult.startsWith(UriScheme.MFAUTH.value) -> {
+                    diagnosticLogger.d("QrScannerScreen: Detected MFA QR code")
+                    viewModel.addMfaCredentialFromUri(qrCodeResult)
+                    onScanComplete()
+                }
+
+                else -> {
+                    // Show error for invalid QR code format
+                    diagnosticLogger.d("QrScannerScreen: Invalid QR code format")
+                    viewModel.setError("Invalid QR code format. Please scan a valid OATH, Push, or MFA authentication QR code.")
+                }
+            }
+        }
+    }
+
     // Cleanup resources when leaving the screen
     LaunchedEffect(Unit) {
         if (!hasCameraPermission) {
@@ -157,42 +197,22 @@ fun QrScannerScreen(
                             .requireLensFacing(CameraSelector.LENS_FACING_BACK)
                             .build()
 
-                        // Configure image analysis with higher resolution for large QR codes
+                        // Analyze low resolution frames, only their region of interest is scanned
                         val imageAnalysis = ImageAnalysis.Builder()
+                            .setResolutionSelector(
+                                ResolutionSelector.Builder()
+                                    .setResolutionStrategy(
+                                        ResolutionStrategy(
+                                            Size(640, 480),
+                                            ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER
+                                        )
+                                    )
+                                    .build()
+                            )
                             .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                             .build()
 
-                        imageAnalysis.setAnalyzer(
-                            cameraExecutor,
-                            QrCodeAnalyzer { qrCodeResult ->
-                                // Process the QR code result (otpauth URI, pushauth URI, or mfauth URI)
-                                when {
-                                    qrCodeResult.startsWith(UriScheme.OTPAUTH.value) -> {
-                                        diagnosticLogger.d("QrScannerScreen: Detected OATH QR code")
-                                        viewModel.addOathCredentialFromUri(qrCodeResult)
-                                        onScanComplete()
-                                    }
-
-                                    qrCodeResult.startsWith(UriScheme.PUSHAUTH.value) -> {
-                                        diagnosticLogger.d("QrScannerScreen: Detected Push QR code")
-                                        viewModel.addPushCredentialFromUri(qrCodeResult)
-                                        onScanComplete()
-                                    }
-
-                                    qrCodeResult.startsWith(UriScheme.MFAUTH.value) -> {
-                                        diagnosticLogger.d("QrScannerScreen: Detected MFA QR code")
-                                        viewModel.addMfaCredentialFromUri(qrCodeResult)
-                                        onScanComplete()
-                                    }
-
-                                    else -> {
-                                        // Show error for invalid QR code format
-                                        diagnosticLogger.d("QrScannerScreen: Invalid QR code format")
-                                        viewModel.setError("Invalid QR code format. Please scan a valid OATH, Push, or MFA authentication QR code.")
-                                    }
-                                }
-                            }
-                        )
+                        imageAnalysis.setAnalyzer(cameraExecutor, qrCodeAnalyzer)
 
                         try {
                             // Bind camera use cases
@@ -229,6 +249,17 @@ fun QrScannerScreen(
                         .fillMaxSize()
                         .padding(32.dp)
                 ) {
+                    // Region of interest scanned for QR codes
+                    Box(
+                        modifier = Modifier
+                            .fillMaxWidth(QrFrameCropper.DEFAULT_ROI_FRACTION)
+                            .aspectRatio(1f)
+                            .border(
+                                width = 2.dp,
+                                color = MaterialTheme.colorScheme.primary,
+                                shape = RoundedCornerShape(16.dp)
+                            )
+                    )
                     Text(
                         text = stringResource(id = R.string.qr_scanner_overlay_text),
                         style = MaterialTheme.typography.bodyMedium,
@@ -284,6 +315,7 @@ fun QrScannerScreen(
     DisposableEffect(lifecycleOwner) {
         onDispose {
             cameraExecutor.shutdown()
+            qrCodeAnalyzer.close()
         }
     }
 }
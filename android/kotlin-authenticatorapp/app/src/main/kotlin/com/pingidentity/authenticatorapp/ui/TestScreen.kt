@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -33,6 +33,7 @@ import androidx.compose.material.icons.filled.LockOpen
 import androidx.compose.material.icons.filled.RestorePage
 import androidx.compose.material.icons.filled.Security
 import androidx.compose.material.icons.filled.Sms
+import androidx.compose.material.icons.filled.Speed
 import androidx.compose.material.icons.filled.Sync
 import androidx.compose.material.icons.filled.Timelapse
 import androidx.compose.material.icons.filled.Warning
@@ -68,9 +69,13 @@ import com.pingidentity.authenticatorapp.data.AccountGroup
 import com.pingidentity.authenticatorapp.data.AuthenticatorViewModel
 import com.pingidentity.authenticatorapp.data.BackupFileInfo
 import com.pingidentity.authenticatorapp.data.DatabaseInfo
+import com.pingidentity.authenticatorapp.data.StorageMaintenanceReport
 import com.pingidentity.authenticatorapp.ui.components.SettingItem
+import com.pingidentity.authenticatorapp.util.getTimeAgoString
 import com.pingidentity.mfa.commons.policy.BiometricAvailablePolicy
 import com.pingidentity.mfa.commons.policy.DeviceTamperingPolicy
+import java.util.Date
+import java.util.Locale
 
 private const val LOCKING_POLICY_CUSTOM = "customPolicy"
 
@@ -656,6 +661,55 @@ fun TestScreen(
                 }
             }
 
+            Spacer(modifier = Modifier.height(16.dp))
+
+            // Performance benchmarks
+            Card(
+                modifier = Modifier
+                    .fillMaxWidth()
+                    .padding(vertical = 8.dp)
+            ) {
+                Column(
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(16.dp)
+                ) {
+                    Text(
+                        text = stringResource(id = R.string.test_screen_performance_title),
+                        style = MaterialTheme.typography.titleLarge,
+                        fontWeight = FontWeight.Bold
+                    )
+
+                    Spacer(modifier = Modifier.height(16.dp))
+
+                    OutlinedButton(
+                        onClick = { viewModel.reportUiStateEmissions() },
+                        modifier = Modifier.fillMaxWidth()
+                    ) {
+                        Icon(
+                            imageVector = Icons.Default.Speed,
+                            contentDescription = stringResource(id = R.string.test_screen_ui_state_emissions)
+                        )
+                        Spacer(modifier = Modifier.width(8.dp))
+                        Text(stringResource(id = R.string.test_screen_ui_state_emissions))
+                    }
+
+                    Spacer(modifier = Modifier.height(8.dp))
+
+                    OutlinedButton(
+                        onClick = { viewModel.reportPushResponseTimings() },
+                        modifier = Modifier.fillMaxWidth()
+                    ) {
+                        Icon(
+                            imageVector = Icons.Default.Timelapse,
+                            contentDescription = stringResource(id = R.string.test_screen_push_response_timings)
+                        )
+                        Spacer(modifier = Modifier.width(8.dp))
+                        Text(stringResource(id = R.string.test_screen_push_response_timings))
+                    }
+                }
+            }
+
         }
     }
     
@@ -680,6 +734,8 @@ fun TestScreen(
                                     showPolicySelectionDialog = true
                                 }
                             },
+                            // Accounts shown from the snapshot can be locked once their credentials are loaded
+                            enabled = !accountGroup.isReadOnly,
                             modifier = Modifier
                                 .fillMaxWidth()
                                 .padding(vertical = 2.dp),
@@ -947,6 +1003,7 @@ fun TestScreen(
                     Text("Path: ${databaseInfo?.oathDbPath}")
                     Text("Size: ${(databaseInfo?.oathDbSize ?: 0) / 1024} KB")
                     Text("Backups: ${databaseInfo?.oathBackupCount}")
+                    MaintenanceReportText(databaseInfo?.oathMaintenance)
                     
                     Spacer(modifier = Modifier.height(16.dp))
                     
@@ -958,6 +1015,7 @@ fun TestScreen(
                     Text("Path: ${databaseInfo?.pushDbPath}")
                     Text("Size: ${(databaseInfo?.pushDbSize ?: 0) / 1024} KB")
                     Text("Backups: ${databaseInfo?.pushBackupCount}")
+                    MaintenanceReportText(databaseInfo?.pushMaintenance)
                 }
             },
             confirmButton = {
@@ -968,3 +1026,24 @@ fun TestScreen(
         )
     }
 }
+
+/**
+ * Shows the metrics of the last background maintenance of a database.
+ */
+@Composable
+private fun MaintenanceReportText(report: StorageMaintenanceReport?) {
+    if (report == null) {
+        Text("Last maintenance: never")
+        return
+    }
+    Text("Last maintenance: ${getTimeAgoString(Date(report.timestamp))}")
+    Text("Size: ${report.sizeBeforeBytes / 1024} KB -> ${report.sizeAfterBytes / 1024} KB")
+    Text(
+        "Query latency: " +
+            String.format(Locale.US, "%.2f -> %.2f ms", report.queryLatencyBeforeMillis, report.queryLatencyAfterMillis)
+    )
+    Text("Pruned notifications: ${report.prunedNotifications}, deleted backups: ${report.deletedBackups}")
+    if (!report.compacted) {
+        Text("Database not compacted", color = MaterialTheme.colorScheme.error)
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -11,31 +11,49 @@ import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.Box
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.size
+import androidx.compose.foundation.lazy.LazyListState
 import androidx.compose.foundation.shape.RoundedCornerShape
-import androidx.compose.material3.CircularProgressIndicator
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberUpdatedState
+import androidx.compose.runtime.setValue
+import androidx.compose.runtime.snapshotFlow
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
+import androidx.compose.ui.unit.Dp
 import androidx.compose.ui.unit.dp
-import coil.compose.SubcomposeAsyncImage
-import coil.request.ImageRequest
+import coil.compose.AsyncImage
+import coil.imageLoader
+import com.pingidentity.authenticatorapp.util.AvatarImages
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlin.math.absoluteValue
 
 /**
- * Composable for displaying an account avatar image or a colored background with initials
+ * Number of rows past the last visible one whose logos are prefetched.
+ */
+private const val PREFETCH_AHEAD_ROWS = 10
+
+/**
+ * Composable for displaying an account avatar image or a colored background with initials.
+ * The initials are shown until the image is loaded, or if it fails to load. The image is decoded
+ * to the size of the avatar by the shared [AvatarImages] pipeline, without subcomposition.
  */
 @Composable
 fun AccountAvatar(
     issuer: String,
     accountName: String,
     imageUrl: String? = null,
-    size: androidx.compose.ui.unit.Dp = 40.dp,
+    size: Dp = 40.dp,
     modifier: Modifier = Modifier
 ) {
     val backgroundColor = generateBackgroundColor(issuer, accountName)
@@ -51,22 +69,23 @@ fun AccountAvatar(
         contentAlignment = Alignment.Center
     ) {
         if (imageUrl != null) {
-            SubcomposeAsyncImage(
-                model = ImageRequest.Builder(LocalContext.current)
-                    .data(imageUrl)
-                    .crossfade(true)
-                    .build(),
+            val context = LocalContext.current
+            val sizePx = with(LocalDensity.current) { size.roundToPx() }
+            var isImageLoaded by remember(imageUrl) { mutableStateOf(false) }
+
+            if (!isImageLoaded) {
+                InitialsText(initials)
+            }
+            AsyncImage(
+                model = remember(imageUrl, sizePx) { AvatarImages.request(context, imageUrl, sizePx) },
                 contentDescription = "Account logo",
+                imageLoader = context.imageLoader,
                 modifier = Modifier
                     .fillMaxSize()
                     .clip(RoundedCornerShape(8.dp)),
                 contentScale = ContentScale.Crop,
-                loading = {
-                    LoadingIndicator()
-                },
-                error = {
-                    InitialsText(initials)
-                }
+                onSuccess = { isImageLoaded = true },
+                onError = { isImageLoaded = false }
             )
         } else {
             // Fallback to initials if no image URL
@@ -75,6 +94,36 @@ fun AccountAvatar(
     }
 }
 
+/**
+ * Prefetches the avatar logos of the rows about to scroll into view, so they are decoded
+ * before their rows are composed.
+ *
+ * @param listState State of the list showing the avatars
+ * @param imageUrls Image URL of the avatar of each row, in list order
+ * @param size Size of the avatars
+ */
+@Composable
+fun PrefetchAvatarImages(
+    listState: LazyListState,
+    imageUrls: List<String?>,
+    size: Dp
+) {
+    val context = LocalContext.current
+    val sizePx = with(LocalDensity.current) { size.roundToPx() }
+    val currentImageUrls by rememberUpdatedState(imageUrls)
+
+    LaunchedEffect(listState, sizePx) {
+        snapshotFlow { listState.layoutInfo.visibleItemsInfo.lastOrNull()?.index ?: -1 }
+            .distinctUntilChanged()
+            .collect { lastVisibleIndex ->
+                val urls = currentImageUrls
+                val from = (lastVisibleIndex + 1).coerceAtMost(urls.size)
+                val to = (from + PREFETCH_AHEAD_ROWS).coerceAtMost(urls.size)
+                AvatarImages.prefetch(context, urls.subList(from, to).filterNotNull().toSet(), sizePx)
+            }
+    }
+}
+
 @Composable
 fun InitialsText(text: String) {
     Text(
@@ -84,15 +133,6 @@ fun InitialsText(text: String) {
     )
 }
 
-@Composable
-fun LoadingIndicator() {
-    CircularProgressIndicator(
-        modifier = Modifier.size(24.dp),
-        color = MaterialTheme.colorScheme.onPrimary,
-        strokeWidth = 2.dp
-    )
-}
-
 /**
  * Generates a background color from the issuer and account name.
  */
@@ -110,4 +150,3 @@ private fun getInitials(text: String): String {
         .take(2)
         .joinToString("") { it.first().uppercaseChar().toString() }
 }
-
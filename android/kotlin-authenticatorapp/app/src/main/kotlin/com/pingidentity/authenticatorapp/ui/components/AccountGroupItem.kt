@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -50,35 +50,43 @@ import com.pingidentity.authenticatorapp.data.getLockMessage
 import com.pingidentity.mfa.oath.OathCodeInfo
 import com.pingidentity.mfa.oath.OathType
 
+/**
+ * Size of the avatar of an account group item.
+ */
+val AccountGroupAvatarSize = 48.dp
+
 /**
  * Composable for displaying an account group item with OATH and Push credentials.
+ * The TOTP countdown is drawn from [countdownClock] without recomposing the item, which only
+ * recomposes when its account group or its code changes.
  *
  * @param accountGroup The account group containing OATH and Push credentials.
- * @param codes Map of OATH code information keyed by credential ID.
+ * @param code The code of the first OATH credential of the group, if generated.
  * @param onRefreshCode Callback to refresh the OATH code for a given credential ID.
  * @param onItemClick Callback when the item is clicked.
  * @param onCopyToClipboard Callback to copy text to clipboard.
  * @param copyOtpEnabled Whether OTP copying on tap is enabled.
  * @param tapToRevealEnabled Whether tap-to-reveal is enabled.
+ * @param countdownClock Clock driving the TOTP countdown.
  * @param modifier Modifier to apply to the composable.
  */
 @Composable
 fun AccountGroupItem(
     accountGroup: AccountGroup,
-    codes: Map<String, OathCodeInfo>,
+    code: OathCodeInfo?,
     onRefreshCode: (String) -> Unit,
     onItemClick: () -> Unit,
     onCopyToClipboard: (String, String) -> Unit = { _, _ -> },
     copyOtpEnabled: Boolean = false,
     tapToRevealEnabled: Boolean = false,
-    currentTimeMillis: Long = System.currentTimeMillis(),
+    countdownClock: CountdownClock,
     modifier: Modifier = Modifier
 ) {
     LocalContext.current
 
     // Find the first TOTP code to display if available
     val firstOathCredential = accountGroup.oathCredentials.firstOrNull()
-    val firstOathCode = firstOathCredential?.let { codes[it.id] }
+    val firstOathCode = code.takeIf { firstOathCredential != null }
     
     // State for tap-to-reveal functionality
     // Reset revealed state when credential is unlocked or code changes
@@ -86,31 +94,8 @@ fun AccountGroupItem(
         mutableStateOf(!tapToRevealEnabled || (firstOathCredential?.isLocked == false && firstOathCode != null)) 
     }
 
-    val progress = if (firstOathCode != null && firstOathCredential != null && firstOathCredential.oathType == OathType.TOTP) {
-        // Calculate real-time progress based on current time and credential period
-        val currentTimeSeconds = currentTimeMillis / 1000L
-        val periodSeconds = firstOathCredential.period.toLong()
-        if (periodSeconds > 0) {
-            val timeIntoCurrentPeriod = currentTimeSeconds % periodSeconds
-            val progressValue = timeIntoCurrentPeriod.toFloat() / periodSeconds.toFloat()
-            progressValue
-        } else {
-            0f
-        }
-    } else {
-        0f
-    }
-
-    val hasOathCredentials = accountGroup.oathCredentials.isNotEmpty()
-    val hasPushCredentials = accountGroup.pushCredentials.isNotEmpty()
-
-    // Determine which image URL to use (use OATH first if available, otherwise Push)
-    val imageUrl = when {
-        firstOathCredential?.imageURL != null -> firstOathCredential.imageURL
-        accountGroup.pushCredentials.firstOrNull()?.imageURL != null ->
-            accountGroup.pushCredentials.first().imageURL
-        else -> null
-    }
+    val hasOathCredentials = accountGroup.hasOathCredentials
+    val hasPushCredentials = accountGroup.hasPushCredentials
 
     Card(
         modifier = modifier
@@ -137,8 +122,8 @@ fun AccountGroupItem(
                 AccountAvatar(
                     issuer = accountGroup.displayIssuer,
                     accountName = accountGroup.displayAccountName,
-                    imageUrl = imageUrl,
-                    size = 48.dp
+                    imageUrl = accountGroup.imageUrl,
+                    size = AccountGroupAvatarSize
                 )
 
                 Spacer(modifier = Modifier.width(16.dp))
@@ -249,9 +234,10 @@ fun AccountGroupItem(
                                 )
 
                                 if (firstOathCredential.oathType == OathType.TOTP) {
-                                    // Progress indicator for TOTP
+                                    // Countdown for TOTP, the clock is only read while drawing
+                                    val periodSeconds = firstOathCredential.period
                                     LinearProgressIndicator(
-                                        progress = { 1f - progress },  // Reverse progress (countdown)
+                                        progress = { countdownClock.remainingFraction(periodSeconds) },
                                         modifier = Modifier
                                             .width(80.dp)
                                             .padding(top = 4.dp),
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.ui.components
+
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.Stable
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableLongStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.setValue
+import androidx.compose.runtime.withFrameMillis
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+
+/**
+ * Clock shared by the TOTP countdowns of a screen, ticking on the frames of the UI.
+ *
+ * The time must only be read in the draw phase, for instance from a `drawBehind` block or the
+ * progress lambda of a progress indicator, so a tick only redraws the countdowns and never
+ * recomposes the rows showing them.
+ */
+@Stable
+class CountdownClock internal constructor(initialTimeMillis: Long) {
+
+    /**
+     * Wall clock time of the last tick, in milliseconds.
+     */
+    var currentTimeMillis by mutableLongStateOf(initialTimeMillis)
+        internal set
+
+    /**
+     * Returns the fraction of the current TOTP period left, from 1 at the start of the period to 0 at its end.
+     *
+     * @param periodSeconds Period of the TOTP credential
+     */
+    fun remainingFraction(periodSeconds: Int): Float {
+        val periodMillis = periodSeconds * 1000L
+        if (periodMillis <= 0) return 0f
+        return 1f - (currentTimeMillis % periodMillis).toFloat() / periodMillis
+    }
+}
+
+/**
+ * Creates a [CountdownClock] ticking while it is in the composition.
+ * Each tick is aligned on a frame, and ticks are [tickMillis] apart, or on every frame if it is 0.
+ *
+ * @param tickMillis Time between two ticks, in milliseconds
+ */
+@Composable
+fun rememberCountdownClock(tickMillis: Long = 1000L): CountdownClock {
+    val clock = remember { CountdownClock(System.currentTimeMillis()) }
+    LaunchedEffect(clock, tickMillis) {
+        while (isActive) {
+            withFrameMillis { clock.currentTimeMillis = System.currentTimeMillis() }
+            if (tickMillis > 0) {
+                // Sleep until the next tick boundary instead of waking up on every frame
+                delay(tickMillis - System.currentTimeMillis() % tickMillis)
+            }
+        }
+    }
+    return clock
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -20,6 +20,7 @@ import androidx.compose.foundation.layout.width
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Delete
+import androidx.compose.material.icons.filled.DragHandle
 import androidx.compose.material.icons.filled.Edit
 import androidx.compose.material.icons.filled.KeyboardArrowDown
 import androidx.compose.material.icons.filled.KeyboardArrowUp
@@ -42,6 +43,7 @@ import com.pingidentity.authenticatorapp.data.AccountGroup
 /**
  * Composable that displays an editable account item with avatar, issuer, account name,
  * credential counts, and buttons for edit, delete, and reorder (move up/down).
+ * The account can also be reordered by dragging its handle, see [reorderDragHandle].
  *
  * @param accountGroup The AccountGroup to display.
  * @param onDeleteClick Callback when the delete button is clicked.
@@ -50,6 +52,9 @@ import com.pingidentity.authenticatorapp.data.AccountGroup
  * @param onMoveDown Callback when the move down button is clicked.
  * @param canMoveUp Whether the account can be moved up (not the first item).
  * @param canMoveDown Whether the account can be moved down (not the last item).
+ * @param isDragged Whether the account is being dragged.
+ * @param modifier Optional modifier to apply to the item.
+ * @param dragHandleModifier Modifier applied to the drag handle, to start dragging the item.
  */
 @Composable
 fun EditableAccountItem(
@@ -59,10 +64,14 @@ fun EditableAccountItem(
     onMoveUp: () -> Unit,
     onMoveDown: () -> Unit,
     canMoveUp: Boolean,
-    canMoveDown: Boolean
+    canMoveDown: Boolean,
+    isDragged: Boolean = false,
+    modifier: Modifier = Modifier,
+    dragHandleModifier: Modifier = Modifier
 ) {
     Card(
-        modifier = Modifier.fillMaxWidth(),
+        modifier = modifier.fillMaxWidth(),
+        elevation = CardDefaults.cardElevation(defaultElevation = if (isDragged) 8.dp else 0.dp),
         colors = CardDefaults.cardColors(
             containerColor = if (accountGroup.isLocked) 
                 MaterialTheme.colorScheme.surfaceVariant.copy(alpha = 0.3f) 
@@ -76,6 +85,16 @@ fun EditableAccountItem(
                 .padding(16.dp),
             verticalAlignment = Alignment.CenterVertically
         ) {
+            // Drag handle
+            Icon(
+                imageVector = Icons.Default.DragHandle,
+                contentDescription = "Drag to reorder",
+                tint = MaterialTheme.colorScheme.onSurfaceVariant,
+                modifier = dragHandleModifier
+                    .padding(end = 8.dp)
+                    .size(24.dp)
+            )
+
             // Reorder controls
             Column(
                 horizontalAlignment = Alignment.CenterHorizontally,
@@ -109,13 +128,10 @@ fun EditableAccountItem(
             Spacer(modifier = Modifier.width(8.dp))
 
             // Account avatar
-            val imageUrl = accountGroup.oathCredentials.firstOrNull()?.imageURL
-                ?: accountGroup.pushCredentials.firstOrNull()?.imageURL
-
             AccountAvatar(
                 issuer = accountGroup.displayIssuer,
                 accountName = accountGroup.displayAccountName,
-                imageUrl = imageUrl,
+                imageUrl = accountGroup.imageUrl,
                 size = 48.dp
             )
 
@@ -138,8 +154,8 @@ fun EditableAccountItem(
                 )
 
                 // Show credential counts
-                val oathCount = accountGroup.oathCredentials.size
-                val pushCount = accountGroup.pushCredentials.size
+                val oathCount = accountGroup.oathCredentialIds.size
+                val pushCount = accountGroup.pushCredentialIds.size
                 val credentialInfo = buildString {
                     if (oathCount > 0) append("$oathCount OATH")
                     if (oathCount > 0 && pushCount > 0) append(", ")
@@ -174,30 +190,33 @@ fun EditableAccountItem(
                 }
             }
 
-            // Edit button - disabled for locked accounts
+            // Edit and delete are disabled for locked accounts, and until the credentials are loaded
+            val isEditable = !accountGroup.isLocked && !accountGroup.isReadOnly
+
+            // Edit button
             IconButton(
                 onClick = onEditClick,
-                enabled = !accountGroup.isLocked
+                enabled = isEditable
             ) {
                 Icon(
                     imageVector = Icons.Default.Edit,
                     contentDescription = "Edit Account",
-                    tint = if (accountGroup.isLocked) 
+                    tint = if (!isEditable) 
                         MaterialTheme.colorScheme.onSurface.copy(alpha = 0.3f) 
                     else 
                         MaterialTheme.colorScheme.primary
                 )
             }
 
-            // Delete button - disabled for locked accounts
+            // Delete button
             IconButton(
                 onClick = onDeleteClick,
-                enabled = !accountGroup.isLocked
+                enabled = isEditable
             ) {
                 Icon(
                     imageVector = Icons.Default.Delete,
                     contentDescription = "Delete Account",
-                    tint = if (accountGroup.isLocked) 
+                    tint = if (!isEditable) 
                         MaterialTheme.colorScheme.onSurface.copy(alpha = 0.3f) 
                     else 
                         MaterialTheme.colorScheme.error
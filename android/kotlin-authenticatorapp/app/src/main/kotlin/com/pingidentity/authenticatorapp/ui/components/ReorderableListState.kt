@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.ui.components
+
+import androidx.compose.foundation.gestures.detectDragGestures
+import androidx.compose.foundation.gestures.scrollBy
+import androidx.compose.foundation.lazy.LazyListItemInfo
+import androidx.compose.foundation.lazy.LazyListState
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.Stable
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableFloatStateOf
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberUpdatedState
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.graphics.graphicsLayer
+import androidx.compose.ui.input.pointer.pointerInput
+import androidx.compose.ui.zIndex
+import kotlinx.coroutines.channels.Channel
+
+/**
+ * Height of the areas at the edges of the list where dragging an item scrolls the list,
+ * as a fraction of the height of the list.
+ */
+private const val AUTO_SCROLL_EDGE_FRACTION = 0.1f
+
+/**
+ * State of a lazy list whose items are reordered by dragging them.
+ *
+ * The dragged item follows the pointer, and [onMove] is called each time it crosses another item,
+ * so the caller can move it in its in-memory list. [onDragEnd] is called once the gesture ends,
+ * to persist the final order with a single write.
+ */
+@Stable
+class ReorderableListState internal constructor(
+    val listState: LazyListState,
+    private val onMove: (from: Int, to: Int) -> Unit,
+    private val onDragEnd: () -> Unit
+) {
+
+    /**
+     * Key of the item being dragged, or null if no item is dragged.
+     */
+    var draggedItemKey by mutableStateOf<Any?>(null)
+        private set
+
+    // Layout offset of the dragged item when the gesture started, and distance dragged since then
+    private var initialOffset by mutableFloatStateOf(0f)
+    private var draggedDistance by mutableFloatStateOf(0f)
+
+    // Index the dragged item was moved to, until the list is laid out with the item there
+    private var movedToIndex: Int? = null
+
+    internal val scrollRequests = Channel<Float>(Channel.CONFLATED)
+
+    private val draggedItem: LazyListItemInfo?
+        get() = listState.layoutInfo.visibleItemsInfo.firstOrNull { it.key == draggedItemKey }
+
+    /**
+     * Returns the vertical translation of the item with the given key, so the dragged item
+     * stays under the pointer while the list is laid out with the item at its current position.
+     */
+    fun translationOf(key: Any): Float {
+        if (key != draggedItemKey) return 0f
+        val item = draggedItem ?: return 0f
+        return initialOffset + draggedDistance - item.offset
+    }
+
+    internal fun startDrag(key: Any) {
+        val item = listState.layoutInfo.visibleItemsInfo.firstOrNull { it.key == key } ?: return
+        draggedItemKey = key
+        initialOffset = item.offset.toFloat()
+        draggedDistance = 0f
+        movedToIndex = null
+    }
+
+    internal fun drag(distance: Float) {
+        draggedDistance += distance
+        val item = draggedItem ?: return
+        if (movedToIndex != null && movedToIndex != item.index) return
+        movedToIndex = null
+
+        val start = item.offset + translationOf(item.key)
+        val middle = start + item.size / 2f
+        val target = listState.layoutInfo.visibleItemsInfo.firstOrNull {
+            it.index != item.index && middle.toInt() in it.offset..(it.offset + it.size)
+        }
+        if (target != null) {
+            // Keep the first visible item in place, the list would otherwise scroll along with the moved item
+            if (item.index == listState.firstVisibleItemIndex || target.index == listState.firstVisibleItemIndex) {
+                listState.requestScrollToItem(
+                    listState.firstVisibleItemIndex,
+                    listState.firstVisibleItemScrollOffset
+                )
+            }
+            onMove(item.index, target.index)
+            movedToIndex = target.index
+        } else {
+            val layoutInfo = listState.layoutInfo
+            val edge = (layoutInfo.viewportEndOffset - layoutInfo.viewportStartOffset) * AUTO_SCROLL_EDGE_FRACTION
+            val overStart = start - (layoutInfo.viewportStartOffset + edge)
+            val overEnd = start + item.size - (layoutInfo.viewportEndOffset - edge)
+            when {
+                distance < 0 && overStart < 0 -> scrollRequests.trySend(overStart)
+                distance > 0 && overEnd > 0 -> scrollRequests.trySend(overEnd)
+            }
+        }
+    }
+
+    internal fun endDrag() {
+        if (draggedItemKey == null) return
+        draggedItemKey = null
+        draggedDistance = 0f
+        movedToIndex = null
+        onDragEnd()
+    }
+}
+
+/**
+ * Creates a [ReorderableListState] for the given list state.
+ *
+ * @param listState State of the lazy list showing the items
+ * @param onMove Moves the item at index `from` to index `to` of the in-memory list
+ * @param onDragEnd Called once when a drag gesture ends, to persist the order
+ */
+@Composable
+fun rememberReorderableListState(
+    listState: LazyListState,
+    onMove: (from: Int, to: Int) -> Unit,
+    onDragEnd: () -> Unit
+): ReorderableListState {
+    val currentOnMove by rememberUpdatedState(onMove)
+    val currentOnDragEnd by rememberUpdatedState(onDragEnd)
+    val state = remember(listState) {
+        ReorderableListState(
+            listState = listState,
+            onMove = { from, to -> currentOnMove(from, to) },
+            onDragEnd = { currentOnDragEnd() }
+        )
+    }
+    LaunchedEffect(state) {
+        for (distance in state.scrollRequests) {
+            listState.scrollBy(distance)
+        }
+    }
+    return state
+}
+
+/**
+ * Draws the item with the given key at its dragged position, above the other items.
+ * Apply it to the root of each item of the list.
+ */
+fun Modifier.reorderableItem(state: ReorderableListState, key: Any): Modifier {
+    return this
+        .zIndex(if (key == state.draggedItemKey) 1f else 0f)
+        .graphicsLayer { translationY = state.translationOf(key) }
+}
+
+/**
+ * Starts dragging the item with the given key when this element, usually a drag handle, is dragged.
+ *
+ * @param onDragStarted Called when the gesture starts, for instance to give haptic feedback
+ */
+fun Modifier.reorderDragHandle(
+    state: ReorderableListState,
+    key: Any,
+    onDragStarted: () -> Unit = {}
+): Modifier {
+    return pointerInput(state, key) {
+        detectDragGestures(
+            onDragStart = {
+                state.startDrag(key)
+                onDragStarted()
+            },
+            onDragEnd = { state.endDrag() },
+            onDragCancel = { state.endDrag() },
+            onDrag = { change, dragAmount ->
+                change.consume()
+                state.drag(dragAmount.y)
+            }
+        )
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.util
+
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.ProcessLifecycleOwner
+
+/**
+ * Tracks whether the app is in the foreground from the process lifecycle,
+ * so callers can check it without querying the ActivityManager.
+ */
+object AppForegroundTracker : DefaultLifecycleObserver {
+
+    /**
+     * Whether an activity of the app is currently started.
+     */
+    @Volatile
+    var isInForeground: Boolean = false
+        private set
+
+    /**
+     * Starts tracking the process lifecycle. Must be called on the main thread.
+     */
+    fun register() {
+        ProcessLifecycleOwner.get().lifecycle.addObserver(this)
+    }
+
+    override fun onStart(owner: LifecycleOwner) {
+        isInForeground = true
+    }
+
+    override fun onStop(owner: LifecycleOwner) {
+        isInForeground = false
+    }
+}
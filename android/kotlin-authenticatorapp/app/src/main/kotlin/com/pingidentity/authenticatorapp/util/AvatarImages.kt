@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.util
+
+import android.content.Context
+import coil.ImageLoader
+import coil.disk.DiskCache
+import coil.imageLoader
+import coil.memory.MemoryCache
+import coil.request.ImageRequest
+import coil.size.Scale
+
+/**
+ * Image pipeline of the account avatars, shared by the whole app.
+ *
+ * Logos are downloaded once into a disk cache keyed by URL, and decoded to the size of the avatar
+ * showing them. The decoded bitmaps are kept in a memory cache keyed by URL and size, so prefetched
+ * logos are found by the avatars of the same size without decoding them again.
+ */
+object AvatarImages {
+
+    // Share of the app memory used by the decoded bitmaps
+    private const val MEMORY_CACHE_PERCENT = 0.15
+    private const val DISK_CACHE_DIRECTORY = "avatar_images"
+    private const val DISK_CACHE_SIZE_BYTES = 20L * 1024 * 1024
+
+    /**
+     * Creates the image loader shared by the app, see [coil.ImageLoaderFactory].
+     */
+    fun newImageLoader(context: Context): ImageLoader {
+        return ImageLoader.Builder(context)
+            .memoryCache {
+                MemoryCache.Builder(context)
+                    .maxSizePercent(MEMORY_CACHE_PERCENT)
+                    .build()
+            }
+            .diskCache {
+                DiskCache.Builder()
+                    .directory(context.cacheDir.resolve(DISK_CACHE_DIRECTORY))
+                    .maxSizeBytes(DISK_CACHE_SIZE_BYTES)
+                    .build()
+            }
+            // Issuer logos rarely change, keep them even if the server asks not to cache them
+            .respectCacheHeaders(false)
+            .crossfade(true)
+            .build()
+    }
+
+    /**
+     * Creates the request loading a logo decoded to the size of an avatar.
+     *
+     * @param context Context of the request
+     * @param imageUrl URL of the logo
+     * @param sizePx Size of the avatar in pixels
+     */
+    fun request(context: Context, imageUrl: String, sizePx: Int): ImageRequest {
+        return ImageRequest.Builder(context)
+            .data(imageUrl)
+            .size(sizePx)
+            .scale(Scale.FILL)
+            .memoryCacheKey(memoryCacheKey(imageUrl, sizePx))
+            .build()
+    }
+
+    /**
+     * Loads the given logos into the caches, decoded to the size of an avatar.
+     * Logos already in the memory cache are skipped.
+     *
+     * @param context Any context of the application
+     * @param imageUrls URLs of the logos
+     * @param sizePx Size of the avatars in pixels
+     */
+    fun prefetch(context: Context, imageUrls: Collection<String>, sizePx: Int) {
+        val imageLoader = context.imageLoader
+        imageUrls.forEach { imageUrl ->
+            val key = MemoryCache.Key(memoryCacheKey(imageUrl, sizePx))
+            if (imageLoader.memoryCache?.get(key) == null) {
+                imageLoader.enqueue(request(context, imageUrl, sizePx))
+            }
+        }
+    }
+
+    private fun memoryCacheKey(imageUrl: String, sizePx: Int): String = "$imageUrl#$sizePx"
+}
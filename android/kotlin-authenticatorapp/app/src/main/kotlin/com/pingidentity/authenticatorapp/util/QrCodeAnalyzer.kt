@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2025 Ping Identity Corporation. All rights reserved.
+ * Copyright (c) 2025-2026 Ping Identity Corporation. All rights reserved.
  *
  * This software may be modified and distributed under the terms
  * of the MIT license. See the LICENSE file for details.
@@ -7,69 +7,88 @@
 
 package com.pingidentity.authenticatorapp.util
 
-import androidx.annotation.OptIn
-import android.annotation.SuppressLint
-import androidx.camera.core.ExperimentalGetImage
+import android.os.SystemClock
 import androidx.camera.core.ImageAnalysis
 import androidx.camera.core.ImageProxy
+import com.google.mlkit.vision.barcode.BarcodeScanner
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions
 import com.google.mlkit.vision.barcode.BarcodeScanning
 import com.google.mlkit.vision.barcode.common.Barcode
-import com.google.mlkit.vision.common.InputImage
-import com.pingidentity.mfa.commons.UriScheme
-import java.util.concurrent.TimeUnit
+import com.pingidentity.authenticatorapp.data.DiagnosticLogger
+import java.util.concurrent.atomic.AtomicBoolean
 
 /**
  * Analyzes camera images to detect and decode QR codes.
- * 
+ *
+ * Only the region of interest of a frame is scanned (see [QrFrameCropper]), and frames are skipped
+ * based on the measured scanner latency (see [QrScanThrottle]). The camera frame is released as soon
+ * as it is cropped, and frames delivered while a scan is in progress are dropped, so only the latest
+ * frame is ever scanned. A payload is reported once while it stays in view.
+ *
  * @param onQrCodeDetected Callback that will be invoked when a QR code is successfully scanned
+ * @param throttle Policy deciding which frames are scanned and which payloads are reported
+ * @param frameCropper Extracts the region of interest of the frames
+ * @param scanner Barcode scanner, restricted to QR codes
+ * @param clock Source of the current time in milliseconds
  */
-class QrCodeAnalyzer(private val onQrCodeDetected: (String) -> Unit) : ImageAnalysis.Analyzer {
-    
-    private val scanner = BarcodeScanning.getClient()
-    
-    // Track when we last detected a QR code to avoid duplicate scans
-    private var lastAnalyzedTimestamp = 0L
-    
-    @SuppressLint("UnsafeOptInUsageError")
-    @OptIn(ExperimentalGetImage::class)
+class QrCodeAnalyzer(
+    private val throttle: QrScanThrottle = QrScanThrottle(),
+    private val frameCropper: QrFrameCropper = QrFrameCropper(),
+    private val scanner: BarcodeScanner = createScanner(),
+    private val clock: () -> Long = SystemClock::elapsedRealtime,
+    private val onQrCodeDetected: (String) -> Unit
+) : ImageAnalysis.Analyzer {
+
+    companion object {
+        /**
+         * Creates a barcode scanner that only looks for QR codes.
+         */
+        fun createScanner(): BarcodeScanner = BarcodeScanning.getClient(
+            BarcodeScannerOptions.Builder()
+                .setBarcodeFormats(Barcode.FORMAT_QR_CODE)
+                .build()
+        )
+    }
+
+    private val isScanning = AtomicBoolean(false)
+
     override fun analyze(imageProxy: ImageProxy) {
-        val currentTimestamp = System.currentTimeMillis()
-        
-        // Only analyze if enough time has passed since the last detection
-        // to avoid multiple rapid scans of the same code
-        if (currentTimestamp - lastAnalyzedTimestamp >= TimeUnit.SECONDS.toMillis(1)) {
-            imageProxy.image?.let { image ->
-                val inputImage = InputImage.fromMediaImage(image, imageProxy.imageInfo.rotationDegrees)
-                
-                scanner.process(inputImage)
-                    .addOnSuccessListener { barcodes ->
-                        // Process QR codes and find the first valid barcode
-                        val foundQrCode = barcodes.find { barcode ->
-                            barcode.format == Barcode.FORMAT_QR_CODE && 
-                            barcode.rawValue != null && (
-                                barcode.rawValue?.startsWith(UriScheme.OTPAUTH.value) == true ||
-                                barcode.rawValue?.startsWith(UriScheme.PUSHAUTH.value) == true ||
-                                barcode.rawValue?.startsWith(UriScheme.MFAUTH.value) == true
-                            )
-                        }
-                        
-                        // If we found a matching QR code, process it
-                        foundQrCode?.rawValue?.let { qrContent ->
-                            lastAnalyzedTimestamp = currentTimestamp
-                            onQrCodeDetected(qrContent)
-                        }
-                    }
-                    .addOnFailureListener { exception ->
-                        // Handle any errors during scanning
-                        exception.printStackTrace()
-                    }
-                    .addOnCompleteListener {
-                        // Close the image when done with analysis regardless of success or failure
-                        imageProxy.close()
-                    }
-            } ?: imageProxy.close()
-        } else {
+        val startTime = clock()
+        if (isScanning.get() || !throttle.shouldAnalyze(startTime)) {
             imageProxy.close()
+            return
         }
+
+        val inputImage = try {
+            imageProxy.use { frameCropper.crop(it) }
+        } catch (e: Exception) {
+            DiagnosticLogger.w("QrCodeAnalyzer: Failed to read camera frame", e)
+            return
+        }
+
+        isScanning.set(true)
+        scanner.process(inputImage)
+            .addOnSuccessListener { barcodes ->
+                val payload = barcodes.firstNotNullOfOrNull { barcode ->
+                    barcode.rawValue?.takeIf { QrScanThrottle.isSupportedPayload(it) }
+                }
+                if (payload != null && throttle.accept(payload, clock())) {
+                    onQrCodeDetected(payload)
+                }
+            }
+            .addOnFailureListener { exception ->
+                DiagnosticLogger.w("QrCodeAnalyzer: Failed to scan frame", exception)
+            }
+            .addOnCompleteListener {
+                throttle.onFrameAnalyzed(startTime, clock())
+                isScanning.set(false)
+            }
+    }
+
+    /**
+     * Releases the barcode scanner.
+     */
+    fun close() {
+        scanner.close()
     }
 }
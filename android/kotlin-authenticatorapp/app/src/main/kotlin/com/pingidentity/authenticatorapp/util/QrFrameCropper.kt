@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.util
+
+import androidx.camera.core.ImageProxy
+import com.google.mlkit.vision.common.InputImage
+import java.nio.ByteBuffer
+import kotlin.math.ceil
+import kotlin.math.min
+
+/**
+ * Extracts the region of interest of a camera frame for the barcode scanner.
+ *
+ * Only the centered square covering [roiFraction] of the shorter side is kept, downsampled so
+ * that its side is at most [maxAnalysisSize] pixels. QR codes only need the luminance, so the
+ * chroma of the NV21 output is left neutral. The output buffer is reused between frames:
+ * an image must be fully processed before the next one is cropped.
+ *
+ * @param roiFraction Side of the region of interest, as a fraction of the shorter side of the frame
+ * @param maxAnalysisSize Maximum side of the image sent to the scanner, in pixels
+ */
+class QrFrameCropper(
+    private val roiFraction: Float = DEFAULT_ROI_FRACTION,
+    private val maxAnalysisSize: Int = DEFAULT_MAX_ANALYSIS_SIZE
+) {
+
+    companion object {
+        const val DEFAULT_ROI_FRACTION = 0.7f
+        const val DEFAULT_MAX_ANALYSIS_SIZE = 480
+
+        private const val NEUTRAL_CHROMA: Byte = -128 // 0x80
+    }
+
+    private var buffer = ByteArray(0)
+
+    /**
+     * Crops a YUV_420_888 camera frame. The frame can be closed as soon as this returns.
+     */
+    fun crop(image: ImageProxy): InputImage {
+        val luma = image.planes[0]
+        return crop(
+            luma.buffer,
+            luma.rowStride,
+            luma.pixelStride,
+            image.width,
+            image.height,
+            image.imageInfo.rotationDegrees
+        )
+    }
+
+    /**
+     * Crops a frame given as a luminance plane.
+     *
+     * @param luma Luminance plane of the frame
+     * @param rowStride Distance between two rows of the plane, in bytes
+     * @param pixelStride Distance between two pixels of a row, in bytes
+     * @param width Width of the frame, in pixels
+     * @param height Height of the frame, in pixels
+     * @param rotationDegrees Rotation to apply to the frame to display it upright
+     */
+    fun crop(
+        luma: ByteBuffer,
+        rowStride: Int,
+        pixelStride: Int,
+        width: Int,
+        height: Int,
+        rotationDegrees: Int
+    ): InputImage {
+        val roiSide = (min(width, height) * roiFraction).toInt()
+        val step = ceil(roiSide / maxAnalysisSize.toFloat()).toInt().coerceAtLeast(1)
+        // NV21 requires even dimensions
+        val size = (roiSide / step) and 1.inv()
+        val left = (width - size * step) / 2
+        val top = (height - size * step) / 2
+
+        val lumaSize = size * size
+        val frameSize = lumaSize + lumaSize / 2
+        if (buffer.size != frameSize) {
+            buffer = ByteArray(frameSize)
+            buffer.fill(NEUTRAL_CHROMA, lumaSize, frameSize)
+        }
+
+        val source = luma.duplicate()
+        for (row in 0 until size) {
+            val rowStart = (top + row * step) * rowStride + left * pixelStride
+            val offset = row * size
+            if (step == 1 && pixelStride == 1) {
+                source.position(rowStart)
+                source.get(buffer, offset, size)
+            } else {
+                val columnStride = step * pixelStride
+                for (column in 0 until size) {
+                    buffer[offset + column] = source.get(rowStart + column * columnStride)
+                }
+            }
+        }
+        return InputImage.fromByteArray(buffer, size, size, rotationDegrees, InputImage.IMAGE_FORMAT_NV21)
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.util
+
+import com.pingidentity.mfa.commons.UriScheme
+
+/**
+ * Decides which camera frames are sent to the barcode scanner and which decoded payloads are reported.
+ *
+ * Frames are skipped based on the measured scanner latency, so the scanner is busy at most
+ * [maxBusyRatio] of the time whatever the speed of the device. A payload is reported once,
+ * and again only after it has been out of sight for [duplicateWindowMs].
+ * Times are given by the caller, so recorded frames can be replayed offline.
+ *
+ * @param maxBusyRatio Maximum share of the time spent scanning, between 0 (exclusive) and 1
+ * @param duplicateWindowMs Time during which a payload already reported is ignored
+ */
+class QrScanThrottle(
+    private val maxBusyRatio: Double = DEFAULT_MAX_BUSY_RATIO,
+    private val duplicateWindowMs: Long = DEFAULT_DUPLICATE_WINDOW_MS
+) {
+
+    companion object {
+        const val DEFAULT_MAX_BUSY_RATIO = 0.5
+        const val DEFAULT_DUPLICATE_WINDOW_MS = 2_000L
+
+        // Weight of the latest frame in the average latency
+        private const val LATENCY_SMOOTHING = 0.2
+
+        private val supportedPrefixes = listOf(UriScheme.OTPAUTH, UriScheme.PUSHAUTH, UriScheme.MFAUTH).map { it.value }
+
+        /**
+         * Whether the payload is an OATH, Push or MFA registration URI.
+         */
+        fun isSupportedPayload(payload: String): Boolean = supportedPrefixes.any { payload.startsWith(it) }
+    }
+
+    init {
+        require(maxBusyRatio > 0 && maxBusyRatio <= 1) { "maxBusyRatio must be in (0, 1]" }
+    }
+
+    private var nextFrameAt = 0L
+    private var lastPayload: String? = null
+    private var lastPayloadSeenAt = 0L
+
+    /**
+     * Average time taken to scan a frame, in milliseconds.
+     */
+    @get:Synchronized
+    var averageLatencyMs = 0.0
+        private set
+
+    /**
+     * Whether the frame captured at [nowMs] should be scanned.
+     */
+    @Synchronized
+    fun shouldAnalyze(nowMs: Long): Boolean = nowMs >= nextFrameAt
+
+    /**
+     * Records the time taken to scan a frame, and skips the following frames accordingly.
+     */
+    @Synchronized
+    fun onFrameAnalyzed(startMs: Long, endMs: Long) {
+        val latency = (endMs - startMs).coerceAtLeast(0)
+        averageLatencyMs = if (averageLatencyMs == 0.0) {
+            latency.toDouble()
+        } else {
+            averageLatencyMs + LATENCY_SMOOTHING * (latency - averageLatencyMs)
+        }
+        // Stay idle long enough for the scanner to be busy at most maxBusyRatio of the time
+        nextFrameAt = endMs + (averageLatencyMs * (1 / maxBusyRatio - 1)).toLong()
+    }
+
+    /**
+     * Returns whether a payload decoded at [nowMs] should be reported, dropping repeated payloads.
+     */
+    @Synchronized
+    fun accept(payload: String, nowMs: Long): Boolean {
+        val isRepeated = payload == lastPayload && nowMs - lastPayloadSeenAt < duplicateWindowMs
+        lastPayload = payload
+        lastPayloadSeenAt = nowMs
+        return !isRepeated
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.ByteArrayOutputStream
+
+class DiagnosticLogFileSinkTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private var nextId = 0L
+
+    private fun entry(message: String) = LogEntry(id = nextId++, timeMillis = 0L, level = "INFO", message = message)
+
+    private fun TestScope.startedSink(maxFileBytes: Long = 512 * 1024L, maxFiles: Int = 4) =
+        DiagnosticLogFileSink(temporaryFolder.root, maxFileBytes, maxFiles).also { it.start(backgroundScope) }
+
+    private fun DiagnosticLogFileSink.content(): String =
+        ByteArrayOutputStream().also { copyTo(it) }.toString(Charsets.UTF_8.name())
+
+    @Test
+    fun flushedEntriesAreCopiedOldestFirst() = runTest {
+        val sink = startedSink()
+
+        listOf("first", "second", "third").forEach { sink.offer(entry(it)) }
+        sink.flush()
+
+        val content = sink.content()
+        assertTrue(content.indexOf("first") < content.indexOf("second"))
+        assertTrue(content.indexOf("second") < content.indexOf("third"))
+    }
+
+    @Test
+    fun rolloverKeepsTheMostRecentFiles() = runTest {
+        val sink = startedSink(maxFileBytes = 200, maxFiles = 3)
+
+        repeat(100) { sink.offer(entry("message-$it.")) }
+        sink.flush()
+
+        assertEquals(3, sink.logFiles().size)
+        val content = sink.content()
+        assertFalse(content.contains("message-0."))
+        assertTrue(content.trimEnd().endsWith("message-99."))
+    }
+
+    @Test
+    fun clearDeletesTheLogFiles() = runTest {
+        val sink = startedSink()
+        sink.offer(entry("before"))
+        sink.flush()
+
+        sink.clear()
+        sink.offer(entry("after"))
+        sink.flush()
+
+        assertEquals("after", sink.content().substringAfter(": ").trim())
+    }
+
+    @Test
+    fun closedSinkStopsItsWriterAndIgnoresNewEntries() = runTest {
+        val sink = DiagnosticLogFileSink(temporaryFolder.root)
+        val writer = sink.start(backgroundScope)
+        sink.offer(entry("before"))
+
+        sink.close()
+        sink.offer(entry("after"))
+        sink.flush()
+
+        assertTrue(writer.isCompleted)
+        val content = sink.content()
+        assertTrue(content.contains("before"))
+        assertFalse(content.contains("after"))
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Runs [coalescePerFrame] in virtual time, with upstream updates arriving faster or slower than a frame.
+ */
+class UiStateCoalescingTest {
+
+    /**
+     * A value emitted downstream, with the virtual time it was emitted at.
+     */
+    private data class Emission(val value: Int, val timeMillis: Long)
+
+    private fun updates(count: Int, intervalMillis: Long): Flow<Int> = flow {
+        repeat(count) { value ->
+            emit(value)
+            if (intervalMillis > 0) delay(intervalMillis)
+        }
+    }
+
+    private suspend fun TestScope.collect(upstream: Flow<Int>, counter: EmissionCounter): List<Emission> =
+        upstream.coalescePerFrame(counter)
+            .map { Emission(it, testScheduler.currentTime) }
+            .toList()
+
+    @Test
+    fun burstWithinAFrameEmitsTheFirstAndTheLatestValue() = runTest {
+        val counter = EmissionCounter()
+
+        val emissions = collect(updates(count = 100, intervalMillis = 0), counter)
+
+        assertEquals(listOf(Emission(0, 0), Emission(99, FRAME_INTERVAL_MS)), emissions)
+        assertEquals(100, counter.receivedCount)
+        assertEquals(2, counter.emittedCount)
+        assertEquals(98, counter.coalescedCount)
+    }
+
+    @Test
+    fun rapidUpdatesAreEmittedOncePerFrame() = runTest {
+        val counter = EmissionCounter()
+        val updateCount = 160
+
+        // One update per millisecond, for ten frames
+        val emissions = collect(updates(count = updateCount, intervalMillis = 1), counter)
+
+        // One emission at the start of each frame, and one for the updates of the last frame
+        val expectedTimes = (0..updateCount step FRAME_INTERVAL_MS.toInt()).map { it.toLong() }
+        assertEquals(expectedTimes, emissions.map { it.timeMillis })
+        emissions.zipWithNext().forEach { (previous, next) ->
+            // Each emission carries the latest update received during the frame
+            assertTrue(next.value > previous.value)
+            assertTrue(next.value >= next.timeMillis - 1)
+        }
+        assertEquals(updateCount - 1, emissions.last().value)
+        assertEquals(updateCount.toLong(), counter.receivedCount)
+        assertEquals(emissions.size.toLong(), counter.emittedCount)
+    }
+
+    @Test
+    fun updatesSlowerThanAFrameAreEmittedWithoutDelay() = runTest {
+        val counter = EmissionCounter()
+
+        val emissions = collect(updates(count = 5, intervalMillis = 50), counter)
+
+        assertEquals((0 until 5).map { Emission(it, it * 50L) }, emissions)
+        assertEquals(0, counter.coalescedCount)
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.data
+
+import androidx.datastore.core.CorruptionException
+import androidx.datastore.core.DataStore
+import com.pingidentity.logger.Logger
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+
+/**
+ * Loads the preferences from stores that fail to be read.
+ */
+class UserPreferencesTest {
+
+    private class FakeDataStore(override val data: Flow<PreferencesSnapshot>) : DataStore<PreferencesSnapshot> {
+        override suspend fun updateData(
+            transform: suspend (t: PreferencesSnapshot) -> PreferencesSnapshot
+        ): PreferencesSnapshot = transform(PreferencesSnapshot())
+    }
+
+    private class RecordingLogger : Logger {
+        val errors = mutableListOf<Throwable?>()
+
+        override fun d(message: String) = Unit
+
+        override fun i(message: String) = Unit
+
+        override fun w(message: String, throwable: Throwable?) = Unit
+
+        override fun e(message: String, throwable: Throwable?) {
+            errors += throwable
+        }
+    }
+
+    @Test
+    fun corruptStoreLoadsTheDefaults() = runTest {
+        val logger = RecordingLogger()
+        val error = CorruptionException("Cannot read the user preferences")
+        val userPreferences = UserPreferences(FakeDataStore(flow { throw error }), backgroundScope, logger)
+
+        assertEquals(PreferencesSnapshot(), userPreferences.load())
+        assertTrue(userPreferences.isLoaded.value)
+        assertEquals(listOf<Throwable?>(error), logger.errors)
+    }
+
+    @Test
+    fun storeFailingWithAnyErrorLoadsTheDefaults() = runTest {
+        val logger = RecordingLogger()
+        val error = IllegalStateException("Migration failed")
+        val userPreferences = UserPreferences(FakeDataStore(flow { throw error }), backgroundScope, logger)
+
+        assertEquals(PreferencesSnapshot(), userPreferences.load())
+        assertTrue(userPreferences.isLoaded.value)
+        assertEquals(ThemeMode.SYSTEM, userPreferences.themeModeFlow.value)
+        assertEquals(listOf<Throwable?>(error), logger.errors)
+    }
+
+    @Test
+    fun storeFailingAfterTheFirstReadKeepsThePreferencesRead() = runTest {
+        val logger = RecordingLogger()
+        val saved = PreferencesSnapshot(copyOtp = true, themeMode = ThemeMode.DARK)
+        val userPreferences = UserPreferences(
+            FakeDataStore(flow {
+                emit(saved)
+                throw IOException("Cannot read the file")
+            }),
+            backgroundScope,
+            logger
+        )
+
+        userPreferences.load()
+        testScheduler.advanceUntilIdle()
+
+        assertEquals(saved, userPreferences.preferences.value)
+        assertTrue(userPreferences.isCopyOtpEnabled())
+        assertEquals(ThemeMode.DARK, userPreferences.themeModeFlow.value)
+        assertEquals(1, logger.errors.size)
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.authenticatorapp.managers.SyntheticCredentials.accountNameOf
+import com.pingidentity.authenticatorapp.managers.SyntheticCredentials.issuerOf
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.system.measureNanoTime
+
+/**
+ * Grouping of 10,000 OATH credentials, four per account, and one Push credential per account.
+ */
+class AccountGroupingEngineTest {
+
+    companion object {
+        private const val CREDENTIAL_COUNT = 10_000
+        private const val CREDENTIALS_PER_ACCOUNT = 4
+        private const val ACCOUNT_COUNT = CREDENTIAL_COUNT / CREDENTIALS_PER_ACCOUNT
+
+        // Generous bounds, a grouping pass over 10k credentials takes a few milliseconds
+        private const val MAX_FULL_PASS_MILLIS = 250
+        private const val MAX_SINGLE_CHANGE_MILLIS = 50
+        private const val MEASURED_RUNS = 5
+    }
+
+    private val oathCredentials = SyntheticCredentials.oathCredentials(CREDENTIAL_COUNT, CREDENTIALS_PER_ACCOUNT)
+    private val pushCredentials = SyntheticCredentials.pushCredentials(ACCOUNT_COUNT)
+
+    // The first half of the accounts in reverse order, the other half has no saved position
+    private val accountOrder = (ACCOUNT_COUNT / 2 - 1 downTo 0).map { "${issuerOf(it)}-${accountNameOf(it)}" }
+    private val expectedAccountOrder = (ACCOUNT_COUNT / 2 - 1 downTo 0) + (ACCOUNT_COUNT / 2 until ACCOUNT_COUNT)
+
+    private fun groupedEngine() = AccountGroupingEngine().apply {
+        setAccountOrder(accountOrder)
+        update(oathCredentials, pushCredentials)
+    }
+
+    @Test
+    fun combinedGroupsFollowSavedOrderThenInsertionOrder() {
+        val groups = groupedEngine().build(shouldCombine = true)
+
+        assertEquals(ACCOUNT_COUNT, groups.size)
+        groups.forEachIndexed { index, group ->
+            val accountNumber = expectedAccountOrder[index]
+            assertEquals(issuerOf(accountNumber), group.issuer)
+            assertEquals(accountNameOf(accountNumber), group.accountName)
+            assertEquals(
+                List(CREDENTIALS_PER_ACCOUNT) { "synthetic-oath-${accountNumber * CREDENTIALS_PER_ACCOUNT + it}" },
+                group.oathCredentials.map { it.id }
+            )
+            assertEquals(listOf("synthetic-push-$accountNumber"), group.pushCredentials.map { it.id })
+        }
+    }
+
+    @Test
+    fun separateGroupsKeepTheCardsOfAnAccountTogether() {
+        val groups = groupedEngine().build(shouldCombine = false)
+
+        assertEquals(CREDENTIAL_COUNT + ACCOUNT_COUNT, groups.size)
+        groups.chunked(CREDENTIALS_PER_ACCOUNT + 1).forEachIndexed { index, cards ->
+            val accountNumber = expectedAccountOrder[index]
+            assertTrue(cards.all { it.issuer == issuerOf(accountNumber) && it.accountName == accountNameOf(accountNumber) })
+            // OATH cards first, then the Push card
+            assertTrue(cards.dropLast(1).all { it.oathCredentials.size == 1 && it.pushCredentials.isEmpty() })
+            assertTrue(cards.last().oathCredentials.isEmpty() && cards.last().pushCredentials.size == 1)
+        }
+    }
+
+    @Test
+    fun singleChangeRebuildsOnlyItsAccount() {
+        val engine = groupedEngine()
+        val before = engine.build(shouldCombine = true)
+
+        assertEquals(1, engine.update(oathCredentials.dropLast(1), pushCredentials))
+        val after = engine.build(shouldCombine = true)
+
+        assertEquals(before.size, after.size)
+        before.zip(after).forEach { (previous, current) ->
+            if (current.accountName == accountNameOf(ACCOUNT_COUNT - 1)) {
+                assertEquals(CREDENTIALS_PER_ACCOUNT - 1, current.oathCredentials.size)
+            } else {
+                assertSame(previous, current)
+            }
+        }
+    }
+
+    @Test
+    fun changedAccountsAreReportedWithTheirGroups() {
+        val engine = groupedEngine()
+        val groups = engine.build(shouldCombine = true)
+        val changedKeys = HashSet<AccountKey>()
+
+        engine.update(oathCredentials.dropLast(1), pushCredentials, changedKeys = changedKeys)
+
+        val changedKey = AccountKey(issuerOf(ACCOUNT_COUNT - 1), accountNameOf(ACCOUNT_COUNT - 1))
+        assertEquals(setOf(changedKey), changedKeys)
+        val changedGroups = engine.groupsOf(changedKey, shouldCombine = true)
+        assertEquals(CREDENTIALS_PER_ACCOUNT - 1, changedGroups.single().oathCredentials.size)
+        assertSame(changedGroups.single(), engine.build(shouldCombine = true).last())
+        assertSame(groups.first(), engine.groupsOf(AccountSearchIndex.keyOf(groups.first()), shouldCombine = true).single())
+        // The remaining OATH cards and the Push card
+        assertEquals(CREDENTIALS_PER_ACCOUNT - 1 + 1, engine.groupsOf(changedKey, shouldCombine = false).size)
+    }
+
+    @Test
+    fun renamedCredentialMovesToItsNewAccount() {
+        val engine = groupedEngine()
+        val moved = oathCredentials.first().copy(issuer = issuerOf(1), accountName = accountNameOf(1))
+
+        assertEquals(2, engine.update(listOf(moved) + oathCredentials.drop(1), pushCredentials))
+        val groups = engine.build(shouldCombine = true).associateBy { it.accountName }
+
+        assertEquals(CREDENTIALS_PER_ACCOUNT - 1, groups.getValue(accountNameOf(0)).oathCredentials.size)
+        assertEquals(CREDENTIALS_PER_ACCOUNT + 1, groups.getValue(accountNameOf(1)).oathCredentials.size)
+        assertEquals(0, engine.update(listOf(moved) + oathCredentials.drop(1), pushCredentials))
+    }
+
+    @Test
+    fun groupingTenThousandCredentialsStaysWithinBounds() {
+        // Warm up so the measured passes do not include class loading and JIT compilation
+        repeat(MEASURED_RUNS) { groupedEngine().build(shouldCombine = true) }
+
+        val fullPassMillis = bestOf {
+            val engine = AccountGroupingEngine()
+            engine.setAccountOrder(accountOrder)
+            engine.update(oathCredentials, pushCredentials)
+            engine.build(shouldCombine = true)
+        }
+        assertTrue("Full grouping pass took $fullPassMillis ms", fullPassMillis < MAX_FULL_PASS_MILLIS)
+
+        val engine = groupedEngine()
+        engine.build(shouldCombine = true)
+        val withoutLast = oathCredentials.dropLast(1)
+        var removed = true
+        val singleChangeMillis = bestOf {
+            engine.update(if (removed) withoutLast else oathCredentials, pushCredentials)
+            engine.build(shouldCombine = true)
+            removed = !removed
+        }
+        assertTrue("Single change took $singleChangeMillis ms", singleChangeMillis < MAX_SINGLE_CHANGE_MILLIS)
+    }
+
+    private fun bestOf(block: () -> Unit): Double =
+        List(MEASURED_RUNS) { measureNanoTime(block) }.min() / 1_000_000.0
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.authenticatorapp.data.AccountGroup
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.system.measureNanoTime
+
+class AccountSearchIndexTest {
+
+    companion object {
+        private const val ACCOUNT_COUNT = 5_000
+        private const val FRAME_MILLIS = 16
+        private const val MEASURED_RUNS = 5
+    }
+
+    private val societe = group("Société Générale", "jane.doe@example.com")
+    private val acme = group("ACME Corp", "john.smith@acme.io")
+    private val github = group("GitHub", "jane.doe")
+
+    private fun group(displayIssuer: String, displayAccountName: String) = AccountGroup(
+        issuer = displayIssuer,
+        accountName = displayAccountName,
+        displayIssuer = displayIssuer,
+        displayAccountName = displayAccountName
+    )
+
+    private fun indexOf(vararg groups: AccountGroup) = AccountSearchIndex().apply { update(groups.toList()) }
+
+    @Test
+    fun queryIgnoresCaseAndAccents() {
+        val index = indexOf(societe, acme, github)
+        val groups = listOf(societe, acme, github)
+
+        assertEquals(listOf(societe), index.filter(groups, "societe"))
+        assertEquals(listOf(societe), index.filter(groups, "SOCIÉTÉ"))
+        assertEquals(listOf(societe), index.filter(groups, "Generale"))
+        assertEquals(listOf(acme), index.filter(groups, "acmé"))
+    }
+
+    @Test
+    fun everyWordOfTheQueryHasToMatch() {
+        val index = indexOf(societe, acme, github)
+        val groups = listOf(societe, acme, github)
+
+        assertEquals(listOf(societe, github), index.filter(groups, "jane"))
+        assertEquals(listOf(github), index.filter(groups, "jane github"))
+        assertEquals(listOf(societe), index.filter(groups, "  example   JANE "))
+        assertEquals(emptyList<AccountGroup>(), index.filter(groups, "jane acme"))
+    }
+
+    @Test
+    fun shortWordsMatchPrefixesAndLongerWordsMatchAnywhere() {
+        val index = indexOf(societe, acme, github)
+        val groups = listOf(societe, acme, github)
+
+        // "ci" is inside "societe" but starts no word
+        assertEquals(emptyList<AccountGroup>(), index.filter(groups, "ci"))
+        assertEquals(listOf(societe), index.filter(groups, "so"))
+        assertEquals(listOf(societe), index.filter(groups, "cie"))
+        assertEquals(listOf(github), index.filter(groups, "hub"))
+        assertEquals(listOf(acme), index.filter(groups, "i"))
+    }
+
+    @Test
+    fun blankQueryShowsEveryAccount() {
+        val groups = listOf(societe, acme, github)
+
+        assertEquals(groups, indexOf(societe, acme, github).filter(groups, " "))
+    }
+
+    @Test
+    fun accountsWhoseNamesContainHyphensAreKeptApart() {
+        val first = AccountGroup("a-b", "c", displayIssuer = "Alpha", displayAccountName = "first")
+        val second = AccountGroup("a", "b-c", displayIssuer = "Beta", displayAccountName = "second")
+        val index = indexOf(first, second)
+
+        assertEquals(2, index.size)
+        assertEquals(listOf(first), index.filter(listOf(first, second), "alpha"))
+        assertEquals(listOf(second), index.filter(listOf(first, second), "second"))
+    }
+
+    @Test
+    fun updateOnlyReindexesChangedAccounts() {
+        val index = indexOf(societe, acme, github)
+        val renamed = acme.copy(displayIssuer = "Renamed")
+
+        assertEquals(1, index.update(listOf(societe, renamed, github)))
+        assertEquals(listOf(renamed), index.filter(listOf(societe, renamed, github), "renamed"))
+        assertEquals(emptyList<AccountGroup>(), index.filter(listOf(societe, renamed, github), "corp"))
+        assertEquals(1, index.update(listOf(societe, renamed)))
+        assertEquals(2, index.size)
+    }
+
+    @Test
+    fun applyReindexesOnlyTheGivenAccount() {
+        val index = indexOf(societe, acme, github)
+        val renamed = acme.copy(displayAccountName = "renamed@acme.io")
+
+        index.apply(AccountSearchIndex.keyOf(acme), listOf(renamed))
+        assertEquals(listOf(renamed), index.filter(listOf(societe, renamed, github), "renamed"))
+        assertEquals(emptyList<AccountGroup>(), index.filter(listOf(societe, renamed, github), "smith"))
+
+        index.apply(AccountSearchIndex.keyOf(github), emptyList())
+        assertEquals(2, index.size)
+        assertEquals(listOf(societe), index.filter(listOf(societe, renamed), "jane"))
+    }
+
+    @Test
+    fun searchingFiveThousandAccountsFitsInAFrame() {
+        val groups = List(ACCOUNT_COUNT) { index ->
+            group("SyntheticIssuer-$index", "synthetic.user$index@example.com")
+        }
+        val queries = listOf("s", "sy", "user4", "user42 example", "nomatch")
+        val index = indexOf(*groups.toTypedArray())
+
+        // Warm up so the measured passes do not include JIT compilation
+        repeat(MEASURED_RUNS) { queries.forEach { index.filter(groups, it) } }
+
+        assertEquals(ACCOUNT_COUNT, index.filter(groups, "sy").size)
+        // user4, user40 to user49, user400 to user499 and user4000 to user4999
+        assertEquals(1_111, index.filter(groups, "user4").size)
+        assertEquals(111, index.filter(groups, "user42 example").size)
+        queries.forEach { query ->
+            val millis = List(MEASURED_RUNS) { measureNanoTime { index.filter(groups, query) } }.min() / 1_000_000.0
+            assertTrue("Query \"$query\" took $millis ms", millis < FRAME_MILLIS)
+        }
+    }
+}
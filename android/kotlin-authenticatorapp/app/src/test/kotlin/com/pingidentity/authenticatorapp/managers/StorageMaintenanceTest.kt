@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.logger.Logger
+import kotlinx.coroutines.async
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.Closeable
+import java.io.File
+
+/**
+ * Runs the compaction against storages shaped like the SQL storages of the SDK.
+ */
+class StorageMaintenanceTest {
+
+    /**
+     * Stands for the database connection of the SDK, recording the statements it runs.
+     */
+    class SQLiteDatabase {
+        val statements = mutableListOf<String>()
+
+        fun isOpen() = true
+
+        fun execSQL(sql: String) {
+            statements += sql
+        }
+
+        fun rawQuery(sql: String, selectionArgs: Array<String>?): Cursor {
+            statements += sql
+            return Cursor()
+        }
+    }
+
+    /**
+     * Has the methods of a database connection, but is not one.
+     */
+    class StatementCache {
+        val statements = mutableListOf<String>()
+
+        fun execSQL(sql: String) {
+            statements += sql
+        }
+
+        fun rawQuery(sql: String, selectionArgs: Array<String>?): Cursor {
+            statements += sql
+            return Cursor()
+        }
+    }
+
+    class Cursor : Closeable {
+        fun moveToFirst() = true
+
+        override fun close() = Unit
+    }
+
+    open class SqlStorage(
+        val database: Any,
+        val context: Any = Any(),
+        val databaseName: String = "pingidentity_oath.db"
+    ) {
+        val mutex = Mutex()
+    }
+
+    // Its own fields are found before the ones of the base storage
+    class OathStorage(val cache: StatementCache, database: Any) : SqlStorage(database)
+
+    class UnlockedStorage(val database: SQLiteDatabase)
+
+    class LazyStorage {
+        val mutex = Mutex()
+        val database by lazy { SQLiteDatabase() }
+    }
+
+    private class RecordingLogger : Logger {
+        val warnings = mutableListOf<String>()
+
+        override fun d(message: String) = Unit
+
+        override fun i(message: String) = Unit
+
+        override fun w(message: String, throwable: Throwable?) {
+            warnings += message
+        }
+
+        override fun e(message: String, throwable: Throwable?) = Unit
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val logger = RecordingLogger()
+
+    // Each reading is 1.5 ms after the previous one
+    private var nanos = 0L
+    private val clock = { nanos.also { nanos += 1_500_000L } }
+
+    private val maintenance = StorageMaintenance(
+        maxBackupCount = 2,
+        diagnosticLogger = logger,
+        elapsedNanos = clock,
+        databasePath = { _, databaseName -> File(temporaryFolder.root, databaseName) }
+    )
+
+    @Test
+    fun compactionRunsOnTheDatabaseFieldWhileHoldingTheStorageLock() = runTest {
+        val cache = StatementCache()
+        val database = SQLiteDatabase()
+        val storage = OathStorage(cache, database)
+
+        // An SDK operation in progress
+        storage.mutex.lock()
+        val compaction = async { maintenance.compact("OATH", storage) }
+        runCurrent()
+        assertTrue(database.statements.isEmpty())
+
+        storage.mutex.unlock()
+
+        assertTrue(compaction.await())
+        assertEquals(listOf("VACUUM", "ANALYZE", "PRAGMA wal_checkpoint(TRUNCATE)"), database.statements)
+        assertTrue(cache.statements.isEmpty())
+        assertFalse(storage.mutex.isLocked)
+    }
+
+    @Test
+    fun compactionIsSkippedWithoutTheStorageLock() = runTest {
+        val storage = UnlockedStorage(SQLiteDatabase())
+
+        assertFalse(maintenance.compact("OATH", storage))
+        assertTrue(storage.database.statements.isEmpty())
+        assertEquals(1, logger.warnings.size)
+    }
+
+    @Test
+    fun databaseFieldOfAnotherTypeIsNotUsed() = runTest {
+        val cache = StatementCache()
+
+        assertFalse(maintenance.compact("Push", SqlStorage(cache)))
+        assertTrue(cache.statements.isEmpty())
+    }
+
+    @Test
+    fun lazyDatabaseIsNotOpenedByTheCompaction() = runTest {
+        val storage = LazyStorage()
+        val delegate = LazyStorage::class.java.getDeclaredField("database\$delegate")
+            .apply { isAccessible = true }
+            .get(storage) as Lazy<*>
+
+        assertFalse(maintenance.compact("Push", storage))
+        assertFalse(delegate.isInitialized())
+
+        storage.database
+        assertTrue(maintenance.compact("Push", storage))
+        assertEquals(3, storage.database.statements.size)
+    }
+
+    @Test
+    fun runReportsTheSizeAndQueryLatencyAroundTheMaintenance() = runTest {
+        val database = SQLiteDatabase()
+        val databaseFile = temporaryFolder.newFile("pingidentity_oath.db").apply { writeBytes(ByteArray(4096)) }
+        val journal = temporaryFolder.newFile("pingidentity_oath.db-wal").apply { writeBytes(ByteArray(1024)) }
+        val backups = (1..4).map { temporaryFolder.newFile("pingidentity_oath.db_backup_170000000000$it.db") }
+        var queries = 0
+
+        val report = maintenance.run(
+            name = "OATH",
+            storage = OathStorage(StatementCache(), database),
+            defaultDatabaseName = "unused.db",
+            backupFiles = { backups },
+            query = { queries++ },
+            prune = {
+                journal.writeBytes(ByteArray(0))
+                3
+            }
+        )
+
+        assertEquals(4096L + 1024L, report.sizeBeforeBytes)
+        assertEquals(databaseFile.length(), report.sizeAfterBytes)
+        assertEquals(1.5, report.queryLatencyBeforeMillis, 0.0)
+        assertEquals(1.5, report.queryLatencyAfterMillis, 0.0)
+        assertEquals(10, queries)
+        assertEquals(3, report.prunedNotifications)
+        assertEquals(2, report.deletedBackups)
+        assertEquals(listOf(false, false, true, true), backups.map { it.exists() })
+        assertTrue(report.compacted)
+        assertEquals(3, database.statements.size)
+    }
+
+    @Test
+    fun backupsAreRotatedByTheTimeInTheirNames() {
+        val oldest = File("pingidentity_oath.db_backup_1700000000000.db")
+        val older = File("pingidentity_oath.db_backup_1700000100000.db")
+        val newer = File("pingidentity_oath.db_backup_1700000200000.db")
+        val newest = File("pingidentity_oath.db_backup_1700000300000.db")
+        val unrelated = File("pingidentity_oath.db-journal")
+
+        assertEquals(
+            listOf(older, oldest),
+            StorageMaintenance.backupsToDelete(listOf(newer, unrelated, oldest, newest, older), keepCount = 2)
+        )
+        assertEquals(1700000000000L, StorageMaintenance.backupTimestampOf(oldest))
+        assertEquals(null, StorageMaintenance.backupTimestampOf(unrelated))
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.managers
+
+import com.pingidentity.mfa.oath.OathAlgorithm
+import com.pingidentity.mfa.oath.OathCredential
+import com.pingidentity.mfa.oath.OathType
+import com.pingidentity.mfa.push.PushCredential
+
+/**
+ * In-memory credentials for the unit tests. They are never stored, and several of them
+ * can share the same account.
+ */
+internal object SyntheticCredentials {
+
+    private const val SECRET = "JBSWY3DPEHPK3PXPJBSWY3DPEHPK3PXP"
+    private const val SERVER_ENDPOINT = "https://test.example.com/push"
+
+    /**
+     * Returns the issuer of the synthetic account with the given number.
+     */
+    fun issuerOf(accountNumber: Int) = "SyntheticIssuer-$accountNumber"
+
+    /**
+     * Returns the account name of the synthetic account with the given number.
+     */
+    fun accountNameOf(accountNumber: Int) = "synthetic.user$accountNumber@example.com"
+
+    /**
+     * Creates OATH credentials, [credentialsPerAccount] consecutive credentials sharing the same account.
+     *
+     * @param count Number of credentials to create
+     * @param credentialsPerAccount Number of credentials sharing the same issuer and account name
+     */
+    fun oathCredentials(count: Int, credentialsPerAccount: Int = 4): List<OathCredential> =
+        List(count) { index ->
+            val accountNumber = index / credentialsPerAccount
+            oathCredential(
+                id = "synthetic-oath-$index",
+                issuer = issuerOf(accountNumber),
+                accountName = accountNameOf(accountNumber)
+            )
+        }
+
+    /**
+     * Creates Push credentials, one for each of the first [count] accounts.
+     *
+     * @param count Number of credentials to create
+     */
+    fun pushCredentials(count: Int): List<PushCredential> = List(count) { accountNumber ->
+        pushCredential(
+            id = "synthetic-push-$accountNumber",
+            issuer = issuerOf(accountNumber),
+            accountName = accountNameOf(accountNumber)
+        )
+    }
+
+    /**
+     * Creates a single OATH credential.
+     */
+    fun oathCredential(id: String, issuer: String, accountName: String) = OathCredential(
+        id = id,
+        accountName = accountName,
+        issuer = issuer,
+        oathType = OathType.TOTP,
+        oathAlgorithm = OathAlgorithm.SHA1,
+        digits = 6,
+        period = 30,
+        secret = SECRET
+    )
+
+    /**
+     * Creates a single Push credential.
+     */
+    fun pushCredential(id: String, issuer: String, accountName: String) = PushCredential(
+        id = id,
+        accountName = accountName,
+        issuer = issuer,
+        userId = "user-$id",
+        sharedSecret = SECRET,
+        serverEndpoint = SERVER_ENDPOINT
+    )
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.service
+
+import com.pingidentity.authenticatorapp.data.LocationAddress
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockRequestHandleScope
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.engine.mock.respondError
+import io.ktor.client.plugins.contentnegotiation.ContentNegotiation
+import io.ktor.client.request.HttpRequestData
+import io.ktor.client.request.HttpResponseData
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.headersOf
+import io.ktor.serialization.kotlinx.json.json
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import kotlinx.serialization.json.Json
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+/**
+ * Runs [LocationService] against a mock Nominatim API, in virtual time.
+ */
+class LocationServiceTest {
+
+    companion object {
+        private const val BASE_URL = "https://nominatim.test"
+
+        private val PARIS = LocationAddress(city = "Paris", state = "Île-de-France", country = "France")
+        private val BERLIN = LocationAddress(city = "Berlin", state = "Berlin", country = "Germany")
+        private val TOKYO = LocationAddress(city = "Tokyo", state = "Tokyo", country = "Japan")
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    /**
+     * A request received by the mock API, with the virtual time it was received at.
+     */
+    private class ReceivedRequest(val request: HttpRequestData, val timeMillis: Long)
+
+    private val requests = mutableListOf<ReceivedRequest>()
+
+    // Addresses returned by the mock API, keyed by the latitude requested
+    private fun addressOf(latitude: Double) = when (latitude.toInt()) {
+        48 -> PARIS
+        52 -> BERLIN
+        35 -> TOKYO
+        else -> null
+    }
+
+    private fun MockRequestHandleScope.respondWith(address: LocationAddress?): HttpResponseData {
+        val content = address?.let {
+            """{"address":{"city":"${it.city}","state":"${it.state}","country":"${it.country}"}}"""
+        } ?: "{}"
+        return respond(content, HttpStatusCode.OK, headersOf(HttpHeaders.ContentType, "application/json"))
+    }
+
+    /**
+     * Creates a service whose requests, cache reads and rate limit all run in the virtual time of the test.
+     *
+     * @param gate Completed to let the mock API answer, or null to answer immediately
+     * @param online Whether the mock API answers the requests, or fails them
+     */
+    private fun TestScope.locationService(
+        cacheFile: File? = null,
+        gate: CompletableDeferred<Unit>? = null,
+        online: Boolean = true
+    ): LocationService {
+        val dispatcher = StandardTestDispatcher(testScheduler)
+        val httpClient = HttpClient(MockEngine) {
+            engine {
+                this.dispatcher = dispatcher
+                addHandler { request ->
+                    requests += ReceivedRequest(request, testScheduler.currentTime)
+                    gate?.await()
+                    if (!online) return@addHandler respondError(HttpStatusCode.ServiceUnavailable)
+                    val latitude = request.url.parameters["lat"]!!.toDouble()
+                    respondWith(addressOf(latitude))
+                }
+            }
+            install(ContentNegotiation) {
+                json(Json { ignoreUnknownKeys = true })
+            }
+        }
+        return LocationService(
+            cacheFile = cacheFile,
+            baseUrl = BASE_URL,
+            httpClient = httpClient,
+            clock = { testScheduler.currentTime },
+            ioDispatcher = dispatcher
+        )
+    }
+
+    @Test
+    fun lookupSendsTheNominatimRequest() = runTest {
+        val service = locationService()
+
+        assertEquals(PARIS, service.reverseGeocode(48.8566, 2.3522))
+
+        val request = requests.single().request
+        assertEquals("$BASE_URL/reverse", request.url.toString().substringBefore('?'))
+        assertEquals("48.8566", request.url.parameters["lat"])
+        assertEquals("2.3522", request.url.parameters["lon"])
+        assertEquals("10", request.url.parameters["zoom"])
+        assertTrue(request.headers[HttpHeaders.UserAgent].orEmpty().isNotEmpty())
+        service.close()
+    }
+
+    @Test
+    fun nearbyLookupsAreServedFromTheCache() = runTest {
+        val service = locationService()
+
+        assertEquals(PARIS, service.reverseGeocode(48.8566, 2.3522))
+        // Rounds to the same two decimals
+        assertEquals(PARIS, service.reverseGeocode(48.8571, 2.3519))
+        assertEquals(PARIS, service.reverseGeocode(48.8566, 2.3522))
+
+        assertEquals(1, requests.size)
+        service.close()
+    }
+
+    @Test
+    fun persistedCacheServesTheNextServiceOffline() = runTest {
+        val cacheFile = File(temporaryFolder.root, "geocoding_cache.json")
+        val first = locationService(cacheFile)
+        assertEquals(PARIS, first.reverseGeocode(48.8566, 2.3522))
+        assertEquals(BERLIN, first.reverseGeocode(52.52, 13.405))
+        first.close()
+        assertTrue(cacheFile.exists())
+        requests.clear()
+
+        val second = locationService(cacheFile, online = false)
+
+        assertEquals(PARIS, second.reverseGeocode(48.8566, 2.3522))
+        assertEquals(BERLIN, second.reverseGeocode(52.52, 13.405))
+        assertEquals(0, requests.size)
+        second.close()
+    }
+
+    @Test
+    fun identicalLookupsInFlightShareOneRequest() = runTest {
+        val gate = CompletableDeferred<Unit>()
+        val service = locationService(gate = gate)
+
+        val lookups = List(5) { async { service.reverseGeocode(48.8566, 2.3522) } }
+        runCurrent()
+        assertEquals(1, requests.size)
+
+        gate.complete(Unit)
+
+        assertEquals(List(5) { PARIS }, lookups.awaitAll())
+        assertEquals(1, requests.size)
+        service.close()
+    }
+
+    @Test
+    fun requestsAreSpacedByTheRateLimit() = runTest {
+        val service = locationService()
+
+        val lookups = listOf(48.8566 to 2.3522, 52.52 to 13.405, 35.6762 to 139.6503).map { (latitude, longitude) ->
+            async { service.reverseGeocode(latitude, longitude) }
+        }
+
+        assertEquals(listOf(PARIS, BERLIN, TOKYO), lookups.awaitAll())
+        val requestTimes = requests.map { it.timeMillis }
+        assertEquals(3, requestTimes.size)
+        requestTimes.zipWithNext().forEach { (previous, next) ->
+            assertTrue("Requests at $previous and $next ms", next - previous >= LocationService.MIN_REQUEST_INTERVAL_MS)
+        }
+
+        // Cached lookups do not wait for the rate limit
+        val timeBefore = testScheduler.currentTime
+        assertEquals(BERLIN, service.reverseGeocode(52.52, 13.405))
+        assertEquals(timeBefore, testScheduler.currentTime)
+        assertEquals(3, requests.size)
+        service.close()
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.benchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures the main user journeys over [SEEDED_ACCOUNT_COUNT] seeded accounts.
+ * Frame timings report the jank of each journey.
+ *
+ * Run with `./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest`.
+ */
+@RunWith(AndroidJUnit4::class)
+class AccountsBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    /**
+     * Brings the app back to the accounts list from the home screen.
+     */
+    @Test
+    fun openAccounts() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric(), FrameTimingMetric()),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        startupMode = StartupMode.HOT,
+        setupBlock = { seedTestData() }
+    ) {
+        startActivityAndWait()
+        waitForAccounts()
+    }
+
+    /**
+     * Scrolls through the whole accounts list.
+     */
+    @Test
+    fun scrollAccounts() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        setupBlock = { launchToAccounts() }
+    ) {
+        scrollAccounts()
+    }
+
+    /**
+     * Leaves the accounts list on screen while the TOTP countdowns run.
+     * The countdowns are only redrawn, so the number of recompositions should stay close to 0.
+     * This counts whole recompose passes of the app; the recompositions of each row across a tick
+     * and a period boundary are asserted by AccountGroupItemRecompositionTest in the app module.
+     */
+    @OptIn(ExperimentalMetricApi::class)
+    @Test
+    fun idleAccounts() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(
+            FrameTimingMetric(),
+            TraceSectionMetric(RECOMPOSE_SECTION, TraceSectionMetric.Mode.Count)
+        ),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        setupBlock = { launchToAccounts() }
+    ) {
+        Thread.sleep(IDLE_DURATION_MS)
+    }
+
+    /**
+     * Opens the push notification history.
+     */
+    @Test
+    fun openPushHistory() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        setupBlock = { launchToAccounts() }
+    ) {
+        openPushHistory()
+    }
+
+    /**
+     * Approves the pending notification from the push history.
+     */
+    @Test
+    fun approveNotification() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        setupBlock = {
+            launchToAccounts()
+            openPushHistory()
+        }
+    ) {
+        approveNotification()
+    }
+
+    private fun MacrobenchmarkScope.launchToAccounts() {
+        seedTestData()
+        killProcess()
+        startActivityAndWait()
+        waitForAccounts()
+    }
+
+    private companion object {
+        const val ITERATIONS = 5
+        const val IDLE_DURATION_MS = 5_000L
+
+        // Trace section of each recomposition pass of the Compose runtime
+        const val RECOMPOSE_SECTION = "Recomposer:recompose"
+    }
+}
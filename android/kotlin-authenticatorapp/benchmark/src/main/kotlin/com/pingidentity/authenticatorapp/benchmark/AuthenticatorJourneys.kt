@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.benchmark
+
+import android.content.Intent
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.Until
+
+/**
+ * Package name of the app under test.
+ */
+const val TARGET_PACKAGE = "com.pingidentity.authenticatorapp"
+
+/**
+ * Number of OATH accounts seeded before the benchmarks run.
+ */
+const val SEEDED_ACCOUNT_COUNT = 200
+
+private const val SEED_ACTIVITY = "$TARGET_PACKAGE.TestDataSeedActivity"
+private const val EXTRA_OATH_COUNT = "OATH_COUNT"
+private const val EXTRA_PUSH_COUNT = "PUSH_COUNT"
+private const val EXTRA_PENDING_NOTIFICATION = "PENDING_NOTIFICATION"
+
+// Texts shown by the app, matched by UiAutomator
+private const val SEED_COMPLETE_TEXT = "Test data ready"
+private const val FIRST_SEEDED_ISSUER = "SeedIssuer-0"
+private const val SEEDED_PUSH_ISSUER = "SeedPushIssuer-0"
+private const val MENU_DESCRIPTION = "Menu"
+private const val NOTIFICATIONS_TEXT = "Notifications"
+private const val PENDING_REQUESTS_TEXT = "Pending Requests"
+private const val APPROVE_TEXT = "Approve"
+
+private const val SEED_TIMEOUT_MS = 60_000L
+private const val UI_TIMEOUT_MS = 10_000L
+private const val SCROLL_FLINGS = 4
+
+/**
+ * Seeds the app with test accounts created by the benchmark build types of the app and a pending push notification.
+ * Seeding is idempotent and works offline: existing seeded accounts are kept, and the notification
+ * is built locally instead of being delivered by FCM.
+ *
+ * The seeding activity is only reachable from the shell, which is how Macrobenchmark starts activities.
+ */
+fun MacrobenchmarkScope.seedTestData(
+    oathCount: Int = SEEDED_ACCOUNT_COUNT,
+    pushCount: Int = 1,
+    pendingNotification: Boolean = true
+) {
+    grantNotificationPermission()
+    val intent = Intent()
+        .setClassName(TARGET_PACKAGE, SEED_ACTIVITY)
+        .putExtra(EXTRA_OATH_COUNT, oathCount)
+        .putExtra(EXTRA_PUSH_COUNT, pushCount)
+        .putExtra(EXTRA_PENDING_NOTIFICATION, pendingNotification)
+    startActivityAndWait(intent)
+    check(device.wait(Until.hasObject(By.text(SEED_COMPLETE_TEXT)), SEED_TIMEOUT_MS)) {
+        "Test data was not seeded within $SEED_TIMEOUT_MS ms"
+    }
+    pressHome()
+}
+
+/**
+ * Grants the notification permission up front so the permission dialog never covers the app.
+ */
+fun MacrobenchmarkScope.grantNotificationPermission() {
+    device.executeShellCommand("pm grant $TARGET_PACKAGE android.permission.POST_NOTIFICATIONS")
+}
+
+/**
+ * Waits until the accounts list shows the first seeded account.
+ */
+fun MacrobenchmarkScope.waitForAccounts() {
+    check(device.wait(Until.hasObject(By.textContains(FIRST_SEEDED_ISSUER)), UI_TIMEOUT_MS)) {
+        "Seeded accounts were not shown within $UI_TIMEOUT_MS ms"
+    }
+}
+
+/**
+ * Flings the accounts list to the bottom and back to the top.
+ */
+fun MacrobenchmarkScope.scrollAccounts() {
+    val list = device.findObject(By.scrollable(true))
+    // Keep the gestures away from the system navigation areas
+    list.setGestureMargin(device.displayWidth / 5)
+    repeat(SCROLL_FLINGS) {
+        list.fling(Direction.DOWN)
+        device.waitForIdle()
+    }
+    repeat(SCROLL_FLINGS) {
+        list.fling(Direction.UP)
+        device.waitForIdle()
+    }
+}
+
+/**
+ * Opens the push notification history from the accounts screen menu.
+ */
+fun MacrobenchmarkScope.openPushHistory() {
+    device.findObject(By.desc(MENU_DESCRIPTION)).click()
+    check(device.wait(Until.hasObject(By.text(NOTIFICATIONS_TEXT)), UI_TIMEOUT_MS)) {
+        "Menu was not shown within $UI_TIMEOUT_MS ms"
+    }
+    device.findObject(By.text(NOTIFICATIONS_TEXT)).click()
+    check(device.wait(Until.hasObject(By.text(PENDING_REQUESTS_TEXT)), UI_TIMEOUT_MS)) {
+        "Push history was not shown within $UI_TIMEOUT_MS ms"
+    }
+}
+
+/**
+ * Opens the pending seeded notification from the push history and approves it.
+ * Without network access the request to the server fails and the notification is restored,
+ * which still exercises the optimistic update of the UI.
+ */
+fun MacrobenchmarkScope.approveNotification() {
+    device.findObject(By.textContains(SEEDED_PUSH_ISSUER)).click()
+    check(device.wait(Until.hasObject(By.text(APPROVE_TEXT)), UI_TIMEOUT_MS)) {
+        "Notification was not shown within $UI_TIMEOUT_MS ms"
+    }
+    device.findObject(By.text(APPROVE_TEXT)).click()
+    device.wait(Until.gone(By.text(APPROVE_TEXT)), UI_TIMEOUT_MS)
+}
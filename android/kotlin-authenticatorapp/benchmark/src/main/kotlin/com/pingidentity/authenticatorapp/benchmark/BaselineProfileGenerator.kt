@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.benchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Generates the baseline profile of the app from its startup and main journeys.
+ *
+ * Run with `./gradlew :app:generateBaselineProfile`. The profile is written to
+ * `app/src/main/generated/baselineProfiles` and installed by ProfileInstaller.
+ */
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun generate() = baselineProfileRule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true
+    ) {
+        seedTestData()
+        killProcess()
+        startActivityAndWait()
+        waitForAccounts()
+        scrollAccounts()
+        openPushHistory()
+    }
+}
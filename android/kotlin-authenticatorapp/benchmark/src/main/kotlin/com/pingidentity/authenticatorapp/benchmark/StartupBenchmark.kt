@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2026 Ping Identity Corporation. All rights reserved.
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+
+package com.pingidentity.authenticatorapp.benchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures cold and warm start until the seeded accounts are shown.
+ * Time to full display is reported once the first OTP codes are visible.
+ *
+ * Run with `./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest`.
+ */
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun coldStart() = startup(StartupMode.COLD)
+
+    @Test
+    fun warmStart() = startup(StartupMode.WARM)
+
+    private fun startup(startupMode: StartupMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = CompilationMode.Partial(),
+        iterations = ITERATIONS,
+        startupMode = startupMode,
+        setupBlock = {
+            seedTestData()
+            if (startupMode == StartupMode.COLD) {
+                killProcess()
+            }
+        }
+    ) {
+        startActivityAndWait()
+        waitForAccounts()
+    }
+
+    private companion object {
+        const val ITERATIONS = 10
+    }
+}
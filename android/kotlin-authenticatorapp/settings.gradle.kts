@@ -24,4 +24,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Ping Authenticator"
 include(":app")
+include(":benchmark")
  
\ No newline at end of file